@@ -1,5 +1,6 @@
 package com.example.movie_service.builder;
 
+import com.example.movie_service.dto.MovieSearchCursor;
 import lombok.Builder;
 import lombok.Getter;
 import lombok.Setter;
@@ -29,4 +30,13 @@ public class MovieSearchParam {
     private Integer page;
     private String orderBy;
     private String direction;
+    // Match misspelled titles. Only the in-memory search engine supports it, and it also uses it when nothing else
+    // matches. The SQL search engine ignores it.
+    private Boolean fuzzy;
+    // exact, or estimate to let the SQL search engine stop counting the total items of a broad search at a cap
+    private String count;
+    // The nextCursor token of the previous page. When it's given, the page parameter is ignored.
+    private String cursor;
+    // The decoded cursor, set by the MovieServiceImpl after validating it. The repositories seek to the movie after it.
+    private MovieSearchCursor after;
 }
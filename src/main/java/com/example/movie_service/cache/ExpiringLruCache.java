@@ -0,0 +1,85 @@
+package com.example.movie_service.cache;
+
+import java.time.Duration;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * A small bounded cache: the least recently used entry is evicted when it's full, and an entry expires after its time
+ * to live. Every access takes the cache's lock, so it's meant for caches that are read once per search, not per row.
+ *
+ * @param <K> the type of the keys. They need equals and hashCode.
+ * @param <V> the type of the values
+ */
+public final class ExpiringLruCache<K, V> {
+
+    private final int maxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+
+    // Access-ordered, so the eldest entry is the least recently used one
+    private final LinkedHashMap<K, Entry<V>> entries = new LinkedHashMap<>(16, 0.75f, true);
+
+    /**
+     * @param maxSize the maximum number of entries. 0 disables the cache.
+     * @param ttl how long an entry is used after it was written
+     * @param nanoTime the clock of the time to live
+     */
+    public ExpiringLruCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        this.maxSize = maxSize;
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return the value of the key, or null if there's none or it expired
+     */
+    public synchronized V get(K key) {
+        Entry<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        if (isExpired(entry, nanoTime.getAsLong())) {
+            entries.remove(key);
+            return null;
+        }
+        return entry.value();
+    }
+
+    public void put(K key, V value) {
+        put(key, value, existing -> true);
+    }
+
+    /**
+     * Cache the value of the key, unless the key has a value that is still fresh and the value must not replace it
+     * @param replacesFresh tests the fresh value of the key: true if the value replaces it
+     */
+    public synchronized void put(K key, V value, Predicate<? super V> replacesFresh) {
+        if (maxSize <= 0) {
+            return;
+        }
+        long now = nanoTime.getAsLong();
+        Entry<V> existing = entries.get(key);
+        if (existing != null && !isExpired(existing, now) && !replacesFresh.test(existing.value())) {
+            return;
+        }
+        entries.put(key, new Entry<>(value, now));
+        if (entries.size() > maxSize) {
+            Map.Entry<K, Entry<V>> eldest = entries.entrySet().iterator().next();
+            entries.remove(eldest.getKey());
+        }
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    private boolean isExpired(Entry<V> entry, long now) {
+        return now - entry.createdAt() >= ttlNanos;
+    }
+
+    private record Entry<V>(V value, long createdAt) {
+    }
+}
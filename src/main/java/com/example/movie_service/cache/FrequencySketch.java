@@ -0,0 +1,97 @@
+package com.example.movie_service.cache;
+
+/**
+ * A count-min sketch of how often the keys were seen recently, for the admission of TinyLfuCache. <br>
+ *
+ * Each long of the table holds sixteen 4-bit counters, and each of the four rows owns four of them. A key increments
+ * one counter of each row, and its frequency is the smallest of the four, so a collision can only make a key look more
+ * frequent. A counter stops at 15. After ten increments per entry of the cache, every counter is halved, so the keys
+ * that were popular a long time ago don't stay popular forever. <br>
+ *
+ * It's not thread-safe: TinyLfuCache only uses it under its lock.
+ */
+final class FrequencySketch {
+
+    private static final long[] SEEDS = {
+            0x97CB3127L, 0xC2B2AE35L, 0x85EBCA6BL, 0xF0A1E3B5L
+    };
+    private static final long RESET_MASK = 0x7777_7777_7777_7777L;
+    private static final int MAX_COUNT = 15;
+
+    private final long[] table;
+    private final int tableMask;
+    private final int sampleSize;
+    private int additions;
+
+    /**
+     * @param maximumSize the maximum number of entries of the cache
+     */
+    FrequencySketch(int maximumSize) {
+        int size = Integer.highestOneBit(Math.max(maximumSize, 8) - 1) << 1;
+        this.table = new long[size];
+        this.tableMask = size - 1;
+        this.sampleSize = 10 * Math.max(maximumSize, 1);
+    }
+
+    /**
+     * @return how often the key was seen recently, from 0 to 15
+     */
+    int frequency(Object key) {
+        int hash = spread(key.hashCode());
+        int frequency = MAX_COUNT;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int rowHash = rowHash(hash, row);
+            frequency = Math.min(frequency, (int) ((table[rowHash & tableMask] >>> offset(rowHash, row)) & 0xF));
+        }
+        return frequency;
+    }
+
+    /**
+     * Record that the key was seen
+     */
+    void increment(Object key) {
+        int hash = spread(key.hashCode());
+        boolean added = false;
+        for (int row = 0; row < SEEDS.length; row++) {
+            int rowHash = rowHash(hash, row);
+            added |= incrementAt(rowHash & tableMask, offset(rowHash, row));
+        }
+        if (added && ++additions == sampleSize) {
+            reset();
+        }
+    }
+
+    private boolean incrementAt(int index, int offset) {
+        long mask = 0xFL << offset;
+        if ((table[index] & mask) == mask) {
+            return false;
+        }
+        table[index] += 1L << offset;
+        return true;
+    }
+
+    // Halve every counter, and the number of additions with them
+    private void reset() {
+        for (int i = 0; i < table.length; i++) {
+            table[i] = (table[i] >>> 1) & RESET_MASK;
+        }
+        additions /= 2;
+    }
+
+    // The bit offset of the row's counter in the long: row r owns the counters 4r to 4r + 3
+    private static int offset(int rowHash, int row) {
+        return ((row << 2) + (rowHash >>> 30)) << 2;
+    }
+
+    private static int rowHash(int hash, int row) {
+        long h = (hash + SEEDS[row]) * SEEDS[row];
+        h += h >>> 32;
+        return (int) h;
+    }
+
+    // Mix the bits of a poor hashCode, such as the one of a small Integer
+    private static int spread(int hashCode) {
+        int h = hashCode * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
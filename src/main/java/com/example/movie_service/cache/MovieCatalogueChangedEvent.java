@@ -0,0 +1,24 @@
+package com.example.movie_service.cache;
+
+import java.util.Set;
+
+/**
+ * Published when movies were added, changed or removed: by the in-memory search index when it's rebuilt or applies a
+ * batch of the change feed, and by the MovieDetailsCacheInvalidator when it finds changed movies.
+ * @param movieIds the ids of the changed movies, or an empty set when the whole catalogue was loaded again
+ * @param moviesAdded true if a movie that couldn't be found before can be found now, so a search that found no movie
+ *                    may find one
+ */
+public record MovieCatalogueChangedEvent(Set<String> movieIds, boolean moviesAdded) {
+
+    /**
+     * @return the event of a catalogue that was loaded again, where any movie may have changed
+     */
+    public static MovieCatalogueChangedEvent reloaded() {
+        return new MovieCatalogueChangedEvent(Set.of(), true);
+    }
+
+    public boolean isReload() {
+        return movieIds.isEmpty();
+    }
+}
@@ -0,0 +1,180 @@
+package com.example.movie_service.cache;
+
+import com.example.movie_service.dto.OneMovieDetailsDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.function.LongSupplier;
+
+import static com.example.movie_service.constant.MovieConstant.CACHE_REFRESH_EXECUTOR;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_CACHE_MAX_SIZE_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_CACHE_MAX_STALE_SECONDS_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_CACHE_REFRESH_AFTER_SECONDS_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_CACHE_TTL_SECONDS_PROPERTY;
+
+/**
+ * The details of the recently viewed movies, keyed by movie id, so a page view doesn't run the details queries
+ * again. <br>
+ *
+ * An entry is used until its time to live ends or the movie's version is bumped, by the change feed of the data
+ * pipeline or by an admin. The version is read before the details are loaded and cached with them, so details loaded
+ * while the movie changed are never used: their version is already old when they're cached. The versions are kept in
+ * a fixed number of stripes instead of one per movie, so the movies that share a stripe are invalidated together,
+ * which only costs a miss. <br>
+ *
+ * The entries are kept by a TinyLfuCache, so the movies viewed once don't evict the popular ones. A popular movie is
+ * loaded again in the background before its time to live ends, and details past their time to live are still used for
+ * a while, as they're loaded again in the background. Stale details of a bumped version are never used.
+ * @see RefreshAheadCache
+ */
+@Component
+public class MovieDetailsCache {
+
+    private static final int VERSION_STRIPES = 4096;
+
+    private final RefreshAheadCache<String, Entry> details;
+    private final AtomicLongArray versions = new AtomicLongArray(VERSION_STRIPES);
+    // Bumped by evictAll, it's part of every movie's version
+    private final AtomicLong generation = new AtomicLong();
+
+    @Autowired
+    public MovieDetailsCache(@Value("${" + MOVIE_DETAILS_CACHE_MAX_SIZE_PROPERTY + ":10000}") int maxSize,
+                             @Value("${" + MOVIE_DETAILS_CACHE_TTL_SECONDS_PROPERTY + ":3600}") long ttlSeconds,
+                             @Value("${" + MOVIE_DETAILS_CACHE_REFRESH_AFTER_SECONDS_PROPERTY + ":3000}")
+                             long refreshAfterSeconds,
+                             @Value("${" + MOVIE_DETAILS_CACHE_MAX_STALE_SECONDS_PROPERTY + ":600}")
+                             long maxStaleSeconds,
+                             @Qualifier(CACHE_REFRESH_EXECUTOR) Executor refreshExecutor) {
+        this(maxSize, Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(refreshAfterSeconds),
+                Duration.ofSeconds(maxStaleSeconds), refreshExecutor, System::nanoTime);
+    }
+
+    /**
+     * A cache without refreshes or stale reads
+     * @param maxSize the maximum number of entries. 0 disables the cache.
+     * @param ttl how long an entry is used
+     * @param nanoTime the clock of the time to live
+     */
+    public MovieDetailsCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        this(maxSize, ttl, ttl, Duration.ZERO, Runnable::run, nanoTime);
+    }
+
+    /**
+     * @param maxSize the maximum number of entries. 0 disables the cache.
+     * @param ttl how long an entry is used without being stale
+     * @param refreshAfter when a popular movie is loaded again
+     * @param maxStale how long an entry is still used after its time to live
+     * @param refreshExecutor the executor of the refreshes
+     * @param nanoTime the clock of the time to live
+     */
+    public MovieDetailsCache(int maxSize, Duration ttl, Duration refreshAfter, Duration maxStale,
+                             Executor refreshExecutor, LongSupplier nanoTime) {
+        this.details = new RefreshAheadCache<>(maxSize, ttl, refreshAfter, maxStale, refreshExecutor, nanoTime);
+    }
+
+    /**
+     * @return the current version of the movie, to read before loading its details and to cache them with
+     */
+    public long version(String movieId) {
+        return generation.get() + versions.get(stripeOf(movieId));
+    }
+
+    /**
+     * Get the fresh cached details of a movie
+     * @param movieId the movie's id
+     * @return the details, or null if there are none, they expired or the movie's version was bumped since they were
+     * loaded
+     */
+    public OneMovieDetailsDTO get(String movieId) {
+        return get(movieId, null);
+    }
+
+    /**
+     * Get the cached details of a movie, and load them again in the background if the movie is popular and they're
+     * about to expire, or if they're stale
+     * @param movieId the movie's id
+     * @param refresh loads the details again and puts them with the version read before
+     * @return the details, or null if there are none, they're too stale or the movie's version was bumped since they
+     * were loaded
+     */
+    public OneMovieDetailsDTO get(String movieId, Runnable refresh) {
+        Entry entry = details.get(movieId, refresh);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.version() != version(movieId)) {
+            details.remove(movieId);
+            return null;
+        }
+        return entry.details();
+    }
+
+    /**
+     * Cache the details of a movie. They're shared by the requests that get them, so they must not be modified.
+     * @param movieId the movie's id
+     * @param version the version of the movie read before the details were loaded
+     * @param movieDetails the details
+     */
+    public void put(String movieId, long version, OneMovieDetailsDTO movieDetails) {
+        if (version == version(movieId)) {
+            details.put(movieId, new Entry(movieDetails, version));
+        }
+    }
+
+    /**
+     * Invalidate the cached details of a movie, and the ones being loaded now
+     * @param movieId the id of the movie that changed
+     */
+    public void bumpVersion(String movieId) {
+        versions.incrementAndGet(stripeOf(movieId));
+        details.remove(movieId);
+    }
+
+    /**
+     * Remove the cached details of a movie that doesn't exist anymore
+     * @param movieId the movie's id
+     */
+    public void remove(String movieId) {
+        details.remove(movieId);
+    }
+
+    /**
+     * Invalidate the cached details of every movie, and the ones being loaded now
+     */
+    public void evictAll() {
+        generation.incrementAndGet();
+        details.clear();
+    }
+
+    public int size() {
+        return details.size();
+    }
+
+    /**
+     * @return the hits, misses and evictions of the cache since the start. The entries of a bumped version count as
+     * hits of the underlying cache, and so are the stale reads.
+     */
+    public TinyLfuCache.Stats getStats() {
+        return details.getStats();
+    }
+
+    /**
+     * @return the stale reads and the refreshes of the cache since the start
+     */
+    public RefreshAheadCache.RefreshStats getRefreshStats() {
+        return details.getRefreshStats();
+    }
+
+    private static int stripeOf(String movieId) {
+        return Math.floorMod(movieId.hashCode(), VERSION_STRIPES);
+    }
+
+    private record Entry(OneMovieDetailsDTO details, long version) {
+    }
+}
@@ -0,0 +1,85 @@
+package com.example.movie_service.cache;
+
+import com.example.movie_service.index.MovieChangeLogRow;
+import com.example.movie_service.index.MovieSearchIndexLoader;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_CACHE_CHANGE_FEED_ENABLED_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_CACHE_CHANGE_FEED_POLL_INTERVAL_PROPERTY;
+
+/**
+ * Polls the movie_change_log table written by the data pipeline, and bumps the version of every changed movie in the
+ * MovieDetailsCache, so its cached details aren't used anymore. Then it publishes a MovieCatalogueChangedEvent, so the
+ * other caches can drop what the changes made wrong. <br>
+ *
+ * A poll reads the rows of the previous one again, because of the overlap, so only the rows it didn't see before are
+ * applied and published: a change bumps its movie and is published once. <br>
+ *
+ * It's only created when movie.details.cache.change-feed.enabled=true.
+ * @see MovieDetailsCache#bumpVersion(String)
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = MOVIE_DETAILS_CACHE_CHANGE_FEED_ENABLED_PROPERTY, havingValue = "true")
+public class MovieDetailsCacheInvalidator {
+
+    // Same overlap as the change feed of the in-memory search index: a change committed late is still seen
+    private static final Duration CHANGE_FEED_OVERLAP = Duration.ofMinutes(1);
+
+    private final MovieSearchIndexLoader loader;
+    private final MovieDetailsCache detailsCache;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Nothing is cached before the start, so the changes before it don't matter
+    private Instant polledUntil = Instant.now();
+
+    // The rows the last poll applied. The periods of the polls only move forward, so a row that the last poll didn't
+    // read is never read again.
+    private Set<MovieChangeLogRow> appliedRows = Set.of();
+
+    @Autowired
+    public MovieDetailsCacheInvalidator(MovieSearchIndexLoader loader, MovieDetailsCache detailsCache,
+                                        ApplicationEventPublisher eventPublisher) {
+        this.loader = loader;
+        this.detailsCache = detailsCache;
+        this.eventPublisher = eventPublisher;
+    }
+
+    /**
+     * Bump the movies changed since the last poll. A failed poll is logged, and its changes are loaded by the next one.
+     */
+    @Scheduled(fixedDelayString = "${" + MOVIE_DETAILS_CACHE_CHANGE_FEED_POLL_INTERVAL_PROPERTY + ":10000}")
+    public synchronized void poll() {
+        Instant until = Instant.now();
+        try {
+            List<MovieChangeLogRow> rows = loader.loadChangeLogRows(polledUntil.minus(CHANGE_FEED_OVERLAP), until);
+            Set<String> movieIds = new HashSet<>();
+            for (MovieChangeLogRow row : rows) {
+                if (!appliedRows.contains(row)) {
+                    movieIds.add(row.movieId());
+                }
+            }
+            movieIds.forEach(detailsCache::bumpVersion);
+            appliedRows = new HashSet<>(rows);
+            polledUntil = until;
+            if (!movieIds.isEmpty()) {
+                log.debug("Invalidated the cached details of {} changed movies", movieIds.size());
+                // The change log doesn't tell the inserted movies from the updated ones
+                eventPublisher.publishEvent(new MovieCatalogueChangedEvent(movieIds, false));
+            }
+        } catch (RuntimeException e) {
+            log.error("Failed to load the changed movies for the movie details cache", e);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.example.movie_service.cache;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+import static com.example.movie_service.constant.MovieConstant.SEARCH_FILTER_ID_CACHE_MAX_SIZE_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_FILTER_ID_CACHE_TTL_SECONDS_PROPERTY;
+
+/**
+ * The ids the recent director and genre filters of the SQL search path were resolved to, so the LIKE over the person
+ * or genre names runs once per filter value instead of once per search. <br>
+ *
+ * The key is the kind of the filter and its value, lower-cased because the names are compared case-insensitively. The
+ * least recently used entry is evicted when the cache is full, and an entry expires after its time to live, so a new
+ * director is found after at most that long.
+ */
+@Component
+public class MovieFilterIdCache {
+
+    private final ExpiringLruCache<Key, List<Object>> entries;
+
+    @Autowired
+    public MovieFilterIdCache(@Value("${" + SEARCH_FILTER_ID_CACHE_MAX_SIZE_PROPERTY + ":10000}") int maxSize,
+                              @Value("${" + SEARCH_FILTER_ID_CACHE_TTL_SECONDS_PROPERTY + ":300}") long ttlSeconds) {
+        this(maxSize, Duration.ofSeconds(ttlSeconds), System::nanoTime);
+    }
+
+    /**
+     * @param maxSize the maximum number of entries. 0 disables the cache.
+     * @param ttl how long an entry is used
+     * @param nanoTime the clock of the time to live
+     */
+    public MovieFilterIdCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        this.entries = new ExpiringLruCache<>(maxSize, ttl, nanoTime);
+    }
+
+    /**
+     * Get the cached ids of a filter value
+     * @param filter the kind of the filter, e.g. director
+     * @param value the filter's value
+     * @return the ids, or null if there are none or they expired
+     */
+    public List<Object> get(String filter, String value) {
+        return entries.get(new Key(filter, value.toLowerCase(Locale.ROOT)));
+    }
+
+    /**
+     * Cache the ids of a filter value
+     * @param filter the kind of the filter, e.g. director
+     * @param value the filter's value
+     * @param ids the ids the value was resolved to
+     */
+    public void put(String filter, String value, List<Object> ids) {
+        entries.put(new Key(filter, value.toLowerCase(Locale.ROOT)), List.copyOf(ids));
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    private record Key(String filter, String value) {
+    }
+}
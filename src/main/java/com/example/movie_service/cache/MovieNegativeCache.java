@@ -0,0 +1,261 @@
+package com.example.movie_service.cache;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+import static com.example.movie_service.constant.MovieConstant.NEGATIVE_CACHE_EXPECTED_ENTRIES_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.NEGATIVE_CACHE_FALSE_POSITIVE_RATE_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.NEGATIVE_CACHE_TTL_SECONDS_PROPERTY;
+
+/**
+ * The searches that found no movie and the movie ids that don't exist, seen recently, so asking for them again doesn't
+ * query the database. <br>
+ *
+ * A search is keyed by its title and filters, lower-cased, with an empty filter the same as a missing one, and fuzzy:
+ * when a search finds no movie, every page and order of it finds none too. <br>
+ *
+ * The keys are kept as 64-bit hashes in Bloom filters, about 1.8 MB per million keys at a 0.1% false positive rate,
+ * instead of as the keys themselves. A false positive answers "not found" for a search or a movie that was never
+ * missing, so the rate is kept low and the key of a false positive changes bits with every generation. There are two
+ * generations: the keys are put in the current one, looked up in both, and the older one is dropped every half of
+ * the time to live, so a key is used for between half the time to live and the time to live. <br>
+ *
+ * The searches and the movie ids have their own filters. A Bloom filter can't remove a key, so the ids of the changed
+ * movies are kept next to the filters, for as long as the generations they may be in, and aren't missing until
+ * they're found missing again. The searches are all dropped when a movie is added, since any of them may find it, and
+ * everything is dropped when the catalogue is loaded again.
+ */
+@Slf4j
+@Component
+public class MovieNegativeCache {
+
+    private static final String SEARCH_PREFIX = "search\u0000";
+    private static final String MOVIE_PREFIX = "movie\u0000";
+
+    private final boolean enabled;
+    private final int expectedEntries;
+    private final double falsePositiveRate;
+    private final long rotateEveryNanos;
+    private final LongSupplier nanoTime;
+
+    private final NegativeKeys searches;
+    private final NegativeKeys movies;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder puts = new LongAdder();
+    private final LongAdder invalidatedMovies = new LongAdder();
+    private final LongAdder searchResets = new LongAdder();
+    private final LongAdder resets = new LongAdder();
+
+    @Autowired
+    public MovieNegativeCache(@Value("${" + NEGATIVE_CACHE_EXPECTED_ENTRIES_PROPERTY + ":1000000}") int expectedEntries,
+                              @Value("${" + NEGATIVE_CACHE_FALSE_POSITIVE_RATE_PROPERTY + ":0.001}")
+                              double falsePositiveRate,
+                              @Value("${" + NEGATIVE_CACHE_TTL_SECONDS_PROPERTY + ":60}") long ttlSeconds) {
+        this(expectedEntries, falsePositiveRate, Duration.ofSeconds(ttlSeconds), System::nanoTime);
+    }
+
+    /**
+     * @param expectedEntries the number of searches, and of movie ids, a generation is sized for. 0 disables the cache.
+     * @param falsePositiveRate the rate of the false positives of a full generation
+     * @param ttl the longest time a key is used
+     * @param nanoTime the clock of the time to live
+     */
+    public MovieNegativeCache(int expectedEntries, double falsePositiveRate, Duration ttl, LongSupplier nanoTime) {
+        this.enabled = expectedEntries > 0;
+        this.expectedEntries = expectedEntries;
+        this.falsePositiveRate = falsePositiveRate;
+        this.rotateEveryNanos = Math.max(ttl.toNanos() / 2, 1);
+        this.nanoTime = nanoTime;
+        this.searches = enabled ? new NegativeKeys() : null;
+        this.movies = enabled ? new NegativeKeys() : null;
+        if (enabled) {
+            log.info("The negative cache uses {} KB", 4 * searches.generations.current().sizeInBytes() / 1024);
+        }
+    }
+
+    /**
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @return true if the search found no movie recently, or in rare cases if it's a false positive
+     */
+    public boolean isKnownEmpty(MovieSearchParam movieSearchParam) {
+        return enabled && count(searches.contains(searchKeyOf(movieSearchParam)));
+    }
+
+    /**
+     * Record that a search found no movie
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     */
+    public void putEmpty(MovieSearchParam movieSearchParam) {
+        if (enabled) {
+            searches.put(searchKeyOf(movieSearchParam));
+            puts.increment();
+        }
+    }
+
+    /**
+     * @param movieId the movie's id
+     * @return true if the movie wasn't found recently, or in rare cases if it's a false positive
+     */
+    public boolean isKnownMissing(String movieId) {
+        return enabled && count(movies.contains(MOVIE_PREFIX + movieId));
+    }
+
+    /**
+     * Record that a movie wasn't found
+     * @param movieId the movie's id
+     */
+    public void putMissing(String movieId) {
+        if (enabled) {
+            movies.put(MOVIE_PREFIX + movieId);
+            puts.increment();
+        }
+    }
+
+    /**
+     * Forget the changed movies, which may exist now, and the searches if a movie was added. A reload of the catalogue
+     * forgets every key.
+     */
+    @EventListener
+    public void onCatalogueChanged(MovieCatalogueChangedEvent event) {
+        if (!enabled) {
+            return;
+        }
+        if (event.isReload()) {
+            clear();
+            return;
+        }
+        event.movieIds().forEach(movieId -> movies.invalidate(MOVIE_PREFIX + movieId));
+        invalidatedMovies.add(event.movieIds().size());
+        if (event.moviesAdded()) {
+            searches.clear();
+            searchResets.increment();
+        }
+    }
+
+    public void clear() {
+        if (enabled) {
+            searches.clear();
+            movies.clear();
+            resets.increment();
+        }
+    }
+
+    /**
+     * @return the counters of the cache since the start
+     */
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), puts.sum(), invalidatedMovies.sum(), searchResets.sum(),
+                resets.sum());
+    }
+
+    private boolean count(boolean found) {
+        (found ? hits : misses).increment();
+        return found;
+    }
+
+    private BloomFilter newFilter() {
+        return new BloomFilter(expectedEntries, falsePositiveRate);
+    }
+
+    private static String searchKeyOf(MovieSearchParam movieSearchParam) {
+        return SEARCH_PREFIX + normalize(movieSearchParam.getTitle()).trim()
+                + '\u0000' + normalize(movieSearchParam.getReleasedYear())
+                + '\u0000' + normalize(movieSearchParam.getDirector())
+                + '\u0000' + normalize(movieSearchParam.getGenre())
+                + '\u0000' + movieSearchParam.getFuzzy();
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The counters of the cache
+     * @param hits the lookups that found the key, so the database wasn't queried
+     * @param misses the lookups that didn't find it
+     * @param puts the keys recorded
+     * @param invalidatedMovies the movie ids forgotten because the movies changed
+     * @param searchResets the times every search was dropped because a movie was added
+     * @param resets the times every key was dropped because the catalogue was loaded again
+     */
+    public record Stats(long hits, long misses, long puts, long invalidatedMovies, long searchResets, long resets) {
+    }
+
+    /**
+     * The two generations of one kind of keys, and the keys invalidated since each of them was created
+     */
+    private final class NegativeKeys {
+
+        private volatile Generations generations = newGenerations();
+
+        boolean contains(String key) {
+            long hash = BloomFilter.hash(key);
+            Generations current = currentGenerations();
+            if (!current.current().mightContain(hash) && !current.previous().mightContain(hash)) {
+                return false;
+            }
+            return !current.invalidated().contains(key) && !current.previousInvalidated().contains(key);
+        }
+
+        // The key is missing again, whatever changed before
+        void put(String key) {
+            Generations current = currentGenerations();
+            current.current().put(BloomFilter.hash(key));
+            current.invalidated().remove(key);
+            current.previousInvalidated().remove(key);
+        }
+
+        void invalidate(String key) {
+            currentGenerations().invalidated().add(key);
+        }
+
+        synchronized void clear() {
+            generations = newGenerations();
+        }
+
+        // Drop the older generation, and the keys invalidated before it was created, if it's time
+        private Generations currentGenerations() {
+            Generations current = generations;
+            long now = nanoTime.getAsLong();
+            if (now - current.rotateAt() < 0) {
+                return current;
+            }
+            synchronized (this) {
+                current = generations;
+                if (now - current.rotateAt() >= 0) {
+                    if (now - current.rotateAt() < rotateEveryNanos) {
+                        current = new Generations(newFilter(), current.current(), ConcurrentHashMap.newKeySet(),
+                                current.invalidated(), now + rotateEveryNanos);
+                    } else {
+                        // After a long idle time, both generations are too old
+                        current = newGenerations();
+                    }
+                    generations = current;
+                }
+                return current;
+            }
+        }
+
+        private Generations newGenerations() {
+            return new Generations(newFilter(), newFilter(), ConcurrentHashMap.newKeySet(),
+                    ConcurrentHashMap.newKeySet(), nanoTime.getAsLong() + rotateEveryNanos);
+        }
+    }
+
+    private record Generations(BloomFilter current, BloomFilter previous, Set<String> invalidated,
+                               Set<String> previousInvalidated, long rotateAt) {
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.movie_service.cache;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
+import com.example.movie_service.dto.OneMovieDetailsDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.function.Supplier;
+
+import static com.example.movie_service.constant.MovieConstant.SINGLE_FLIGHT_ENABLED_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SINGLE_FLIGHT_WAIT_TIMEOUT_MS_PROPERTY;
+
+/**
+ * Coalesces the identical searches and movie details reads that run at the same time, e.g. when a title trends, so
+ * they run their queries once. The searches are keyed by their MovieSearchKey, and the details by movie id.
+ * @see SingleFlight
+ */
+@Component
+public class MovieReadCoalescer {
+
+    private final boolean enabled;
+    private final SingleFlight<MovieSearchKey, MovieSearchWithTitleDTOFromRepoToService> searches;
+    private final SingleFlight<String, OneMovieDetailsDTO> details;
+
+    @Autowired
+    public MovieReadCoalescer(@Value("${" + SINGLE_FLIGHT_ENABLED_PROPERTY + ":true}") boolean enabled,
+                              @Value("${" + SINGLE_FLIGHT_WAIT_TIMEOUT_MS_PROPERTY + ":5000}") long waitTimeoutMillis) {
+        this(enabled, Duration.ofMillis(waitTimeoutMillis));
+    }
+
+    /**
+     * @param enabled false runs every read
+     * @param waitTimeout how long a read waits for the identical one that is running before running again
+     */
+    public MovieReadCoalescer(boolean enabled, Duration waitTimeout) {
+        this.enabled = enabled;
+        this.searches = new SingleFlight<>(waitTimeout);
+        this.details = new SingleFlight<>(waitTimeout);
+    }
+
+    /**
+     * Run a search, or wait for the identical one that is running
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies, with the
+     *                         zero-indexed page
+     * @param search the search
+     * @return the result of the search that ran
+     */
+    public MovieSearchWithTitleDTOFromRepoToService searchMovies(
+            MovieSearchParam movieSearchParam, Supplier<MovieSearchWithTitleDTOFromRepoToService> search) {
+        return enabled ? searches.execute(MovieSearchKey.of(movieSearchParam), search) : search.get();
+    }
+
+    /**
+     * Read a movie's details, or wait for the read of the same movie that is running
+     * @param movieId the movie's id
+     * @param read the read
+     * @return the details, or null if the movie isn't found
+     */
+    public OneMovieDetailsDTO searchOneMovieDetails(String movieId, Supplier<OneMovieDetailsDTO> read) {
+        return enabled ? details.execute(movieId, read) : read.get();
+    }
+
+    public SingleFlight.Stats getSearchStats() {
+        return searches.getStats();
+    }
+
+    public SingleFlight.Stats getDetailsStats() {
+        return details.getStats();
+    }
+}
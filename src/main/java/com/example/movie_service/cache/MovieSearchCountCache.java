@@ -0,0 +1,91 @@
+package com.example.movie_service.cache;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Locale;
+import java.util.function.LongSupplier;
+
+import static com.example.movie_service.constant.MovieConstant.SEARCH_COUNT_CACHE_MAX_SIZE_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_COUNT_CACHE_TTL_SECONDS_PROPERTY;
+
+/**
+ * The total items of the recent searches of the SQL search path, so turning a page or changing the order doesn't count
+ * the movies again. <br>
+ *
+ * The key is the normalized filter signature: the title, releasedYear, director and genre, lower-cased because the
+ * columns are compared case-insensitively, with an empty filter the same as a missing one. The page, the limit and the
+ * order don't change the total, so all of them share one entry. The entry also says which title match found the
+ * movies, so a hit skips both count queries. <br>
+ *
+ * The least recently used entry is evicted when the cache is full, and an entry expires after its time to live, so a
+ * total is at most that old.
+ */
+@Component
+public class MovieSearchCountCache {
+
+    private final ExpiringLruCache<Key, Count> entries;
+
+    @Autowired
+    public MovieSearchCountCache(@Value("${" + SEARCH_COUNT_CACHE_MAX_SIZE_PROPERTY + ":10000}") int maxSize,
+                                 @Value("${" + SEARCH_COUNT_CACHE_TTL_SECONDS_PROPERTY + ":300}") long ttlSeconds) {
+        this(maxSize, Duration.ofSeconds(ttlSeconds), System::nanoTime);
+    }
+
+    /**
+     * @param maxSize the maximum number of entries. 0 disables the cache.
+     * @param ttl how long an entry is used
+     * @param nanoTime the clock of the time to live
+     */
+    public MovieSearchCountCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        this.entries = new ExpiringLruCache<>(maxSize, ttl, nanoTime);
+    }
+
+    /**
+     * Get the cached total items of a search
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @param estimateAllowed an estimated count can be returned
+     * @return the Count, or null if there's none, it expired, or it's an estimate and estimateAllowed is false
+     */
+    public Count get(MovieSearchParam movieSearchParam, boolean estimateAllowed) {
+        Count count = entries.get(Key.of(movieSearchParam));
+        return count != null && count.estimated() && !estimateAllowed ? null : count;
+    }
+
+    /**
+     * Cache the total items of a search. An estimate doesn't replace an exact count that is still fresh.
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @param count the Count
+     */
+    public void put(MovieSearchParam movieSearchParam, Count count) {
+        entries.put(Key.of(movieSearchParam), count, existing -> !count.estimated() || existing.estimated());
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * The total items of a search
+     * @param totalItems the number of movies found, or the lower bound of it if it's estimated
+     * @param likeMatch the movies were found by the LIKE match, because the FULLTEXT phrase match found nothing
+     * @param estimated the counting stopped at the estimate cap, so there are at least totalItems movies
+     */
+    public record Count(int totalItems, boolean likeMatch, boolean estimated) {
+    }
+
+    private record Key(String title, String releasedYear, String director, String genre) {
+
+        static Key of(MovieSearchParam movieSearchParam) {
+            return new Key(normalize(movieSearchParam.getTitle()), normalize(movieSearchParam.getReleasedYear()),
+                    normalize(movieSearchParam.getDirector()), normalize(movieSearchParam.getGenre()));
+        }
+
+        private static String normalize(String value) {
+            return value == null ? "" : value.toLowerCase(Locale.ROOT);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package com.example.movie_service.cache;
+
+import com.example.movie_service.builder.MovieSearchParam;
+
+import java.util.Locale;
+
+/**
+ * The canonical form of a search, shared by the searches that find the same movies: the title trimmed, the title and
+ * the filters lower-cased, because they are compared case-insensitively, with an empty filter the same as a missing
+ * one, and the page, the limit, the order, the count mode, fuzzy and the cursor as they are.
+ */
+public record MovieSearchKey(String title, String releasedYear, String director, String genre, Integer page,
+                             Integer limit, String orderBy, String direction, String count, Boolean fuzzy,
+                             String cursor) {
+
+    /**
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies, with the
+     *                         zero-indexed page
+     * @return the key of the search
+     */
+    public static MovieSearchKey of(MovieSearchParam movieSearchParam) {
+        return new MovieSearchKey(normalize(movieSearchParam.getTitle()).trim(),
+                normalize(movieSearchParam.getReleasedYear()), normalize(movieSearchParam.getDirector()),
+                normalize(movieSearchParam.getGenre()), movieSearchParam.getPage(), movieSearchParam.getLimit(),
+                movieSearchParam.getOrderBy(), movieSearchParam.getDirection(), movieSearchParam.getCount(),
+                movieSearchParam.getFuzzy(), movieSearchParam.getCursor());
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+}
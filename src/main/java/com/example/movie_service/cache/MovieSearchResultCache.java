@@ -0,0 +1,137 @@
+package com.example.movie_service.cache;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.Executor;
+import java.util.function.LongSupplier;
+
+import static com.example.movie_service.constant.MovieConstant.CACHE_REFRESH_EXECUTOR;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_RESULT_CACHE_MAX_SIZE_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_RESULT_CACHE_MAX_STALE_SECONDS_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_RESULT_CACHE_REFRESH_AFTER_SECONDS_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_RESULT_CACHE_TTL_SECONDS_PROPERTY;
+
+/**
+ * The results of the recent searches, as the repository returned them, so a popular search doesn't query the database
+ * again. <br>
+ *
+ * The key is the MovieSearchKey of the search. The MovieServiceImpl trims the title before searching, so the searches
+ * that share a key find the same movies. <br>
+ *
+ * The entries are kept by a TinyLfuCache, so the searches that are only made once, like the ones of a scraper, don't
+ * evict the popular ones. A popular search is searched again in the background before its time to live ends, and a
+ * result past its time to live is still used for a while, as it's searched again in the background, so a result is at
+ * most its time to live plus the max stale old. <br>
+ *
+ * Like the MovieNegativeCache, it's cleared when the catalogue is loaded again or a movie is added, since any cached
+ * search, including one that found nothing, may find it now.
+ * @see RefreshAheadCache
+ */
+@Component
+public class MovieSearchResultCache {
+
+    private final RefreshAheadCache<MovieSearchKey, MovieSearchWithTitleDTOFromRepoToService> results;
+
+    @Autowired
+    public MovieSearchResultCache(@Value("${" + SEARCH_RESULT_CACHE_MAX_SIZE_PROPERTY + ":10000}") int maxSize,
+                                  @Value("${" + SEARCH_RESULT_CACHE_TTL_SECONDS_PROPERTY + ":60}") long ttlSeconds,
+                                  @Value("${" + SEARCH_RESULT_CACHE_REFRESH_AFTER_SECONDS_PROPERTY + ":45}")
+                                  long refreshAfterSeconds,
+                                  @Value("${" + SEARCH_RESULT_CACHE_MAX_STALE_SECONDS_PROPERTY + ":30}")
+                                  long maxStaleSeconds,
+                                  @Qualifier(CACHE_REFRESH_EXECUTOR) Executor refreshExecutor) {
+        this(maxSize, Duration.ofSeconds(ttlSeconds), Duration.ofSeconds(refreshAfterSeconds),
+                Duration.ofSeconds(maxStaleSeconds), refreshExecutor, System::nanoTime);
+    }
+
+    /**
+     * A cache without refreshes or stale reads
+     * @param maxSize the maximum number of entries. 0 disables the cache.
+     * @param ttl how long an entry is used
+     * @param nanoTime the clock of the time to live
+     */
+    public MovieSearchResultCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        this(maxSize, ttl, ttl, Duration.ZERO, Runnable::run, nanoTime);
+    }
+
+    /**
+     * @param maxSize the maximum number of entries. 0 disables the cache.
+     * @param ttl how long an entry is used without being stale
+     * @param refreshAfter when a popular search is searched again
+     * @param maxStale how long an entry is still used after its time to live
+     * @param refreshExecutor the executor of the refreshes
+     * @param nanoTime the clock of the time to live
+     */
+    public MovieSearchResultCache(int maxSize, Duration ttl, Duration refreshAfter, Duration maxStale,
+                                  Executor refreshExecutor, LongSupplier nanoTime) {
+        this.results = new RefreshAheadCache<>(maxSize, ttl, refreshAfter, maxStale, refreshExecutor, nanoTime);
+    }
+
+    /**
+     * Get the fresh cached result of a search
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies, with the
+     *                         zero-indexed page
+     * @return the result, or null if there's none or it expired
+     */
+    public MovieSearchWithTitleDTOFromRepoToService get(MovieSearchParam movieSearchParam) {
+        return results.get(MovieSearchKey.of(movieSearchParam));
+    }
+
+    /**
+     * Get the cached result of a search, and search it again in the background if it's popular and about to expire,
+     * or if it's stale
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies, with the
+     *                         zero-indexed page
+     * @param refresh searches it again and puts the result
+     * @return the result, or null if there's none or it's too stale
+     */
+    public MovieSearchWithTitleDTOFromRepoToService get(MovieSearchParam movieSearchParam, Runnable refresh) {
+        return results.get(MovieSearchKey.of(movieSearchParam), refresh);
+    }
+
+    /**
+     * Cache the result of a search. It's shared by the requests that get it, so it must not be modified.
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies, with the
+     *                         zero-indexed page
+     * @param result the result the repository returned
+     */
+    public void put(MovieSearchParam movieSearchParam, MovieSearchWithTitleDTOFromRepoToService result) {
+        results.put(MovieSearchKey.of(movieSearchParam), result);
+    }
+
+    /**
+     * Forget every search when the catalogue is loaded again or a movie was added. A changed movie that already
+     * existed is found by its cached searches again once they're refreshed.
+     */
+    @EventListener
+    public void onCatalogueChanged(MovieCatalogueChangedEvent event) {
+        if (event.isReload() || event.moviesAdded()) {
+            results.clear();
+        }
+    }
+
+    public int size() {
+        return results.size();
+    }
+
+    /**
+     * @return the hits, misses and evictions of the cache since the start. The stale reads are hits.
+     */
+    public TinyLfuCache.Stats getStats() {
+        return results.getStats();
+    }
+
+    /**
+     * @return the stale reads and the refreshes of the cache since the start
+     */
+    public RefreshAheadCache.RefreshStats getRefreshStats() {
+        return results.getRefreshStats();
+    }
+}
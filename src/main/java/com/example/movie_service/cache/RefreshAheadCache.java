@@ -0,0 +1,160 @@
+package com.example.movie_service.cache;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.LongSupplier;
+
+/**
+ * A TinyLfuCache whose entries are loaded again in the background, instead of by the request that finds them
+ * expired, so the popular keys don't all cost a database query when their time to live ends. <br>
+ *
+ * An entry is fresh until refreshAfter, then it's still used until its time to live, and a read of a popular one,
+ * read at least POPULAR_READS times since it was written, loads it again in the background: the refresh-ahead. After
+ * its time to live, an entry is stale: it's still used for at most maxStale, and a read of it loads it again in the
+ * background: the stale-while-revalidate. After that, it's a miss. <br>
+ *
+ * A read gives the refresh, a Runnable that loads the key and puts it, since the loads need the request's parameters.
+ * A key has at most one refresh running, and the refreshes run on the refresh executor: when it's busy, the refresh is
+ * dropped and the next read of the key tries again, so the refreshes never take more threads than it has.
+ *
+ * @param <K> the type of the keys. They need equals and hashCode.
+ * @param <V> the type of the values
+ */
+@Slf4j
+public final class RefreshAheadCache<K, V> {
+
+    // An entry read less often isn't loaded again before its time to live, it just expires
+    static final int POPULAR_READS = 2;
+
+    private final TinyLfuCache<K, Stamped<V>> entries;
+    private final long refreshAfterNanos;
+    private final long ttlNanos;
+    private final Executor refreshExecutor;
+    private final LongSupplier nanoTime;
+    private final Set<K> refreshing = ConcurrentHashMap.newKeySet();
+
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder refreshes = new LongAdder();
+    private final LongAdder refreshFailures = new LongAdder();
+    private final LongAdder droppedRefreshes = new LongAdder();
+
+    /**
+     * @param maxSize the maximum number of entries. 0 disables the cache.
+     * @param ttl how long an entry is used after it was written without being stale
+     * @param refreshAfter when a popular entry is loaded again. Not before ttl disables the refresh-ahead.
+     * @param maxStale how long an entry is still used after its time to live. 0 disables the stale reads.
+     * @param refreshExecutor the executor of the refreshes
+     * @param nanoTime the clock of the time to live
+     */
+    public RefreshAheadCache(int maxSize, Duration ttl, Duration refreshAfter, Duration maxStale,
+                             Executor refreshExecutor, LongSupplier nanoTime) {
+        this.entries = new TinyLfuCache<>(maxSize, ttl.plus(maxStale), nanoTime);
+        this.refreshAfterNanos = refreshAfter.toNanos();
+        this.ttlNanos = ttl.toNanos();
+        this.refreshExecutor = refreshExecutor;
+        this.nanoTime = nanoTime;
+    }
+
+    /**
+     * @return the fresh value of the key, or null if there's none or it expired
+     */
+    public V get(K key) {
+        return get(key, null);
+    }
+
+    /**
+     * @param refresh loads the key and puts it, in the background. null only returns a value within its time to live.
+     * @return the value of the key, or null if there's none, or it's stale and there's no refresh, or it's too stale
+     */
+    public V get(K key, Runnable refresh) {
+        Stamped<V> entry = entries.get(key);
+        if (entry == null) {
+            return null;
+        }
+        long age = nanoTime.getAsLong() - entry.writtenAt();
+        int reads = entry.reads().incrementAndGet();
+        if (age >= ttlNanos) {
+            if (refresh == null) {
+                return null;
+            }
+            staleHits.increment();
+            refresh(key, refresh);
+        } else if (age >= refreshAfterNanos && reads >= POPULAR_READS && refresh != null) {
+            refresh(key, refresh);
+        }
+        return entry.value();
+    }
+
+    public void put(K key, V value) {
+        entries.put(key, new Stamped<>(value, nanoTime.getAsLong(), new AtomicInteger()));
+    }
+
+    public void remove(K key) {
+        entries.remove(key);
+    }
+
+    public void clear() {
+        entries.clear();
+    }
+
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return the hits, misses and evictions of the cache since the start. The stale reads are hits.
+     */
+    public TinyLfuCache.Stats getStats() {
+        return entries.getStats();
+    }
+
+    /**
+     * @return the counters of the stale reads and the refreshes since the start
+     */
+    public RefreshStats getRefreshStats() {
+        return new RefreshStats(staleHits.sum(), refreshes.sum(), refreshFailures.sum(), droppedRefreshes.sum());
+    }
+
+    private void refresh(K key, Runnable refresh) {
+        if (!refreshing.add(key)) {
+            return;
+        }
+        try {
+            refreshExecutor.execute(() -> {
+                try {
+                    refresh.run();
+                    refreshes.increment();
+                } catch (RuntimeException e) {
+                    // The entry is used until it's too stale, and the next read tries again
+                    refreshFailures.increment();
+                    log.warn("Failed to refresh the cached value of {}", key, e);
+                } finally {
+                    refreshing.remove(key);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            droppedRefreshes.increment();
+            refreshing.remove(key);
+        }
+    }
+
+    /**
+     * The counters of the stale reads and the refreshes
+     * @param staleHits the reads that returned a value after its time to live, while it was loaded again
+     * @param refreshes the refreshes that loaded their key
+     * @param refreshFailures the refreshes that failed
+     * @param droppedRefreshes the refreshes that weren't run because the refresh executor was busy
+     */
+    public record RefreshStats(long staleHits, long refreshes, long refreshFailures, long droppedRefreshes) {
+    }
+
+    private record Stamped<V>(V value, long writtenAt, AtomicInteger reads) {
+    }
+}
@@ -0,0 +1,135 @@
+package com.example.movie_service.cache;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Coalesces the concurrent loads of the same key: the first caller, the leader, runs the load on its own thread, and
+ * the callers that arrive while it runs wait for its result instead of running the same load again. <br>
+ *
+ * The key is removed when the leader finishes, so the next caller loads again: it doesn't cache anything. When the
+ * leader fails, its waiting callers load again, coalesced on a new leader, so one caller's failure, like an
+ * interrupted thread or a cancelled hedge, isn't given to all of them, and a failing database only gets one more load.
+ * When the leader takes longer than the wait timeout, its waiting callers stop waiting for it and load again the same
+ * way, so a stuck leader doesn't hold them.
+ *
+ * @param <K> the type of the keys. They need equals and hashCode.
+ * @param <V> the type of the results. null is a result.
+ */
+public final class SingleFlight<K, V> {
+
+    private final long waitTimeoutNanos;
+    private final ConcurrentHashMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+    private final LongAdder leaderFailures = new LongAdder();
+    private final LongAdder waitTimeouts = new LongAdder();
+
+    /**
+     * @param waitTimeout how long a caller waits for the leader before loading again
+     */
+    public SingleFlight(Duration waitTimeout) {
+        this.waitTimeoutNanos = waitTimeout.toNanos();
+    }
+
+    /**
+     * Load the key, or wait for the load of the key that is running
+     * @param key the key
+     * @param loader the load. It runs on the caller's thread if the caller is the leader.
+     * @return the result of the load
+     */
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        return execute(key, loader, true);
+    }
+
+    /**
+     * @return the counters of the loads since the start
+     */
+    public Stats getStats() {
+        return new Stats(calls.sum(), loads.sum(), coalesced.sum(), leaderFailures.sum(), waitTimeouts.sum());
+    }
+
+    private V execute(K key, Supplier<V> loader, boolean mayRetry) {
+        CompletableFuture<V> flight = new CompletableFuture<>();
+        CompletableFuture<V> leaderFlight = inFlight.putIfAbsent(key, flight);
+        if (leaderFlight == null) {
+            return lead(key, loader, flight);
+        }
+
+        coalesced.increment();
+        try {
+            return leaderFlight.get(waitTimeoutNanos, TimeUnit.NANOSECONDS);
+        } catch (ExecutionException e) {
+            leaderFailures.increment();
+            if (!mayRetry) {
+                throw unwrap(e.getCause());
+            }
+            // The leader may not have removed its failed flight yet, and the retry must not wait for it again
+            inFlight.remove(key, leaderFlight);
+        } catch (TimeoutException e) {
+            waitTimeouts.increment();
+            // The next caller doesn't wait for the stuck leader either
+            inFlight.remove(key, leaderFlight);
+            if (!mayRetry) {
+                throw new IllegalStateException("Timed out waiting for the load of " + key, e);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for the load of " + key, e);
+        }
+        return execute(key, loader, false);
+    }
+
+    private V lead(K key, Supplier<V> loader, CompletableFuture<V> flight) {
+        loads.increment();
+        try {
+            V result = loader.get();
+            flight.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            flight.completeExceptionally(e);
+            throw e;
+        } finally {
+            inFlight.remove(key, flight);
+        }
+    }
+
+    // The exception of the failed load, to be thrown by the caller
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * The counters of the loads
+     * @param calls the calls of execute
+     * @param loads the loads that ran, one per leader
+     * @param coalesced the calls that waited for a leader instead of loading, including the ones that loaded again
+     *                  after it failed or timed out
+     * @param leaderFailures the waits that ended with the leader's failure
+     * @param waitTimeouts the waits that ended because the leader took longer than the wait timeout
+     */
+    public record Stats(long calls, long loads, long coalesced, long leaderFailures, long waitTimeouts) {
+
+        /**
+         * @return the share of the calls that didn't run a load
+         */
+        public double coalescingRatio() {
+            return calls == 0 ? 0 : 1 - (double) loads / calls;
+        }
+    }
+}
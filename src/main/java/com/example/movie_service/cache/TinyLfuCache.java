@@ -0,0 +1,287 @@
+package com.example.movie_service.cache;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.LongSupplier;
+
+/**
+ * A bounded cache with W-TinyLFU eviction. <br>
+ *
+ * A new entry goes to a small window, the least recently used 1% of the entries. When it leaves the window, it only
+ * enters the main part of the cache, a segmented LRU, if its key was seen more often recently than the key of the
+ * main part's next victim, according to a FrequencySketch of every lookup and write. So a burst of keys that are only
+ * seen once, like a scraper walking through every title, passes through the window without evicting the popular
+ * entries. An entry of the probation segment that is read again is moved to the protected segment, 80% of the main
+ * part. <br>
+ *
+ * The lookups read a ConcurrentHashMap without waiting. The eviction order and the sketch are updated under a lock: a
+ * lookup only updates them if the lock is free, so a lookup of a contended cache may not count, and a write waits for
+ * it. An entry expires after its time to live.
+ *
+ * @param <K> the type of the keys. They need equals and hashCode.
+ * @param <V> the type of the values
+ */
+public final class TinyLfuCache<K, V> {
+
+    private static final double WINDOW_RATIO = 0.01;
+    private static final double PROTECTED_RATIO = 0.8;
+
+    private final int maxSize;
+    private final int windowMaxSize;
+    private final int protectedMaxSize;
+    private final long ttlNanos;
+    private final LongSupplier nanoTime;
+
+    private final ConcurrentHashMap<K, Node<K, V>> data = new ConcurrentHashMap<>();
+    private final ReentrantLock lock = new ReentrantLock();
+    // The eviction order, guarded by the lock. The first entry of a segment is its least recently used one.
+    private final LinkedHashMap<K, Node<K, V>> window = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> probation = new LinkedHashMap<>();
+    private final LinkedHashMap<K, Node<K, V>> protectedSegment = new LinkedHashMap<>();
+    private final FrequencySketch sketch;
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+    private final LongAdder rejections = new LongAdder();
+
+    /**
+     * @param maxSize the maximum number of entries. 0 disables the cache.
+     * @param ttl how long an entry is used after it was written
+     * @param nanoTime the clock of the time to live
+     */
+    public TinyLfuCache(int maxSize, Duration ttl, LongSupplier nanoTime) {
+        this.maxSize = Math.max(maxSize, 0);
+        this.windowMaxSize = Math.max(1, (int) (this.maxSize * WINDOW_RATIO));
+        this.protectedMaxSize = (int) ((this.maxSize - windowMaxSize) * PROTECTED_RATIO);
+        this.ttlNanos = ttl.toNanos();
+        this.nanoTime = nanoTime;
+        this.sketch = new FrequencySketch(this.maxSize);
+    }
+
+    /**
+     * @return the value of the key, or null if there's none or it expired
+     */
+    public V get(K key) {
+        if (maxSize == 0) {
+            return null;
+        }
+        Node<K, V> node = data.get(key);
+        if (node == null) {
+            misses.increment();
+            if (lock.tryLock()) {
+                try {
+                    sketch.increment(key);
+                } finally {
+                    lock.unlock();
+                }
+            }
+            return null;
+        }
+        if (nanoTime.getAsLong() - node.writtenAt >= ttlNanos) {
+            misses.increment();
+            removeExpired(node);
+            return null;
+        }
+        hits.increment();
+        if (lock.tryLock()) {
+            try {
+                sketch.increment(key);
+                onRead(node);
+            } finally {
+                lock.unlock();
+            }
+        }
+        return node.value;
+    }
+
+    /**
+     * Cache the value of the key, replacing its current one. The cache evicts an entry when it's full, which may be
+     * this one if its key is seen less often than the others.
+     */
+    public void put(K key, V value) {
+        if (maxSize == 0) {
+            return;
+        }
+        lock.lock();
+        try {
+            sketch.increment(key);
+            long now = nanoTime.getAsLong();
+            Node<K, V> node = data.get(key);
+            if (node != null) {
+                node.value = value;
+                node.writtenAt = now;
+                onRead(node);
+                return;
+            }
+            node = new Node<>(key, value, now);
+            data.put(key, node);
+            window.put(key, node);
+            evict();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void remove(K key) {
+        lock.lock();
+        try {
+            Node<K, V> node = data.remove(key);
+            if (node != null) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public void clear() {
+        lock.lock();
+        try {
+            data.values().forEach(node -> node.segment = null);
+            data.clear();
+            window.clear();
+            probation.clear();
+            protectedSegment.clear();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * @return the counters of the cache since the start
+     */
+    public Stats getStats() {
+        return new Stats(hits.sum(), misses.sum(), evictions.sum(), rejections.sum(), data.size());
+    }
+
+    // Unless a writer replaced it since the lookup
+    private void removeExpired(Node<K, V> node) {
+        lock.lock();
+        try {
+            if (data.remove(node.key, node)) {
+                unlink(node);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // Move a read entry to the most recently used end of its segment, or from probation to protected
+    private void onRead(Node<K, V> node) {
+        if (node.segment == null) {
+            // Removed by a writer since the lookup
+            return;
+        }
+        LinkedHashMap<K, Node<K, V>> segment = segmentOf(node);
+        segment.remove(node.key);
+        if (node.segment == Segment.PROBATION) {
+            node.segment = Segment.PROTECTED;
+            protectedSegment.put(node.key, node);
+            if (protectedSegment.size() > protectedMaxSize) {
+                Node<K, V> demoted = removeEldest(protectedSegment);
+                demoted.segment = Segment.PROBATION;
+                probation.put(demoted.key, demoted);
+            }
+        } else {
+            segment.put(node.key, node);
+        }
+    }
+
+    // The entries that leave the window enter the main part, and the less frequent of each candidate and the main
+    // part's victim is evicted while the main part is too big
+    private void evict() {
+        int mainMaxSize = maxSize - windowMaxSize;
+        while (window.size() > windowMaxSize) {
+            Node<K, V> candidate = removeEldest(window);
+            candidate.segment = Segment.PROBATION;
+            probation.put(candidate.key, candidate);
+            if (probation.size() + protectedSegment.size() <= mainMaxSize) {
+                continue;
+            }
+            Node<K, V> victim = eldest(probation);
+            if (victim == candidate && !protectedSegment.isEmpty()) {
+                victim = eldest(protectedSegment);
+            }
+            if (victim != candidate && sketch.frequency(candidate.key) > sketch.frequency(victim.key)) {
+                evict(victim);
+            } else {
+                rejections.increment();
+                evict(candidate);
+            }
+        }
+    }
+
+    private void evict(Node<K, V> node) {
+        data.remove(node.key, node);
+        unlink(node);
+        evictions.increment();
+    }
+
+    private void unlink(Node<K, V> node) {
+        segmentOf(node).remove(node.key);
+        node.segment = null;
+    }
+
+    private LinkedHashMap<K, Node<K, V>> segmentOf(Node<K, V> node) {
+        return switch (node.segment) {
+            case WINDOW -> window;
+            case PROBATION -> probation;
+            case PROTECTED -> protectedSegment;
+        };
+    }
+
+    private static <K, V> Node<K, V> eldest(LinkedHashMap<K, Node<K, V>> segment) {
+        return segment.values().iterator().next();
+    }
+
+    private static <K, V> Node<K, V> removeEldest(LinkedHashMap<K, Node<K, V>> segment) {
+        Iterator<Node<K, V>> iterator = segment.values().iterator();
+        Node<K, V> eldest = iterator.next();
+        iterator.remove();
+        return eldest;
+    }
+
+    /**
+     * The counters of the cache
+     * @param hits the lookups that found a fresh entry
+     * @param misses the lookups that found no entry, or an expired one
+     * @param evictions the entries evicted because the cache was full, including the rejected ones
+     * @param rejections the new entries evicted when they left the window, because their key was seen less often than
+     *                   the one of the main part's victim
+     * @param size the number of entries now
+     */
+    public record Stats(long hits, long misses, long evictions, long rejections, int size) {
+
+        public double hitRate() {
+            long lookups = hits + misses;
+            return lookups == 0 ? 0 : (double) hits / lookups;
+        }
+    }
+
+    private enum Segment {
+        WINDOW, PROBATION, PROTECTED
+    }
+
+    private static final class Node<K, V> {
+        private final K key;
+        private volatile V value;
+        private volatile long writtenAt;
+        // Guarded by the lock, null once the node is removed
+        private Segment segment = Segment.WINDOW;
+
+        private Node(K key, V value, long writtenAt) {
+            this.key = key;
+            this.value = value;
+            this.writtenAt = writtenAt;
+        }
+    }
+}
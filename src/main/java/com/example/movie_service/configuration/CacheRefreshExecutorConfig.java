@@ -0,0 +1,29 @@
+package com.example.movie_service.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+
+import static com.example.movie_service.constant.MovieConstant.CACHE_REFRESH_EXECUTOR;
+import static com.example.movie_service.constant.MovieConstant.CACHE_REFRESH_QUEUE_SIZE_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.CACHE_REFRESH_THREADS_PROPERTY;
+
+/**
+ * Define the executor that loads the cached searches and movie details again in the background, before they expire or
+ * while their stale values are used. Its queue is bounded and a refresh that doesn't fit is rejected, so a burst of
+ * refreshes doesn't take more connections than its threads.
+ */
+@Configuration
+public class CacheRefreshExecutorConfig {
+
+    @Bean(name = CACHE_REFRESH_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService cacheRefreshExecutor(
+            @Value("${" + CACHE_REFRESH_THREADS_PROPERTY + ":2}") int threads,
+            @Value("${" + CACHE_REFRESH_QUEUE_SIZE_PROPERTY + ":100}") int queueSize) {
+        return FixedThreadPools.newFixedThreadPool("cache-refresh-", threads,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), false);
+    }
+}
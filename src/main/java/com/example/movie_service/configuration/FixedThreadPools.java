@@ -0,0 +1,41 @@
+package com.example.movie_service.configuration;
+
+import com.example.movie_service.datasource.ReadReplicaRouting;
+
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Build the fixed-size executors of the configurations: their threads are daemons named after the executor, so a
+ * thread dump shows which pool holds a connection.
+ */
+final class FixedThreadPools {
+
+    private FixedThreadPools() {
+    }
+
+    /**
+     * @param threadNamePrefix the name of the threads, followed by their number
+     * @param threads the number of threads. At least one is started.
+     * @param queue the tasks waiting for a thread. A task that doesn't fit is rejected.
+     * @param propagateReadReplicaRouting the tasks of a read that may use a read replica may use one too
+     * @return the executor
+     */
+    static ThreadPoolExecutor newFixedThreadPool(String threadNamePrefix, int threads, BlockingQueue<Runnable> queue,
+                                                 boolean propagateReadReplicaRouting) {
+        AtomicInteger threadNumber = new AtomicInteger();
+        int poolSize = Math.max(1, threads);
+        return new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS, queue, runnable -> {
+            Thread thread = new Thread(runnable, threadNamePrefix + threadNumber.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }) {
+            @Override
+            public void execute(Runnable command) {
+                super.execute(propagateReadReplicaRouting ? ReadReplicaRouting.propagate(command) : command);
+            }
+        };
+    }
+}
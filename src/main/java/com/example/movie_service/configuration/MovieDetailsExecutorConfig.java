@@ -0,0 +1,33 @@
+package com.example.movie_service.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ExecutorService;
+
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_EXECUTOR;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_EXECUTOR_QUEUE_SIZE_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_EXECUTOR_THREADS_PROPERTY;
+
+/**
+ * Define the executor that runs the sub-queries of a movie's details at the same time as the request's thread, e.g.
+ * the crew members query while the request's thread gets the basic details. Every thread uses its own connection, so
+ * the number of threads should stay below the size of the connection pool. <br>
+ *
+ * Its queue is bounded and a sub-query that doesn't fit is rejected: the repository then runs it on the request's
+ * thread once the basic details are found, so a burst of details reads is slower instead of piling up in the queue.
+ */
+@Configuration
+public class MovieDetailsExecutorConfig {
+
+    // A sub-query of a read that may use a read replica may use one too
+    @Bean(name = MOVIE_DETAILS_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService movieDetailsExecutor(
+            @Value("${" + MOVIE_DETAILS_EXECUTOR_THREADS_PROPERTY + ":4}") int threads,
+            @Value("${" + MOVIE_DETAILS_EXECUTOR_QUEUE_SIZE_PROPERTY + ":100}") int queueSize) {
+        return FixedThreadPools.newFixedThreadPool("movie-details-", threads,
+                new ArrayBlockingQueue<>(Math.max(1, queueSize)), true);
+    }
+}
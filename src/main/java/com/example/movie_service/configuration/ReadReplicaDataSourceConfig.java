@@ -0,0 +1,51 @@
+package com.example.movie_service.configuration;
+
+import com.example.movie_service.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+
+import javax.sql.DataSource;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.example.movie_service.constant.MovieConstant.REPLICA_MAX_LAG_SECONDS_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.REPLICA_URLS_PROPERTY;
+
+/**
+ * Define the DataSource of the application when movie.datasource.replica.urls is set: a ReplicaRoutingDataSource over
+ * the spring.datasource primary and one pool per replica URL. The replica pools copy the primary's pool settings and
+ * credentials, so the replicas need the same user, with the REPLICATION CLIENT privilege for the lag check.
+ */
+@Configuration
+@ConditionalOnExpression("!'${" + REPLICA_URLS_PROPERTY + ":}'.isEmpty()")
+public class ReadReplicaDataSourceConfig {
+
+    @Bean
+    @ConfigurationProperties("spring.datasource.hikari")
+    public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+        return properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+    }
+
+    @Bean
+    @Primary
+    public ReplicaRoutingDataSource dataSource(HikariDataSource primaryDataSource,
+                                               @Value("${" + REPLICA_URLS_PROPERTY + "}") String[] replicaUrls,
+                                               @Value("${" + REPLICA_MAX_LAG_SECONDS_PROPERTY + ":5}") long maxLagSeconds) {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        for (int i = 0; i < replicaUrls.length; i++) {
+            HikariConfig config = new HikariConfig();
+            primaryDataSource.copyStateTo(config);
+            config.setJdbcUrl(replicaUrls[i].trim());
+            config.setPoolName("replica-" + (i + 1));
+            replicas.put(config.getPoolName(), new HikariDataSource(config));
+        }
+        return new ReplicaRoutingDataSource(primaryDataSource, replicas, maxLagSeconds);
+    }
+}
@@ -0,0 +1,12 @@
+package com.example.movie_service.configuration;
+
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Enable the @Scheduled methods of this application, e.g. the change feed polling of the in-memory search index
+ */
+@Configuration
+@EnableScheduling
+public class SchedulingConfig {
+}
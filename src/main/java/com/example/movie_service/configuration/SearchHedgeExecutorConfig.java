@@ -0,0 +1,29 @@
+package com.example.movie_service.configuration;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.SynchronousQueue;
+
+import static com.example.movie_service.constant.MovieConstant.SEARCH_HEDGE_EXECUTOR;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_HEDGE_EXECUTOR_THREADS_PROPERTY;
+
+/**
+ * Define the executor that runs the attempts of the hedged page queries. The request's thread waits for the first
+ * answer, so it isn't stuck in the JDBC call of the slow attempt. Every thread uses its own connection. <br>
+ *
+ * An attempt is handed to an idle thread and never queued: when every thread is busy it's rejected, and the
+ * HedgedQueryExecutor runs the read on the request's thread without a hedge, or skips the hedge.
+ */
+@Configuration
+public class SearchHedgeExecutorConfig {
+
+    // The attempts of a read that may use a read replica may use one too
+    @Bean(name = SEARCH_HEDGE_EXECUTOR, destroyMethod = "shutdown")
+    public ExecutorService searchHedgeExecutor(
+            @Value("${" + SEARCH_HEDGE_EXECUTOR_THREADS_PROPERTY + ":8}") int threads) {
+        return FixedThreadPools.newFixedThreadPool("search-hedge-", threads, new SynchronousQueue<>(), true);
+    }
+}
@@ -36,6 +36,16 @@ public final class MovieConstant {
     public static final String INVALID_TITLE_MESSAGE = "Invalid title. Title cannot be null or an empty string";
     public static final int INVALID_MOVIE_ID_CODE = 40007;
     public static final String INVALID_MOVIE_ID_MESSAGE = "Invalid movie id. Movie id cannot be null or an empty string";
+    public static final int INVALID_PREFIX_CODE = 40008;
+    public static final String INVALID_PREFIX_MESSAGE = "Invalid prefix. Prefix cannot be null or a blank string";
+    public static final int INVALID_SUGGESTION_LIMIT_CODE = 40009;
+    public static final String INVALID_SUGGESTION_LIMIT_MESSAGE = "Invalid limit. Limit must be between 1 and 20";
+    public static final int INVALID_CURSOR_CODE = 40010;
+    public static final String INVALID_CURSOR_MESSAGE = "Invalid cursor. Cursor must be the nextCursor of the same search";
+    public static final int INVALID_COUNT_CODE = 40011;
+    public static final String INVALID_COUNT_MESSAGE = "Invalid count. Count must be exact or estimate";
+    public static final int INVALID_MOVIE_IDS_CODE = 40012;
+    public static final String INVALID_MOVIE_IDS_MESSAGE = "Invalid movie ids. There must be 1 to 50 movie ids, and none of them can be empty";
     public static final int UNAUTHORIZED_CODE = 40101;
     public static final String UNAUTHORIZED_MESSAGE = "Unauthorized request";
     public static final int INVALID_CREDENTIAL_CODE = 40102;
@@ -65,6 +75,134 @@ public final class MovieConstant {
     public static final String MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING = "MovieSearchResultDTOMapping";
     public static final String SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING = "SingleMovieBasicDetailsDTOMapping";
     public static final String SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING = "SingleMovieCrewMemberDTOMapping";
+    public static final String MOVIE_DOCUMENT_MAPPING = "MovieDocumentMapping";
+    public static final String MOVIE_SUGGESTION_DTO_MAPPING = "MovieSuggestionDTOMapping";
+    public static final String MOVIE_FILTER_ATTRIBUTE_DTO_MAPPING = "MovieFilterAttributeDTOMapping";
+    public static final String MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING = "MovieRelevanceCandidateDTOMapping";
+    public static final String MOVIE_TITLE_SEARCH_QUERY_RESULT_WITH_TOTAL_MAPPING = "MovieSearchResultWithTotalMapping";
+    public static final String MOVIE_CREW_MEMBER_WITH_MOVIE_ID_MAPPING = "MovieCrewMemberWithMovieIdMapping";
+
+    // ORDER BY AND DIRECTION
+    public static final String ORDER_BY_TITLE = "title";
+    public static final String ORDER_BY_RATING = "rating";
+    public static final String ORDER_BY_RELEASE_TIME = "releaseTime";
+    public static final String ORDER_BY_RELEVANCE = "relevance";
+    public static final String DIRECTION_ASC = "asc";
+    public static final String DIRECTION_DESC = "desc";
+
+    // COUNT MODE OF THE TOTAL ITEMS
+    public static final String COUNT_EXACT = "exact";
+    public static final String COUNT_ESTIMATE = "estimate";
+
+    // SUGGESTION
+    public static final int MAX_SUGGESTION_LIMIT = 20;
+    // How often the suggestion index is built again from the database
+    public static final String SUGGESTION_REFRESH_INTERVAL_PROPERTY = "movie.suggestion.refresh-interval-ms";
+
+    // SEARCH ENGINE
+    // The property that selects which CustomMovieRepository implementation answers the searches
+    public static final String SEARCH_ENGINE_PROPERTY = "movie.search.engine";
+    public static final String SEARCH_ENGINE_SQL = "sql";
+    public static final String SEARCH_ENGINE_MEMORY = "memory";
+    // true: the SQL engine gets a page and the total items with one statement (needs MySQL 8 window functions)
+    public static final String SEARCH_SQL_SINGLE_QUERY_PROPERTY = "movie.search.sql.single-query";
+    // The number of shards of the in-memory index. 0 or less means the number of available processors.
+    public static final String SEARCH_SHARDS_PROPERTY = "movie.search.shards";
+    public static final String SEARCH_SEGMENT_PATH_PROPERTY = "movie.search.segment.path";
+    public static final String SEARCH_SEGMENT_BUILD_JOB_PROPERTY = "movie.search.segment.build-job";
+    public static final String SEARCH_CHANGE_FEED_ENABLED_PROPERTY = "movie.search.change-feed.enabled";
+    public static final String SEARCH_CHANGE_FEED_POLL_INTERVAL_PROPERTY = "movie.search.change-feed.poll-interval-ms";
+    public static final String SEARCH_COUNT_CACHE_MAX_SIZE_PROPERTY = "movie.search.count-cache.max-size";
+    public static final String SEARCH_COUNT_CACHE_TTL_SECONDS_PROPERTY = "movie.search.count-cache.ttl-seconds";
+    // The results of the recent searches of both engines, kept by frequency. 0 disables the cache.
+    public static final String SEARCH_RESULT_CACHE_MAX_SIZE_PROPERTY = "movie.search.result-cache.max-size";
+    public static final String SEARCH_RESULT_CACHE_TTL_SECONDS_PROPERTY = "movie.search.result-cache.ttl-seconds";
+    public static final String SEARCH_RESULT_CACHE_REFRESH_AFTER_SECONDS_PROPERTY =
+            "movie.search.result-cache.refresh-after-seconds";
+    public static final String SEARCH_RESULT_CACHE_MAX_STALE_SECONDS_PROPERTY =
+            "movie.search.result-cache.max-stale-seconds";
+    // With count=estimate, the SQL engine stops counting at this many movies
+    public static final String SEARCH_COUNT_ESTIMATE_CAP_PROPERTY = "movie.search.count.estimate-cap";
+    // A search ordered by relevance that falls back to the LIKE match ranks at most this many of its most voted movies
+    public static final String SEARCH_RELEVANCE_MAX_CANDIDATES_PROPERTY = "movie.search.relevance.max-candidates";
+    // like: the SQL engine filters the denormalized releaseTime, directors and genres columns with LIKE
+    // normalized: it resolves the director and the genre to their ids, and filters the releaseYear column by range
+    public static final String SEARCH_SQL_FILTERS_PROPERTY = "movie.search.sql.filters";
+    public static final String SEARCH_SQL_FILTERS_LIKE = "like";
+    public static final String SEARCH_SQL_FILTERS_NORMALIZED = "normalized";
+    // A filter that matches more ids than this keeps its LIKE condition
+    public static final String SEARCH_SQL_FILTER_MAX_IDS_PROPERTY = "movie.search.sql.filter-max-ids";
+    public static final String SEARCH_FILTER_ID_CACHE_MAX_SIZE_PROPERTY = "movie.search.filter-id-cache.max-size";
+    public static final String SEARCH_FILTER_ID_CACHE_TTL_SECONDS_PROPERTY = "movie.search.filter-id-cache.ttl-seconds";
+
+    // SQL CLIENT
+    // The property that selects how the SQL statements are run: jpa (native queries with @SqlResultSetMappings) or
+    // jdbc (plain JDBC with hand-written row mappers)
+    public static final String SQL_CLIENT_PROPERTY = "movie.sql.client";
+    public static final String SQL_CLIENT_JPA = "jpa";
+    public static final String SQL_CLIENT_JDBC = "jdbc";
+    public static final String SQL_JDBC_FETCH_SIZE_PROPERTY = "movie.sql.jdbc.fetch-size";
+
+    // READ REPLICAS
+    // The comma-separated JDBC URLs of the read replicas. The searches and the movie details are read from them when
+    // it's set.
+    public static final String REPLICA_URLS_PROPERTY = "movie.datasource.replica.urls";
+    public static final String REPLICA_MAX_LAG_SECONDS_PROPERTY = "movie.datasource.replica.max-lag-seconds";
+    public static final String REPLICA_CHECK_INTERVAL_PROPERTY = "movie.datasource.replica.check-interval-ms";
+
+    // HEDGED READS
+    // true: a page query that is slower than the percentile of the recent ones is sent to a second DataSource too
+    public static final String SEARCH_HEDGE_ENABLED_PROPERTY = "movie.search.hedge.enabled";
+    public static final String SEARCH_HEDGE_PERCENTILE_PROPERTY = "movie.search.hedge.percentile";
+    public static final String SEARCH_HEDGE_MIN_DELAY_MS_PROPERTY = "movie.search.hedge.min-delay-ms";
+    // The number of recent page query latencies the percentile is computed from
+    public static final String SEARCH_HEDGE_WINDOW_PROPERTY = "movie.search.hedge.window";
+    // The executor that runs both attempts of a hedged read
+    public static final String SEARCH_HEDGE_EXECUTOR = "searchHedgeExecutor";
+    public static final String SEARCH_HEDGE_EXECUTOR_THREADS_PROPERTY = "movie.search.hedge.executor-threads";
+
+    // MOVIE DETAILS
+    // The executor that runs the crew members query of a movie's details next to the basic details query
+    public static final String MOVIE_DETAILS_EXECUTOR = "movieDetailsExecutor";
+    public static final String MOVIE_DETAILS_EXECUTOR_THREADS_PROPERTY = "movie.details.executor-threads";
+    // The sub-queries waiting for a thread. The ones that don't fit run on the request's thread, after the basic query
+    public static final String MOVIE_DETAILS_EXECUTOR_QUEUE_SIZE_PROPERTY = "movie.details.executor-queue-size";
+    // The maximum number of movies of one batch details request
+    public static final int MAX_BATCH_MOVIE_IDS = 50;
+    // The details of the recently viewed movies. 0 disables the cache.
+    public static final String MOVIE_DETAILS_CACHE_MAX_SIZE_PROPERTY = "movie.details.cache.max-size";
+    public static final String MOVIE_DETAILS_CACHE_TTL_SECONDS_PROPERTY = "movie.details.cache.ttl-seconds";
+    public static final String MOVIE_DETAILS_CACHE_REFRESH_AFTER_SECONDS_PROPERTY =
+            "movie.details.cache.refresh-after-seconds";
+    public static final String MOVIE_DETAILS_CACHE_MAX_STALE_SECONDS_PROPERTY = "movie.details.cache.max-stale-seconds";
+    // true: poll movie_change_log and invalidate the cached details of the changed movies
+    public static final String MOVIE_DETAILS_CACHE_CHANGE_FEED_ENABLED_PROPERTY =
+            "movie.details.cache.change-feed.enabled";
+    public static final String MOVIE_DETAILS_CACHE_CHANGE_FEED_POLL_INTERVAL_PROPERTY =
+            "movie.details.cache.change-feed.poll-interval-ms";
+
+    // SINGLE FLIGHT
+    // true: the identical searches and movie details reads that run at the same time share one run of their queries
+    public static final String SINGLE_FLIGHT_ENABLED_PROPERTY = "movie.single-flight.enabled";
+    // How long a read waits for the identical one that is running, before it runs its queries itself
+    public static final String SINGLE_FLIGHT_WAIT_TIMEOUT_MS_PROPERTY = "movie.single-flight.wait-timeout-ms";
+
+    // NEGATIVE CACHE
+    // The searches that found no movie and the movie ids that don't exist, in Bloom filters. 0 disables the cache.
+    public static final String NEGATIVE_CACHE_EXPECTED_ENTRIES_PROPERTY = "movie.negative-cache.expected-entries";
+    public static final String NEGATIVE_CACHE_FALSE_POSITIVE_RATE_PROPERTY = "movie.negative-cache.false-positive-rate";
+    public static final String NEGATIVE_CACHE_TTL_SECONDS_PROPERTY = "movie.negative-cache.ttl-seconds";
+
+    // CACHE REFRESH
+    // The executor that loads the popular and the stale entries of the search result and movie details caches again
+    public static final String CACHE_REFRESH_EXECUTOR = "cacheRefreshExecutor";
+    public static final String CACHE_REFRESH_THREADS_PROPERTY = "movie.cache.refresh.threads";
+    // The refreshes waiting for a thread. The ones that don't fit are dropped.
+    public static final String CACHE_REFRESH_QUEUE_SIZE_PROPERTY = "movie.cache.refresh.queue-size";
+
+    // CACHE ADMIN
+    // true: map the unprotected endpoints that evict the cached entries
+    public static final String CACHE_ADMIN_ENABLED_PROPERTY = "movie.cache.admin.enabled";
 
     // MISS PARAMETER MAP
     public static final String TITLE = "title";
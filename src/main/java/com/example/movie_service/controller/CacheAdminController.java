@@ -0,0 +1,93 @@
+package com.example.movie_service.controller;
+
+import com.example.movie_service.cache.MovieDetailsCache;
+import com.example.movie_service.cache.MovieNegativeCache;
+import com.example.movie_service.cache.MovieReadCoalescer;
+import com.example.movie_service.cache.MovieSearchResultCache;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.DeleteMapping;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static com.example.movie_service.constant.MovieConstant.CACHE_ADMIN_ENABLED_PROPERTY;
+
+/**
+ * Admin hooks of the caches, for an operator or the data pipeline. They aren't protected by this service, so they're
+ * only mapped when movie.cache.admin.enabled=true, e.g. on an instance that is only reachable internally.
+ */
+@Slf4j
+@RestController
+@RequestMapping("/v1/admin/cache")
+@ConditionalOnProperty(name = CACHE_ADMIN_ENABLED_PROPERTY, havingValue = "true")
+public class CacheAdminController {
+
+    private final MovieDetailsCache detailsCache;
+    private final MovieSearchResultCache searchResultCache;
+    private final MovieReadCoalescer readCoalescer;
+    private final MovieNegativeCache negativeCache;
+
+    @Autowired
+    public CacheAdminController(MovieDetailsCache detailsCache, MovieSearchResultCache searchResultCache,
+                                MovieReadCoalescer readCoalescer, MovieNegativeCache negativeCache) {
+        this.detailsCache = detailsCache;
+        this.searchResultCache = searchResultCache;
+        this.readCoalescer = readCoalescer;
+        this.negativeCache = negativeCache;
+    }
+
+    /**
+     * Evict the cached details of one movie
+     * @param movieId the movie's id
+     */
+    @DeleteMapping("/movies/{movie_id}")
+    public ResponseEntity<Void> evictMovieDetails(@PathVariable("movie_id") String movieId) {
+        log.info("Evicting the cached details of movie {}", movieId);
+        detailsCache.bumpVersion(movieId);
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Evict the cached details of every movie
+     */
+    @DeleteMapping("/movies")
+    public ResponseEntity<Void> evictAllMovieDetails() {
+        log.info("Evicting the cached details of every movie");
+        detailsCache.evictAll();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * Forget the searches that found no movie and the movie ids that weren't found, e.g. after a catalogue import that
+     * the change feed doesn't see
+     */
+    @DeleteMapping("/negative")
+    public ResponseEntity<Void> clearNegativeCache() {
+        log.info("Clearing the negative cache");
+        negativeCache.clear();
+        return ResponseEntity.noContent().build();
+    }
+
+    /**
+     * @return the counters of the caches, of their refreshes and of the coalesced reads since the start
+     */
+    @GetMapping("/stats")
+    public ResponseEntity<Map<String, Object>> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("searchResults", searchResultCache.getStats());
+        stats.put("searchResultsRefresh", searchResultCache.getRefreshStats());
+        stats.put("movieDetails", detailsCache.getStats());
+        stats.put("movieDetailsRefresh", detailsCache.getRefreshStats());
+        stats.put("searchSingleFlight", readCoalescer.getSearchStats());
+        stats.put("movieDetailsSingleFlight", readCoalescer.getDetailsStats());
+        stats.put("negative", negativeCache.getStats());
+        return ResponseEntity.ok(stats);
+    }
+}
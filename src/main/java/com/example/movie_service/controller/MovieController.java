@@ -2,7 +2,9 @@ package com.example.movie_service.controller;
 
 import com.example.movie_service.builder.MovieSearchParam;
 import lombok.extern.slf4j.Slf4j;
+import com.example.movie_service.dto.MovieDetailsBatchItemDTO;
 import com.example.movie_service.dto.MovieSearchResultWithPaginationDTO;
+import com.example.movie_service.dto.MovieSuggestionDTO;
 import com.example.movie_service.dto.OneMovieDetailsDTO;
 import com.example.movie_service.response.CustomResponse;
 import com.example.movie_service.service.MovieService;
@@ -16,6 +18,9 @@ import org.springframework.web.bind.annotation.RequestMapping;
 import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
 
+import java.util.List;
+import java.util.Map;
+
 
 /**
  * Controller layer of the movie_service application
@@ -51,8 +56,11 @@ public class MovieController {
      * @param genre        the genre of the movie (optional)
      * @param limit        the number of results to return per page (default is 10)
      * @param page         the page number to return (default is 0)
-     * @param orderBy      the field to order the results by (default is "title", can also be "releaseTime", "rating")
-     * @param direction    the direction to order the results (default is "asc", can also be "desc")
+     * @param orderBy      the field to order the results by (default is "title", can also be "releaseTime", "rating", "relevance")
+     *                     With "relevance", a title that only matches by substring ranks at most
+     *                     movie.search.relevance.max-candidates of the most voted matches, so it may miss some of them
+     * @param direction    the direction to order the results (default is "asc", can also be "desc". Relevance ignores it)
+     * @param fuzzy        whether to match misspelled titles (default is false)
      * @return a ResponseEntity containing a CustomResponse with the list of movies found
      */
     @GetMapping("/movies")
@@ -64,10 +72,13 @@ public class MovieController {
             @RequestParam(required = false, defaultValue = "10") Integer limit,
             @RequestParam(required = false, defaultValue = "1") Integer page,
             @RequestParam(required = false, defaultValue = "title") String orderBy,
-            @RequestParam(required = false, defaultValue = "asc") String direction) {
+            @RequestParam(required = false, defaultValue = "asc") String direction,
+            @RequestParam(required = false, defaultValue = "false") Boolean fuzzy,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false, defaultValue = "exact") String count) {
 
-        log.info("Searching movies with title: {}, releasedYear: {}, director: {}, genre: {}, limit: {}, page: {}, orderBy: {}, direction: {}",
-                title, releasedYear, director, genre, limit, page, orderBy, direction);
+        log.info("Searching movies with title: {}, releasedYear: {}, director: {}, genre: {}, limit: {}, page: {}, orderBy: {}, direction: {}, fuzzy: {}, cursor: {}, count: {}",
+                title, releasedYear, director, genre, limit, page, orderBy, direction, fuzzy, cursor, count);
 
         // Build the MovieSearchRequestParam using the builder pattern
         MovieSearchParam movieSearchRequestParam = MovieSearchParam.builder()
@@ -79,6 +90,9 @@ public class MovieController {
                 .page(page)
                 .orderBy(orderBy)
                 .direction(direction)
+                .fuzzy(fuzzy)
+                .cursor(cursor)
+                .count(count)
                 .build();
 
         // Return the response entity
@@ -86,6 +100,40 @@ public class MovieController {
 
     }
 
+    /**
+     * Handles GET requests for the title autocomplete. It's called on every keystroke, so it's served from memory.
+     *
+     * @param prefix the beginning of the title typed by the user (required)
+     * @param limit  the maximum number of suggestions to return (default is 10, can be 1 to 20)
+     * @return a ResponseEntity containing a CustomResponse with the most voted titles starting with the prefix
+     */
+    @GetMapping("/movies/suggest")
+    public ResponseEntity<CustomResponse<List<MovieSuggestionDTO>>> suggestMovies(
+            @RequestParam String prefix,
+            @RequestParam(required = false, defaultValue = "10") Integer limit) {
+
+        log.debug("Suggesting movies with prefix: {}, limit: {}", prefix, limit);
+
+        return movieService.suggestMovies(prefix, limit);
+    }
+
+    /**
+     * Handles GET requests for the details of several movies, e.g. a watchlist, with two SQL statements in total instead
+     * of two per movie.
+     *
+     * @param ids the movie ids, as ids=a,b or ids=a&ids=b (1 to 50 of them)
+     * @return a ResponseEntity containing a CustomResponse with each movie's details keyed by movie id, with found
+     * false for the movies that don't exist
+     */
+    @GetMapping("/movies/batch")
+    public ResponseEntity<CustomResponse<Map<String, MovieDetailsBatchItemDTO>>> searchMoviesByMovieIds(
+            @RequestParam List<String> ids) {
+
+        log.info("Searching {} movies by ID", ids.size());
+
+        return movieService.searchMovieDetailsBatch(ids);
+    }
+
     @GetMapping("movies/{movie_id}")
     public ResponseEntity<CustomResponse<OneMovieDetailsDTO>> searchMovieByMovieId(@PathVariable("movie_id") String movieId){
 
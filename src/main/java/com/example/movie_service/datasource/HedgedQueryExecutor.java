@@ -0,0 +1,252 @@
+package com.example.movie_service.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+import static com.example.movie_service.constant.MovieConstant.SEARCH_HEDGE_ENABLED_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_HEDGE_EXECUTOR;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_HEDGE_MIN_DELAY_MS_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_HEDGE_PERCENTILE_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_HEDGE_WINDOW_PROPERTY;
+
+/**
+ * Runs a read with a hedge: when the read hasn't answered after the percentile of the recent reads' latencies, the
+ * same read is started again, the first answer is used, and the other attempt is cancelled. With the
+ * ReplicaRoutingDataSource the hedge goes to another replica, or to the primary, and the cancelled attempt's query is
+ * stopped on its database. <br>
+ *
+ * Only the latency of the first attempts is recorded, from when they start running, including the ones that lost, so
+ * the hedges don't make the percentile smaller and hedge more and more reads. There's no hedge until the window has
+ * enough latencies. <br>
+ *
+ * The executor hands an attempt to an idle thread without queueing it. When every thread is busy, the first attempt
+ * runs on the caller's thread without a hedge, and a hedge is skipped, so the executor's size doesn't limit the number
+ * of reads, and a busy executor doesn't add hedges to the load.
+ */
+@Slf4j
+@Component
+public class HedgedQueryExecutor {
+
+    // The latencies needed before the percentile is used
+    private static final int MIN_SAMPLES = 20;
+
+    private final boolean enabled;
+    private final Executor executor;
+    private final LatencyWindow latencies;
+
+    private final LongAdder reads = new LongAdder();
+    private final LongAdder hedges = new LongAdder();
+    private final LongAdder hedgeWins = new LongAdder();
+    private final LongAdder unhedgedReads = new LongAdder();
+    private final LongAdder skippedHedges = new LongAdder();
+
+    @Autowired
+    public HedgedQueryExecutor(@Value("${" + SEARCH_HEDGE_ENABLED_PROPERTY + ":false}") boolean enabled,
+                               @Value("${" + SEARCH_HEDGE_PERCENTILE_PROPERTY + ":95}") double percentile,
+                               @Value("${" + SEARCH_HEDGE_MIN_DELAY_MS_PROPERTY + ":5}") long minDelayMillis,
+                               @Value("${" + SEARCH_HEDGE_WINDOW_PROPERTY + ":1000}") int window,
+                               @Qualifier(SEARCH_HEDGE_EXECUTOR) Executor executor) {
+        this(enabled, percentile, Duration.ofMillis(minDelayMillis), window, executor);
+    }
+
+    /**
+     * @param enabled false runs every read once, on the caller's thread
+     * @param percentile the percentile of the recent latencies after which a read is hedged
+     * @param minDelay the hedge never starts sooner than this
+     * @param window the number of recent latencies the percentile is computed from
+     * @param executor runs the attempts. It should reject an attempt when every thread is busy instead of queueing it.
+     */
+    public HedgedQueryExecutor(boolean enabled, double percentile, Duration minDelay, int window, Executor executor) {
+        this.enabled = enabled;
+        this.executor = executor;
+        this.latencies = new LatencyWindow(Math.max(window, MIN_SAMPLES), percentile, minDelay.toNanos());
+    }
+
+    /**
+     * Run a read, with a hedge if it's slow
+     * @param read the read. It must be safe to run twice at the same time.
+     * @return the result of the first attempt that answered
+     */
+    public <T> T execute(Supplier<T> read) {
+        if (!enabled) {
+            return read.get();
+        }
+        reads.increment();
+        long hedgeDelay = latencies.hedgeDelayNanos();
+
+        QueryAttempt first = new QueryAttempt(null);
+        CompletableFuture<T> firstResult;
+        try {
+            firstResult = CompletableFuture.supplyAsync(() -> timed(() -> ReadReplicaRouting.attempt(first, read)),
+                    executor);
+        } catch (RejectedExecutionException e) {
+            unhedgedReads.increment();
+            return timed(() -> ReadReplicaRouting.attempt(first, read));
+        }
+        if (hedgeDelay < 0) {
+            return join(firstResult);
+        }
+
+        try {
+            return firstResult.get(hedgeDelay, TimeUnit.NANOSECONDS);
+        } catch (TimeoutException e) {
+            return hedge(read, first, firstResult);
+        } catch (ExecutionException e) {
+            throw unwrap(e.getCause());
+        } catch (InterruptedException e) {
+            first.cancel();
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a read", e);
+        }
+    }
+
+    /**
+     * @return the counters of the hedged reads since the start
+     */
+    public Stats getStats() {
+        return new Stats(reads.sum(), hedges.sum(), hedgeWins.sum(), unhedgedReads.sum(), skippedHedges.sum(),
+                latencies.hedgeDelayNanos());
+    }
+
+    private <T> T hedge(Supplier<T> read, QueryAttempt first, CompletableFuture<T> firstResult) {
+        QueryAttempt second = new QueryAttempt(first);
+        CompletableFuture<T> secondResult;
+        try {
+            secondResult = CompletableFuture.supplyAsync(() -> ReadReplicaRouting.attempt(second, read), executor);
+        } catch (RejectedExecutionException e) {
+            skippedHedges.increment();
+            return join(firstResult);
+        }
+        hedges.increment();
+        log.debug("Hedged a read that went to {}", first.getDataSourceName());
+
+        // The first answer wins. A failed attempt only fails the read if the other one fails too.
+        CompletableFuture<T> winner = new CompletableFuture<>();
+        AtomicInteger failures = new AtomicInteger();
+        firstResult.whenComplete((value, error) -> {
+            if (error == null) {
+                if (winner.complete(value)) {
+                    second.cancel();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(error);
+            }
+        });
+        secondResult.whenComplete((value, error) -> {
+            if (error == null) {
+                if (winner.complete(value)) {
+                    hedgeWins.increment();
+                    first.cancel();
+                }
+            } else if (failures.incrementAndGet() == 2) {
+                winner.completeExceptionally(error);
+            }
+        });
+        return join(winner);
+    }
+
+    // Run a first attempt and record its latency, whatever its outcome
+    private <T> T timed(Supplier<T> attempt) {
+        long start = System.nanoTime();
+        try {
+            return attempt.get();
+        } finally {
+            latencies.record(System.nanoTime() - start);
+        }
+    }
+
+    // Wait for the result, and throw the read's exception itself instead of the CompletionException that wraps it
+    private static <T> T join(CompletableFuture<T> future) {
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            throw unwrap(e.getCause());
+        }
+    }
+
+    // The exception of a failed attempt, to be thrown by the caller
+    private static RuntimeException unwrap(Throwable cause) {
+        if (cause instanceof CompletionException completionException) {
+            cause = completionException.getCause();
+        }
+        if (cause instanceof RuntimeException runtimeException) {
+            return runtimeException;
+        }
+        if (cause instanceof Error error) {
+            throw error;
+        }
+        return new IllegalStateException(cause);
+    }
+
+    /**
+     * The counters of the hedged reads
+     * @param reads the reads run while hedging is enabled
+     * @param hedges the reads that were hedged
+     * @param hedgeWins the hedged reads answered by the hedge
+     * @param unhedgedReads the reads run on the caller's thread without a hedge, because every thread was busy
+     * @param skippedHedges the slow reads that weren't hedged, because every thread was busy
+     * @param hedgeDelayNanos the current delay of a hedge, or -1 while there aren't enough latencies
+     */
+    public record Stats(long reads, long hedges, long hedgeWins, long unhedgedReads, long skippedHedges,
+                        long hedgeDelayNanos) {
+
+        public double hedgeRate() {
+            return reads == 0 ? 0 : (double) hedges / reads;
+        }
+
+        public double hedgeWinRate() {
+            return hedges == 0 ? 0 : (double) hedgeWins / hedges;
+        }
+    }
+
+    /**
+     * The recent latencies, in a ring buffer. The percentile is computed again after every tenth of the window, so
+     * sorting the window doesn't cost every read.
+     */
+    private static final class LatencyWindow {
+        private final long[] samples;
+        private final double percentile;
+        private final long minDelayNanos;
+        private final int recomputeEvery;
+        private long recorded;
+        private volatile long hedgeDelayNanos = -1;
+
+        private LatencyWindow(int size, double percentile, long minDelayNanos) {
+            this.samples = new long[size];
+            this.percentile = percentile;
+            this.minDelayNanos = minDelayNanos;
+            this.recomputeEvery = Math.max(1, size / 10);
+        }
+
+        private synchronized void record(long nanos) {
+            samples[(int) (recorded % samples.length)] = nanos;
+            recorded++;
+            if (recorded >= MIN_SAMPLES && (recorded == MIN_SAMPLES || recorded % recomputeEvery == 0)) {
+                long[] sorted = Arrays.copyOf(samples, (int) Math.min(recorded, samples.length));
+                Arrays.sort(sorted);
+                int index = (int) Math.ceil(percentile / 100 * sorted.length) - 1;
+                hedgeDelayNanos = Math.max(minDelayNanos, sorted[Math.min(Math.max(index, 0), sorted.length - 1)]);
+            }
+        }
+
+        private long hedgeDelayNanos() {
+            return hedgeDelayNanos;
+        }
+    }
+}
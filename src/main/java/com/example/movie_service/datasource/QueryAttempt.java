@@ -0,0 +1,95 @@
+package com.example.movie_service.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * One of the attempts of a hedged read. The ReplicaRoutingDataSource records which of its DataSources gave the
+ * attempt's connection, so the hedge of the attempt goes to another one, and tracks the statements of the connection,
+ * so cancel can stop the attempt's query on the database instead of only ignoring its result. <br>
+ *
+ * With another DataSource, the attempt's connections are not tracked, and cancel only stops an attempt that didn't
+ * start yet.
+ */
+@Slf4j
+public final class QueryAttempt {
+
+    private final QueryAttempt hedged;
+    private final Set<Statement> statements = ConcurrentHashMap.newKeySet();
+    private volatile String dataSourceName;
+    private volatile boolean cancelled;
+
+    /**
+     * @param hedged the attempt this one hedges, whose DataSource it avoids, or null for the first attempt
+     */
+    public QueryAttempt(QueryAttempt hedged) {
+        this.hedged = hedged;
+    }
+
+    /**
+     * @return the name of the DataSource the attempt this one hedges got its connection from, or null
+     */
+    public String getAvoidedDataSourceName() {
+        return hedged == null ? null : hedged.dataSourceName;
+    }
+
+    public String getDataSourceName() {
+        return dataSourceName;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    /**
+     * Stop the attempt: a query that is running is cancelled with Statement.cancel, and a query that didn't start won't
+     */
+    public void cancel() {
+        cancelled = true;
+        statements.forEach(QueryAttempt::cancelQuietly);
+    }
+
+    /**
+     * Record the DataSource of a connection of the attempt, and track the statements created with it
+     * @param connection the connection
+     * @param dataSourceName the name of the DataSource that gave it
+     * @return the connection that tracks its statements
+     */
+    Connection track(Connection connection, String dataSourceName) {
+        this.dataSourceName = dataSourceName;
+        return (Connection) Proxy.newProxyInstance(Connection.class.getClassLoader(), new Class<?>[]{Connection.class},
+                (proxy, method, args) -> {
+                    Object result;
+                    try {
+                        result = method.invoke(connection, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                    if (result instanceof Statement statement) {
+                        statements.add(statement);
+                        if (cancelled) {
+                            cancelQuietly(statement);
+                        }
+                    } else if ("close".equals(method.getName())) {
+                        statements.clear();
+                    }
+                    return result;
+                });
+    }
+
+    private static void cancelQuietly(Statement statement) {
+        try {
+            statement.cancel();
+        } catch (SQLException e) {
+            // The statement may be closed already
+            log.debug("Failed to cancel the statement of a hedged read: {}", e.getMessage());
+        }
+    }
+}
@@ -0,0 +1,83 @@
+package com.example.movie_service.datasource;
+
+import java.util.concurrent.CancellationException;
+import java.util.function.Supplier;
+
+/**
+ * Marks the reads that may be served by a read replica. The ReplicaRoutingDataSource gives the connections opened by a
+ * thread inside readOnly to a replica, and every other connection to the primary. <br>
+ *
+ * The mark belongs to the thread, so a task run on another thread only keeps it if it's wrapped with propagate.
+ */
+public final class ReadReplicaRouting {
+
+    private static final ThreadLocal<Boolean> READ_ONLY = ThreadLocal.withInitial(() -> false);
+    private static final ThreadLocal<QueryAttempt> ATTEMPT = new ThreadLocal<>();
+
+    private ReadReplicaRouting() {
+    }
+
+    /**
+     * Run a read whose connections may come from a read replica
+     * @param read the read
+     * @return the read's result
+     */
+    public static <T> T readOnly(Supplier<T> read) {
+        boolean previous = READ_ONLY.get();
+        READ_ONLY.set(true);
+        try {
+            return read.get();
+        } finally {
+            READ_ONLY.set(previous);
+        }
+    }
+
+    /**
+     * Run one attempt of a hedged read. Its connections are tracked by the attempt, so it can be cancelled.
+     * @param attempt the attempt
+     * @param read the read
+     * @return the read's result
+     * @throws CancellationException if the attempt was cancelled before it started
+     */
+    public static <T> T attempt(QueryAttempt attempt, Supplier<T> read) {
+        if (attempt.isCancelled()) {
+            throw new CancellationException("The hedged read was answered by another attempt");
+        }
+        QueryAttempt previous = ATTEMPT.get();
+        ATTEMPT.set(attempt);
+        try {
+            return read.get();
+        } finally {
+            ATTEMPT.set(previous);
+        }
+    }
+
+    /**
+     * @return the attempt of the current thread's hedged read, or null
+     */
+    public static QueryAttempt currentAttempt() {
+        return ATTEMPT.get();
+    }
+
+    /**
+     * @return the current thread is inside readOnly
+     */
+    public static boolean isReadOnly() {
+        return READ_ONLY.get();
+    }
+
+    /**
+     * Wrap a task so it runs with the mark of the thread that wraps it
+     * @param task the task
+     * @return the wrapped task, or the task itself if this thread isn't inside readOnly
+     */
+    public static Runnable propagate(Runnable task) {
+        if (!isReadOnly()) {
+            return task;
+        }
+        return () -> readOnly(() -> {
+            task.run();
+            return null;
+        });
+    }
+}
@@ -0,0 +1,30 @@
+package com.example.movie_service.datasource;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import static com.example.movie_service.constant.MovieConstant.REPLICA_CHECK_INTERVAL_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.REPLICA_URLS_PROPERTY;
+
+/**
+ * Checks the health and the lag of the read replicas regularly, from the start of the application.
+ * @see ReplicaRoutingDataSource#checkReplicas()
+ */
+@Component
+@ConditionalOnExpression("!'${" + REPLICA_URLS_PROPERTY + ":}'.isEmpty()")
+public class ReplicaHealthChecker {
+
+    private final ReplicaRoutingDataSource dataSource;
+
+    @Autowired
+    public ReplicaHealthChecker(ReplicaRoutingDataSource dataSource) {
+        this.dataSource = dataSource;
+    }
+
+    @Scheduled(fixedDelayString = "${" + REPLICA_CHECK_INTERVAL_PROPERTY + ":5000}")
+    public void check() {
+        dataSource.checkReplicas();
+    }
+}
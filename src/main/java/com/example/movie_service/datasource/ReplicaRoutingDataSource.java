@@ -0,0 +1,164 @@
+package com.example.movie_service.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.AbstractDataSource;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A DataSource that gives the connections of the reads marked by ReadReplicaRouting to the read replicas, in turn,
+ * and every other connection to the primary. <br>
+ *
+ * checkReplicas runs SHOW REPLICA STATUS on every replica: a replica is only used while it answers and its
+ * Seconds_Behind_Source is at most maxLagSeconds. A database that isn't replicating from anything has no status row,
+ * and is used as it is. A replica that fails to give a connection is not used until the next check finds it healthy
+ * again. When no replica is healthy, the reads go to the primary. <br>
+ *
+ * The connections of a hedged read's attempt are tracked by its QueryAttempt, and the hedge avoids the DataSource of
+ * the attempt it hedges.
+ */
+@Slf4j
+public class ReplicaRoutingDataSource extends AbstractDataSource implements AutoCloseable {
+
+    private static final String REPLICA_STATUS_QUERY = "SHOW REPLICA STATUS";
+    private static final String LAG_COLUMN = "Seconds_Behind_Source";
+    private static final int CHECK_TIMEOUT_SECONDS = 2;
+    // The name of the primary for the hedged reads
+    private static final String PRIMARY_NAME = "primary";
+
+    private final DataSource primary;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final long maxLagSeconds;
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    /**
+     * @param primary the primary database
+     * @param replicas the name and the DataSource of each replica. They're closed with this DataSource.
+     * @param maxLagSeconds the replicas that are further behind the primary are not used
+     */
+    public ReplicaRoutingDataSource(DataSource primary, Map<String, DataSource> replicas, long maxLagSeconds) {
+        this.primary = primary;
+        replicas.forEach((name, dataSource) -> this.replicas.add(new Replica(name, dataSource)));
+        this.maxLagSeconds = maxLagSeconds;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return getConnection(DataSource::getConnection);
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return getConnection(dataSource -> dataSource.getConnection(username, password));
+    }
+
+    /**
+     * Check the health and the lag of every replica
+     */
+    public void checkReplicas() {
+        for (Replica replica : replicas) {
+            try (Connection connection = replica.dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                statement.setQueryTimeout(CHECK_TIMEOUT_SECONDS);
+                try (ResultSet status = statement.executeQuery(REPLICA_STATUS_QUERY)) {
+                    if (!status.next()) {
+                        markHealthy(replica, true, "not replicating");
+                        continue;
+                    }
+                    long lagSeconds = status.getLong(LAG_COLUMN);
+                    if (status.wasNull()) {
+                        // The replication threads are stopped, so the replica gets further behind every second
+                        markHealthy(replica, false, "replication stopped");
+                    } else {
+                        markHealthy(replica, lagSeconds <= maxLagSeconds, lagSeconds + " seconds behind");
+                    }
+                }
+            } catch (SQLException e) {
+                markHealthy(replica, false, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * @return the names of the replicas that are used now
+     */
+    public List<String> getHealthyReplicas() {
+        return replicas.stream()
+                .filter(replica -> replica.healthy)
+                .map(replica -> replica.name)
+                .toList();
+    }
+
+    @Override
+    public void close() throws Exception {
+        for (Replica replica : replicas) {
+            if (replica.dataSource instanceof AutoCloseable closeable) {
+                closeable.close();
+            }
+        }
+    }
+
+    private Connection getConnection(ConnectionOpener opener) throws SQLException {
+        QueryAttempt attempt = ReadReplicaRouting.currentAttempt();
+        if (ReadReplicaRouting.isReadOnly()) {
+            Replica replica = nextHealthyReplica(attempt == null ? null : attempt.getAvoidedDataSourceName());
+            if (replica != null) {
+                try {
+                    return track(opener.open(replica.dataSource), replica.name, attempt);
+                } catch (SQLException e) {
+                    markHealthy(replica, false, e.getMessage());
+                }
+            }
+        }
+        return track(opener.open(primary), PRIMARY_NAME, attempt);
+    }
+
+    // The hedge of a read that went to a replica avoids that replica, and goes to the primary if there's no other one
+    private Replica nextHealthyReplica(String avoidedName) {
+        int size = replicas.size();
+        int start = Math.floorMod(nextReplica.getAndIncrement(), Math.max(size, 1));
+        for (int i = 0; i < size; i++) {
+            Replica replica = replicas.get((start + i) % size);
+            if (replica.healthy && !replica.name.equals(avoidedName)) {
+                return replica;
+            }
+        }
+        return null;
+    }
+
+    private static Connection track(Connection connection, String name, QueryAttempt attempt) {
+        return attempt == null ? connection : attempt.track(connection, name);
+    }
+
+    private void markHealthy(Replica replica, boolean healthy, String reason) {
+        if (replica.healthy != healthy) {
+            log.warn("Read replica {} is {}: {}", replica.name, healthy ? "used again" : "not used", reason);
+        }
+        replica.healthy = healthy;
+    }
+
+    @FunctionalInterface
+    private interface ConnectionOpener {
+        Connection open(DataSource dataSource) throws SQLException;
+    }
+
+    private static final class Replica {
+        private final String name;
+        private final DataSource dataSource;
+        // Optimistic until the first check, a failed connection marks it unhealthy anyway
+        private volatile boolean healthy = true;
+
+        private Replica(String name, DataSource dataSource) {
+            this.name = name;
+            this.dataSource = dataSource;
+        }
+    }
+}
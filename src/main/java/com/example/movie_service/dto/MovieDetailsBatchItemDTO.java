@@ -0,0 +1,18 @@
+package com.example.movie_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * The details of one movie of a batch details request. A movie id that isn't found still has an item, with found
+ * false and no details, so the client can tell a missing movie from a missing item.
+ * @see com.example.movie_service.service.MovieServiceImpl#searchMovieDetailsBatch(java.util.List)
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieDetailsBatchItemDTO {
+    private boolean found;
+    private OneMovieDetailsDTO details;
+}
@@ -0,0 +1,20 @@
+package com.example.movie_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class is to contain one filterable attribute of a movie, e.g. one of its genres or one of its directors.
+ * @see com.example.movie_service.index.FilterBitmapIndex
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieFilterAttributeDTO {
+    private String movieId;
+    // genre.id or person.person_id
+    private String attributeId;
+    // genre.name or person.name
+    private String name;
+}
@@ -0,0 +1,18 @@
+package com.example.movie_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class is to contain one movie matched by a title search, with only the fields needed to rank it by relevance.
+ * @see com.example.movie_service.index.RelevanceRanker
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieRelevanceCandidateDTO {
+    private String id;
+    private String title;
+    private Integer numOfVotes;
+}
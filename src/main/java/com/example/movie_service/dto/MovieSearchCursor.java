@@ -0,0 +1,148 @@
+package com.example.movie_service.dto;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import lombok.AllArgsConstructor;
+import lombok.EqualsAndHashCode;
+import lombok.Getter;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.Base64;
+import java.util.Locale;
+import java.util.Objects;
+
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RATING;
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RELEASE_TIME;
+
+/**
+ * The position after the last movie of a page of searchMovies, given to the client as the opaque nextCursor token.
+ * <br>
+ *
+ * With the page parameter, the database reads and throws away page * limit rows before the requested ones. With a
+ * cursor, the next page starts right after the last movie's (sort value, movie id), so every page costs the same. The
+ * cursor also carries what the first page found out, the total items and whether the title was matched with LIKE, so
+ * the next pages don't count the movies again. <br>
+ *
+ * A cursor only works for the search that created it: it has a hash of the search parameters, and decode rejects
+ * tokens that are not cursors.
+ */
+@Getter
+@AllArgsConstructor
+@EqualsAndHashCode
+public class MovieSearchCursor {
+
+    private static final byte VERSION = 2;
+
+    // The hash of the search parameters, see searchHashOf
+    private int searchHash;
+    // The SQL search path matched the title with LIKE, because the FULLTEXT phrase match found nothing
+    private boolean likeMatch;
+    private int totalItems;
+    // The total items were only counted up to the estimate cap
+    private boolean totalItemsEstimated;
+    // The zero-indexed page that starts after the last movie
+    private int page;
+    private String lastId;
+    // The last movie's value of the orderBy field, or null if it has none
+    private String lastSortValue;
+
+    /**
+     * Create the cursor of the page after this one
+     * @param movieSearchParam the parameters of this page's search
+     * @param likeMatch the title was matched with LIKE
+     * @param totalItems the total items of the search
+     * @param totalItemsEstimated the total items were only counted up to the estimate cap
+     * @param lastMovie the last movie of this page
+     * @return a MovieSearchCursor
+     */
+    public static MovieSearchCursor after(MovieSearchParam movieSearchParam, boolean likeMatch, int totalItems,
+                                          boolean totalItemsEstimated, MovieTitleSearchSQLQueryResultDTO lastMovie) {
+        return new MovieSearchCursor(searchHashOf(movieSearchParam), likeMatch, totalItems, totalItemsEstimated,
+                movieSearchParam.getPage() + 1, lastMovie.getId(),
+                sortValueOf(lastMovie, movieSearchParam.getOrderBy()));
+    }
+
+    /**
+     * Hash the parameters that decide which movies are found and in which order they are paged. The title and the
+     * filters are compared case-insensitively, with an empty one the same as a missing one, so the searches that share
+     * a cached or coalesced result can all use its cursor.
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @return the hash
+     */
+    public static int searchHashOf(MovieSearchParam movieSearchParam) {
+        return Objects.hash(normalize(movieSearchParam.getTitle()), normalize(movieSearchParam.getReleasedYear()),
+                normalize(movieSearchParam.getDirector()), normalize(movieSearchParam.getGenre()),
+                movieSearchParam.getLimit(), movieSearchParam.getOrderBy(), movieSearchParam.getDirection(),
+                movieSearchParam.getFuzzy(), movieSearchParam.getCount());
+    }
+
+    private static String normalize(String value) {
+        return value == null ? "" : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Get a movie's value of the orderBy field as a String. A rating is written with Double.toString, so
+     * Double.valueOf gets the same value back.
+     * @param movie a movie of a search result
+     * @param orderBy title, rating, or releaseTime
+     * @return the value, or null if the movie has none
+     */
+    public static String sortValueOf(MovieTitleSearchSQLQueryResultDTO movie, String orderBy) {
+        return switch (orderBy) {
+            case ORDER_BY_RATING -> movie.getRating() == null ? null : movie.getRating().toString();
+            case ORDER_BY_RELEASE_TIME -> movie.getReleaseTime();
+            default -> movie.getTitle();
+        };
+    }
+
+    /**
+     * @return the cursor as a URL-safe token
+     */
+    public String encode() {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeByte(VERSION);
+            output.writeInt(searchHash);
+            output.writeBoolean(likeMatch);
+            output.writeInt(totalItems);
+            output.writeBoolean(totalItemsEstimated);
+            output.writeInt(page);
+            output.writeUTF(lastId);
+            output.writeBoolean(lastSortValue != null);
+            if (lastSortValue != null) {
+                output.writeUTF(lastSortValue);
+            }
+        } catch (IOException e) {
+            // A ByteArrayOutputStream doesn't throw IOException
+            throw new UncheckedIOException(e);
+        }
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(bytes.toByteArray());
+    }
+
+    /**
+     * Read a token created by encode
+     * @param token the token
+     * @return the MovieSearchCursor
+     * @throws IllegalArgumentException if the token is not a cursor
+     */
+    public static MovieSearchCursor decode(String token) throws IllegalArgumentException {
+        byte[] bytes = Base64.getUrlDecoder().decode(token);
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(bytes))) {
+            if (input.readByte() != VERSION) {
+                throw new IllegalArgumentException("Unknown cursor version");
+            }
+            MovieSearchCursor cursor = new MovieSearchCursor(input.readInt(), input.readBoolean(), input.readInt(),
+                    input.readBoolean(), input.readInt(), input.readUTF(), input.readBoolean() ? input.readUTF() : null);
+            if (input.available() > 0 || cursor.totalItems < 0 || cursor.page < 1) {
+                throw new IllegalArgumentException("Invalid cursor");
+            }
+            return cursor;
+        } catch (IOException e) {
+            throw new IllegalArgumentException("Invalid cursor", e);
+        }
+    }
+}
@@ -10,9 +10,13 @@ import java.util.List;
 public class MovieSearchResultWithPaginationDTO {
     private List<MovieSearchResponseDTO> movies;
     private int totalItems;
+    // The total items were only counted up to a cap (count=estimate), so there are at least totalItems movies
+    private boolean totalItemsEstimated;
     private int currentPage;
     private int itemsPerPage;
     private int totalPages;
     private boolean hasNextPage;
     private boolean hasPrevPage;
+    // Pass it as the cursor parameter to get the next page. It's null on the last page.
+    private String nextCursor;
 }
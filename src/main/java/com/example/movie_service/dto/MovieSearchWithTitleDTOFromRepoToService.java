@@ -12,4 +12,13 @@ import java.util.List;
 public class MovieSearchWithTitleDTOFromRepoToService {
     private int totalItem;
     private List<MovieTitleSearchSQLQueryResultDTO> movies;
+    // The counting stopped at the estimate cap, so totalItem is a lower bound
+    private boolean totalItemEstimated;
+    // The position after the last movie, or null if there's no next page
+    private MovieSearchCursor nextCursor;
+
+    public MovieSearchWithTitleDTOFromRepoToService(int totalItem, List<MovieTitleSearchSQLQueryResultDTO> movies) {
+        this.totalItem = totalItem;
+        this.movies = movies;
+    }
 }
@@ -0,0 +1,20 @@
+package com.example.movie_service.dto;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * This class is to contain one title suggestion returned by the autocomplete endpoint.
+ * @see com.example.movie_service.index.MovieSuggestionIndex
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class MovieSuggestionDTO {
+    private String id;
+    private String title;
+    private String releaseTime;
+    private String posterPath;
+    private Integer numOfVotes;
+}
@@ -1,8 +1,12 @@
 package com.example.movie_service.entity.mappingholder;
 
 import com.example.movie_service.dto.CrewMember;
+import com.example.movie_service.dto.MovieFilterAttributeDTO;
+import com.example.movie_service.dto.MovieRelevanceCandidateDTO;
+import com.example.movie_service.dto.MovieSuggestionDTO;
 import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
 import com.example.movie_service.dto.OneMovieDetailsDTO;
+import com.example.movie_service.index.MovieDocument;
 import jakarta.persistence.ColumnResult;
 import jakarta.persistence.ConstructorResult;
 import jakarta.persistence.Entity;
@@ -10,7 +14,13 @@ import jakarta.persistence.Id;
 import jakarta.persistence.SqlResultSetMapping;
 
 
+import static com.example.movie_service.constant.MovieConstant.MOVIE_CREW_MEMBER_WITH_MOVIE_ID_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DOCUMENT_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_FILTER_ATTRIBUTE_DTO_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_SUGGESTION_DTO_MAPPING;
 import static com.example.movie_service.constant.MovieConstant.MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_TITLE_SEARCH_QUERY_RESULT_WITH_TOTAL_MAPPING;
 import static com.example.movie_service.constant.MovieConstant.SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING;
 import static com.example.movie_service.constant.MovieConstant.SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING;
 
@@ -76,6 +86,102 @@ import static com.example.movie_service.constant.MovieConstant.SINGLE_MOVIE_CREW
         )
 )
 
+@SqlResultSetMapping(
+        name = MOVIE_DOCUMENT_MAPPING,
+        classes = @ConstructorResult(
+                targetClass = MovieDocument.class,
+                columns = {
+                        @ColumnResult(name = "id", type = String.class),
+                        @ColumnResult(name = "title", type = String.class),
+                        @ColumnResult(name = "releaseTime", type = String.class),
+                        @ColumnResult(name = "directors", type = String.class),
+                        @ColumnResult(name = "backdropPath", type = String.class),
+                        @ColumnResult(name = "posterPath", type = String.class),
+                        @ColumnResult(name = "rating", type = Double.class),
+                        @ColumnResult(name = "overview", type = String.class),
+                        @ColumnResult(name = "genres", type = String.class),
+                        @ColumnResult(name = "numOfVotes", type = Integer.class)
+                }
+        )
+)
+
+@SqlResultSetMapping(
+        name = MOVIE_SUGGESTION_DTO_MAPPING,
+        classes = @ConstructorResult(
+                targetClass = MovieSuggestionDTO.class,
+                columns = {
+                        @ColumnResult(name = "id", type = String.class),
+                        @ColumnResult(name = "title", type = String.class),
+                        @ColumnResult(name = "releaseTime", type = String.class),
+                        @ColumnResult(name = "posterPath", type = String.class),
+                        @ColumnResult(name = "numOfVotes", type = Integer.class)
+                }
+        )
+)
+
+@SqlResultSetMapping(
+        name = MOVIE_FILTER_ATTRIBUTE_DTO_MAPPING,
+        classes = @ConstructorResult(
+                targetClass = MovieFilterAttributeDTO.class,
+                columns = {
+                        @ColumnResult(name = "movieId", type = String.class),
+                        @ColumnResult(name = "attributeId", type = String.class),
+                        @ColumnResult(name = "name", type = String.class)
+                }
+        )
+)
+
+@SqlResultSetMapping(
+        name = MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING,
+        classes = @ConstructorResult(
+                targetClass = MovieRelevanceCandidateDTO.class,
+                columns = {
+                        @ColumnResult(name = "id", type = String.class),
+                        @ColumnResult(name = "title", type = String.class),
+                        @ColumnResult(name = "numOfVotes", type = Integer.class)
+                }
+        )
+)
+
+// Each row is an Object[] of the MovieTitleSearchSQLQueryResultDTO, the totalItems window column, and the likeMatch
+// column that says which title match found the row
+@SqlResultSetMapping(
+        name = MOVIE_TITLE_SEARCH_QUERY_RESULT_WITH_TOTAL_MAPPING,
+        classes = @ConstructorResult(
+                targetClass = MovieTitleSearchSQLQueryResultDTO.class,
+                columns = {
+                        @ColumnResult(name = "id", type = String.class),
+                        @ColumnResult(name = "title", type = String.class),
+                        @ColumnResult(name = "releaseTime", type = String.class),
+                        @ColumnResult(name = "directors", type = String.class),
+                        @ColumnResult(name = "backdropPath", type = String.class),
+                        @ColumnResult(name = "posterPath", type = String.class),
+                        @ColumnResult(name = "rating", type = Double.class),
+                        @ColumnResult(name = "overview", type = String.class),
+                }
+        ),
+        columns = {
+                @ColumnResult(name = "totalItems", type = Long.class),
+                @ColumnResult(name = "likeMatch", type = Integer.class)
+        }
+)
+
+// Each row is an Object[] of the CrewMember and the movie_id column, so the crew members of several movies can be
+// grouped by movie
+@SqlResultSetMapping(
+        name = MOVIE_CREW_MEMBER_WITH_MOVIE_ID_MAPPING,
+        classes = @ConstructorResult(
+                targetClass = CrewMember.class,
+                columns = {
+                        @ColumnResult(name = "person_id", type = String.class),
+                        @ColumnResult(name = "person_name", type = String.class),
+                        @ColumnResult(name = "profilePath", type = String.class),
+                        @ColumnResult(name = "jobs", type = String.class)
+                }
+        ),
+        columns = @ColumnResult(name = "movie_id", type = String.class)
+)
+
 @Entity
 @SuppressWarnings({"unused"})
 public class MappingHolder {
@@ -0,0 +1,30 @@
+package com.example.movie_service.index;
+
+/**
+ * Documents kept as objects on the heap, for an index built from the database.
+ */
+class ArrayDocumentStore implements DocumentStore {
+
+    private final MovieDocument[] documents;
+    private final String[] normalizedTitles;
+
+    ArrayDocumentStore(MovieDocument[] documents, String[] normalizedTitles) {
+        this.documents = documents;
+        this.normalizedTitles = normalizedTitles;
+    }
+
+    @Override
+    public int size() {
+        return documents.length;
+    }
+
+    @Override
+    public MovieDocument get(int ordinal) {
+        return documents[ordinal];
+    }
+
+    @Override
+    public String normalizedTitle(int ordinal) {
+        return normalizedTitles[ordinal];
+    }
+}
@@ -0,0 +1,50 @@
+package com.example.movie_service.index;
+
+/**
+ * The documents of a MovieSearchIndex, by ordinal.
+ * @see ArrayDocumentStore
+ * @see MappedDocumentStore
+ */
+interface DocumentStore {
+
+    int size();
+
+    MovieDocument get(int ordinal);
+
+    /**
+     * @param ordinal a document's ordinal
+     * @return the document's title normalized by TitleAnalyzer
+     */
+    String normalizedTitle(int ordinal);
+
+    /**
+     * Write the documents and their normalized titles in the format MappedDocumentStore reads
+     * @param output the segment section to write to
+     */
+    default void writeTo(SegmentOutput output) {
+        int size = size();
+        output.putInt(size);
+        // The offsets of the records, relative to the first record. They are filled once the records are written.
+        int offsetsPosition = output.position();
+        for (int i = 0; i <= size; i++) {
+            output.putInt(0);
+        }
+        int recordsPosition = output.position();
+        for (int ordinal = 0; ordinal < size; ordinal++) {
+            output.putIntAt(offsetsPosition + ordinal * Integer.BYTES, output.position() - recordsPosition);
+            MovieDocument document = get(ordinal);
+            output.putString(normalizedTitle(ordinal));
+            output.putString(document.getId());
+            output.putString(document.getTitle());
+            output.putString(document.getReleaseTime());
+            output.putString(document.getDirectors());
+            output.putString(document.getBackdropPath());
+            output.putString(document.getPosterPath());
+            output.putNullableDouble(document.getRating());
+            output.putString(document.getOverview());
+            output.putString(document.getGenres());
+            output.putNullableInt(document.getNumOfVotes());
+        }
+        output.putIntAt(offsetsPosition + size * Integer.BYTES, output.position() - recordsPosition);
+    }
+}
@@ -0,0 +1,210 @@
+package com.example.movie_service.index;
+
+import com.example.movie_service.dto.MovieFilterAttributeDTO;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Compressed bitmaps of the documents of a MovieSearchIndex for each genre id, director person id and release year.
+ * <br>
+ *
+ * The SQL search path filters with LIKE '%x%' on the comma-joined genres and directors columns, which can't use an
+ * index and also matches wrong rows ("Drama" matches "Docudrama"). Here a filter is resolved to ids first (the genre
+ * with that name, the directors whose names contain the text, the years starting with the text), and the documents
+ * are the union of those ids' bitmaps, so filtering the title candidates is a bitmap intersection. The bitmaps use the
+ * portable format, so they can be used directly from a mapped segment file.
+ */
+public class FilterBitmapIndex {
+
+    private static final int YEAR_LENGTH = 4;
+
+    // Normalized genre name -> genre ids (genre.name is unique, so normally only one)
+    private final Map<String, List<String>> genreIdsByName;
+    private final Map<String, ImmutableRoaringBitmap> genreBitmaps;
+
+    // Parallel arrays, so a director filter only scans the directors, not the movies
+    private final String[] directorIds;
+    private final String[] normalizedDirectorNames;
+    private final Map<String, ImmutableRoaringBitmap> directorBitmaps;
+
+    // The first 4 characters of releaseTime -> documents
+    private final Map<String, ImmutableRoaringBitmap> yearBitmaps;
+
+    private FilterBitmapIndex(Map<String, List<String>> genreIdsByName,
+                              Map<String, ImmutableRoaringBitmap> genreBitmaps, String[] directorIds,
+                              String[] normalizedDirectorNames, Map<String, ImmutableRoaringBitmap> directorBitmaps,
+                              Map<String, ImmutableRoaringBitmap> yearBitmaps) {
+        this.genreIdsByName = genreIdsByName;
+        this.genreBitmaps = genreBitmaps;
+        this.directorIds = directorIds;
+        this.normalizedDirectorNames = normalizedDirectorNames;
+        this.directorBitmaps = directorBitmaps;
+        this.yearBitmaps = yearBitmaps;
+    }
+
+    /**
+     * Build the bitmaps
+     * @param documents the documents of the index, in ordinal order
+     * @param ordinals document id -> ordinal
+     * @param genres the genres of the movies. The ones of movies not in the index are ignored.
+     * @param directors the directors of the movies. The ones of movies not in the index are ignored.
+     * @return a FilterBitmapIndex
+     */
+    public static FilterBitmapIndex build(MovieDocument[] documents, Map<String, Integer> ordinals,
+                                          List<MovieFilterAttributeDTO> genres,
+                                          List<MovieFilterAttributeDTO> directors) {
+        Map<String, List<String>> genreIdsByName = new HashMap<>();
+        Map<String, MutableRoaringBitmap> genreBitmaps = new HashMap<>();
+        addAttributes(genres, ordinals, genreBitmaps, new HashMap<>())
+                .forEach((id, name) -> genreIdsByName.computeIfAbsent(name, key -> new ArrayList<>()).add(id));
+
+        Map<String, MutableRoaringBitmap> directorBitmaps = new HashMap<>();
+        Map<String, String> directorNames = addAttributes(directors, ordinals, directorBitmaps, new LinkedHashMap<>());
+        String[] directorIds = directorNames.keySet().toArray(new String[0]);
+        String[] normalizedDirectorNames = directorNames.values().toArray(new String[0]);
+
+        Map<String, MutableRoaringBitmap> yearBitmaps = new HashMap<>();
+        for (int ordinal = 0; ordinal < documents.length; ordinal++) {
+            String releaseTime = documents[ordinal].getReleaseTime();
+            if (releaseTime != null && releaseTime.length() >= YEAR_LENGTH) {
+                yearBitmaps.computeIfAbsent(releaseTime.substring(0, YEAR_LENGTH), key -> new MutableRoaringBitmap())
+                        .add(ordinal);
+            }
+        }
+
+        runOptimize(genreBitmaps);
+        runOptimize(directorBitmaps);
+        runOptimize(yearBitmaps);
+        return new FilterBitmapIndex(genreIdsByName, new HashMap<>(genreBitmaps), directorIds,
+                normalizedDirectorNames, new HashMap<>(directorBitmaps), new HashMap<>(yearBitmaps));
+    }
+
+    /**
+     * Get the documents of the genre with this name. Unlike m.genres LIKE '%genre%', only the exact name matches,
+     * case-insensitively.
+     * @param genre the genre name
+     * @return a new bitmap
+     */
+    public MutableRoaringBitmap genre(String genre) {
+        List<String> ids = genreIdsByName.getOrDefault(TitleAnalyzer.normalize(genre), List.of());
+        return union(ids, genreBitmaps);
+    }
+
+    /**
+     * Get the documents directed by anyone whose name contains the text, case-insensitively
+     * @param director a part of the director's name
+     * @return a new bitmap
+     */
+    public MutableRoaringBitmap director(String director) {
+        String normalizedDirector = TitleAnalyzer.normalize(director);
+        List<String> ids = new ArrayList<>();
+        for (int i = 0; i < directorIds.length; i++) {
+            if (normalizedDirectorNames[i].contains(normalizedDirector)) {
+                ids.add(directorIds[i]);
+            }
+        }
+        return union(ids, directorBitmaps);
+    }
+
+    /**
+     * Get the documents whose releaseTime starts with the text, like m.releaseTime LIKE 'releasedYear%'
+     * @param releasedYear the year, or the beginning of it
+     * @return a new bitmap, or null if the text is longer than a year and so the bitmaps can't answer it
+     */
+    public MutableRoaringBitmap releasedYear(String releasedYear) {
+        if (releasedYear.length() > YEAR_LENGTH) {
+            return null;
+        }
+        List<String> years = yearBitmaps.keySet().stream().filter(year -> year.startsWith(releasedYear)).toList();
+        return union(years, yearBitmaps);
+    }
+
+    private static MutableRoaringBitmap union(List<String> keys, Map<String, ImmutableRoaringBitmap> bitmaps) {
+        MutableRoaringBitmap result = new MutableRoaringBitmap();
+        for (String key : keys) {
+            result.or(bitmaps.get(key));
+        }
+        return result;
+    }
+
+    // Add each attribute's movie to the attribute's bitmap, and return attribute id -> normalized name
+    private static Map<String, String> addAttributes(List<MovieFilterAttributeDTO> attributes,
+                                                     Map<String, Integer> ordinals,
+                                                     Map<String, MutableRoaringBitmap> bitmaps,
+                                                     Map<String, String> names) {
+        for (MovieFilterAttributeDTO attribute : attributes) {
+            Integer ordinal = ordinals.get(attribute.getMovieId());
+            if (ordinal != null && attribute.getAttributeId() != null) {
+                bitmaps.computeIfAbsent(attribute.getAttributeId(), key -> new MutableRoaringBitmap()).add(ordinal);
+                names.putIfAbsent(attribute.getAttributeId(), TitleAnalyzer.normalize(attribute.getName()));
+            }
+        }
+        return names;
+    }
+
+    // Use run-length encoding in the containers where it's smaller, e.g. the bitmaps of popular genres
+    private static void runOptimize(Map<String, MutableRoaringBitmap> bitmaps) {
+        bitmaps.values().forEach(MutableRoaringBitmap::runOptimize);
+    }
+
+    void writeTo(SegmentOutput output) {
+        Map<String, String> genreNames = new HashMap<>();
+        genreIdsByName.forEach((name, ids) -> ids.forEach(id -> genreNames.put(id, name)));
+        output.putInt(genreBitmaps.size());
+        genreBitmaps.forEach((id, bitmap) -> {
+            output.putString(id);
+            output.putString(genreNames.get(id));
+            output.putBitmap(bitmap);
+        });
+
+        output.putInt(directorIds.length);
+        for (int i = 0; i < directorIds.length; i++) {
+            output.putString(directorIds[i]);
+            output.putString(normalizedDirectorNames[i]);
+            output.putBitmap(directorBitmaps.get(directorIds[i]));
+        }
+
+        output.putInt(yearBitmaps.size());
+        yearBitmaps.forEach((year, bitmap) -> {
+            output.putString(year);
+            output.putBitmap(bitmap);
+        });
+    }
+
+    static FilterBitmapIndex readFrom(ByteBuffer input) {
+        Map<String, List<String>> genreIdsByName = new HashMap<>();
+        Map<String, ImmutableRoaringBitmap> genreBitmaps = new HashMap<>();
+        int genreCount = input.getInt();
+        for (int i = 0; i < genreCount; i++) {
+            String id = SegmentInput.getString(input);
+            genreIdsByName.computeIfAbsent(SegmentInput.getString(input), key -> new ArrayList<>()).add(id);
+            genreBitmaps.put(id, SegmentInput.getBitmap(input));
+        }
+
+        String[] directorIds = new String[input.getInt()];
+        String[] normalizedDirectorNames = new String[directorIds.length];
+        Map<String, ImmutableRoaringBitmap> directorBitmaps = new HashMap<>(directorIds.length * 2);
+        for (int i = 0; i < directorIds.length; i++) {
+            directorIds[i] = SegmentInput.getString(input);
+            normalizedDirectorNames[i] = SegmentInput.getString(input);
+            directorBitmaps.put(directorIds[i], SegmentInput.getBitmap(input));
+        }
+
+        Map<String, ImmutableRoaringBitmap> yearBitmaps = new HashMap<>();
+        int yearCount = input.getInt();
+        for (int i = 0; i < yearCount; i++) {
+            String year = SegmentInput.getString(input);
+            yearBitmaps.put(year, SegmentInput.getBitmap(input));
+        }
+
+        return new FilterBitmapIndex(genreIdsByName, genreBitmaps, directorIds, normalizedDirectorNames,
+                directorBitmaps, yearBitmaps);
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.movie_service.index;
+
+/**
+ * An automaton that accepts every term within a maximum Levenshtein (edit) distance of a query term. Swapping two
+ * adjacent characters counts as one edit (the optimal string alignment distance), because it's the most common typo.
+ * <br>
+ *
+ * A state is one row of the edit distance table: the distance between the characters read so far and every prefix of
+ * the query term, capped at maxEdits + 1. Reading a character gives the next row from the current row (and the row
+ * before it for the swaps), so a term is checked one character at a time. That lets TitleTermDictionary walk its sorted terms like a trie, share the states of common prefixes,
+ * and skip every term under a prefix as soon as the state can't match anymore.
+ * @see TitleTermDictionary#expand(String, int)
+ */
+public class LevenshteinAutomaton {
+
+    private final String term;
+    private final int maxEdits;
+
+    public LevenshteinAutomaton(String term, int maxEdits) {
+        this.term = term;
+        this.maxEdits = maxEdits;
+    }
+
+    /**
+     * Get the number of edits a misspelled term of this length may have. Short terms only allow one edit, otherwise
+     * almost every other short term would match.
+     * @param termLength the length of the query term
+     * @return 1 or 2
+     */
+    public static int maxEditsFor(int termLength) {
+        return termLength < 6 ? 1 : 2;
+    }
+
+    /**
+     * @return the state before reading any character
+     */
+    public int[] start() {
+        int[] row = new int[term.length() + 1];
+        for (int j = 0; j < row.length; j++) {
+            row[j] = Math.min(j, maxEdits + 1);
+        }
+        return row;
+    }
+
+    /**
+     * Read one character
+     * @param previousRow the state before the previous character was read, or null if no character was read
+     * @param row the current state
+     * @param previousChar the previous character. It's ignored if previousRow is null.
+     * @param c the character
+     * @return the next state
+     */
+    public int[] step(int[] previousRow, int[] row, char previousChar, char c) {
+        int[] next = new int[row.length];
+        next[0] = Math.min(row[0] + 1, maxEdits + 1);
+        for (int j = 1; j < row.length; j++) {
+            int substitution = row[j - 1] + (term.charAt(j - 1) == c ? 0 : 1);
+            int deletion = row[j] + 1;
+            int insertion = next[j - 1] + 1;
+            int distance = Math.min(Math.min(substitution, deletion), insertion);
+            if (previousRow != null && j > 1 && term.charAt(j - 2) == c && term.charAt(j - 1) == previousChar) {
+                distance = Math.min(distance, previousRow[j - 2] + 1);
+            }
+            next[j] = Math.min(distance, maxEdits + 1);
+        }
+        return next;
+    }
+
+    /**
+     * @return true if the characters read so far are within maxEdits of the query term
+     */
+    public boolean isMatch(int[] row) {
+        return row[row.length - 1] <= maxEdits;
+    }
+
+    /**
+     * @return true if some more characters can still make a match. If it's false, no term with the characters read so
+     * far as a prefix can match.
+     */
+    public boolean canMatch(int[] row) {
+        for (int distance : row) {
+            if (distance <= maxEdits) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
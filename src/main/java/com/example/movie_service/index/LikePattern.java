@@ -0,0 +1,87 @@
+package com.example.movie_service.index;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.regex.Pattern;
+
+/**
+ * The pattern of m.primaryTitle LIKE '%title%', where the title comes from the request. <br>
+ *
+ * The title is bound to the query as it is, so "%" and "_" in it are still wildcards in MySQL, and "\" escapes the
+ * next character. This class keeps those semantics, so the in-memory substring matching returns the same rows as
+ * the LIKE query.
+ */
+public final class LikePattern {
+
+    private static final char ESCAPE = '\\';
+    private static final char ANY_STRING = '%';
+    private static final char ANY_CHARACTER = '_';
+
+    // The literal parts of the title between wildcards, normalized
+    private final List<String> literals;
+
+    // Only created when the title has wildcards. Otherwise, a substring check is enough.
+    private final Pattern wildcardPattern;
+
+    private LikePattern(List<String> literals, Pattern wildcardPattern) {
+        this.literals = literals;
+        this.wildcardPattern = wildcardPattern;
+    }
+
+    /**
+     * Parse the title of the '%title%' pattern
+     * @param title the searching title
+     * @return a LikePattern
+     */
+    public static LikePattern ofContains(String title) {
+        String normalizedTitle = TitleAnalyzer.normalize(title);
+        List<String> literals = new ArrayList<>();
+        StringBuilder regex = new StringBuilder();
+        StringBuilder literal = new StringBuilder();
+        boolean hasWildcard = false;
+
+        for (int i = 0; i < normalizedTitle.length(); i++) {
+            char c = normalizedTitle.charAt(i);
+            if (c == ESCAPE && i + 1 < normalizedTitle.length()) {
+                literal.append(normalizedTitle.charAt(++i));
+            } else if (c == ANY_STRING || c == ANY_CHARACTER) {
+                hasWildcard = true;
+                addLiteral(literal, literals, regex);
+                regex.append(c == ANY_STRING ? ".*" : ".");
+            } else {
+                literal.append(c);
+            }
+        }
+        addLiteral(literal, literals, regex);
+
+        Pattern wildcardPattern = hasWildcard ? Pattern.compile(".*" + regex + ".*", Pattern.DOTALL) : null;
+        return new LikePattern(literals, wildcardPattern);
+    }
+
+    private static void addLiteral(StringBuilder literal, List<String> literals, StringBuilder regex) {
+        if (literal.length() > 0) {
+            literals.add(literal.toString());
+            regex.append(Pattern.quote(literal.toString()));
+            literal.setLength(0);
+        }
+    }
+
+    /**
+     * @return the normalized literal parts of the pattern. Every matching text contains all of them.
+     */
+    public List<String> getLiterals() {
+        return literals;
+    }
+
+    /**
+     * Check if a normalized text matches the pattern
+     * @param normalizedText a text returned by TitleAnalyzer.normalize()
+     * @return true if it matches
+     */
+    public boolean matches(String normalizedText) {
+        if (wildcardPattern != null) {
+            return wildcardPattern.matcher(normalizedText).matches();
+        }
+        return literals.isEmpty() || normalizedText.contains(literals.get(0));
+    }
+}
@@ -0,0 +1,63 @@
+package com.example.movie_service.index;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+
+/**
+ * Documents read from the documents section of a mapped segment file. <br>
+ *
+ * A document is only decoded when it's asked for, so opening the segment doesn't read the documents, and the pages of
+ * the ones never returned by a search are never loaded.
+ * @see DocumentStore#writeTo(SegmentOutput)
+ */
+class MappedDocumentStore implements DocumentStore {
+
+    private final IntBuffer offsets;
+    private final ByteBuffer records;
+
+    private MappedDocumentStore(IntBuffer offsets, ByteBuffer records) {
+        this.offsets = offsets;
+        this.records = records;
+    }
+
+    static MappedDocumentStore readFrom(ByteBuffer input) {
+        int size = input.getInt();
+        IntBuffer offsets = SegmentInput.getInts(input, size + 1);
+        ByteBuffer records = SegmentInput.slice(input, offsets.get(size));
+        return new MappedDocumentStore(offsets, records);
+    }
+
+    @Override
+    public int size() {
+        return offsets.limit() - 1;
+    }
+
+    @Override
+    public MovieDocument get(int ordinal) {
+        ByteBuffer record = record(ordinal);
+        SegmentInput.skipString(record);
+        return MovieDocument.builder()
+                .id(SegmentInput.getString(record))
+                .title(SegmentInput.getString(record))
+                .releaseTime(SegmentInput.getString(record))
+                .directors(SegmentInput.getString(record))
+                .backdropPath(SegmentInput.getString(record))
+                .posterPath(SegmentInput.getString(record))
+                .rating(SegmentInput.getNullableDouble(record))
+                .overview(SegmentInput.getString(record))
+                .genres(SegmentInput.getString(record))
+                .numOfVotes(SegmentInput.getNullableInt(record))
+                .build();
+    }
+
+    @Override
+    public String normalizedTitle(int ordinal) {
+        return SegmentInput.getString(record(ordinal));
+    }
+
+    // A view of the record, so concurrent searches don't share a position
+    private ByteBuffer record(int ordinal) {
+        int from = offsets.get(ordinal);
+        return SegmentInput.slice(records.duplicate().position(from), offsets.get(ordinal + 1) - from);
+    }
+}
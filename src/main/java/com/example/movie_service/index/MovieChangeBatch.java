@@ -0,0 +1,28 @@
+package com.example.movie_service.index;
+
+import com.example.movie_service.dto.MovieFilterAttributeDTO;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+
+import java.util.List;
+import java.util.Set;
+
+/**
+ * The movies that changed in movie_materialized_view during a period of time, read from the movie_change_log table.
+ * It's applied to a MovieSearchIndex as a whole with MovieSearchIndex#apply.
+ * @see MovieSearchIndexChangePoller
+ */
+@Getter
+@AllArgsConstructor
+public class MovieChangeBatch {
+    // Every movie that changed: updated, inserted or deleted
+    private Set<String> movieIds;
+    // The current rows of the changed movies. A movie that isn't here, or has no poster_path, was deleted.
+    private List<MovieDocument> documents;
+    private List<MovieFilterAttributeDTO> genres;
+    private List<MovieFilterAttributeDTO> directors;
+
+    public boolean isEmpty() {
+        return movieIds.isEmpty();
+    }
+}
@@ -0,0 +1,11 @@
+package com.example.movie_service.index;
+
+import java.time.Instant;
+
+/**
+ * A row of the movie_change_log table: one insert, update or delete of a movie's row in movie_materialized_view
+ * @param movieId the id of the changed movie
+ * @param changedAt when it changed
+ */
+public record MovieChangeLogRow(String movieId, Instant changedAt) {
+}
@@ -0,0 +1,41 @@
+package com.example.movie_service.index;
+
+import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One row of the movie_materialized_view table, kept in memory by the MovieSearchIndex.
+ * The fields are the same as the columns the SQL search path selects, plus the genres column that the SQL path only
+ * uses in its WHERE clause, and the number of votes used by orderBy=relevance.
+ * @see MovieSearchIndex
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder(toBuilder = true)
+public class MovieDocument {
+    private String id;
+    private String title;
+    private String releaseTime;
+    private String directors;
+    private String backdropPath;
+    private String posterPath;
+    private Double rating;
+    private String overview;
+    private String genres;
+    // Only used to rank the documents by relevance
+    private Integer numOfVotes;
+
+    /**
+     * Convert this document to the same DTO the SQL search path returns, so the service layer doesn't need to know
+     * which repository implementation answered the search.
+     * @return a MovieTitleSearchSQLQueryResultDTO
+     */
+    public MovieTitleSearchSQLQueryResultDTO toSearchResultDTO() {
+        return new MovieTitleSearchSQLQueryResultDTO(id, title, releaseTime, directors, backdropPath, posterPath,
+                rating, overview);
+    }
+}
@@ -0,0 +1,563 @@
+package com.example.movie_service.index;
+
+import com.example.movie_service.dto.MovieFilterAttributeDTO;
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+import org.roaringbitmap.buffer.MutableRoaringBitmap;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+/**
+ * An immutable in-memory index over the rows of movie_materialized_view that have a poster_path. <br>
+ *
+ * Every document gets an ordinal (its position in the documents array), and the inverted index maps each normalized
+ * title term to the sorted ordinals of the documents whose title contains it. Because the index never changes after
+ * it is built, it can be read by any number of threads without locking. <br>
+ *
+ * Changes are applied with apply(MovieChangeBatch), which returns a new index and leaves this one as it is. The new
+ * index shares this index's structures: the changed documents are marked as deleted in a bitmap, and their current
+ * versions are put in a small delta index whose ordinals come after this index's documents. Every search runs on both
+ * and merges the results, so applying a batch only costs as much as building the delta, not the whole index.
+ * @see MovieSearchIndexHolder
+ */
+public class MovieSearchIndex {
+
+    // The documents and their normalized titles, which are used by the substring (LIKE) matching
+    private final DocumentStore documents;
+
+    // Title term -> sorted ordinals of the documents having the term in their titles
+    private final PostingTable titlePostings;
+
+    // The sorted keys of titlePostings. They are used by the fuzzy matching.
+    private final TitleTermDictionary termDictionary;
+
+    // Narrows the candidates of the substring (LIKE) matching
+    private final TrigramIndex trigramIndex;
+
+    // Resolves the genre, director and releasedYear filters
+    private final FilterBitmapIndex filterIndex;
+
+    // Orders the candidates by title, rating or releaseTime
+    private final SortRankIndex sortRanks;
+
+    // The ordinals of the documents above that were deleted or replaced by change batches. Searches skip them.
+    private final ImmutableRoaringBitmap deletedOrdinals;
+
+    // The documents added or replaced by change batches, or null if no batch was applied. Their ordinals in this index
+    // are their ordinals in the delta index plus the number of documents above.
+    private final Delta delta;
+
+    MovieSearchIndex(DocumentStore documents, PostingTable titlePostings, TrigramIndex trigramIndex,
+                     FilterBitmapIndex filterIndex, SortRankIndex sortRanks) {
+        this.documents = documents;
+        this.titlePostings = titlePostings;
+        this.termDictionary = new TitleTermDictionary(Arrays.asList(titlePostings.keys()));
+        this.trigramIndex = trigramIndex;
+        this.filterIndex = filterIndex;
+        this.sortRanks = sortRanks;
+        this.deletedOrdinals = new MutableRoaringBitmap();
+        this.delta = null;
+    }
+
+    private MovieSearchIndex(MovieSearchIndex base, ImmutableRoaringBitmap deletedOrdinals, Delta delta) {
+        this.documents = base.documents;
+        this.titlePostings = base.titlePostings;
+        this.termDictionary = base.termDictionary;
+        this.trigramIndex = base.trigramIndex;
+        this.filterIndex = base.filterIndex;
+        this.sortRanks = base.sortRanks;
+        this.deletedOrdinals = deletedOrdinals;
+        this.delta = delta;
+    }
+
+    /**
+     * Build an index from documents only. The genres and directors used by the filters are taken from the documents'
+     * comma-joined genres and directors columns, with their names as ids.
+     * @param movieDocuments the documents loaded from movie_materialized_view
+     * @return a MovieSearchIndex
+     */
+    public static MovieSearchIndex build(List<MovieDocument> movieDocuments) {
+        List<MovieFilterAttributeDTO> genres = new ArrayList<>();
+        List<MovieFilterAttributeDTO> directors = new ArrayList<>();
+        for (MovieDocument document : movieDocuments) {
+            addJoinedAttributes(document.getId(), document.getGenres(), genres);
+            addJoinedAttributes(document.getId(), document.getDirectors(), directors);
+        }
+        return build(movieDocuments, genres, directors);
+    }
+
+    /**
+     * Build an index from documents. Documents without poster_path are skipped because no search returns them, and
+     * if two documents have the same id, only the last one is kept.
+     * @param movieDocuments the documents loaded from movie_materialized_view
+     * @param genres the genre ids and names of the movies, from movie_genres
+     * @param directors the director person ids and names of the movies, from movie_crew
+     * @return a MovieSearchIndex
+     */
+    public static MovieSearchIndex build(List<MovieDocument> movieDocuments, List<MovieFilterAttributeDTO> genres,
+                                         List<MovieFilterAttributeDTO> directors) {
+        Map<String, MovieDocument> uniqueDocuments = new LinkedHashMap<>();
+        for (MovieDocument document : movieDocuments) {
+            if (document.getPosterPath() != null) {
+                uniqueDocuments.put(document.getId(), document);
+            }
+        }
+
+        MovieDocument[] documents = uniqueDocuments.values().toArray(new MovieDocument[0]);
+        String[] normalizedTitles = new String[documents.length];
+        Map<String, PostingLists.Builder> postingBuilders = new HashMap<>();
+
+        for (int ordinal = 0; ordinal < documents.length; ordinal++) {
+            normalizedTitles[ordinal] = TitleAnalyzer.normalize(documents[ordinal].getTitle());
+            // Ordinals are added in increasing order, so every posting list is sorted without sorting it
+            for (String token : new LinkedHashSet<>(TitleAnalyzer.tokenize(documents[ordinal].getTitle()))) {
+                if (TitleAnalyzer.isIndexable(token)) {
+                    postingBuilders.computeIfAbsent(token, key -> new PostingLists.Builder()).add(ordinal);
+                }
+            }
+        }
+
+        Map<String, Integer> ordinals = new HashMap<>(documents.length * 2);
+        for (int ordinal = 0; ordinal < documents.length; ordinal++) {
+            ordinals.put(documents[ordinal].getId(), ordinal);
+        }
+
+        return new MovieSearchIndex(new ArrayDocumentStore(documents, normalizedTitles),
+                PostingTable.build(postingBuilders), TrigramIndex.build(normalizedTitles),
+                FilterBitmapIndex.build(documents, ordinals, genres, directors), SortRankIndex.build(documents));
+    }
+
+    private static void addJoinedAttributes(String movieId, String joinedNames, List<MovieFilterAttributeDTO> attributes) {
+        if (joinedNames == null) {
+            return;
+        }
+        for (String name : joinedNames.split(",")) {
+            String trimmedName = name.trim();
+            if (!trimmedName.isEmpty()) {
+                attributes.add(new MovieFilterAttributeDTO(movieId, TitleAnalyzer.normalize(trimmedName), trimmedName));
+            }
+        }
+    }
+
+    /**
+     * @return an index without any document
+     */
+    public static MovieSearchIndex empty() {
+        return build(Collections.emptyList());
+    }
+
+    /**
+     * Get a new index with the changes of the batch. This index isn't modified, so the searches using it still see
+     * none of the batch's changes, and the searches using the new index see all of them.
+     * @param batch the changed movies and their current rows
+     * @return a new MovieSearchIndex, or this index if the batch is empty
+     */
+    public MovieSearchIndex apply(MovieChangeBatch batch) {
+        if (batch.isEmpty()) {
+            return this;
+        }
+        Set<String> changedIds = batch.getMovieIds();
+
+        MutableRoaringBitmap newDeletedOrdinals = deletedOrdinals.toMutableRoaringBitmap();
+        for (String id : changedIds) {
+            int ordinal = sortRanks.ordinalOf(id, documentOrdinal -> documents.get(documentOrdinal).getId());
+            if (ordinal >= 0) {
+                newDeletedOrdinals.add(ordinal);
+            }
+        }
+        newDeletedOrdinals.runOptimize();
+
+        // The delta keeps the documents of the previous batches that this batch didn't change
+        List<MovieDocument> deltaDocuments = new ArrayList<>();
+        List<MovieFilterAttributeDTO> deltaGenres = new ArrayList<>();
+        List<MovieFilterAttributeDTO> deltaDirectors = new ArrayList<>();
+        if (delta != null) {
+            delta.documents().stream().filter(document -> !changedIds.contains(document.getId()))
+                    .forEach(deltaDocuments::add);
+            delta.genres().stream().filter(genre -> !changedIds.contains(genre.getMovieId()))
+                    .forEach(deltaGenres::add);
+            delta.directors().stream().filter(director -> !changedIds.contains(director.getMovieId()))
+                    .forEach(deltaDirectors::add);
+        }
+        batch.getDocuments().stream().filter(document -> changedIds.contains(document.getId()))
+                .forEach(deltaDocuments::add);
+        deltaGenres.addAll(batch.getGenres());
+        deltaDirectors.addAll(batch.getDirectors());
+
+        Delta newDelta = new Delta(build(deltaDocuments, deltaGenres, deltaDirectors), deltaDocuments, deltaGenres,
+                deltaDirectors);
+        return new MovieSearchIndex(this, newDeletedOrdinals, newDelta);
+    }
+
+    /**
+     * @param movieId the movie's id
+     * @return true if the movie can be found: it's in the index, and no change batch deleted it
+     */
+    public boolean contains(String movieId) {
+        int ordinal = sortRanks.ordinalOf(movieId, documentOrdinal -> documents.get(documentOrdinal).getId());
+        if (ordinal >= 0 && !deletedOrdinals.contains(ordinal)) {
+            return true;
+        }
+        return delta != null && delta.index().contains(movieId);
+    }
+
+    /**
+     * @return the number of documents that can be found
+     */
+    public int size() {
+        int size = documents.size() - deletedOrdinals.getCardinality();
+        return delta == null ? size : size + delta.index().size();
+    }
+
+    /**
+     * @return the number of documents added or replaced by change batches since the index was built
+     */
+    public int deltaSize() {
+        return delta == null ? 0 : delta.index().size();
+    }
+
+    public MovieDocument getDocument(int ordinal) {
+        if (ordinal >= documents.size()) {
+            return delta.index().getDocument(ordinal - documents.size());
+        }
+        return documents.get(ordinal);
+    }
+
+    /**
+     * Find the documents whose titles contain the searching title as a phrase. It has the same semantics as
+     * MATCH(m.primaryTitle) AGAINST('"title"' IN BOOLEAN MODE): all the terms must appear next to each other in the
+     * same order, and if the searching title only has stopwords or short terms, nothing matches.
+     * @param title the searching title
+     * @return a sorted posting list
+     */
+    public int[] matchPhrase(String title) {
+        return withDelta(matchOwnPhrase(title), deltaIndex -> deltaIndex.matchPhrase(title));
+    }
+
+    private int[] matchOwnPhrase(String title) {
+        List<String> phraseTokens = TitleAnalyzer.tokenize(title);
+
+        List<int[]> postings = new ArrayList<>();
+        for (String token : new LinkedHashSet<>(phraseTokens)) {
+            if (TitleAnalyzer.isIndexable(token)) {
+                int[] posting = titlePostings.get(token);
+                if (posting == null) {
+                    return PostingLists.EMPTY;
+                }
+                postings.add(posting);
+            }
+        }
+        if (postings.isEmpty()) {
+            return PostingLists.EMPTY;
+        }
+
+        int[] candidates = PostingLists.intersectAll(postings);
+
+        // A single term is always a phrase. Longer phrases need the terms' positions checked.
+        if (phraseTokens.size() == 1) {
+            return candidates;
+        }
+        return IntStream.of(candidates)
+                .filter(ordinal -> Collections.indexOfSubList(
+                        TitleAnalyzer.tokenize(documents.get(ordinal).getTitle()), phraseTokens) >= 0)
+                .toArray();
+    }
+
+    /**
+     * Find the documents whose titles contain the searching title as a substring. It has the same semantics as
+     * m.primaryTitle LIKE '%title%', including the "%" and "_" wildcards in the searching title.
+     * The trigram index gives the candidates, so only the searching titles shorter than 3 characters scan all the
+     * titles.
+     * @param title the searching title
+     * @return a sorted posting list
+     */
+    public int[] matchSubstring(String title) {
+        return withDelta(matchOwnSubstring(title), deltaIndex -> deltaIndex.matchSubstring(title));
+    }
+
+    private int[] matchOwnSubstring(String title) {
+        LikePattern pattern = LikePattern.ofContains(title);
+        int[] candidates = trigramIndex.candidates(pattern.getLiterals());
+        IntStream ordinals = candidates == null ? IntStream.range(0, documents.size()) : IntStream.of(candidates);
+        return ordinals.filter(ordinal -> pattern.matches(documents.normalizedTitle(ordinal))).toArray();
+    }
+
+    /**
+     * Find the documents whose titles contain, for every term of the searching title, a term within a small edit
+     * distance of it (1 edit for terms shorter than 6 characters, otherwise 2). The order of the terms doesn't matter,
+     * so "dark nite" finds "The Dark Knight". Only the indexable terms of the searching title are used.
+     * @param title the searching title, maybe misspelled
+     * @return a sorted posting list
+     */
+    public int[] matchFuzzy(String title) {
+        return withDelta(matchOwnFuzzy(title), deltaIndex -> deltaIndex.matchFuzzy(title));
+    }
+
+    private int[] matchOwnFuzzy(String title) {
+        List<int[]> postings = new ArrayList<>();
+        for (String token : new LinkedHashSet<>(TitleAnalyzer.tokenize(title))) {
+            if (!TitleAnalyzer.isIndexable(token)) {
+                continue;
+            }
+            List<int[]> expansions = new ArrayList<>();
+            for (String term : termDictionary.expand(token, LevenshteinAutomaton.maxEditsFor(token.length()))) {
+                expansions.add(titlePostings.get(term));
+            }
+            if (expansions.isEmpty()) {
+                return PostingLists.EMPTY;
+            }
+            postings.add(PostingLists.union(expansions));
+        }
+        if (postings.isEmpty()) {
+            return PostingLists.EMPTY;
+        }
+        return PostingLists.intersectAll(postings);
+    }
+
+    /**
+     * Keep the candidates that meet the optional filters. Each filter is resolved to a bitmap of the documents that
+     * meet it, and the candidates are intersected with them, smallest first.
+     * @param candidates a sorted posting list
+     * @param releasedYear same as m.releaseTime LIKE 'releasedYear%'. Can be null or an empty String.
+     * @param director same as m.directors LIKE '%director%', but matched per director. Can be null or an empty String.
+     * @param genre the exact genre name, case-insensitive, so "Drama" doesn't match "Docudrama". Can be null or an
+     *              empty String.
+     * @return a sorted posting list
+     */
+    public int[] filter(int[] candidates, String releasedYear, String director, String genre) {
+        if (delta == null) {
+            return filterOwn(candidates, releasedYear, director, genre);
+        }
+        int split = deltaStart(candidates);
+        return concat(filterOwn(Arrays.copyOfRange(candidates, 0, split), releasedYear, director, genre),
+                delta.index().filter(toDeltaOrdinals(candidates, split), releasedYear, director, genre));
+    }
+
+    private int[] filterOwn(int[] candidates, String releasedYear, String director, String genre) {
+        List<MutableRoaringBitmap> filters = new ArrayList<>(3);
+        // A releasedYear longer than a year can't be answered by the year bitmaps, so it's checked per document
+        boolean checkReleaseTime = false;
+        if (isNotEmpty(releasedYear)) {
+            MutableRoaringBitmap years = filterIndex.releasedYear(releasedYear);
+            if (years == null) {
+                checkReleaseTime = true;
+            } else {
+                filters.add(years);
+            }
+        }
+        if (isNotEmpty(director)) {
+            filters.add(filterIndex.director(director));
+        }
+        if (isNotEmpty(genre)) {
+            filters.add(filterIndex.genre(genre));
+        }
+        if (filters.isEmpty() && !checkReleaseTime) {
+            return candidates;
+        }
+
+        int[] filtered = candidates;
+        if (!filters.isEmpty()) {
+            filters.sort(Comparator.comparingLong(MutableRoaringBitmap::getLongCardinality));
+            MutableRoaringBitmap result = MutableRoaringBitmap.bitmapOf(candidates);
+            for (MutableRoaringBitmap bitmap : filters) {
+                result.and(bitmap);
+                if (result.isEmpty()) {
+                    return PostingLists.EMPTY;
+                }
+            }
+            filtered = result.toArray();
+        }
+        if (checkReleaseTime) {
+            filtered = IntStream.of(filtered)
+                    .filter(ordinal -> {
+                        String releaseTime = documents.get(ordinal).getReleaseTime();
+                        return releaseTime != null && releaseTime.startsWith(releasedYear);
+                    })
+                    .toArray();
+        }
+        return filtered;
+    }
+
+    /**
+     * Keep the candidates that come after a document in the order of sort, for the page after a cursor
+     * @param candidates a posting list
+     * @param orderBy title, rating, or releaseTime
+     * @param direction asc or desc
+     * @param last a document with the id and the orderBy value of the last movie of the previous page
+     * @return a new posting list
+     */
+    public int[] after(int[] candidates, String orderBy, String direction, MovieDocument last) {
+        Comparator<MovieDocument> order = SortRankIndex.comparator(orderBy, direction);
+        return IntStream.of(candidates)
+                .filter(ordinal -> order.compare(getDocument(ordinal), last) > 0)
+                .toArray();
+    }
+
+    /**
+     * Order the candidates the same way as ORDER BY orderBy IS NULL, orderBy direction: documents without a value are
+     * always at the end. Documents with the same value are ordered by their ids, so the pages are stable.
+     * @param candidates a posting list
+     * @param orderBy title, rating, or releaseTime
+     * @param direction asc or desc
+     * @return a new array with the candidates in order
+     */
+    public int[] sort(int[] candidates, String orderBy, String direction) {
+        return sort(candidates, orderBy, direction, candidates.length);
+    }
+
+    /**
+     * Get the first k candidates in the same order as sort(candidates, orderBy, direction), without sorting the
+     * others. The order comes from the ranks computed when the index was built.
+     * @param candidates a posting list
+     * @param orderBy title, rating, or releaseTime
+     * @param direction asc or desc
+     * @param k the number of candidates to return
+     * @return a new array with at most k candidates in order
+     * @see SortRankIndex
+     */
+    public int[] sort(int[] candidates, String orderBy, String direction, int k) {
+        if (delta == null) {
+            return sortRanks.topK(candidates, orderBy, direction, k);
+        }
+        int split = deltaStart(candidates);
+        int[] own = sortRanks.topK(Arrays.copyOfRange(candidates, 0, split), orderBy, direction, k);
+        int[] added = delta.index().sort(toDeltaOrdinals(candidates, split), orderBy, direction, k);
+
+        // Both are in order, so the first k of them are merged like in a merge sort
+        Comparator<MovieDocument> order = SortRankIndex.comparator(orderBy, direction);
+        int[] merged = new int[Math.min(Math.max(k, 0), own.length + added.length)];
+        int i = 0;
+        int j = 0;
+        for (int n = 0; n < merged.length; n++) {
+            if (j == added.length || (i < own.length
+                    && order.compare(documents.get(own[i]), delta.index().getDocument(added[j])) <= 0)) {
+                merged[n] = own[i++];
+            } else {
+                merged[n] = added[j++] + documents.size();
+            }
+        }
+        return merged;
+    }
+
+    /**
+     * Get the k candidates that are the most relevant to the searching title, the most relevant first
+     * @param candidates a posting list
+     * @param title the searching title
+     * @param k the number of candidates to return
+     * @return a new array with at most k candidates
+     * @see RelevanceRanker
+     */
+    public int[] rankByRelevance(int[] candidates, String title, int k) {
+        // Each document is read once, because the ranker reads the fields many times
+        List<RankedDocument> rankedDocuments = IntStream.of(candidates)
+                .mapToObj(ordinal -> new RankedDocument(ordinal, getDocument(ordinal)))
+                .toList();
+        return RelevanceRanker.topK(rankedDocuments, title,
+                        rankedDocument -> rankedDocument.document().getTitle(),
+                        rankedDocument -> rankedDocument.document().getNumOfVotes(),
+                        rankedDocument -> rankedDocument.document().getId(), k).stream()
+                .mapToInt(RankedDocument::ordinal)
+                .toArray();
+    }
+
+    private record RankedDocument(int ordinal, MovieDocument document) {
+    }
+
+    // Remove the deleted documents from the matches of this index's own documents, and add the delta's matches
+    private int[] withDelta(int[] ownMatches, Function<MovieSearchIndex, int[]> deltaMatches) {
+        if (delta == null) {
+            return ownMatches;
+        }
+        int[] liveMatches = deletedOrdinals.isEmpty() ? ownMatches : IntStream.of(ownMatches)
+                .filter(ordinal -> !deletedOrdinals.contains(ordinal))
+                .toArray();
+        return concat(liveMatches, deltaMatches.apply(delta.index()));
+    }
+
+    // The index of the first candidate from the delta
+    private int deltaStart(int[] candidates) {
+        int split = Arrays.binarySearch(candidates, documents.size());
+        return split < 0 ? -split - 1 : split;
+    }
+
+    private int[] toDeltaOrdinals(int[] candidates, int from) {
+        int[] deltaOrdinals = new int[candidates.length - from];
+        for (int i = from; i < candidates.length; i++) {
+            deltaOrdinals[i - from] = candidates[i] - documents.size();
+        }
+        return deltaOrdinals;
+    }
+
+    // Append the delta's posting list to a posting list of this index's own documents
+    private int[] concat(int[] own, int[] deltaOrdinals) {
+        int[] result = Arrays.copyOf(own, own.length + deltaOrdinals.length);
+        for (int i = 0; i < deltaOrdinals.length; i++) {
+            result[own.length + i] = deltaOrdinals[i] + documents.size();
+        }
+        return result;
+    }
+
+    /**
+     * The documents of the change batches applied to an index, and the index built from them
+     */
+    private record Delta(MovieSearchIndex index, List<MovieDocument> documents, List<MovieFilterAttributeDTO> genres,
+                         List<MovieFilterAttributeDTO> directors) {
+    }
+
+    /**
+     * @return true if change batches were applied to this index, so its structures don't have all its documents
+     */
+    boolean hasChanges() {
+        return delta != null;
+    }
+
+    // The parts of the index, for MovieSearchSegment to write them
+
+    DocumentStore documents() {
+        return documents;
+    }
+
+    PostingTable titlePostings() {
+        return titlePostings;
+    }
+
+    TrigramIndex trigramIndex() {
+        return trigramIndex;
+    }
+
+    FilterBitmapIndex filterIndex() {
+        return filterIndex;
+    }
+
+    SortRankIndex sortRanks() {
+        return sortRanks;
+    }
+
+    private static boolean isNotEmpty(String value) {
+        return value != null && !value.isEmpty();
+    }
+
+    /**
+     * @return the number of distinct terms in the inverted index
+     */
+    public int termCount() {
+        return titlePostings.size();
+    }
+
+    /**
+     * @return the number of distinct trigrams in the trigram index
+     */
+    public int trigramCount() {
+        return trigramIndex.size();
+    }
+}
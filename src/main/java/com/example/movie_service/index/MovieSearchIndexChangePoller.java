@@ -0,0 +1,45 @@
+package com.example.movie_service.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnExpression;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import static com.example.movie_service.constant.MovieConstant.SEARCH_CHANGE_FEED_ENABLED_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_CHANGE_FEED_POLL_INTERVAL_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_ENGINE_MEMORY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_ENGINE_PROPERTY;
+
+/**
+ * Polls the movie_change_log table and applies the changed movies to the in-memory search index, so the index follows
+ * the catalogue between two full rebuilds. <br>
+ *
+ * It's only created when movie.search.engine=memory and movie.search.change-feed.enabled=true.
+ * @see MovieSearchIndexHolder#applyChanges()
+ */
+@Slf4j
+@Component
+@ConditionalOnExpression("'${" + SEARCH_ENGINE_PROPERTY + ":}' == '" + SEARCH_ENGINE_MEMORY + "' and ${"
+        + SEARCH_CHANGE_FEED_ENABLED_PROPERTY + ":false}")
+public class MovieSearchIndexChangePoller {
+
+    private final MovieSearchIndexHolder indexHolder;
+
+    @Autowired
+    public MovieSearchIndexChangePoller(MovieSearchIndexHolder indexHolder) {
+        this.indexHolder = indexHolder;
+    }
+
+    /**
+     * Apply the changes since the last poll. A failed poll is logged, and its changes are loaded by the next one.
+     */
+    @Scheduled(fixedDelayString = "${" + SEARCH_CHANGE_FEED_POLL_INTERVAL_PROPERTY + ":10000}")
+    public void poll() {
+        try {
+            indexHolder.applyChanges();
+        } catch (RuntimeException e) {
+            log.error("Failed to apply the movie changes to the movie search index", e);
+        }
+    }
+}
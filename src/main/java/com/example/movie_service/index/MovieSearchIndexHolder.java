@@ -0,0 +1,168 @@
+package com.example.movie_service.index;
+
+import com.example.movie_service.cache.MovieCatalogueChangedEvent;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.example.movie_service.constant.MovieConstant.SEARCH_ENGINE_MEMORY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_ENGINE_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SEGMENT_PATH_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SHARDS_PROPERTY;
+
+/**
+ * Holds the current ShardedMovieSearchIndex, and the ForkJoinPool its shards are searched on. <br>
+ *
+ * The index is immutable, so a refresh builds a whole new index and then swaps the reference. Searches that are
+ * running keep using the index they got, and new searches see the new one. <br>
+ *
+ * If movie.search.segment.path points to a segment file written by the MovieSearchSegmentBuilderJob, the index is
+ * mapped from it instead of being built from the database, which takes well under a second. The index then has the
+ * segment's shards, even if movie.search.shards is different. <br>
+ *
+ * Between two refreshes, applyChanges applies the movies changed since the index's data was loaded, one batch at a
+ * time. A batch is applied to a new index that replaces the current one only once it has the whole batch, so a search
+ * sees either none or all of a batch's changes. <br>
+ *
+ * A MovieCatalogueChangedEvent is published after every refresh and every applied batch, which tells if the batch added
+ * a movie the index didn't have.
+ * @see MovieSearchSegment
+ * @see MovieSearchIndexChangePoller
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = SEARCH_ENGINE_PROPERTY, havingValue = SEARCH_ENGINE_MEMORY)
+public class MovieSearchIndexHolder {
+
+    private final MovieSearchIndexLoader loader;
+    private final ApplicationEventPublisher eventPublisher;
+
+    // Empty if there's no segment file
+    private final String segmentPath;
+
+    // Changes are read again from a bit before the last poll, for the transactions that were committed after the poll
+    // but changed_at before it, and the clock differences between the database and this instance. Applying a change
+    // twice gives the same index, because a batch always has the movies' current rows.
+    private static final Duration CHANGE_FEED_OVERLAP = Duration.ofMinutes(1);
+
+    // The number of shards of an index built from the database
+    private final int shardCount;
+
+    // One thread per shard
+    private final ForkJoinPool pool;
+
+    private volatile ShardedMovieSearchIndex index = ShardedMovieSearchIndex.empty();
+
+    // The changes up to this time are in the index. Null until the index is loaded.
+    private Instant indexedUntil;
+
+    @Autowired
+    public MovieSearchIndexHolder(MovieSearchIndexLoader loader, ApplicationEventPublisher eventPublisher,
+                                  @Value("${" + SEARCH_SEGMENT_PATH_PROPERTY + ":}") String segmentPath,
+                                  @Value("${" + SEARCH_SHARDS_PROPERTY + ":0}") int shardCount) {
+        this.loader = loader;
+        this.eventPublisher = eventPublisher;
+        this.segmentPath = segmentPath;
+        this.shardCount = resolveShardCount(shardCount);
+        this.pool = new ForkJoinPool(this.shardCount);
+    }
+
+    /**
+     * @param shardCount the configured number of shards
+     * @return the number of shards to use: the configured one, or the number of available processors if it's 0 or less
+     */
+    public static int resolveShardCount(int shardCount) {
+        return shardCount > 0 ? shardCount : Runtime.getRuntime().availableProcessors();
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        pool.shutdown();
+    }
+
+    /**
+     * Build the index once the application is started
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        refresh();
+    }
+
+    /**
+     * Replace the current index with a new one, mapped from the segment file if there is one, otherwise built from the
+     * rows of movie_materialized_view. If the segment file can't be opened, the index is built from the database.
+     */
+    public synchronized void refresh() {
+        if (!segmentPath.isEmpty() && Files.exists(Path.of(segmentPath))) {
+            long start = System.currentTimeMillis();
+            try {
+                MovieSearchSegment segment = MovieSearchSegment.open(Path.of(segmentPath));
+                ShardedMovieSearchIndex newIndex = new ShardedMovieSearchIndex(segment.getShards(), pool);
+                index = newIndex;
+                indexedUntil = segment.getBuiltAt();
+                log.info("Opened the movie search index segment {} built at {} with {} movies in {} shards in {} ms",
+                        segmentPath, segment.getBuiltAt(), newIndex.size(), newIndex.shardCount(),
+                        System.currentTimeMillis() - start);
+                eventPublisher.publishEvent(MovieCatalogueChangedEvent.reloaded());
+                return;
+            } catch (IOException e) {
+                log.error("Failed to open the movie search index segment {}, building the index from the database",
+                        segmentPath, e);
+            }
+        }
+
+        // The changes made while the rows are loaded may be missing, so the change feed starts from before loading
+        Instant loadStart = Instant.now();
+        long start = System.currentTimeMillis();
+        ShardedMovieSearchIndex newIndex = ShardedMovieSearchIndex.build(loader.loadDocuments(), loader.loadGenres(),
+                loader.loadDirectors(), shardCount, pool);
+        index = newIndex;
+        indexedUntil = loadStart;
+        log.info("Built the movie search index with {} movies in {} shards, {} title terms and {} trigrams in {} ms",
+                newIndex.size(), shardCount, newIndex.termCount(), newIndex.trigramCount(),
+                System.currentTimeMillis() - start);
+        eventPublisher.publishEvent(MovieCatalogueChangedEvent.reloaded());
+    }
+
+    /**
+     * Apply the movies changed since the last applied batch to the index. It does nothing until the index is loaded.
+     * If loading the changes fails, the index doesn't change and the same changes are loaded by the next call.
+     */
+    public synchronized void applyChanges() {
+        if (indexedUntil == null) {
+            return;
+        }
+        Instant until = Instant.now();
+        MovieChangeBatch batch = loader.loadChanges(indexedUntil.minus(CHANGE_FEED_OVERLAP), until);
+        if (!batch.isEmpty()) {
+            long start = System.currentTimeMillis();
+            ShardedMovieSearchIndex oldIndex = index;
+            ShardedMovieSearchIndex newIndex = oldIndex.apply(batch);
+            index = newIndex;
+            log.info("Applied {} changed movies to the movie search index in {} ms, {} movies are in its delta",
+                    batch.getMovieIds().size(), System.currentTimeMillis() - start, newIndex.deltaSize());
+            // The overlap applies a change again, but only its first application adds a movie
+            boolean moviesAdded = batch.getMovieIds().stream()
+                    .anyMatch(movieId -> newIndex.contains(movieId) && !oldIndex.contains(movieId));
+            eventPublisher.publishEvent(new MovieCatalogueChangedEvent(batch.getMovieIds(), moviesAdded));
+        }
+        indexedUntil = until;
+    }
+
+    public ShardedMovieSearchIndex getIndex() {
+        return index;
+    }
+}
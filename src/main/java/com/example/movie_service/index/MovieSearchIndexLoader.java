@@ -0,0 +1,215 @@
+package com.example.movie_service.index;
+
+import com.example.movie_service.dto.MovieFilterAttributeDTO;
+import com.example.movie_service.dto.MovieSuggestionDTO;
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.PersistenceContext;
+import jakarta.persistence.Query;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Timestamp;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DOCUMENT_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_FILTER_ATTRIBUTE_DTO_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_SUGGESTION_DTO_MAPPING;
+
+/**
+ * Load the searchable rows of movie_materialized_view from MySQL database, so the in-memory indexes can be built.
+ */
+@Component
+public class MovieSearchIndexLoader {
+
+    // Only rows with poster_path are loaded, because every search has the WHERE m.poster_path IS NOT NULL condition
+    private static final String LOAD_MOVIE_DOCUMENTS_QUERY_STRING = "SELECT m.movie_id AS id, " +
+            "m.primaryTitle AS title, " +
+            "m.releaseTime AS releaseTime, " +
+            "m.directors AS directors, " +
+            "m.backdrop_path AS backdropPath, " +
+            "m.poster_path AS posterPath, " +
+            "m.averageRating AS rating, " +
+            "m.overview AS overview, " +
+            "m.genres AS genres, " +
+            "mr.numVotes AS numOfVotes " +
+            "FROM movie_materialized_view m " +
+            "LEFT JOIN movie_rating mr ON m.movie_id = mr.movie_id " +
+            "WHERE m.poster_path IS NOT NULL";
+
+    private static final String LOAD_MOVIE_SUGGESTIONS_QUERY_STRING = "SELECT m.movie_id AS id, " +
+            "m.primaryTitle AS title, " +
+            "m.releaseTime AS releaseTime, " +
+            "m.poster_path AS posterPath, " +
+            "mr.numVotes AS numOfVotes " +
+            "FROM movie_materialized_view m " +
+            "LEFT JOIN movie_rating mr ON m.movie_id = mr.movie_id " +
+            "WHERE m.poster_path IS NOT NULL";
+
+    // genre.id is an INT, so it's cast to CHAR to be mapped to the String attributeId
+    private static final String LOAD_MOVIE_GENRES_QUERY_STRING = "SELECT mg.movie_id AS movieId, " +
+            "CAST(g.id AS CHAR) AS attributeId, " +
+            "g.name AS name " +
+            "FROM movie_genres mg " +
+            "INNER JOIN genre g ON mg.genre_id = g.id";
+
+    // Same job condition as the directors column of movie_materialized_view
+    private static final String LOAD_MOVIE_DIRECTORS_QUERY_STRING = "SELECT mc.movie_id AS movieId, " +
+            "mc.person_id AS attributeId, " +
+            "p.name AS name " +
+            "FROM movie_crew mc " +
+            "INNER JOIN person p ON mc.person_id = p.person_id " +
+            "WHERE mc.job = 'director'";
+
+    // The change log is written whenever a movie's row in movie_materialized_view is inserted, updated or deleted:
+    // movie_change_log(movie_id VARCHAR, changed_at TIMESTAMP(3)) with an index on changed_at
+    private static final String LOAD_CHANGED_MOVIE_IDS_QUERY_STRING = "SELECT DISTINCT c.movie_id " +
+            "FROM movie_change_log c " +
+            "WHERE c.changed_at > :since AND c.changed_at <= :until";
+
+    private static final String LOAD_CHANGE_LOG_ROWS_QUERY_STRING = "SELECT c.movie_id, c.changed_at " +
+            "FROM movie_change_log c " +
+            "WHERE c.changed_at > :since AND c.changed_at <= :until";
+
+    private static final String MOVIE_IDS_CONDITION = "m.movie_id IN (:movieIds)";
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    /**
+     * Load all the searchable movies
+     * @return a list of MovieDocument, one for each row
+     */
+    public List<MovieDocument> loadDocuments() {
+        Query query = entityManager.createNativeQuery(LOAD_MOVIE_DOCUMENTS_QUERY_STRING, MOVIE_DOCUMENT_MAPPING);
+
+        // The MOVIE_DOCUMENT_MAPPING's target class is MovieDocument, so the results are MovieDocument
+        @SuppressWarnings("unchecked")
+        List<MovieDocument> documents = query.getResultList();
+        return documents;
+    }
+
+    /**
+     * Load the title, release time, poster path and number of votes of all the searchable movies
+     * @return a list of MovieSuggestionDTO, one for each movie
+     */
+    public List<MovieSuggestionDTO> loadSuggestions() {
+        Query query = entityManager.createNativeQuery(LOAD_MOVIE_SUGGESTIONS_QUERY_STRING, MOVIE_SUGGESTION_DTO_MAPPING);
+
+        @SuppressWarnings("unchecked")
+        List<MovieSuggestionDTO> suggestions = query.getResultList();
+        return suggestions;
+    }
+
+    /**
+     * Load the genres of all the movies from the movie_genres and genre tables
+     * @return a list of MovieFilterAttributeDTO, one for each (movie, genre) pair
+     */
+    public List<MovieFilterAttributeDTO> loadGenres() {
+        return loadFilterAttributes(LOAD_MOVIE_GENRES_QUERY_STRING);
+    }
+
+    /**
+     * Load the directors of all the movies from the movie_crew and person tables
+     * @return a list of MovieFilterAttributeDTO, one for each (movie, director) pair
+     */
+    public List<MovieFilterAttributeDTO> loadDirectors() {
+        return loadFilterAttributes(LOAD_MOVIE_DIRECTORS_QUERY_STRING);
+    }
+
+    /**
+     * Load the movies that changed in a period of time, and their current rows. Everything is read in one read-only
+     * transaction, so the rows, genres and directors of the batch are from the same snapshot.
+     * @param since the start of the period, exclusive
+     * @param until the end of the period, inclusive
+     * @return a MovieChangeBatch, which is empty if nothing changed
+     */
+    @Transactional(readOnly = true)
+    public MovieChangeBatch loadChanges(Instant since, Instant until) {
+        Set<String> movieIds = loadChangedMovieIds(since, until);
+        if (movieIds.isEmpty()) {
+            return new MovieChangeBatch(movieIds, List.of(), List.of(), List.of());
+        }
+
+        Query documentsQuery = entityManager.createNativeQuery(
+                LOAD_MOVIE_DOCUMENTS_QUERY_STRING + " AND " + MOVIE_IDS_CONDITION, MOVIE_DOCUMENT_MAPPING);
+        documentsQuery.setParameter("movieIds", movieIds);
+
+        @SuppressWarnings("unchecked")
+        List<MovieDocument> documents = documentsQuery.getResultList();
+        return new MovieChangeBatch(movieIds, documents,
+                loadFilterAttributes(LOAD_MOVIE_GENRES_QUERY_STRING + " WHERE mg.movie_id IN (:movieIds)", movieIds),
+                loadFilterAttributes(LOAD_MOVIE_DIRECTORS_QUERY_STRING + " AND mc.movie_id IN (:movieIds)", movieIds));
+    }
+
+    /**
+     * Load the ids of the movies that changed in a period of time, from the movie_change_log table
+     * @param since the start of the period, exclusive
+     * @param until the end of the period, inclusive
+     * @return the ids, each once
+     */
+    public Set<String> loadChangedMovieIds(Instant since, Instant until) {
+        Query changedIdsQuery = entityManager.createNativeQuery(LOAD_CHANGED_MOVIE_IDS_QUERY_STRING);
+        changedIdsQuery.setParameter("since", since);
+        changedIdsQuery.setParameter("until", until);
+
+        Set<String> movieIds = new HashSet<>();
+        for (Object movieId : changedIdsQuery.getResultList()) {
+            movieIds.add(movieId.toString());
+        }
+        return movieIds;
+    }
+
+    /**
+     * Load the rows of the movie_change_log table in a period of time, so a poller that reads the same period again
+     * can tell the rows it already applied
+     * @param since the start of the period, exclusive
+     * @param until the end of the period, inclusive
+     * @return the rows, one per change
+     */
+    public List<MovieChangeLogRow> loadChangeLogRows(Instant since, Instant until) {
+        Query rowsQuery = entityManager.createNativeQuery(LOAD_CHANGE_LOG_ROWS_QUERY_STRING);
+        rowsQuery.setParameter("since", since);
+        rowsQuery.setParameter("until", until);
+
+        List<MovieChangeLogRow> rows = new ArrayList<>();
+        for (Object row : rowsQuery.getResultList()) {
+            Object[] columns = (Object[]) row;
+            rows.add(new MovieChangeLogRow(columns[0].toString(), toInstant(columns[1])));
+        }
+        return rows;
+    }
+
+    // The JDBC driver may give a TIMESTAMP column as a Timestamp or as a LocalDateTime
+    private static Instant toInstant(Object timestamp) {
+        if (timestamp instanceof Timestamp sqlTimestamp) {
+            return sqlTimestamp.toInstant();
+        }
+        if (timestamp instanceof LocalDateTime localDateTime) {
+            return localDateTime.atZone(ZoneId.systemDefault()).toInstant();
+        }
+        return (Instant) timestamp;
+    }
+
+    private List<MovieFilterAttributeDTO> loadFilterAttributes(String queryString, Set<String> movieIds) {
+        Query query = entityManager.createNativeQuery(queryString, MOVIE_FILTER_ATTRIBUTE_DTO_MAPPING);
+        query.setParameter("movieIds", movieIds);
+
+        @SuppressWarnings("unchecked")
+        List<MovieFilterAttributeDTO> attributes = query.getResultList();
+        return attributes;
+    }
+
+    private List<MovieFilterAttributeDTO> loadFilterAttributes(String queryString) {
+        Query query = entityManager.createNativeQuery(queryString, MOVIE_FILTER_ATTRIBUTE_DTO_MAPPING);
+
+        @SuppressWarnings("unchecked")
+        List<MovieFilterAttributeDTO> attributes = query.getResultList();
+        return attributes;
+    }
+}
@@ -0,0 +1,204 @@
+package com.example.movie_service.index;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * An immutable binary file holding all the shards of a ShardedMovieSearchIndex, so an instance can open the index
+ * instead of building it from movie_materialized_view. <br>
+ *
+ * The file is written once by the MovieSearchSegmentBuilderJob, and opened with FileChannel.map in read-only mode.
+ * Opening it only decodes the term dictionaries and the filter names: the documents, posting lists, bitmaps and sort
+ * ranks are used directly from the mapped pages, which the operating system loads when they are first read and
+ * shares with the other JVMs on the same host that map the same file. <br>
+ *
+ * Format (all numbers little-endian):
+ * <pre>
+ * header:  int magic "MSIX", int version, long builtAt (epoch millis), int shard count, int section count,
+ *          then for each section: int shard, int section id, long offset, long length
+ * sections: for each shard, documents, title postings, trigram postings, filter bitmaps, sort ranks
+ * </pre>
+ * The movies are in the shards the segment was written with, so it's opened with its own shard count.
+ * Every section must be smaller than 2 GB. A reader only opens files with its own version, so changing the format means
+ * increasing VERSION and rebuilding the segments.
+ */
+public final class MovieSearchSegment {
+
+    public static final int VERSION = 2;
+
+    // "MSIX"
+    private static final int MAGIC = 0x4D534958;
+
+    private static final int DOCUMENTS = 1;
+    private static final int TITLE_POSTINGS = 2;
+    private static final int TRIGRAM_POSTINGS = 3;
+    private static final int FILTERS = 4;
+    private static final int SORT_RANKS = 5;
+    private static final int[] SECTIONS = {DOCUMENTS, TITLE_POSTINGS, TRIGRAM_POSTINGS, FILTERS, SORT_RANKS};
+
+    private static final int SECTION_ENTRY_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES + Long.BYTES;
+    // Everything before the section entries
+    private static final int HEADER_PREFIX_SIZE = Integer.BYTES + Integer.BYTES + Long.BYTES + Integer.BYTES
+            + Integer.BYTES;
+
+    private final List<MovieSearchIndex> shards;
+    private final Instant builtAt;
+
+    private MovieSearchSegment(List<MovieSearchIndex> shards, Instant builtAt) {
+        this.shards = shards;
+        this.builtAt = builtAt;
+    }
+
+    /**
+     * @return the shards, in shard order
+     */
+    public List<MovieSearchIndex> getShards() {
+        return shards;
+    }
+
+    /**
+     * @return when the data of the index was loaded from the database
+     */
+    public Instant getBuiltAt() {
+        return builtAt;
+    }
+
+    /**
+     * Write the shards of an index to a segment file. The file is written next to the path first and then moved to it,
+     * so a reader never sees a partly written segment.
+     * @param shards the shards of the index, in shard order
+     * @param builtAt when the data of the index was loaded from the database
+     * @param path the segment file
+     * @throws IOException if the file can't be written
+     * @throws IllegalArgumentException if change batches were applied to a shard
+     */
+    public static void write(List<MovieSearchIndex> shards, Instant builtAt, Path path) throws IOException {
+        // The deleted ordinals and the delta aren't part of the format, so only a freshly built index can be written
+        for (MovieSearchIndex shard : shards) {
+            if (shard.hasChanges()) {
+                throw new IllegalArgumentException("An index with applied change batches can't be written to a segment");
+            }
+        }
+        int headerSize = HEADER_PREFIX_SIZE + shards.size() * SECTIONS.length * SECTION_ENTRY_SIZE;
+
+        Path temporaryPath = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporaryPath, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE)) {
+            ByteBuffer header = ByteBuffer.allocate(headerSize).order(ByteOrder.LITTLE_ENDIAN);
+            header.putInt(MAGIC).putInt(VERSION).putLong(builtAt.toEpochMilli()).putInt(shards.size())
+                    .putInt(shards.size() * SECTIONS.length);
+
+            // Only one section is in memory at a time
+            long offset = headerSize;
+            for (int shard = 0; shard < shards.size(); shard++) {
+                MovieSearchIndex index = shards.get(shard);
+                Map<Integer, Consumer<SegmentOutput>> writers = Map.of(
+                        DOCUMENTS, output -> index.documents().writeTo(output),
+                        TITLE_POSTINGS, output -> index.titlePostings().writeTo(output),
+                        TRIGRAM_POSTINGS, output -> index.trigramIndex().writeTo(output),
+                        FILTERS, output -> index.filterIndex().writeTo(output),
+                        SORT_RANKS, output -> index.sortRanks().writeTo(output));
+                for (int section : SECTIONS) {
+                    SegmentOutput output = new SegmentOutput();
+                    writers.get(section).accept(output);
+                    ByteBuffer bytes = output.toByteBuffer();
+                    header.putInt(shard).putInt(section).putLong(offset).putLong(bytes.remaining());
+                    offset += bytes.remaining();
+                    writeFully(channel, bytes, offset - bytes.remaining());
+                }
+            }
+            writeFully(channel, header.flip(), 0);
+            channel.force(true);
+        }
+        Files.move(temporaryPath, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    /**
+     * Map a segment file read-only
+     * @param path the segment file
+     * @return the segment
+     * @throws IOException if the file can't be read, or it's not a segment of this version
+     */
+    public static MovieSearchSegment open(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            if (channel.size() < HEADER_PREFIX_SIZE) {
+                throw new IOException(path + " is not a movie search index segment");
+            }
+            ByteBuffer header = channel.map(FileChannel.MapMode.READ_ONLY, 0, HEADER_PREFIX_SIZE)
+                    .order(ByteOrder.LITTLE_ENDIAN);
+            if (header.getInt() != MAGIC) {
+                throw new IOException(path + " is not a movie search index segment");
+            }
+            int version = header.getInt();
+            if (version != VERSION) {
+                throw new IOException("Unsupported movie search index segment version " + version + " in " + path
+                        + ", expected " + VERSION);
+            }
+            Instant builtAt = Instant.ofEpochMilli(header.getLong());
+            int shardCount = header.getInt();
+            int sectionCount = header.getInt();
+            if (shardCount <= 0 || sectionCount < 0
+                    || HEADER_PREFIX_SIZE + (long) sectionCount * SECTION_ENTRY_SIZE > channel.size()) {
+                throw new IOException(path + " is truncated");
+            }
+            ByteBuffer entries = channel.map(FileChannel.MapMode.READ_ONLY, HEADER_PREFIX_SIZE,
+                    (long) sectionCount * SECTION_ENTRY_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+
+            // Shard -> section id -> section. A mapping stays valid after its channel is closed.
+            List<Map<Integer, ByteBuffer>> sections = new ArrayList<>(shardCount);
+            for (int shard = 0; shard < shardCount; shard++) {
+                sections.add(new HashMap<>());
+            }
+            for (int i = 0; i < sectionCount; i++) {
+                int shard = entries.getInt();
+                int section = entries.getInt();
+                long offset = entries.getLong();
+                long length = entries.getLong();
+                if (shard < 0 || shard >= shardCount) {
+                    throw new IOException(path + " has a section of the shard " + shard + " out of " + shardCount);
+                }
+                if (offset + length > channel.size()) {
+                    throw new IOException(path + " is truncated");
+                }
+                sections.get(shard).put(section, channel.map(FileChannel.MapMode.READ_ONLY, offset, length)
+                        .order(ByteOrder.LITTLE_ENDIAN));
+            }
+
+            List<MovieSearchIndex> shards = new ArrayList<>(shardCount);
+            for (int shard = 0; shard < shardCount; shard++) {
+                Map<Integer, ByteBuffer> shardSections = sections.get(shard);
+                for (int section : SECTIONS) {
+                    if (!shardSections.containsKey(section)) {
+                        throw new IOException(path + " doesn't have the section " + section + " of the shard " + shard);
+                    }
+                }
+                shards.add(new MovieSearchIndex(
+                        MappedDocumentStore.readFrom(shardSections.get(DOCUMENTS)),
+                        PostingTable.readFrom(shardSections.get(TITLE_POSTINGS)),
+                        TrigramIndex.readFrom(shardSections.get(TRIGRAM_POSTINGS)),
+                        FilterBitmapIndex.readFrom(shardSections.get(FILTERS)),
+                        SortRankIndex.readFrom(shardSections.get(SORT_RANKS))));
+            }
+            return new MovieSearchSegment(shards, builtAt);
+        }
+    }
+
+    private static void writeFully(FileChannel channel, ByteBuffer bytes, long position) throws IOException {
+        long written = 0;
+        while (bytes.hasRemaining()) {
+            written += channel.write(bytes, position + written);
+        }
+    }
+}
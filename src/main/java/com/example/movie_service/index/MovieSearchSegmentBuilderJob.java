@@ -0,0 +1,68 @@
+package com.example.movie_service.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.ApplicationArguments;
+import org.springframework.boot.ApplicationRunner;
+import org.springframework.boot.SpringApplication;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.ApplicationContext;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SEGMENT_BUILD_JOB_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SEGMENT_PATH_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SHARDS_PROPERTY;
+
+/**
+ * The offline job that builds the shards of the search index from the database and writes them to the segment file,
+ * then stops the application. The shards are built with movie.search.shards, like in the holder. Run it with:
+ * <pre>
+ * java -jar search_service.jar --movie.search.segment.build-job=true --movie.search.segment.path=/path/to/segment
+ *     --spring.main.web-application-type=none
+ * </pre>
+ * The file is replaced atomically, so instances that open it at the same time see the old or the new segment.
+ * @see MovieSearchSegment
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = SEARCH_SEGMENT_BUILD_JOB_PROPERTY, havingValue = "true")
+public class MovieSearchSegmentBuilderJob implements ApplicationRunner {
+
+    private final MovieSearchIndexLoader loader;
+    private final ApplicationContext applicationContext;
+    private final String segmentPath;
+    private final int shardCount;
+
+    @Autowired
+    public MovieSearchSegmentBuilderJob(MovieSearchIndexLoader loader, ApplicationContext applicationContext,
+                                        @Value("${" + SEARCH_SEGMENT_PATH_PROPERTY + ":}") String segmentPath,
+                                        @Value("${" + SEARCH_SHARDS_PROPERTY + ":0}") int shardCount) {
+        this.loader = loader;
+        this.applicationContext = applicationContext;
+        this.segmentPath = segmentPath;
+        this.shardCount = MovieSearchIndexHolder.resolveShardCount(shardCount);
+    }
+
+    @Override
+    public void run(ApplicationArguments args) throws IOException {
+        if (segmentPath.isEmpty()) {
+            throw new IllegalStateException(SEARCH_SEGMENT_PATH_PROPERTY + " must be set to build a segment");
+        }
+        long start = System.currentTimeMillis();
+        // Changes made while the rows are loaded may be missed, so the segment is dated before loading them
+        Instant builtAt = Instant.now();
+        ShardedMovieSearchIndex index = ShardedMovieSearchIndex.build(loader.loadDocuments(), loader.loadGenres(),
+                loader.loadDirectors(), shardCount, ForkJoinPool.commonPool());
+        MovieSearchSegment.write(index.getShards(), builtAt, Path.of(segmentPath));
+        log.info("Wrote the movie search index segment {} with {} movies in {} shards in {} ms", segmentPath,
+                index.size(), shardCount, System.currentTimeMillis() - start);
+
+        SpringApplication.exit(applicationContext);
+    }
+}
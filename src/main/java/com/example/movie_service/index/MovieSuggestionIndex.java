@@ -0,0 +1,175 @@
+package com.example.movie_service.index;
+
+import com.example.movie_service.dto.MovieSuggestionDTO;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.PriorityQueue;
+
+/**
+ * An immutable prefix index over the movie titles that returns the most voted titles starting with a prefix. <br>
+ *
+ * The normalized titles are kept in one sorted array. It is a flattened trie: all the titles under a trie node (all
+ * the titles starting with the same prefix) are next to each other, so a prefix is found with two binary searches
+ * instead of walking and storing millions of nodes. A segment tree over the number of votes gives the most voted
+ * title of any range in O(log n), so the top-k titles of a prefix are found without looking at every title in the
+ * range, even for short prefixes like "th".
+ */
+public class MovieSuggestionIndex {
+
+    private final String[] sortedKeys;
+    private final MovieSuggestionDTO[] suggestions;
+    private final int[] weights;
+
+    // Iterative segment tree: the leaves are in [n, 2n), and each inner node has the position of the heaviest leaf
+    // under it
+    private final int[] heaviest;
+
+    private MovieSuggestionIndex(String[] sortedKeys, MovieSuggestionDTO[] suggestions, int[] weights) {
+        this.sortedKeys = sortedKeys;
+        this.suggestions = suggestions;
+        this.weights = weights;
+
+        int size = sortedKeys.length;
+        this.heaviest = new int[2 * size];
+        for (int i = 0; i < size; i++) {
+            heaviest[size + i] = i;
+        }
+        for (int node = size - 1; node > 0; node--) {
+            heaviest[node] = heavier(heaviest[2 * node], heaviest[2 * node + 1]);
+        }
+    }
+
+    /**
+     * Build the index. The suggestions are sorted by their normalized titles, and the ones without a title are skipped.
+     * @param movieSuggestions the suggestions loaded from MySQL database
+     * @return a MovieSuggestionIndex
+     */
+    public static MovieSuggestionIndex build(List<MovieSuggestionDTO> movieSuggestions) {
+        List<MovieSuggestionDTO> titled = movieSuggestions.stream()
+                .filter(suggestion -> suggestion.getTitle() != null)
+                .toList();
+        String[] keys = titled.stream().map(suggestion -> TitleAnalyzer.normalize(suggestion.getTitle()))
+                .toArray(String[]::new);
+        Integer[] order = new Integer[keys.length];
+        for (int i = 0; i < order.length; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, Comparator.comparing(i -> keys[i]));
+
+        String[] sortedKeys = new String[order.length];
+        MovieSuggestionDTO[] suggestions = new MovieSuggestionDTO[order.length];
+        int[] weights = new int[order.length];
+        for (int i = 0; i < order.length; i++) {
+            sortedKeys[i] = keys[order[i]];
+            suggestions[i] = titled.get(order[i]);
+            Integer numOfVotes = suggestions[i].getNumOfVotes();
+            weights[i] = numOfVotes == null ? 0 : numOfVotes;
+        }
+        return new MovieSuggestionIndex(sortedKeys, suggestions, weights);
+    }
+
+    /**
+     * @return an index without any suggestion
+     */
+    public static MovieSuggestionIndex empty() {
+        return build(Collections.emptyList());
+    }
+
+    public int size() {
+        return sortedKeys.length;
+    }
+
+    /**
+     * Get the most voted titles that start with the prefix. Titles with the same number of votes are in alphabetical
+     * order.
+     * @param prefix the prefix typed by the user. It's compared case-insensitively and accent-insensitively.
+     * @param limit the maximum number of suggestions
+     * @return a list of suggestions, ordered by the number of votes in descending order
+     */
+    public List<MovieSuggestionDTO> suggest(String prefix, int limit) {
+        String normalizedPrefix = TitleAnalyzer.normalize(prefix).stripLeading();
+        int from = lowerBound(normalizedPrefix);
+        int to = upperBound(normalizedPrefix, from);
+        if (from >= to || limit <= 0) {
+            return Collections.emptyList();
+        }
+
+        // Each entry is {heaviest position, range start, range end}. Taking the heaviest title out of a range splits
+        // the range into two, and the next heaviest title is the heaviest of all the ranges in the queue.
+        PriorityQueue<int[]> ranges = new PriorityQueue<>(
+                (first, second) -> heavier(first[0], second[0]) == first[0] ? -1 : 1);
+        ranges.add(new int[]{heaviestIn(from, to), from, to});
+
+        List<MovieSuggestionDTO> results = new ArrayList<>(Math.min(limit, to - from));
+        while (!ranges.isEmpty() && results.size() < limit) {
+            int[] range = ranges.poll();
+            int position = range[0];
+            results.add(suggestions[position]);
+            if (range[1] < position) {
+                ranges.add(new int[]{heaviestIn(range[1], position), range[1], position});
+            }
+            if (position + 1 < range[2]) {
+                ranges.add(new int[]{heaviestIn(position + 1, range[2]), position + 1, range[2]});
+            }
+        }
+        return results;
+    }
+
+    /**
+     * @return the position of the heaviest title in [from, to)
+     */
+    private int heaviestIn(int from, int to) {
+        int size = sortedKeys.length;
+        int result = from;
+        for (int left = from + size, right = to + size; left < right; left >>= 1, right >>= 1) {
+            if ((left & 1) == 1) {
+                result = heavier(result, heaviest[left++]);
+            }
+            if ((right & 1) == 1) {
+                result = heavier(result, heaviest[--right]);
+            }
+        }
+        return result;
+    }
+
+    private int heavier(int first, int second) {
+        if (weights[first] != weights[second]) {
+            return weights[first] > weights[second] ? first : second;
+        }
+        return Math.min(first, second);
+    }
+
+    // The first position whose key is not smaller than the prefix
+    private int lowerBound(String prefix) {
+        int low = 0;
+        int high = sortedKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedKeys[middle].compareTo(prefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    // The first position from "from" whose key doesn't start with the prefix
+    private int upperBound(String prefix, int from) {
+        int low = from;
+        int high = sortedKeys.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (sortedKeys[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+}
@@ -0,0 +1,70 @@
+package com.example.movie_service.index;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import static com.example.movie_service.constant.MovieConstant.SUGGESTION_REFRESH_INTERVAL_PROPERTY;
+
+/**
+ * Holds the current MovieSuggestionIndex. Like MovieSearchIndexHolder, a refresh builds a new index and then swaps
+ * the reference, so the suggestions never wait for a lock or for MySQL database. <br>
+ *
+ * The index is built at startup, and again every movie.suggestion.refresh-interval-ms, so the new and renamed titles
+ * and the changed numbers of votes are suggested after at most that long. A failed build keeps the current index, and
+ * the next one tries again.
+ * @see MovieSearchIndexHolder
+ */
+@Slf4j
+@Component
+public class MovieSuggestionIndexHolder {
+
+    private final MovieSearchIndexLoader loader;
+
+    private volatile MovieSuggestionIndex index = MovieSuggestionIndex.empty();
+
+    @Autowired
+    public MovieSuggestionIndexHolder(MovieSearchIndexLoader loader) {
+        this.loader = loader;
+    }
+
+    /**
+     * Build the index once the application is started. If it fails (e.g. movie_materialized_view doesn't exist yet),
+     * the application still starts, and the suggestions are empty until the next scheduled refresh.
+     */
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        tryRefresh();
+    }
+
+    /**
+     * Build the index again, or build it for the first time if the build at startup failed
+     */
+    @Scheduled(fixedDelayString = "${" + SUGGESTION_REFRESH_INTERVAL_PROPERTY + ":300000}",
+            initialDelayString = "${" + SUGGESTION_REFRESH_INTERVAL_PROPERTY + ":300000}")
+    public void tryRefresh() {
+        try {
+            refresh();
+        } catch (RuntimeException exception) {
+            log.error("Failed to build the movie suggestion index: ", exception);
+        }
+    }
+
+    /**
+     * Reload the suggestions from MySQL database and replace the current index with a new one.
+     */
+    public void refresh() {
+        long start = System.currentTimeMillis();
+        MovieSuggestionIndex newIndex = MovieSuggestionIndex.build(loader.loadSuggestions());
+        index = newIndex;
+        log.info("Built the movie suggestion index with {} titles in {} ms", newIndex.size(),
+                System.currentTimeMillis() - start);
+    }
+
+    public MovieSuggestionIndex getIndex() {
+        return index;
+    }
+}
@@ -0,0 +1,109 @@
+package com.example.movie_service.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Helper methods for posting lists. A posting list is a sorted int array of document ordinals without duplicates.
+ */
+public final class PostingLists {
+
+    public static final int[] EMPTY = new int[0];
+
+    // Define a private constructor to hide the public one
+    private PostingLists() {
+    }
+
+    /**
+     * Intersect two posting lists
+     * @param first a sorted posting list
+     * @param second another sorted posting list
+     * @return a new sorted posting list with the ordinals that are in both lists
+     */
+    public static int[] intersect(int[] first, int[] second) {
+        int[] result = new int[Math.min(first.length, second.length)];
+        int size = 0;
+        int i = 0;
+        int j = 0;
+        while (i < first.length && j < second.length) {
+            if (first[i] < second[j]) {
+                i++;
+            } else if (first[i] > second[j]) {
+                j++;
+            } else {
+                result[size++] = first[i];
+                i++;
+                j++;
+            }
+        }
+        return size == result.length ? result : Arrays.copyOf(result, size);
+    }
+
+    /**
+     * Intersect several posting lists, starting from the shortest one, so each step has as few ordinals as possible
+     * @param lists sorted posting lists. It must not be empty, and it's sorted by length by this method.
+     * @return a sorted posting list with the ordinals that are in all the lists
+     */
+    public static int[] intersectAll(List<int[]> lists) {
+        lists.sort(Comparator.comparingInt(list -> list.length));
+        int[] result = lists.get(0);
+        for (int i = 1; i < lists.size() && result.length > 0; i++) {
+            result = intersect(result, lists.get(i));
+        }
+        return result;
+    }
+
+    /**
+     * Merge several posting lists
+     * @param lists sorted posting lists
+     * @return a new sorted posting list with the ordinals that are in any of the lists
+     */
+    public static int[] union(List<int[]> lists) {
+        if (lists.size() == 1) {
+            return lists.get(0);
+        }
+        int total = 0;
+        for (int[] list : lists) {
+            total += list.length;
+        }
+        int[] all = new int[total];
+        int offset = 0;
+        for (int[] list : lists) {
+            System.arraycopy(list, 0, all, offset, list.length);
+            offset += list.length;
+        }
+        Arrays.sort(all);
+
+        int size = 0;
+        for (int i = 0; i < all.length; i++) {
+            if (size == 0 || all[size - 1] != all[i]) {
+                all[size++] = all[i];
+            }
+        }
+        return Arrays.copyOf(all, size);
+    }
+
+    /**
+     * A growable int array used to build posting lists without boxing every ordinal into an Integer.
+     */
+    static final class Builder {
+        private int[] values = new int[4];
+        private int size;
+
+        void add(int value) {
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            values[size++] = value;
+        }
+
+        int size() {
+            return size;
+        }
+
+        int[] toArray() {
+            return Arrays.copyOf(values, size);
+        }
+    }
+}
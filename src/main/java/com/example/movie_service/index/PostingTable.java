@@ -0,0 +1,88 @@
+package com.example.movie_service.index;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * An immutable map from keys (title terms or trigrams) to posting lists. <br>
+ *
+ * The keys are sorted and looked up with a binary search. All the posting lists are stored one after another in a
+ * single int buffer, so the table is the same whether it was built in memory or mapped from a segment file.
+ * @see MovieSearchSegment
+ */
+class PostingTable {
+
+    private final String[] keys;
+
+    // The posting list of keys[i] is data[offsets[i]] to data[offsets[i + 1]]
+    private final IntBuffer offsets;
+    private final IntBuffer data;
+
+    private PostingTable(String[] keys, IntBuffer offsets, IntBuffer data) {
+        this.keys = keys;
+        this.offsets = offsets;
+        this.data = data;
+    }
+
+    static PostingTable build(Map<String, PostingLists.Builder> builders) {
+        String[] keys = builders.keySet().stream().sorted().toArray(String[]::new);
+        int[] offsets = new int[keys.length + 1];
+        for (int i = 0; i < keys.length; i++) {
+            offsets[i + 1] = offsets[i] + builders.get(keys[i]).size();
+        }
+        int[] data = new int[offsets[keys.length]];
+        for (int i = 0; i < keys.length; i++) {
+            int[] posting = builders.get(keys[i]).toArray();
+            System.arraycopy(posting, 0, data, offsets[i], posting.length);
+        }
+        return new PostingTable(keys, IntBuffer.wrap(offsets), IntBuffer.wrap(data));
+    }
+
+    /**
+     * @param key a key
+     * @return the key's posting list, or null if the key isn't in the table
+     */
+    int[] get(String key) {
+        int i = Arrays.binarySearch(keys, key);
+        if (i < 0) {
+            return null;
+        }
+        int from = offsets.get(i);
+        int[] posting = new int[offsets.get(i + 1) - from];
+        data.get(from, posting);
+        return posting;
+    }
+
+    /**
+     * @return the keys in order. The array must not be modified.
+     */
+    String[] keys() {
+        return keys;
+    }
+
+    int size() {
+        return keys.length;
+    }
+
+    void writeTo(SegmentOutput output) {
+        output.putInt(keys.length);
+        for (String key : keys) {
+            output.putString(key);
+        }
+        output.putInts(offsets.duplicate().rewind());
+        output.putInt(data.limit());
+        output.putInts(data.duplicate().rewind());
+    }
+
+    static PostingTable readFrom(ByteBuffer input) {
+        String[] keys = new String[input.getInt()];
+        for (int i = 0; i < keys.length; i++) {
+            keys[i] = SegmentInput.getString(input);
+        }
+        IntBuffer offsets = SegmentInput.getInts(input, keys.length + 1);
+        IntBuffer data = SegmentInput.getInts(input, input.getInt());
+        return new PostingTable(keys, offsets, data);
+    }
+}
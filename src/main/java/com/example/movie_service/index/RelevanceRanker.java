@@ -0,0 +1,121 @@
+package com.example.movie_service.index;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.function.Function;
+
+/**
+ * Ranks the movies matched by a title search for orderBy=relevance. It's used by both the SQL and the in-memory
+ * search paths, so they return the same order. <br>
+ *
+ * The score is BM25 over the indexable title terms, multiplied by a boost that grows with the logarithm of the
+ * number of votes, so a popular film beats an obscure one with a similar title. A title term counts for a searching
+ * term if it starts with it, so "dark kni" still scores "The Dark Knight". The document frequencies and the average
+ * title length are computed over the matched movies: for a phrase match every movie has every term, so only the term
+ * frequencies and the title lengths decide. Movies with the same score are ordered by number of votes and then id.
+ * <br>
+ *
+ * Only the best k movies are kept, in a bounded heap, so ranking n movies takes O(n log k) and only the requested
+ * pages need to be fully loaded.
+ */
+public final class RelevanceRanker {
+
+    // The usual BM25 parameters
+    private static final double K1 = 1.2;
+    private static final double B = 0.75;
+
+    private RelevanceRanker() {
+    }
+
+    /**
+     * Get the k most relevant candidates
+     * @param candidates the movies matched by the searching title
+     * @param title the searching title
+     * @param titleOf gets a candidate's title
+     * @param numOfVotesOf gets a candidate's number of votes. It can return null.
+     * @param idOf gets a candidate's id, to break ties
+     * @param k the number of candidates to return
+     * @return at most k candidates, the most relevant first
+     * @param <T> the type of the candidates
+     */
+    public static <T> List<T> topK(List<T> candidates, String title, Function<T, String> titleOf,
+                                   Function<T, Integer> numOfVotesOf, Function<T, String> idOf, int k) {
+        if (k <= 0 || candidates.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<String> terms = new ArrayList<>();
+        for (String token : new LinkedHashSet<>(TitleAnalyzer.tokenize(title))) {
+            if (TitleAnalyzer.isIndexable(token)) {
+                terms.add(token);
+            }
+        }
+
+        // Term frequencies of every candidate, and the collection statistics of the candidates
+        List<int[]> termFrequencies = new ArrayList<>(candidates.size());
+        int[] titleLengths = new int[candidates.size()];
+        int[] documentFrequencies = new int[terms.size()];
+        long totalLength = 0;
+        for (int i = 0; i < candidates.size(); i++) {
+            List<String> titleTerms = TitleAnalyzer.tokenize(titleOf.apply(candidates.get(i))).stream()
+                    .filter(TitleAnalyzer::isIndexable)
+                    .toList();
+            int[] frequencies = new int[terms.size()];
+            for (int t = 0; t < terms.size(); t++) {
+                for (String titleTerm : titleTerms) {
+                    if (titleTerm.startsWith(terms.get(t))) {
+                        frequencies[t]++;
+                    }
+                }
+                if (frequencies[t] > 0) {
+                    documentFrequencies[t]++;
+                }
+            }
+            termFrequencies.add(frequencies);
+            titleLengths[i] = titleTerms.size();
+            totalLength += titleTerms.size();
+        }
+        double averageLength = Math.max(1.0, (double) totalLength / candidates.size());
+        double[] idfs = new double[terms.size()];
+        for (int t = 0; t < terms.size(); t++) {
+            idfs[t] = Math.log(1 + (candidates.size() - documentFrequencies[t] + 0.5) / (documentFrequencies[t] + 0.5));
+        }
+
+        Comparator<Scored<T>> mostRelevantFirst = Comparator.<Scored<T>>comparingDouble(Scored::score).reversed()
+                .thenComparing(scored -> numOfVotesOf.apply(scored.candidate()),
+                        Comparator.nullsLast(Comparator.reverseOrder()))
+                .thenComparing(scored -> idOf.apply(scored.candidate()));
+
+        // The head of the heap is the least relevant of the best k so far
+        PriorityQueue<Scored<T>> best = new PriorityQueue<>(Math.min(k, candidates.size()) + 1,
+                mostRelevantFirst.reversed());
+        for (int i = 0; i < candidates.size(); i++) {
+            T candidate = candidates.get(i);
+            double bm25 = 0;
+            int[] frequencies = termFrequencies.get(i);
+            for (int t = 0; t < terms.size(); t++) {
+                double frequency = frequencies[t];
+                bm25 += idfs[t] * frequency * (K1 + 1)
+                        / (frequency + K1 * (1 - B + B * titleLengths[i] / averageLength));
+            }
+            best.add(new Scored<>(candidate, bm25 * boost(numOfVotesOf.apply(candidate))));
+            if (best.size() > k) {
+                best.poll();
+            }
+        }
+
+        List<Scored<T>> ranked = new ArrayList<>(best);
+        ranked.sort(mostRelevantFirst);
+        return ranked.stream().map(Scored::candidate).toList();
+    }
+
+    private record Scored<T>(T candidate, double score) {
+    }
+
+    private static double boost(Integer numOfVotes) {
+        return 1 + Math.log1p(numOfVotes == null ? 0 : Math.max(0, numOfVotes));
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.movie_service.index;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Helper methods to read what SegmentOutput wrote. The values are read at the buffer's position, and the position is
+ * moved after them. Int arrays and bitmaps are views of the buffer, so reading them from a mapped segment doesn't
+ * copy anything.
+ * @see SegmentOutput
+ */
+final class SegmentInput {
+
+    // Define a private constructor to hide the public one
+    private SegmentInput() {
+    }
+
+    static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    // Move the position after a String without decoding it
+    static void skipString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length > 0) {
+            buffer.position(buffer.position() + length);
+        }
+    }
+
+    static Double getNullableDouble(ByteBuffer buffer) {
+        boolean present = buffer.get() != 0;
+        double value = buffer.getDouble();
+        return present ? value : null;
+    }
+
+    static Integer getNullableInt(ByteBuffer buffer) {
+        boolean present = buffer.get() != 0;
+        int value = buffer.getInt();
+        return present ? value : null;
+    }
+
+    static IntBuffer getInts(ByteBuffer buffer, int count) {
+        return slice(buffer, (long) count * Integer.BYTES).asIntBuffer();
+    }
+
+    static ImmutableRoaringBitmap getBitmap(ByteBuffer buffer) {
+        int size = buffer.getInt();
+        return new ImmutableRoaringBitmap(slice(buffer, size));
+    }
+
+    /**
+     * Get a little-endian view of the next bytes, and move the position after them
+     * @param buffer a buffer
+     * @param size the number of bytes
+     * @return a new buffer sharing the bytes
+     */
+    static ByteBuffer slice(ByteBuffer buffer, long size) {
+        ByteBuffer slice = buffer.slice(buffer.position(), Math.toIntExact(size)).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.position(buffer.position() + (int) size);
+        return slice;
+    }
+}
@@ -0,0 +1,111 @@
+package com.example.movie_service.index;
+
+import org.roaringbitmap.buffer.ImmutableRoaringBitmap;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * A growable little-endian buffer that one section of a search index segment is written to.
+ * @see MovieSearchSegment
+ * @see SegmentInput
+ */
+final class SegmentOutput {
+
+    private static final int NULL_LENGTH = -1;
+
+    private ByteBuffer buffer = ByteBuffer.allocate(1024).order(ByteOrder.LITTLE_ENDIAN);
+
+    int position() {
+        return buffer.position();
+    }
+
+    void putByte(byte value) {
+        ensureRemaining(Byte.BYTES);
+        buffer.put(value);
+    }
+
+    void putInt(int value) {
+        ensureRemaining(Integer.BYTES);
+        buffer.putInt(value);
+    }
+
+    // Overwrite an int that was written before, e.g. an offset that wasn't known yet
+    void putIntAt(int position, int value) {
+        buffer.putInt(position, value);
+    }
+
+    void putDouble(double value) {
+        ensureRemaining(Double.BYTES);
+        buffer.putDouble(value);
+    }
+
+    void putInts(IntBuffer values) {
+        ensureRemaining((long) values.remaining() * Integer.BYTES);
+        for (int i = values.position(); i < values.limit(); i++) {
+            buffer.putInt(values.get(i));
+        }
+    }
+
+    /**
+     * Write a String as its UTF-8 length and bytes. Null is written as the length -1.
+     * @param value a String, or null
+     */
+    void putString(String value) {
+        if (value == null) {
+            putInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        ensureRemaining(bytes.length);
+        buffer.put(bytes);
+    }
+
+    void putNullableDouble(Double value) {
+        putByte(value == null ? (byte) 0 : (byte) 1);
+        putDouble(value == null ? 0 : value);
+    }
+
+    void putNullableInt(Integer value) {
+        putByte(value == null ? (byte) 0 : (byte) 1);
+        putInt(value == null ? 0 : value);
+    }
+
+    /**
+     * Write a bitmap as its size in bytes and its portable serialization, so it can be read without copying.
+     * @param bitmap a bitmap
+     */
+    void putBitmap(ImmutableRoaringBitmap bitmap) {
+        int size = bitmap.serializedSizeInBytes();
+        putInt(size);
+        ensureRemaining(size);
+        bitmap.serialize(buffer);
+    }
+
+    /**
+     * @return the written bytes, from position 0 to the current position
+     */
+    ByteBuffer toByteBuffer() {
+        ByteBuffer written = buffer.duplicate();
+        written.flip();
+        return written;
+    }
+
+    private void ensureRemaining(long bytes) {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        long required = buffer.position() + bytes;
+        if (required > Integer.MAX_VALUE) {
+            throw new IllegalStateException("A search index segment section can't be larger than 2 GB");
+        }
+        int capacity = (int) Math.min(Integer.MAX_VALUE, Math.max(required, (long) buffer.capacity() * 2));
+        ByteBuffer larger = ByteBuffer.allocate(capacity).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        larger.put(buffer);
+        buffer = larger;
+    }
+}
@@ -0,0 +1,292 @@
+package com.example.movie_service.index;
+
+import com.example.movie_service.dto.MovieFilterAttributeDTO;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * The in-memory search index partitioned into shards by movie id, so a search uses several cores. <br>
+ *
+ * Every shard is a MovieSearchIndex over its own movies. A search step runs on all the shards at the same time on a
+ * ForkJoinPool, and the results are merged: the numbers of matches are added, and the first k movies of every shard are
+ * merged into the first k movies of the whole catalogue. A movie is always in the shard shardOf(id), so a change batch
+ * is split the same way. <br>
+ *
+ * Like MovieSearchIndex, it's immutable, and applying a change batch returns a new one.
+ * @see MovieSearchIndexHolder
+ */
+public class ShardedMovieSearchIndex {
+
+    private final List<MovieSearchIndex> shards;
+
+    // Runs the shards' work. The thread of the search waits for it.
+    private final ForkJoinPool pool;
+
+    public ShardedMovieSearchIndex(List<MovieSearchIndex> shards, ForkJoinPool pool) {
+        if (shards.isEmpty()) {
+            throw new IllegalArgumentException("A ShardedMovieSearchIndex needs at least one shard");
+        }
+        this.shards = List.copyOf(shards);
+        this.pool = pool;
+    }
+
+    /**
+     * Build the shards of an index from documents only, at the same time on the pool
+     * @param movieDocuments the documents loaded from movie_materialized_view
+     * @param shardCount the number of shards
+     * @param pool the pool the shards are built on and searched on
+     * @return a ShardedMovieSearchIndex
+     * @see MovieSearchIndex#build(List)
+     */
+    public static ShardedMovieSearchIndex build(List<MovieDocument> movieDocuments, int shardCount,
+                                                ForkJoinPool pool) {
+        List<List<MovieDocument>> documentsByShard = partition(movieDocuments, MovieDocument::getId, shardCount);
+        return new ShardedMovieSearchIndex(fanOut(pool, shardCount,
+                shard -> MovieSearchIndex.build(documentsByShard.get(shard))), pool);
+    }
+
+    /**
+     * Build the shards of an index, at the same time on the pool
+     * @param movieDocuments the documents loaded from movie_materialized_view
+     * @param genres the genre ids and names of the movies, from movie_genres
+     * @param directors the director person ids and names of the movies, from movie_crew
+     * @param shardCount the number of shards
+     * @param pool the pool the shards are built on and searched on
+     * @return a ShardedMovieSearchIndex
+     * @see MovieSearchIndex#build(List, List, List)
+     */
+    public static ShardedMovieSearchIndex build(List<MovieDocument> movieDocuments,
+                                                List<MovieFilterAttributeDTO> genres,
+                                                List<MovieFilterAttributeDTO> directors, int shardCount,
+                                                ForkJoinPool pool) {
+        List<List<MovieDocument>> documentsByShard = partition(movieDocuments, MovieDocument::getId, shardCount);
+        List<List<MovieFilterAttributeDTO>> genresByShard = partition(genres, MovieFilterAttributeDTO::getMovieId,
+                shardCount);
+        List<List<MovieFilterAttributeDTO>> directorsByShard = partition(directors,
+                MovieFilterAttributeDTO::getMovieId, shardCount);
+        List<MovieSearchIndex> shards = fanOut(pool, shardCount, shard -> MovieSearchIndex.build(
+                documentsByShard.get(shard), genresByShard.get(shard), directorsByShard.get(shard)));
+        return new ShardedMovieSearchIndex(shards, pool);
+    }
+
+    /**
+     * @return an index with one shard without any document
+     */
+    public static ShardedMovieSearchIndex empty() {
+        return new ShardedMovieSearchIndex(List.of(MovieSearchIndex.empty()), ForkJoinPool.commonPool());
+    }
+
+    /**
+     * @param movieId a movie's id
+     * @param shardCount the number of shards
+     * @return the shard of the movie
+     */
+    public static int shardOf(String movieId, int shardCount) {
+        return Math.floorMod(movieId.hashCode(), shardCount);
+    }
+
+    /**
+     * Get a new index with the changes of the batch. Every shard gets the changes of its own movies, so a search sees
+     * either none or all of the batch's changes.
+     * @param batch the changed movies and their current rows
+     * @return a new ShardedMovieSearchIndex, or this index if the batch is empty
+     * @see MovieSearchIndex#apply(MovieChangeBatch)
+     */
+    public ShardedMovieSearchIndex apply(MovieChangeBatch batch) {
+        if (batch.isEmpty()) {
+            return this;
+        }
+        int shardCount = shards.size();
+        List<Set<String>> movieIdsByShard = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            movieIdsByShard.add(new HashSet<>());
+        }
+        for (String movieId : batch.getMovieIds()) {
+            movieIdsByShard.get(shardOf(movieId, shardCount)).add(movieId);
+        }
+        List<List<MovieDocument>> documentsByShard = partition(batch.getDocuments(), MovieDocument::getId, shardCount);
+        List<List<MovieFilterAttributeDTO>> genresByShard = partition(batch.getGenres(),
+                MovieFilterAttributeDTO::getMovieId, shardCount);
+        List<List<MovieFilterAttributeDTO>> directorsByShard = partition(batch.getDirectors(),
+                MovieFilterAttributeDTO::getMovieId, shardCount);
+
+        List<MovieSearchIndex> newShards = fanOut(pool, shardCount, shard -> shards.get(shard).apply(
+                new MovieChangeBatch(movieIdsByShard.get(shard), documentsByShard.get(shard),
+                        genresByShard.get(shard), directorsByShard.get(shard))));
+        return new ShardedMovieSearchIndex(newShards, pool);
+    }
+
+    /**
+     * @param movieId the movie's id
+     * @return true if the movie can be found in its shard
+     */
+    public boolean contains(String movieId) {
+        return shards.get(shardOf(movieId, shards.size())).contains(movieId);
+    }
+
+    /**
+     * Find the movies of every shard
+     * @param matcher finds and filters the movies of one shard, e.g. with matchPhrase and filter
+     * @return the movies found in every shard
+     */
+    public Matches match(Function<MovieSearchIndex, int[]> matcher) {
+        return new Matches(fanOut(pool, shards.size(), shard -> matcher.apply(shards.get(shard))));
+    }
+
+    /**
+     * Get the first k movies found in all the shards, in the same order as MovieSearchIndex#sort
+     * @param matches the movies found in every shard
+     * @param orderBy title, rating, or releaseTime
+     * @param direction asc or desc
+     * @param k the number of movies to return
+     * @return at most k documents in order
+     */
+    public List<MovieDocument> sort(Matches matches, String orderBy, String direction, int k) {
+        return sort(matches, orderBy, direction, null, k);
+    }
+
+    /**
+     * Get the first k movies found in all the shards that come after a document, in the same order as
+     * MovieSearchIndex#sort
+     * @param matches the movies found in every shard
+     * @param orderBy title, rating, or releaseTime
+     * @param direction asc or desc
+     * @param last the last movie of the previous page, or null to start from the first movie
+     * @param k the number of movies to return
+     * @return at most k documents in order
+     */
+    public List<MovieDocument> sort(Matches matches, String orderBy, String direction, MovieDocument last, int k) {
+        // Every shard's first k are enough to get the first k of all of them
+        List<List<MovieDocument>> shardTopK = fanOut(pool, shards.size(), shard -> {
+            MovieSearchIndex index = shards.get(shard);
+            int[] candidates = matches.postings.get(shard);
+            if (last != null) {
+                candidates = index.after(candidates, orderBy, direction, last);
+            }
+            int[] ordered = index.sort(candidates, orderBy, direction, k);
+            List<MovieDocument> documents = new ArrayList<>(ordered.length);
+            for (int ordinal : ordered) {
+                documents.add(index.getDocument(ordinal));
+            }
+            return documents;
+        });
+
+        List<MovieDocument> merged = new ArrayList<>();
+        shardTopK.forEach(merged::addAll);
+        merged.sort(SortRankIndex.comparator(orderBy, direction));
+        return merged.subList(0, Math.min(Math.max(k, 0), merged.size()));
+    }
+
+    /**
+     * Get the k movies found in all the shards that are the most relevant to the searching title. The scores use the
+     * statistics of all the movies found, so they are the same as with a single shard.
+     * @param matches the movies found in every shard
+     * @param title the searching title
+     * @param k the number of movies to return
+     * @return at most k documents, the most relevant first
+     * @see RelevanceRanker
+     */
+    public List<MovieDocument> rankByRelevance(Matches matches, String title, int k) {
+        if (k <= 0 || matches.getCount() == 0) {
+            return Collections.emptyList();
+        }
+        List<List<MovieDocument>> shardDocuments = fanOut(pool, shards.size(), shard -> {
+            MovieSearchIndex index = shards.get(shard);
+            int[] postings = matches.postings.get(shard);
+            List<MovieDocument> documents = new ArrayList<>(postings.length);
+            for (int ordinal : postings) {
+                documents.add(index.getDocument(ordinal));
+            }
+            return documents;
+        });
+
+        List<MovieDocument> candidates = new ArrayList<>(matches.getCount());
+        shardDocuments.forEach(candidates::addAll);
+        return RelevanceRanker.topK(candidates, title, MovieDocument::getTitle, MovieDocument::getNumOfVotes,
+                MovieDocument::getId, k);
+    }
+
+    /**
+     * @return the shards, in shard order
+     */
+    public List<MovieSearchIndex> getShards() {
+        return shards;
+    }
+
+    public int shardCount() {
+        return shards.size();
+    }
+
+    public int size() {
+        return shards.stream().mapToInt(MovieSearchIndex::size).sum();
+    }
+
+    public int deltaSize() {
+        return shards.stream().mapToInt(MovieSearchIndex::deltaSize).sum();
+    }
+
+    public int termCount() {
+        return shards.stream().mapToInt(MovieSearchIndex::termCount).sum();
+    }
+
+    public int trigramCount() {
+        return shards.stream().mapToInt(MovieSearchIndex::trigramCount).sum();
+    }
+
+    // Run the task of every shard on the pool, and wait for all of them. A single shard runs on the calling thread.
+    private static <T> List<T> fanOut(ForkJoinPool pool, int shardCount, IntFunction<T> task) {
+        if (shardCount == 1) {
+            return List.of(task.apply(0));
+        }
+        List<ForkJoinTask<T>> tasks = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            int taskShard = shard;
+            tasks.add(pool.submit(() -> task.apply(taskShard)));
+        }
+        List<T> results = new ArrayList<>(shardCount);
+        for (ForkJoinTask<T> shardTask : tasks) {
+            results.add(shardTask.join());
+        }
+        return results;
+    }
+
+    private static <T> List<List<T>> partition(List<T> items, Function<T, String> movieIdOf, int shardCount) {
+        List<List<T>> partitions = new ArrayList<>(shardCount);
+        for (int shard = 0; shard < shardCount; shard++) {
+            partitions.add(new ArrayList<>());
+        }
+        for (T item : items) {
+            partitions.get(shardOf(movieIdOf.apply(item), shardCount)).add(item);
+        }
+        return partitions;
+    }
+
+    /**
+     * The movies a search step found in every shard, as a sorted posting list of each shard
+     */
+    public static final class Matches {
+
+        private final List<int[]> postings;
+        private final int count;
+
+        private Matches(List<int[]> postings) {
+            this.postings = postings;
+            this.count = postings.stream().mapToInt(posting -> posting.length).sum();
+        }
+
+        /**
+         * @return the number of movies found in all the shards
+         */
+        public int getCount() {
+            return count;
+        }
+    }
+}
@@ -0,0 +1,264 @@
+package com.example.movie_service.index;
+
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.stream.IntStream;
+
+import static com.example.movie_service.constant.MovieConstant.DIRECTION_DESC;
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RATING;
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RELEASE_TIME;
+
+/**
+ * The rank of every document of a MovieSearchIndex for each sortable field, computed once when the index is built.
+ * <br>
+ *
+ * Ordering candidates no longer compares their titles, ratings or release times: every candidate gets a sort key from
+ * its ranks in O(1), and only the k smallest keys are selected (quickselect, O(n) on average) and sorted. A search
+ * matching n movies and showing page p of size l takes O(n + k log k) with k = (p + 1) * l, instead of O(n log n).
+ * <br>
+ *
+ * The order is the same as ORDER BY field IS NULL, field direction with the documents' ids as the tie-breaker, so the
+ * documents without a value are always at the end.
+ */
+public class SortRankIndex {
+
+    // The rank of each document's id. Ids are unique, so it's also the tie-breaker of every order.
+    private final IntBuffer idRanks;
+    private final IntBuffer ordinalsByIdRank;
+
+    private final FieldRanks titleRanks;
+    private final FieldRanks ratingRanks;
+    private final FieldRanks releaseTimeRanks;
+
+    private SortRankIndex(IntBuffer idRanks, IntBuffer ordinalsByIdRank, FieldRanks titleRanks, FieldRanks ratingRanks,
+                          FieldRanks releaseTimeRanks) {
+        this.idRanks = idRanks;
+        this.ordinalsByIdRank = ordinalsByIdRank;
+        this.titleRanks = titleRanks;
+        this.ratingRanks = ratingRanks;
+        this.releaseTimeRanks = releaseTimeRanks;
+    }
+
+    /**
+     * Rank the documents by each sortable field
+     * @param documents the documents of the index, in ordinal order. Their ids must be unique.
+     * @return a SortRankIndex
+     */
+    public static SortRankIndex build(MovieDocument[] documents) {
+        Integer[] byId = sortedOrdinals(documents.length,
+                Comparator.comparing(ordinal -> documents[ordinal].getId()));
+        int[] idRanks = new int[documents.length];
+        int[] ordinalsByIdRank = new int[documents.length];
+        for (int rank = 0; rank < byId.length; rank++) {
+            idRanks[byId[rank]] = rank;
+            ordinalsByIdRank[rank] = byId[rank];
+        }
+
+        return new SortRankIndex(IntBuffer.wrap(idRanks), IntBuffer.wrap(ordinalsByIdRank),
+                FieldRanks.build(documents, MovieDocument::getTitle, String.CASE_INSENSITIVE_ORDER),
+                FieldRanks.build(documents, MovieDocument::getRating, Comparator.naturalOrder()),
+                FieldRanks.build(documents, MovieDocument::getReleaseTime, Comparator.naturalOrder()));
+    }
+
+    /**
+     * Get the first k candidates in order
+     * @param candidates a posting list
+     * @param orderBy title, rating, or releaseTime
+     * @param direction asc or desc
+     * @param k the number of candidates to return
+     * @return a new array with at most k candidates, in order
+     */
+    public int[] topK(int[] candidates, String orderBy, String direction, int k) {
+        FieldRanks ranks = switch (orderBy) {
+            case ORDER_BY_RATING -> ratingRanks;
+            case ORDER_BY_RELEASE_TIME -> releaseTimeRanks;
+            default -> titleRanks;
+        };
+        boolean descending = DIRECTION_DESC.equals(direction);
+
+        // The value's position in the order in the high 32 bits, and the id's rank in the low 32 bits. The keys are
+        // unique, so sorting them sorts the candidates.
+        long[] keys = new long[candidates.length];
+        for (int i = 0; i < candidates.length; i++) {
+            int ordinal = candidates[i];
+            keys[i] = ((long) ranks.position(ordinal, descending) << 32) | idRanks.get(ordinal);
+        }
+
+        int size = Math.min(Math.max(k, 0), keys.length);
+        if (size < keys.length) {
+            selectSmallest(keys, size);
+        }
+        Arrays.sort(keys, 0, size);
+
+        int[] ordered = new int[size];
+        for (int i = 0; i < size; i++) {
+            ordered[i] = ordinalsByIdRank.get((int) keys[i]);
+        }
+        return ordered;
+    }
+
+    /**
+     * Find a document by its id with a binary search over the documents in id order
+     * @param id the document's id
+     * @param idOf gets the id of the document with an ordinal
+     * @return the document's ordinal, or -1 if there's no document with this id
+     */
+    public int ordinalOf(String id, IntFunction<String> idOf) {
+        int low = 0;
+        int high = ordinalsByIdRank.limit() - 1;
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+            int ordinal = ordinalsByIdRank.get(middle);
+            int comparison = idOf.apply(ordinal).compareTo(id);
+            if (comparison < 0) {
+                low = middle + 1;
+            } else if (comparison > 0) {
+                high = middle - 1;
+            } else {
+                return ordinal;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * The order of topK as a comparator of documents, to merge documents ranked by different indexes
+     * @param orderBy title, rating, or releaseTime
+     * @param direction asc or desc
+     * @return a comparator with the documents without a value last and the ids as the tie-breaker
+     */
+    public static Comparator<MovieDocument> comparator(String orderBy, String direction) {
+        Comparator<MovieDocument> byValue = switch (orderBy) {
+            case ORDER_BY_RATING -> Comparator.comparing(MovieDocument::getRating,
+                    Comparator.nullsLast(directed(Comparator.<Double>naturalOrder(), direction)));
+            case ORDER_BY_RELEASE_TIME -> Comparator.comparing(MovieDocument::getReleaseTime,
+                    Comparator.nullsLast(directed(Comparator.<String>naturalOrder(), direction)));
+            default -> Comparator.comparing(MovieDocument::getTitle,
+                    Comparator.nullsLast(directed(String.CASE_INSENSITIVE_ORDER, direction)));
+        };
+        return byValue.thenComparing(MovieDocument::getId);
+    }
+
+    private static <T> Comparator<T> directed(Comparator<T> order, String direction) {
+        return DIRECTION_DESC.equals(direction) ? order.reversed() : order;
+    }
+
+    void writeTo(SegmentOutput output) {
+        output.putInt(idRanks.limit());
+        output.putInts(idRanks.duplicate().rewind());
+        output.putInts(ordinalsByIdRank.duplicate().rewind());
+        for (FieldRanks ranks : new FieldRanks[]{titleRanks, ratingRanks, releaseTimeRanks}) {
+            output.putInt(ranks.maxValueRank);
+            output.putInts(ranks.valueRanks.duplicate().rewind());
+        }
+    }
+
+    static SortRankIndex readFrom(ByteBuffer input) {
+        int size = input.getInt();
+        IntBuffer idRanks = SegmentInput.getInts(input, size);
+        IntBuffer ordinalsByIdRank = SegmentInput.getInts(input, size);
+        FieldRanks[] fieldRanks = new FieldRanks[3];
+        for (int i = 0; i < fieldRanks.length; i++) {
+            int maxValueRank = input.getInt();
+            fieldRanks[i] = new FieldRanks(SegmentInput.getInts(input, size), maxValueRank);
+        }
+        return new SortRankIndex(idRanks, ordinalsByIdRank, fieldRanks[0], fieldRanks[1], fieldRanks[2]);
+    }
+
+    // Move the k smallest keys to the beginning of the array, in any order
+    private static void selectSmallest(long[] keys, int k) {
+        int from = 0;
+        int to = keys.length - 1;
+        while (from < to) {
+            int pivotIndex = partition(keys, from, to, ThreadLocalRandom.current().nextInt(from, to + 1));
+            if (pivotIndex == k) {
+                return;
+            } else if (pivotIndex < k) {
+                from = pivotIndex + 1;
+            } else {
+                to = pivotIndex - 1;
+            }
+        }
+    }
+
+    // Lomuto partition. Returns the pivot's final index.
+    private static int partition(long[] keys, int from, int to, int pivotIndex) {
+        long pivot = keys[pivotIndex];
+        swap(keys, pivotIndex, to);
+        int store = from;
+        for (int i = from; i < to; i++) {
+            if (keys[i] < pivot) {
+                swap(keys, i, store++);
+            }
+        }
+        swap(keys, store, to);
+        return store;
+    }
+
+    private static void swap(long[] keys, int i, int j) {
+        long key = keys[i];
+        keys[i] = keys[j];
+        keys[j] = key;
+    }
+
+    private static Integer[] sortedOrdinals(int size, Comparator<Integer> order) {
+        Integer[] ordinals = new Integer[size];
+        for (int i = 0; i < size; i++) {
+            ordinals[i] = i;
+        }
+        Arrays.sort(ordinals, order);
+        return ordinals;
+    }
+
+    /**
+     * The dense rank of each document's value of one field in ascending order. Equal values have the same rank.
+     */
+    private static final class FieldRanks {
+
+        private static final int NULL_RANK = -1;
+
+        private final IntBuffer valueRanks;
+        private final int maxValueRank;
+
+        private FieldRanks(IntBuffer valueRanks, int maxValueRank) {
+            this.valueRanks = valueRanks;
+            this.maxValueRank = maxValueRank;
+        }
+
+        static <T> FieldRanks build(MovieDocument[] documents, Function<MovieDocument, T> field, Comparator<T> order) {
+            int[] valueRanks = new int[documents.length];
+            Arrays.fill(valueRanks, NULL_RANK);
+
+            Integer[] nonNull = IntStream.range(0, documents.length).boxed()
+                    .filter(ordinal -> field.apply(documents[ordinal]) != null)
+                    .sorted(Comparator.comparing(ordinal -> field.apply(documents[ordinal]), order))
+                    .toArray(Integer[]::new);
+
+            int rank = NULL_RANK;
+            T previous = null;
+            for (Integer ordinal : nonNull) {
+                T value = field.apply(documents[ordinal]);
+                if (previous == null || order.compare(previous, value) != 0) {
+                    rank++;
+                    previous = value;
+                }
+                valueRanks[ordinal] = rank;
+            }
+            return new FieldRanks(IntBuffer.wrap(valueRanks), rank);
+        }
+
+        // The position of the document's value in the order. Documents without a value are after all the others.
+        int position(int ordinal, boolean descending) {
+            int valueRank = valueRanks.get(ordinal);
+            if (valueRank == NULL_RANK) {
+                return maxValueRank + 1;
+            }
+            return descending ? maxValueRank - valueRank : valueRank;
+        }
+    }
+}
@@ -0,0 +1,92 @@
+package com.example.movie_service.index;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * Turns movie titles and searching titles into normalized terms. <br>
+ *
+ * The rules follow MySQL's InnoDB FULLTEXT parser, so the in-memory index matches the same rows as
+ * MATCH(m.primaryTitle) AGAINST(:title IN BOOLEAN MODE):
+ * 1. Terms are runs of letters and digits. They are lower-cased and their accents are removed, because the column's
+ *    collation (utf8mb4_0900_ai_ci) is accent-insensitive and case-insensitive.
+ * 2. Terms shorter than innodb_ft_min_token_size (3) and the InnoDB default stopwords are not indexed.
+ */
+public final class TitleAnalyzer {
+
+    // Same as innodb_ft_min_token_size's default value
+    public static final int MIN_TOKEN_LENGTH = 3;
+
+    // Same as the content of INFORMATION_SCHEMA.INNODB_FT_DEFAULT_STOPWORD
+    private static final Set<String> STOPWORDS = Set.of("a", "about", "an", "are", "as", "at", "be", "by", "com",
+            "de", "en", "for", "from", "how", "i", "in", "is", "it", "la", "of", "on", "or", "that", "the", "this", "to",
+            "was", "what", "when", "where", "who", "will", "with", "und", "www");
+
+    private static final Pattern COMBINING_MARKS = Pattern.compile("\\p{M}+");
+
+    // Define a private constructor to hide the public one
+    private TitleAnalyzer() {
+    }
+
+    /**
+     * Lower-case a text and remove its accents, so it can be compared the same way as MySQL's accent-insensitive and
+     * case-insensitive collation does. For example, "Amélie" becomes "amelie".
+     * @param text the text. Can be null.
+     * @return the normalized text, or an empty String if the text is null
+     */
+    public static String normalize(String text) {
+        if (text == null) {
+            return "";
+        }
+        String lowerCased = text.toLowerCase(Locale.ROOT);
+        // Most titles are ASCII and don't have any accent to remove
+        for (int i = 0; i < lowerCased.length(); i++) {
+            if (lowerCased.charAt(i) > 0x7F) {
+                return COMBINING_MARKS.matcher(Normalizer.normalize(lowerCased, Normalizer.Form.NFD)).replaceAll("");
+            }
+        }
+        return lowerCased;
+    }
+
+    /**
+     * Split a text into normalized terms, keeping their order. Stopwords and short terms are kept here because the
+     * phrase matching needs every term's position.
+     * @param text the text to split. Can be null.
+     * @return a list of lower-cased terms
+     */
+    public static List<String> tokenize(String text) {
+        List<String> tokens = new ArrayList<>();
+        if (text == null) {
+            return tokens;
+        }
+        String normalized = normalize(text);
+        int start = -1;
+        for (int i = 0; i < normalized.length(); i++) {
+            if (Character.isLetterOrDigit(normalized.charAt(i))) {
+                if (start < 0) {
+                    start = i;
+                }
+            } else if (start >= 0) {
+                tokens.add(normalized.substring(start, i));
+                start = -1;
+            }
+        }
+        if (start >= 0) {
+            tokens.add(normalized.substring(start));
+        }
+        return tokens;
+    }
+
+    /**
+     * Check if a normalized term is put into the inverted index.
+     * @param token a term returned by tokenize()
+     * @return true if the term is long enough and is not a stopword
+     */
+    public static boolean isIndexable(String token) {
+        return token.length() >= MIN_TOKEN_LENGTH && !STOPWORDS.contains(token);
+    }
+}
@@ -0,0 +1,101 @@
+package com.example.movie_service.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The sorted title terms of a MovieSearchIndex. It is used to find the terms that are close to a misspelled term.
+ */
+public class TitleTermDictionary {
+
+    private final String[] terms;
+    private final int maxTermLength;
+
+    public TitleTermDictionary(Collection<String> terms) {
+        this.terms = terms.stream().distinct().sorted().toArray(String[]::new);
+        this.maxTermLength = Arrays.stream(this.terms).mapToInt(String::length).max().orElse(0);
+    }
+
+    public int size() {
+        return terms.length;
+    }
+
+    /**
+     * Find all the terms within maxEdits of the query term, by intersecting a LevenshteinAutomaton with the sorted terms.
+     * The terms are visited in order, and the automaton states of the prefix a term shares with the previous term are
+     * reused. When a prefix can't match anymore, all the terms starting with it are skipped with a binary search, so
+     * most of the dictionary is never looked at.
+     * @param term a normalized query term
+     * @param maxEdits the maximum edit distance
+     * @return the matching terms, including the query term itself if it's in the dictionary
+     */
+    public List<String> expand(String term, int maxEdits) {
+        List<String> matches = new ArrayList<>();
+        LevenshteinAutomaton automaton = new LevenshteinAutomaton(term, maxEdits);
+
+        // states[d] is the state after reading the first d characters of the previous term
+        int[][] states = new int[maxTermLength + 1][];
+        states[0] = automaton.start();
+        String previous = "";
+        int validDepth = 0;
+
+        int i = 0;
+        while (i < terms.length) {
+            String current = terms[i];
+            int depth = Math.min(commonPrefixLength(previous, current), validDepth);
+            boolean dead = false;
+            while (depth < current.length()) {
+                int[] previousState = depth > 0 ? states[depth - 1] : null;
+                char previousChar = depth > 0 ? current.charAt(depth - 1) : 0;
+                states[depth + 1] = automaton.step(previousState, states[depth], previousChar, current.charAt(depth));
+                depth++;
+                if (!automaton.canMatch(states[depth])) {
+                    dead = true;
+                    break;
+                }
+            }
+
+            previous = current;
+            if (dead) {
+                // No term starting with current[0, depth) can match. The next term shares less than depth
+                // characters with it, so the states up to depth - 1 are still valid.
+                i = firstWithoutPrefix(current.substring(0, depth), i + 1);
+                validDepth = depth - 1;
+            } else {
+                if (automaton.isMatch(states[depth])) {
+                    matches.add(current);
+                }
+                i++;
+                validDepth = depth;
+            }
+        }
+        return matches;
+    }
+
+    // The first position from "from" whose term doesn't start with the prefix
+    private int firstWithoutPrefix(String prefix, int from) {
+        int low = from;
+        int high = terms.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (terms[middle].startsWith(prefix)) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static int commonPrefixLength(String first, String second) {
+        int length = Math.min(first.length(), second.length());
+        for (int i = 0; i < length; i++) {
+            if (first.charAt(i) != second.charAt(i)) {
+                return i;
+            }
+        }
+        return length;
+    }
+}
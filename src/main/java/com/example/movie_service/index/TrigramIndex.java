@@ -0,0 +1,91 @@
+package com.example.movie_service.index;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A posting index from every 3-character substring (trigram) of the normalized titles to the documents having it. <br>
+ *
+ * A text can only contain a literal if it has all the literal's trigrams, so intersecting the trigrams' posting lists
+ * gives a small candidate set, and only those candidates need the real substring check. Literals shorter than 3
+ * characters don't have any trigram, so they can't narrow the candidates.
+ */
+public class TrigramIndex {
+
+    public static final int GRAM_LENGTH = 3;
+
+    private final PostingTable postings;
+
+    private TrigramIndex(PostingTable postings) {
+        this.postings = postings;
+    }
+
+    /**
+     * Build the trigram index
+     * @param normalizedTitles normalized titles in ordinal order
+     * @return a TrigramIndex
+     */
+    public static TrigramIndex build(String[] normalizedTitles) {
+        Map<String, PostingLists.Builder> builders = new HashMap<>();
+        for (int ordinal = 0; ordinal < normalizedTitles.length; ordinal++) {
+            for (String trigram : trigrams(normalizedTitles[ordinal])) {
+                builders.computeIfAbsent(trigram, key -> new PostingLists.Builder()).add(ordinal);
+            }
+        }
+        return new TrigramIndex(PostingTable.build(builders));
+    }
+
+    void writeTo(SegmentOutput output) {
+        postings.writeTo(output);
+    }
+
+    static TrigramIndex readFrom(ByteBuffer input) {
+        return new TrigramIndex(PostingTable.readFrom(input));
+    }
+
+    /**
+     * Get the documents that have every trigram of the literals. They may still not contain the literals, so the
+     * caller needs to verify them.
+     * @param literals normalized literals
+     * @return a sorted posting list, or null if the literals don't have any trigram and so every document is a candidate
+     */
+    public int[] candidates(List<String> literals) {
+        Set<String> queryTrigrams = new LinkedHashSet<>();
+        for (String literal : literals) {
+            queryTrigrams.addAll(trigrams(literal));
+        }
+        if (queryTrigrams.isEmpty()) {
+            return null;
+        }
+
+        List<int[]> lists = new ArrayList<>(queryTrigrams.size());
+        for (String trigram : queryTrigrams) {
+            int[] posting = postings.get(trigram);
+            if (posting == null) {
+                return PostingLists.EMPTY;
+            }
+            lists.add(posting);
+        }
+        return PostingLists.intersectAll(lists);
+    }
+
+    /**
+     * @return the number of distinct trigrams
+     */
+    public int size() {
+        return postings.size();
+    }
+
+    private static Set<String> trigrams(String text) {
+        Set<String> trigrams = new LinkedHashSet<>();
+        for (int i = 0; i + GRAM_LENGTH <= text.length(); i++) {
+            trigrams.add(text.substring(i, i + GRAM_LENGTH));
+        }
+        return trigrams;
+    }
+}
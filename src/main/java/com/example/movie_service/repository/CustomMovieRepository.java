@@ -4,10 +4,15 @@ import com.example.movie_service.builder.MovieSearchParam;
 import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
 import com.example.movie_service.dto.OneMovieDetailsDTO;
 
+import java.util.List;
+import java.util.Map;
+
 /**
  * Interface of custom movie repository layer
  */
 public interface CustomMovieRepository {
     MovieSearchWithTitleDTOFromRepoToService searchMovies(MovieSearchParam movieSearchParam);
     OneMovieDetailsDTO searchOneMovieDetails(String movieId);
+    // The details of several movies, keyed by movie id. The movies that are not found are not in the map.
+    Map<String, OneMovieDetailsDTO> searchMovieDetails(List<String> movieIds);
 }
@@ -1,39 +1,219 @@
 package com.example.movie_service.repository;
 
 import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.cache.MovieFilterIdCache;
+import com.example.movie_service.cache.MovieSearchCountCache;
+import com.example.movie_service.datasource.HedgedQueryExecutor;
 import com.example.movie_service.dto.CrewMember;
+import com.example.movie_service.dto.MovieRelevanceCandidateDTO;
+import com.example.movie_service.dto.MovieSearchCursor;
 import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
 import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
 import com.example.movie_service.dto.OneMovieDetailsDTO;
+import com.example.movie_service.index.RelevanceRanker;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.PersistenceContext;
 import jakarta.persistence.Query;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
 import org.springframework.stereotype.Repository;
 
 import java.util.Collections;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.function.Supplier;
 
+import static com.example.movie_service.constant.MovieConstant.COUNT_ESTIMATE;
+import static com.example.movie_service.constant.MovieConstant.DIRECTION_ASC;
+import static com.example.movie_service.constant.MovieConstant.DIRECTION_DESC;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_CREW_MEMBER_WITH_MOVIE_ID_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_DETAILS_EXECUTOR;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING;
 import static com.example.movie_service.constant.MovieConstant.MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_TITLE_SEARCH_QUERY_RESULT_WITH_TOTAL_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RATING;
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RELEASE_TIME;
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RELEVANCE;
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_TITLE;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_COUNT_ESTIMATE_CAP_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_RELEVANCE_MAX_CANDIDATES_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SQL_FILTERS_LIKE;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SQL_FILTERS_NORMALIZED;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SQL_FILTERS_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SQL_FILTER_MAX_IDS_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SQL_SINGLE_QUERY_PROPERTY;
 import static com.example.movie_service.constant.MovieConstant.SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING;
 import static com.example.movie_service.constant.MovieConstant.SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.SQL_CLIENT_JPA;
+import static com.example.movie_service.constant.MovieConstant.SQL_CLIENT_PROPERTY;
 
 /**
- * Implementation of the Interface of custom movie repository layer
+ * Implementation of the Interface of custom movie repository layer. It's created unless movie.sql.client=jdbc, which
+ * creates the JdbcMovieRepositoryImpl instead.
  */
 @Repository
+@ConditionalOnProperty(name = SQL_CLIENT_PROPERTY, havingValue = SQL_CLIENT_JPA, matchIfMissing = true)
 public class CustomMovieRepositoryImpl implements CustomMovieRepository {
 
     // @PersistenceContext is specific for EntityManager that provides Transaction-Scoped Behavior
     @PersistenceContext
     private EntityManager entityManager;
 
+    // Get the page and the total items with one statement instead of the counts and the page query
+    @Value("${" + SEARCH_SQL_SINGLE_QUERY_PROPERTY + ":false}")
+    private boolean singleQuery;
+
+    // With count=estimate, the counting stops at this many movies
+    @Value("${" + SEARCH_COUNT_ESTIMATE_CAP_PROPERTY + ":1000}")
+    private int estimateCap;
+
+    // A search ordered by relevance that falls back to the LIKE match ranks at most this many of its most voted movies
+    @Value("${" + SEARCH_RELEVANCE_MAX_CANDIDATES_PROPERTY + ":1000}")
+    private int relevanceMaxCandidates;
+
+    @Autowired
+    private MovieSearchCountCache countCache;
+
+    // normalized: filter by the ids of the director and the genre, and by the range of the releaseYear column
+    @Value("${" + SEARCH_SQL_FILTERS_PROPERTY + ":" + SEARCH_SQL_FILTERS_LIKE + "}")
+    private String filterMode;
+
+    // A director or genre that matches more ids than this is filtered with LIKE, so the IN list stays short
+    @Value("${" + SEARCH_SQL_FILTER_MAX_IDS_PROPERTY + ":1000}")
+    private int filterMaxIds;
+
+    @Autowired
+    private MovieFilterIdCache filterIdCache;
+
+    // Sends a slow page query to a second DataSource too, when movie.search.hedge.enabled=true
+    @Autowired
+    private HedgedQueryExecutor hedgedQueryExecutor;
+
+    // Runs the crew members query of searchOneMovieDetails, with its own connection
+    @Autowired
+    @Qualifier(MOVIE_DETAILS_EXECUTOR)
+    private Executor detailsExecutor;
+
     private static final String LEFT_JOIN_MOVIE_RATING_TO_MOVIE_ON_MOVIE_ID = "LEFT JOIN movie_rating mr ON m.movie_id = mr.movie_id ";
     private static final String LEFT_JOIN_MOVIE_GENRE_TO_MOVIE_ON_MOVIE_ID = "LEFT JOIN movie_genres mg ON m.movie_id = mg.movie_id ";
     private static final String LEFT_JOIN_GENRE_TO_MOVIE_GENRE_ON_GENRE_ID = "LEFT JOIN genre g ON mg.genre_id = g.id ";
     private static final String ADD_MOVIE_RELEASE_TIME_FIELD_IN_QUERY_STRING = "AND m.releaseTime LIKE :releasedYear ";
     private static final String ADD_DIRECTOR_FIELD_IN_QUERY_STRING = "AND m.directors LIKE :director ";
     private static final String ADD_GENRE_FIELD_IN_QUERY_STRING = "AND m.genres LIKE :genre ";
+    // The normalized filters. The EXISTS use the primary keys of movie_crew and movie_genres, which start with movie_id.
+    private static final String RELEASE_YEAR_RANGE_CONDITION =
+            "AND m.releaseYear BETWEEN :releaseYearFrom AND :releaseYearTo ";
+    private static final String DIRECTOR_IDS_CONDITION = "AND EXISTS (SELECT 1 FROM movie_crew mc " +
+            "WHERE mc.movie_id = m.movie_id AND mc.job = 'director' AND mc.person_id IN (:directorIds)) ";
+    private static final String GENRE_IDS_CONDITION = "AND EXISTS (SELECT 1 FROM movie_genres mg " +
+            "WHERE mg.movie_id = m.movie_id AND mg.genre_id IN (:genreIds)) ";
+    // The same matches as the LIKE of the directors and genres columns, which concatenate these names
+    private static final String DIRECTOR_IDS_QUERY = "SELECT DISTINCT mc.person_id FROM movie_crew mc " +
+            "INNER JOIN person p ON mc.person_id = p.person_id " +
+            "WHERE mc.job = 'director' AND p.name LIKE :name LIMIT :maxIds";
+    private static final String GENRE_IDS_QUERY = "SELECT g.id FROM genre g WHERE g.name LIKE :name LIMIT :maxIds";
+    // An IN list can't be empty, so a filter that matches nothing gets an id that no row has
+    private static final String NO_PERSON_ID = "";
+    private static final int NO_GENRE_ID = -1;
+    private static final String DIRECTOR_FILTER_NAME = "director";
+    private static final String GENRE_FILTER_NAME = "genre";
+    private static final String SELECT_MOVIE_SEARCH_RESULT_FIELDS = "SELECT m.movie_id AS id, " +
+            "m.primaryTitle AS title, " +
+            "m.releaseTime AS releaseTime, " +
+            "m.directors AS directors, " +
+            "m.backdrop_path AS backdropPath, " +
+            "m.poster_path AS posterPath, " +
+            "m.averageRating AS rating, " +
+            "m.overview AS overview ";
+    private static final String FULLTEXT_TITLE_CONDITION = " MATCH(m.primaryTitle) AGAINST(:title IN BOOLEAN MODE) ";
+    private static final String LIKE_TITLE_CONDITION = " m.primaryTitle LIKE :title ";
+
+    /*
+     * SQL TEMPLATES
+     * The search statements only differ by their shape: the title match, which of the releasedYear, director and genre
+     * filters are set, the order, and the seek condition after a cursor. There are only a few hundred shapes, so all
+     * the statements are built once when the class is loaded, and a search picks its statement by the shape's key.
+     * A shape always gets the same String, so the query plan cache of Hibernate and the prepared statement cache of
+     * the driver keep one entry per shape.
+     */
+    private static final String[] ORDER_BY_FIELDS = {ORDER_BY_TITLE, ORDER_BY_RATING, ORDER_BY_RELEASE_TIME};
+    private static final String[] DIRECTIONS = {DIRECTION_ASC, DIRECTION_DESC};
+    // The bits of the filters that are set
+    private static final int RELEASED_YEAR_FILTER = 1;
+    private static final int DIRECTOR_FILTER = 2;
+    private static final int GENRE_FILTER = 4;
+    // The bits of the filters that use their normalized condition instead of the LIKE one
+    private static final int RELEASED_YEAR_RANGE = 8;
+    private static final int DIRECTOR_IDS = 16;
+    private static final int GENRE_IDS = 32;
+    private static final int NORMALIZED_SHIFT = 3;
+    private static final int FILTER_COMBINATIONS = 64;
+    // The seek conditions: none, after a movie with a value of the orderBy field, or after a movie without one
+    private static final int NO_SEEK = 0;
+    private static final int SEEK_AFTER_VALUE = 1;
+    private static final int SEEK_AFTER_NULL = 2;
+    private static final int SEEKS = 3;
+
+    // Keyed by titleFilterKey
+    private static final String[] COUNT_QUERIES = new String[2 * FILTER_COMBINATIONS];
+    private static final String[] CAPPED_COUNT_QUERIES = new String[2 * FILTER_COMBINATIONS];
+    private static final String[] RELEVANCE_CANDIDATE_QUERIES = new String[2 * FILTER_COMBINATIONS];
+    // Keyed by searchPageKey
+    private static final String[] SEARCH_PAGE_QUERIES =
+            new String[2 * FILTER_COMBINATIONS * ORDER_BY_FIELDS.length * DIRECTIONS.length * SEEKS];
+    // Keyed by orderKey
+    private static final String[] SEARCH_WITH_TOTAL_ITEMS_QUERIES =
+            new String[FILTER_COMBINATIONS * ORDER_BY_FIELDS.length * DIRECTIONS.length];
+
+    static {
+        for (int filters = 0; filters < FILTER_COMBINATIONS; filters++) {
+            // Only a filter that is set can be normalized
+            if (((filters >> NORMALIZED_SHIFT) & ~filters) != 0) {
+                continue;
+            }
+
+            for (boolean likeMatch : new boolean[]{false, true}) {
+                String titleCondition = likeMatch ? LIKE_TITLE_CONDITION : FULLTEXT_TITLE_CONDITION;
+                int titleFilterKey = titleFilterKey(likeMatch, filters);
+                COUNT_QUERIES[titleFilterKey] = buildCountQueryString(filters, titleCondition);
+                CAPPED_COUNT_QUERIES[titleFilterKey] = buildCappedCountQueryString(COUNT_QUERIES[titleFilterKey]);
+                RELEVANCE_CANDIDATE_QUERIES[titleFilterKey] =
+                        buildRelevanceCandidatesQueryString(filters, titleCondition, likeMatch);
+
+                for (int orderBy = 0; orderBy < ORDER_BY_FIELDS.length; orderBy++) {
+                    for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                        for (int seek = 0; seek < SEEKS; seek++) {
+                            String seekCondition = seek == NO_SEEK ? "" : buildSeekCondition(ORDER_BY_FIELDS[orderBy],
+                                    DIRECTIONS[direction], seek == SEEK_AFTER_NULL);
+                            SEARCH_PAGE_QUERIES[searchPageKey(titleFilterKey, orderBy, direction, seek)] =
+                                    buildQueryStringToSearchMovieWithTitleAndOtherFields(filters,
+                                            ORDER_BY_FIELDS[orderBy], DIRECTIONS[direction], titleCondition,
+                                            seekCondition);
+                        }
+                    }
+                }
+            }
+
+            for (int orderBy = 0; orderBy < ORDER_BY_FIELDS.length; orderBy++) {
+                for (int direction = 0; direction < DIRECTIONS.length; direction++) {
+                    SEARCH_WITH_TOTAL_ITEMS_QUERIES[orderKey(filters, orderBy, direction)] =
+                            buildQueryStringToSearchMoviesWithTotalItems(filters, ORDER_BY_FIELDS[orderBy],
+                                    DIRECTIONS[direction]);
+                }
+            }
+        }
+    }
 
     /**
      * Search movies that meets the criteria of the parameters inside the movieSearchParam from MySQL database
@@ -43,54 +223,249 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
      */
     @Override
     public MovieSearchWithTitleDTOFromRepoToService searchMovies(MovieSearchParam movieSearchParam) {
-        String titleCondition = " MATCH(m.primaryTitle) AGAINST(:title IN BOOLEAN MODE) ";
-        String titleValue = "\"" + movieSearchParam.getTitle() + "\"";
-        // For counting the total rows for pagination
-        String countTotalRowsQueryString = buildCountQueryString(movieSearchParam.getReleasedYear(), movieSearchParam.getDirector(), movieSearchParam.getGenre(), titleCondition);
+        SearchFilters filters = filtersOf(movieSearchParam);
+        if (ORDER_BY_RELEVANCE.equals(movieSearchParam.getOrderBy())) {
+            return searchMoviesByRelevance(movieSearchParam, filters);
+        }
+        MovieSearchCursor after = movieSearchParam.getAfter();
+        if (after != null) {
+            // The cursor has the total items counted for the first page
+            return searchPage(movieSearchParam, filters, new MovieSearchCountCache.Count(after.getTotalItems(),
+                    after.isLikeMatch(), after.isTotalItemsEstimated()), after);
+        }
 
-        Query countTotalRowsQuery = entityManager.createNativeQuery(countTotalRowsQueryString);
+        // The total items are the same for every page and order of the search, so they're counted once and cached
+        boolean estimate = COUNT_ESTIMATE.equals(movieSearchParam.getCount());
+        MovieSearchCountCache.Count count = countCache.get(movieSearchParam, estimate);
+        if (count == null) {
+            if (singleQuery && !estimate) {
+                return searchMoviesWithOneQuery(movieSearchParam, filters);
+            }
+            count = countTotalItems(movieSearchParam, filters, estimate);
+            countCache.put(movieSearchParam, count);
+        }
+        return searchPage(movieSearchParam, filters, count, null);
+    }
 
-        setQueryParametersForCount(countTotalRowsQuery, titleValue, movieSearchParam.getReleasedYear(),
-                movieSearchParam.getDirector(), movieSearchParam.getGenre());
+    /**
+     * Get the movies of a page once the total items are known. The title is matched the way that found the movies when
+     * they were counted. <br>
+     *
+     * The page after a cursor doesn't use an OFFSET: it starts after the cursor's (sort value, movie id), so MySQL
+     * doesn't read and throw away the rows of the earlier pages. The page query is the one that is hedged, when it's
+     * enabled.
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @param filters the search's filters
+     * @param count the total items, and which title match found them
+     * @param after the nextCursor of the previous page, or null to use the page of the movieSearchParam
+     * @return MovieSearchWithTitleDTOFromRepoToService with the total items and the movies of the page
+     */
+    private MovieSearchWithTitleDTOFromRepoToService searchPage(MovieSearchParam movieSearchParam,
+                                                                SearchFilters filters,
+                                                                MovieSearchCountCache.Count count,
+                                                                MovieSearchCursor after) {
+        String titleValue = count.likeMatch()
+                ? "%" + movieSearchParam.getTitle() + "%"
+                : "\"" + movieSearchParam.getTitle() + "\"";
+        int seek = after == null ? NO_SEEK : after.getLastSortValue() == null ? SEEK_AFTER_NULL : SEEK_AFTER_VALUE;
 
-        int totalItems = ((Long)countTotalRowsQuery.getSingleResult()).intValue();
+        // Get the movie(s) information
+        String sqlQuery = SEARCH_PAGE_QUERIES[searchPageKey(titleFilterKey(count.likeMatch(),
+                filters.key()), orderByIndexOf(movieSearchParam.getOrderBy()),
+                directionIndexOf(movieSearchParam.getDirection()), seek)];
 
-        if (totalItems == 0) {
-            titleCondition = " m.primaryTitle LIKE :title "; //
-            titleValue = "%" + movieSearchParam.getTitle() + "%";
-            countTotalRowsQueryString = buildCountQueryString(movieSearchParam.getReleasedYear(), movieSearchParam.getDirector(), movieSearchParam.getGenre(), titleCondition);
-            countTotalRowsQuery = entityManager.createNativeQuery(countTotalRowsQueryString);
-            setQueryParametersForCount(countTotalRowsQuery, titleValue, movieSearchParam.getReleasedYear(),
-                    movieSearchParam.getDirector(), movieSearchParam.getGenre());
-            totalItems = ((Long)countTotalRowsQuery.getSingleResult()).intValue();
+        // The seek condition replaces the offset, so after a cursor it's always the first page
+        Map<String, Object> parameters = searchParameters(titleValue, filters, movieSearchParam.getLimit(),
+                after == null ? movieSearchParam.getPage() : 0);
+        if (after != null) {
+            parameters.put("lastId", after.getLastId());
+            if (after.getLastSortValue() != null) {
+                parameters.put("lastSortValue", ORDER_BY_RATING.equals(movieSearchParam.getOrderBy())
+                        ? Double.valueOf(after.getLastSortValue())
+                        : after.getLastSortValue());
+            }
         }
+        List<MovieTitleSearchSQLQueryResultDTO> results =
+                hedgedQueryExecutor.execute(() -> findMovies(sqlQuery, parameters));
 
-        // Get the movie(s) information
-        String sqlQuery = buildQueryStringToSearchMovieWithTitleAndOtherFields(movieSearchParam.getReleasedYear(), movieSearchParam.getDirector(),
-                movieSearchParam.getGenre(), movieSearchParam.getOrderBy(), movieSearchParam.getDirection(), titleCondition);
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = new MovieSearchWithTitleDTOFromRepoToService();
+        returnDTO.setMovies(results);
+        returnDTO.setTotalItem(count.totalItems());
+        returnDTO.setTotalItemEstimated(count.estimated());
+        returnDTO.setNextCursor(nextCursor(movieSearchParam, count, results));
+        return returnDTO;
+    }
 
-        Query query = entityManager.createNativeQuery(sqlQuery, MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING);
+    /**
+     * Get the cursor of the page after this one
+     * @param movieSearchParam the parameters of this page's search
+     * @param count the total items, and which title match found them
+     * @param movies the movies of this page
+     * @return a MovieSearchCursor, or null if this is the last page
+     */
+    private MovieSearchCursor nextCursor(MovieSearchParam movieSearchParam, MovieSearchCountCache.Count count,
+                                         List<MovieTitleSearchSQLQueryResultDTO> movies) {
+        // An estimated total can be smaller than the real one, so then only a page that isn't full is the last one
+        boolean lastPage = count.estimated()
+                ? movies.size() < movieSearchParam.getLimit()
+                : (long) (movieSearchParam.getPage() + 1) * movieSearchParam.getLimit() >= count.totalItems();
+        if (movies.isEmpty() || lastPage) {
+            return null;
+        }
+        return MovieSearchCursor.after(movieSearchParam, count.likeMatch(), count.totalItems(), count.estimated(),
+                movies.get(movies.size() - 1));
+    }
 
-        setQueryParameters(query, titleValue, movieSearchParam.getReleasedYear(),
-                movieSearchParam.getDirector(), movieSearchParam.getGenre(), movieSearchParam.getLimit(),
-                movieSearchParam.getPage());
+    /**
+     * Search movies like searchMovies does, with one statement that returns the rows of the page and the total items.
+     * The FULLTEXT phrase match and the LIKE match are both in the statement, and the LIKE match only runs if the
+     * phrase match finds nothing. The total items are the COUNT(*) OVER() column of every row. <br>
+     *
+     * A page after the last one has no row, and so no total items. Only then the total items are counted with another
+     * statement.
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @param filters the search's filters
+     * @return MovieSearchWithTitleDTOFromRepoToService with the total items and the movies of the requested page
+     */
+    private MovieSearchWithTitleDTOFromRepoToService searchMoviesWithOneQuery(MovieSearchParam movieSearchParam,
+                                                                              SearchFilters filters) {
+        String sqlQuery = SEARCH_WITH_TOTAL_ITEMS_QUERIES[orderKey(filters.key(),
+                orderByIndexOf(movieSearchParam.getOrderBy()), directionIndexOf(movieSearchParam.getDirection()))];
+        Map<String, Object> parameters = searchParameters("\"" + movieSearchParam.getTitle() + "\"", filters,
+                movieSearchParam.getLimit(), movieSearchParam.getPage());
+        parameters.put("likeTitle", "%" + movieSearchParam.getTitle() + "%");
+        List<Object[]> rows = findMoviesWithTotalItems(sqlQuery, parameters);
 
-        // Get the result(s) from entityManager.getResultList(). Each result will be mapped to MovieSearchResultDTO.
-        // Since the MOVIE_SEARCH_RESULT_DTO_MAPPING's target class is MovieSearchResultDTO, I am sure the result will
-        // be MovieSearchResultDTO class, so I use @SuppressWarnings("unchecked")  here
-        @SuppressWarnings("unchecked")
-        List<MovieTitleSearchSQLQueryResultDTO> results = query.getResultList();
+        List<MovieTitleSearchSQLQueryResultDTO> movies = rows.stream()
+                .map(row -> (MovieTitleSearchSQLQueryResultDTO) row[0])
+                .toList();
+        MovieSearchCountCache.Count count;
+        if (!rows.isEmpty()) {
+            count = new MovieSearchCountCache.Count(((Number) rows.get(0)[1]).intValue(),
+                    ((Number) rows.get(0)[2]).intValue() == 1, false);
+        } else if (movieSearchParam.getPage() > 0) {
+            count = countTotalItems(movieSearchParam, filters, false);
+        } else {
+            count = new MovieSearchCountCache.Count(0, true, false);
+        }
+        countCache.put(movieSearchParam, count);
 
         MovieSearchWithTitleDTOFromRepoToService returnDTO = new MovieSearchWithTitleDTOFromRepoToService();
-        returnDTO.setMovies(results);
-        returnDTO.setTotalItem(totalItems);
+        returnDTO.setMovies(movies);
+        returnDTO.setTotalItem(count.totalItems());
+        returnDTO.setNextCursor(nextCursor(movieSearchParam, count, movies));
+        return returnDTO;
+    }
+
+    /**
+     * Count the movies matched by the FULLTEXT phrase match, or if there is none, by the LIKE match. An estimate stops
+     * counting at the estimate cap, so a broad LIKE match doesn't scan the whole table for the total items.
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @param filters the search's filters
+     * @param estimate stop counting at the estimate cap
+     * @return the Count
+     */
+    private MovieSearchCountCache.Count countTotalItems(MovieSearchParam movieSearchParam, SearchFilters filters,
+                                                        boolean estimate) {
+        int totalItems = 0;
+        boolean likeMatch = false;
+        for (boolean titleMatch : new boolean[]{false, true}) {
+            likeMatch = titleMatch;
+            String titleValue = likeMatch
+                    ? "%" + movieSearchParam.getTitle() + "%"
+                    : "\"" + movieSearchParam.getTitle() + "\"";
+            Map<String, Object> parameters = countParameters(titleValue, filters);
+            if (estimate) {
+                parameters.put("estimateCap", estimateCap);
+            }
+            int titleFilterKey = titleFilterKey(likeMatch, filters.key());
+            totalItems = (int) count(estimate ? CAPPED_COUNT_QUERIES[titleFilterKey] : COUNT_QUERIES[titleFilterKey],
+                    parameters);
+            if (totalItems > 0) {
+                break;
+            }
+        }
+        return new MovieSearchCountCache.Count(totalItems, likeMatch, estimate && totalItems >= estimateCap);
+    }
 
+    /**
+     * Search movies like searchMovies does, but order them by relevance. Instead of counting the matched movies, it
+     * selects their ids, titles and numbers of votes, ranks them with RelevanceRanker in Java, and then loads the
+     * full rows of the requested page only. <br>
+     *
+     * Every movie of the FULLTEXT phrase match is ranked: the candidates only have the columns RelevanceRanker needs,
+     * and it keeps the best ones in a bounded heap. The LIKE match, which can match most of the table, only selects
+     * the relevanceMaxCandidates most voted movies, so it may miss a relevant one with fewer votes. When there are that
+     * many, the total items are flagged as estimated, like the count=estimate ones.
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @param filters the search's filters
+     * @return MovieSearchWithTitleDTOFromRepoToService with the total items and the movies of the requested page
+     */
+    private MovieSearchWithTitleDTOFromRepoToService searchMoviesByRelevance(MovieSearchParam movieSearchParam,
+                                                                             SearchFilters filters) {
+        List<MovieRelevanceCandidateDTO> candidates = getRelevanceCandidates(filters, false,
+                "\"" + movieSearchParam.getTitle() + "\"");
+        boolean capped = false;
+        if (candidates.isEmpty()) {
+            candidates = getRelevanceCandidates(filters, true, "%" + movieSearchParam.getTitle() + "%");
+            capped = candidates.size() >= relevanceMaxCandidates;
+        }
+
+        int offset = movieSearchParam.getPage() * movieSearchParam.getLimit();
+        List<MovieRelevanceCandidateDTO> ranked = RelevanceRanker.topK(candidates, movieSearchParam.getTitle(),
+                MovieRelevanceCandidateDTO::getTitle, MovieRelevanceCandidateDTO::getNumOfVotes,
+                MovieRelevanceCandidateDTO::getId, offset + movieSearchParam.getLimit());
+        List<String> pageMovieIds = ranked.subList(Math.min(offset, ranked.size()), ranked.size()).stream()
+                .map(MovieRelevanceCandidateDTO::getId)
+                .toList();
+
+        // The relevance isn't a column, so the next page is still found by its offset: the cursor only has its page
+        List<MovieTitleSearchSQLQueryResultDTO> movies = getMoviesInOrder(pageMovieIds);
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = new MovieSearchWithTitleDTOFromRepoToService();
+        returnDTO.setMovies(movies);
+        MovieSearchCountCache.Count count = new MovieSearchCountCache.Count(candidates.size(), false, capped);
+        returnDTO.setTotalItem(count.totalItems());
+        returnDTO.setTotalItemEstimated(count.estimated());
+        returnDTO.setNextCursor(nextCursor(movieSearchParam, count, movies));
         return returnDTO;
     }
 
+    private List<MovieRelevanceCandidateDTO> getRelevanceCandidates(SearchFilters filters, boolean likeMatch,
+                                                                    String titleValue) {
+        String sqlQuery = RELEVANCE_CANDIDATE_QUERIES[titleFilterKey(likeMatch, filters.key())];
+        Map<String, Object> parameters = countParameters(titleValue, filters);
+        if (likeMatch) {
+            parameters.put("maxCandidates", relevanceMaxCandidates);
+        }
+        return hedgedQueryExecutor.execute(() -> findRelevanceCandidates(sqlQuery, parameters));
+    }
 
     /**
-     * Search one movie's detailed information with its id.
+     * Get the search results of the movies, in the same order as the ids
+     * @param movieIds the movies' ids
+     * @return a list of MovieTitleSearchSQLQueryResultDTO
+     */
+    private List<MovieTitleSearchSQLQueryResultDTO> getMoviesInOrder(List<String> movieIds) {
+        if (movieIds.isEmpty()) {
+            return Collections.emptyList();
+        }
+        List<MovieTitleSearchSQLQueryResultDTO> results = findMovies(SELECT_MOVIE_SEARCH_RESULT_FIELDS +
+                "FROM movie_materialized_view m " +
+                "WHERE m.movie_id IN (:movieIds)", Map.of("movieIds", movieIds));
+
+        Map<String, MovieTitleSearchSQLQueryResultDTO> resultsById = new HashMap<>();
+        for (MovieTitleSearchSQLQueryResultDTO result : results) {
+            resultsById.putIfAbsent(result.getId(), result);
+        }
+        return movieIds.stream()
+                .map(resultsById::get)
+                .filter(Objects::nonNull)
+                .toList();
+    }
+
+    /**
+     * Search one movie's detailed information with its id. The crew members are queried on the detailsExecutor while
+     * this thread queries the basic details, so the latency is the slower of the two queries instead of their sum.
      * @param movieId the movie's id
      * @return
      * Note: Since there are a lot of joining, this will be a complicated query, so I will use
@@ -99,18 +474,101 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
      */
     @Override
     public OneMovieDetailsDTO searchOneMovieDetails(String movieId) {
+        // Get a movie's crew members on another thread, with another connection
+        CompletableFuture<List<CrewMember>> crewMembers = supplyDetails(() -> getCrewMembersWithProfilePic(movieId));
+
         // Get a movie's basic details
-        OneMovieDetailsDTO singleMovieBasicDetails = getOneMovieBasicDetails(movieId);
+        OneMovieDetailsDTO singleMovieBasicDetails;
+        try {
+            singleMovieBasicDetails = getOneMovieBasicDetails(movieId);
+        } catch (RuntimeException e) {
+            crewMembers.cancel(false);
+            throw e;
+        }
         if (singleMovieBasicDetails == null) {
+            // The movie doesn't exist, so its crew members are not needed. If the query already started, its result
+            // is ignored.
+            crewMembers.cancel(false);
             return null;
         }
-        // Get a movie's crew members
-        List<CrewMember> crewMembers = getCrewMembersWithProfilePic(movieId);
-        singleMovieBasicDetails.setCrewMemberList(crewMembers);
+        singleMovieBasicDetails.setCrewMemberList(join(crewMembers));
 
         return singleMovieBasicDetails;
     }
 
+    /**
+     * Search several movies' details with two statements in total: the basic details of all the movies with one
+     * IN (...) query, and their crew members with another, on the detailsExecutor at the same time. The crew members
+     * are grouped by movie in Java.
+     * @param movieIds the movies' ids
+     * @return the details of the movies found, keyed by movie id, in the order of movieIds
+     */
+    @Override
+    public Map<String, OneMovieDetailsDTO> searchMovieDetails(List<String> movieIds) {
+        if (movieIds.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        CompletableFuture<Map<String, List<CrewMember>>> crewMembers =
+                supplyDetails(() -> getCrewMembersWithProfilePic(movieIds));
+
+        List<OneMovieDetailsDTO> basicDetails;
+        try {
+            basicDetails = findMovieBasicDetails(buildQueryStringToSearchMovieBasicDetails("m.movie_id IN (:movieIds) "),
+                    Map.of("movieIds", movieIds));
+        } catch (RuntimeException e) {
+            crewMembers.cancel(false);
+            throw e;
+        }
+        if (basicDetails.isEmpty()) {
+            crewMembers.cancel(false);
+            return Collections.emptyMap();
+        }
+
+        Map<String, OneMovieDetailsDTO> detailsById = new HashMap<>();
+        for (OneMovieDetailsDTO details : basicDetails) {
+            detailsById.put(details.getId(), details);
+        }
+        Map<String, List<CrewMember>> crewMembersById = join(crewMembers);
+        Map<String, OneMovieDetailsDTO> results = new LinkedHashMap<>();
+        for (String movieId : movieIds) {
+            OneMovieDetailsDTO details = detailsById.get(movieId);
+            if (details != null) {
+                details.setCrewMemberList(crewMembersById.getOrDefault(movieId, Collections.emptyList()));
+                results.put(movieId, details);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Run a sub-query of the details on the detailsExecutor. When its queue is full, the sub-query isn't run yet: join
+     * runs it on the caller's thread, after the basic details, so it's still skipped if the movie doesn't exist.
+     * @param query the sub-query
+     * @return the future of the sub-query's result
+     */
+    private <T> CompletableFuture<T> supplyDetails(Supplier<T> query) {
+        try {
+            return CompletableFuture.supplyAsync(query, detailsExecutor);
+        } catch (RejectedExecutionException e) {
+            return new DeferredQuery<>(query);
+        }
+    }
+
+    // Wait for the result, and throw the query's exception itself instead of the CompletionException that wraps it
+    private static <T> T join(CompletableFuture<T> future) {
+        if (future instanceof DeferredQuery<T> deferred) {
+            return deferred.query.get();
+        }
+        try {
+            return future.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException cause) {
+                throw cause;
+            }
+            throw e;
+        }
+    }
+
     /**
      * Get a movie's basic details.
      * Details including: movie's id, title, releaseTime, budget, revenue, overview, tagline, runtimeMinutes,
@@ -122,18 +580,10 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
         // Build a query string.
         String sqlQueryString = buildQueryStringToSearchOneMovieBasicDetails();
 
-        // Create a native SQL Query with mapping
-        Query query = entityManager.createNativeQuery(sqlQueryString, SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING);
-
-        // Set the movieId into the query. The setParameter also prevents SQL injection, because the input is safely
-        // bound to the query as a parameter, and the database treats it as a value rather than part of the SQL
-        // statement. This prevents any injected SQL from being executed.
-        query.setParameter("movieId", movieId);
-        try {
-            return (OneMovieDetailsDTO) query.getSingleResult();
-        } catch (NoResultException e) {
-            return null;
-        }
+        // Bind the movieId as a parameter. It also prevents SQL injection, because the input is safely bound to the
+        // query as a parameter, and the database treats it as a value rather than part of the SQL statement. This
+        // prevents any injected SQL from being executed.
+        return findOneMovieBasicDetails(sqlQueryString, Map.of("movieId", movieId));
     }
 
     /**
@@ -144,11 +594,7 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
      */
     private List<CrewMember> getCrewMembersWithProfilePic(String movieId) {
         String queryString = buildQueryStringToSearchOneMovieCrewMembers();
-        Query query = entityManager.createNativeQuery(queryString, SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING);
-        query.setParameter("movieId", movieId);
-
-        @SuppressWarnings("unchecked")
-        List<CrewMember> results = query.getResultList();
+        List<CrewMember> results = findCrewMembers(queryString, Map.of("movieId", movieId));
         // If query.getResultList(); doesn't found results, it will return an empty list, instead of raising
         // NoResultException like query.getSingleResult() does.
         if(results.isEmpty()) {
@@ -157,6 +603,22 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
         return results;
     }
 
+    /**
+     * Get the crew members of several movies with one query, like getCrewMembersWithProfilePic(String) does for one
+     * @param movieIds the movies' ids
+     * @return movie id -> the movie's crew members. The movies without any are not in the map.
+     */
+    private Map<String, List<CrewMember>> getCrewMembersWithProfilePic(List<String> movieIds) {
+        List<Object[]> rows = findCrewMembersWithMovieId(buildQueryStringToSearchMoviesCrewMembers(),
+                Map.of("movieIds", movieIds));
+
+        Map<String, List<CrewMember>> crewMembersById = new HashMap<>();
+        for (Object[] row : rows) {
+            crewMembersById.computeIfAbsent((String) row[1], movieId -> new ArrayList<>()).add((CrewMember) row[0]);
+        }
+        return crewMembersById;
+    }
+
     /**
      * Build a query string to search a movie's crew members that are director, actor, or actress, and they have
      * profile picture path in the database.
@@ -176,6 +638,26 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
                 "GROUP BY mc.person_id, p.name, p.profile_path";
     }
 
+    /**
+     * Build a query string like buildQueryStringToSearchOneMovieCrewMembers, for the crew members of several movies.
+     * The movie_id is selected too, so the crew members can be grouped by movie.
+     * @return a String.
+     */
+    private String buildQueryStringToSearchMoviesCrewMembers() {
+        return "SELECT " +
+                "mc.movie_id AS movie_id, " +
+                "mc.person_id AS person_id, " +
+                "p.name AS person_name, " +
+                "p.profile_path AS profilePath, " +
+                "GROUP_CONCAT(mc.job SEPARATOR ', ') AS jobs " +
+                "FROM movie_crew mc " +
+                "INNER JOIN person p ON mc.person_id = p.person_id " +
+                "WHERE p.profile_path IS NOT NULL " +
+                "AND mc.job IN ('Director', 'Actor', 'Actress') " +
+                "AND mc.movie_id IN (:movieIds) " +
+                "GROUP BY mc.movie_id, mc.person_id, p.name, p.profile_path";
+    }
+
     /**
      * Build a query string to search a movie's basic details. Details including id, title, releaseTime, budget, revenue,
      * overview, tagline, runtimeMinutes, backdropPath, posterPath, rating, number of votes, the movie's other names,
@@ -183,6 +665,16 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
      * @return a string.
      */
     private String buildQueryStringToSearchOneMovieBasicDetails() {
+        return buildQueryStringToSearchMovieBasicDetails("m.movie_id = :movieId ");
+    }
+
+    /**
+     * Build a query string to search the basic details of the movies that meet a condition, like
+     * buildQueryStringToSearchOneMovieBasicDetails.
+     * @param movieIdCondition the condition of the WHERE clause on m.movie_id
+     * @return a string.
+     */
+    private String buildQueryStringToSearchMovieBasicDetails(String movieIdCondition) {
         return "SELECT " +
 
                 // Get movie_id, primaryTitle, releasedTime, budget, revenue, overview, tagline, runtimeMinutes, backdropPath,
@@ -215,7 +707,7 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
                 LEFT_JOIN_GENRE_TO_MOVIE_GENRE_ON_GENRE_ID +
 
                 // Set the condition
-                "WHERE m.movie_id = :movieId " +
+                "WHERE " + movieIdCondition +
 
                 // GROUP BY m.movie_id: We want to retrieve details for a specific movie using its movie_id. Grouping by movie_id
                 // ensures that all related data (e.g., crew members, ratings, genres, etc.) is associated with that single movie.
@@ -226,43 +718,35 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
 
     /**
      * Use parameters to build a query string
-     * @param releasedYear The released year of a movie. Can be Nullable or an empty String.
-     * @param director The movie's director. Can be Nullable or an empty String.
-     * @param genre The movie's genre. Can be Nullable or an empty String.
+     * @param filters The bits of the filters that are set, and of the ones that are normalized.
      * @param orderBy The field that order the result. By default, it's "title", it can also be "rating" or "releaseTime".
      * @param direction The direction of the ordered results. By default, it's "asc". It can also be "desc".
+     * @param seekCondition The condition of buildSeekCondition to start after a cursor, or an empty String.
      * @return A query string
      */
-    private String buildQueryStringToSearchMovieWithTitleAndOtherFields(String releasedYear, String director, String genre
-            , String orderBy, String direction, String titleCondition) {
+    private static String buildQueryStringToSearchMovieWithTitleAndOtherFields(int filters, String orderBy,
+            String direction, String titleCondition, String seekCondition) {
         StringBuilder queryBuilder = new StringBuilder(
-                "SELECT m.movie_id AS id, " +
-                        "m.primaryTitle AS title, " +
-                        "m.releaseTime AS releaseTime, " +
-                        "m.directors AS directors, " +
-                        "m.backdrop_path AS backdropPath, " +
-                        "m.poster_path AS posterPath, " +
-                        "m.averageRating AS rating, " +
-                        "m.overview AS overview " +
+                SELECT_MOVIE_SEARCH_RESULT_FIELDS +
                         "FROM movie_materialized_view m " +
                         "WHERE m.poster_path IS NOT NULL " +
                         "AND " +
                         titleCondition );
 
 
-        appendConditionIfNotEmpty(releasedYear, ADD_MOVIE_RELEASE_TIME_FIELD_IN_QUERY_STRING, queryBuilder);
-        appendConditionIfNotEmpty(director, ADD_DIRECTOR_FIELD_IN_QUERY_STRING, queryBuilder);
-        appendConditionIfNotEmpty(genre, ADD_GENRE_FIELD_IN_QUERY_STRING, queryBuilder);
+        appendFilterConditions(filters, queryBuilder);
+        queryBuilder.append(seekCondition);
 
         queryBuilder.append(" ORDER BY ");
 
-        // Logic to ensure NULLs are at the end for both ASC and DESC
+        // Logic to ensure NULLs are at the end for both ASC and DESC. The id breaks ties, so the order of the pages
+        // doesn't change between queries and a cursor can point to the position after one movie.
         queryBuilder.append(orderBy)
                 .append(" IS NULL, ")
                 .append(orderBy).
                 append(" ").
                 append(direction).
-                append(" ");
+                append(", id ");
 
         queryBuilder.append(" LIMIT :limit OFFSET :offset");
         return queryBuilder.toString();
@@ -270,7 +754,85 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
 
 
 
-    private String buildCountQueryString(String releasedYear, String director, String genre, String titleCondition) {
+    /**
+     * Build the query string of searchMoviesWithOneQuery. The rows of the FULLTEXT phrase match and of the LIKE match
+     * are combined with UNION ALL. The LIKE match is joined with a one-row derived table that says if the phrase match
+     * finds anything. MySQL reads a one-row derived table while optimizing the statement, so when the phrase match finds
+     * movies, the LIKE match's join condition is known to be false and its full scan never runs.
+     * @param filterBits The bits of the filters that are set, and of the ones that are normalized.
+     * @param orderBy The field that order the result. It can be "title", "rating" or "releaseTime".
+     * @param direction The direction of the ordered results. It can be "asc" or "desc".
+     * @return A query string
+     */
+    private static String buildQueryStringToSearchMoviesWithTotalItems(int filterBits, String orderBy,
+                                                                       String direction) {
+        StringBuilder filters = new StringBuilder();
+        appendFilterConditions(filterBits, filters);
+
+        // movie_id is the key of movie_materialized_view, so counting the rows counts the movies
+        return "SELECT t.*, COUNT(*) OVER() AS totalItems FROM (" +
+                SELECT_MOVIE_SEARCH_RESULT_FIELDS + ", 0 AS likeMatch " +
+                "FROM movie_materialized_view m " +
+                "WHERE m.poster_path IS NOT NULL " +
+                "AND" + FULLTEXT_TITLE_CONDITION + filters +
+                "UNION ALL " +
+                SELECT_MOVIE_SEARCH_RESULT_FIELDS + ", 1 AS likeMatch " +
+                "FROM (SELECT EXISTS(SELECT 1 FROM movie_materialized_view m " +
+                "WHERE m.poster_path IS NOT NULL " +
+                "AND" + FULLTEXT_TITLE_CONDITION + filters + ") AS found) phrase_match " +
+                "INNER JOIN movie_materialized_view m ON phrase_match.found = 0 " +
+                "WHERE m.poster_path IS NOT NULL " +
+                "AND m.primaryTitle LIKE :likeTitle " + filters +
+                ") t " +
+                // Logic to ensure NULLs are at the end for both ASC and DESC
+                "ORDER BY t." + orderBy + " IS NULL, t." + orderBy + " " + direction + ", t.id " +
+                "LIMIT :limit OFFSET :offset";
+    }
+
+    /**
+     * Build the condition that keeps the movies after a cursor's (lastSortValue, lastId) in the order of
+     * ORDER BY field IS NULL, field direction, id. It's the row comparison (field, movie_id) > (:lastSortValue, :lastId)
+     * written out, because the field's direction can be desc while the id is always asc, and the movies without a
+     * value are after all the others.
+     * @param orderBy The field that order the result. It can be "title", "rating" or "releaseTime".
+     * @param direction The direction of the ordered results. It can be "asc" or "desc".
+     * @param afterNull The last movie has no value of the field, so only movies without a value are left
+     * @return A condition that starts with AND
+     */
+    private static String buildSeekCondition(String orderBy, String direction, boolean afterNull) {
+        String column = switch (orderBy) {
+            case ORDER_BY_RATING -> "m.averageRating";
+            case ORDER_BY_RELEASE_TIME -> "m.releaseTime";
+            default -> "m.primaryTitle";
+        };
+        if (afterNull) {
+            return "AND " + column + " IS NULL AND m.movie_id > :lastId ";
+        }
+        String after = DIRECTION_DESC.equals(direction) ? " < " : " > ";
+        return "AND (" + column + after + ":lastSortValue " +
+                "OR (" + column + " = :lastSortValue AND m.movie_id > :lastId) " +
+                "OR " + column + " IS NULL) ";
+    }
+
+    private static String buildRelevanceCandidatesQueryString(int filters, String titleCondition, boolean likeMatch) {
+        StringBuilder queryBuilder = new StringBuilder(
+                "SELECT DISTINCT m.movie_id AS id, " +
+                        "m.primaryTitle AS title, " +
+                        "mr.numVotes AS numOfVotes " +
+                        "FROM movie_materialized_view m " +
+                        LEFT_JOIN_MOVIE_RATING_TO_MOVIE_ON_MOVIE_ID +
+                        "WHERE m.poster_path IS NOT NULL " +
+                        "AND " +
+                        titleCondition);
+        appendFilterConditions(filters, queryBuilder);
+        if (likeMatch) {
+            // The most voted matches are the likeliest to rank first, and the id keeps the cut the same on every page
+            queryBuilder.append("ORDER BY numOfVotes DESC, id LIMIT :maxCandidates");
+        }
+        return queryBuilder.toString();
+    }
+
+    private static String buildCountQueryString(int filters, String titleCondition) {
         StringBuilder queryBuilder = new StringBuilder(
                 "SELECT COUNT(DISTINCT movie_id) FROM movie_materialized_view m WHERE m.poster_path IS NOT NULL " +
                         "AND " +
@@ -278,56 +840,305 @@ public class CustomMovieRepositoryImpl implements CustomMovieRepository {
 
 
 
-        appendConditionIfNotEmpty(releasedYear, ADD_MOVIE_RELEASE_TIME_FIELD_IN_QUERY_STRING, queryBuilder);
-        appendConditionIfNotEmpty(director, ADD_DIRECTOR_FIELD_IN_QUERY_STRING, queryBuilder);
-        appendConditionIfNotEmpty(genre, ADD_GENRE_FIELD_IN_QUERY_STRING, queryBuilder);
+        appendFilterConditions(filters, queryBuilder);
 
         return queryBuilder.toString();
     }
 
-    private void appendConditionIfNotEmpty(String value, String condition, StringBuilder queryBuilder) {
-        if (value != null && !value.isEmpty()) {
-            queryBuilder.append(condition);
+    // Count the rows of a count query's WHERE clause, but not more than :estimateCap of them
+    private static String buildCappedCountQueryString(String countQueryString) {
+        String whereClause = countQueryString.substring(countQueryString.indexOf(" FROM "));
+        return "SELECT COUNT(*) FROM (SELECT 1" + whereClause + " LIMIT :estimateCap) capped";
+    }
+
+    // Append the LIKE or the normalized condition of every filter that is set
+    private static void appendFilterConditions(int filters, StringBuilder queryBuilder) {
+        if ((filters & RELEASED_YEAR_FILTER) != 0) {
+            queryBuilder.append((filters & RELEASED_YEAR_RANGE) != 0
+                    ? RELEASE_YEAR_RANGE_CONDITION
+                    : ADD_MOVIE_RELEASE_TIME_FIELD_IN_QUERY_STRING);
+        }
+        if ((filters & DIRECTOR_FILTER) != 0) {
+            queryBuilder.append((filters & DIRECTOR_IDS) != 0
+                    ? DIRECTOR_IDS_CONDITION
+                    : ADD_DIRECTOR_FIELD_IN_QUERY_STRING);
         }
+        if ((filters & GENRE_FILTER) != 0) {
+            queryBuilder.append((filters & GENRE_IDS) != 0 ? GENRE_IDS_CONDITION : ADD_GENRE_FIELD_IN_QUERY_STRING);
+        }
+    }
+
+    // The key of the statements that depend on the title match and the filters
+    private static int titleFilterKey(boolean likeMatch, int filters) {
+        return (likeMatch ? FILTER_COMBINATIONS : 0) + filters;
     }
 
-    private void setQueryParameterIfNotEmpty(Query query, String value, String queryParameter, String queryParameterValue) {
-        if (value != null && !value.isEmpty()) {
-            query.setParameter(queryParameter, queryParameterValue);
+    // The key of the statements that depend on the filters and the order
+    private static int orderKey(int filters, int orderBy, int direction) {
+        return (filters * ORDER_BY_FIELDS.length + orderBy) * DIRECTIONS.length + direction;
+    }
+
+    private static int searchPageKey(int titleFilterKey, int orderBy, int direction, int seek) {
+        return ((titleFilterKey * ORDER_BY_FIELDS.length + orderBy) * DIRECTIONS.length + direction) * SEEKS + seek;
+    }
+
+    /**
+     * Get the filters of a search: the bits of the ones that are set, and their parameters. With the normalized
+     * filters, the director and the genre are resolved to their ids, and the released year to the range of years it's
+     * the beginning of. A filter that can't be normalized, e.g. a director that matches more than filterMaxIds people,
+     * keeps its LIKE condition.
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @return the SearchFilters
+     */
+    private SearchFilters filtersOf(MovieSearchParam movieSearchParam) {
+        boolean normalized = SEARCH_SQL_FILTERS_NORMALIZED.equals(filterMode);
+        int filters = 0;
+        Map<String, Object> parameters = new HashMap<>();
+
+        String releasedYear = movieSearchParam.getReleasedYear();
+        if (releasedYear != null && !releasedYear.isEmpty()) {
+            filters |= RELEASED_YEAR_FILTER;
+            int[] range = normalized ? releaseYearRange(releasedYear) : null;
+            if (range != null) {
+                filters |= RELEASED_YEAR_RANGE;
+                parameters.put("releaseYearFrom", range[0]);
+                parameters.put("releaseYearTo", range[1]);
+            } else {
+                parameters.put("releasedYear", releasedYear + "%");
+            }
         }
+
+        String director = movieSearchParam.getDirector();
+        if (director != null && !director.isEmpty()) {
+            filters |= DIRECTOR_FILTER;
+            List<Object> ids = normalized ? resolveIds(DIRECTOR_FILTER_NAME, director, DIRECTOR_IDS_QUERY) : null;
+            if (ids != null) {
+                filters |= DIRECTOR_IDS;
+                parameters.put("directorIds", ids.isEmpty() ? List.of(NO_PERSON_ID) : ids);
+            } else {
+                parameters.put("director", "%" + director + "%");
+            }
+        }
+
+        String genre = movieSearchParam.getGenre();
+        if (genre != null && !genre.isEmpty()) {
+            filters |= GENRE_FILTER;
+            List<Object> ids = normalized ? resolveIds(GENRE_FILTER_NAME, genre, GENRE_IDS_QUERY) : null;
+            if (ids != null) {
+                filters |= GENRE_IDS;
+                parameters.put("genreIds", ids.isEmpty() ? List.of(NO_GENRE_ID) : ids);
+            } else {
+                parameters.put("genre", "%" + genre + "%");
+            }
+        }
+        return new SearchFilters(filters, parameters);
     }
 
+    /**
+     * Get the ids of the people or genres whose name contains the value, from the filterIdCache or the database
+     * @param filter the kind of the filter
+     * @param value the filter's value
+     * @param sqlQuery DIRECTOR_IDS_QUERY or GENRE_IDS_QUERY
+     * @return the ids, or null if there are more than filterMaxIds
+     */
+    private List<Object> resolveIds(String filter, String value, String sqlQuery) {
+        List<Object> ids = filterIdCache.get(filter, value);
+        if (ids == null) {
+            Map<String, Object> parameters = new HashMap<>();
+            parameters.put("name", "%" + value + "%");
+            // One more, to know when there are too many
+            parameters.put("maxIds", filterMaxIds + 1);
+            ids = findIds(sqlQuery, parameters);
+            filterIdCache.put(filter, value, ids);
+        }
+        return ids.size() > filterMaxIds ? null : ids;
+    }
 
+    /**
+     * Get the years whose four digits start with the releasedYear, which are the ones the LIKE 'releasedYear%' of the
+     * releaseTime matches
+     * @param releasedYear the released year, e.g. 2020, or 199 for the 1990s
+     * @return the first and the last year, or null if the releasedYear isn't one to four digits
+     */
+    private static int[] releaseYearRange(String releasedYear) {
+        if (releasedYear.length() > 4 || !releasedYear.chars().allMatch(c -> c >= '0' && c <= '9')) {
+            return null;
+        }
+        int scale = 1;
+        for (int i = releasedYear.length(); i < 4; i++) {
+            scale *= 10;
+        }
+        int prefix = Integer.parseInt(releasedYear);
+        return new int[]{prefix * scale, (prefix + 1) * scale - 1};
+    }
+
+    // The orderBy is validated, so anything else than rating and releaseTime is title
+    private static int orderByIndexOf(String orderBy) {
+        return switch (orderBy) {
+            case ORDER_BY_RATING -> 1;
+            case ORDER_BY_RELEASE_TIME -> 2;
+            default -> 0;
+        };
+    }
+
+    private static int directionIndexOf(String direction) {
+        return DIRECTION_DESC.equals(direction) ? 1 : 0;
+    }
 
     /**
-     * Sets the parameters for a database query based on the provided input criteria.
+     * Gets the parameters for a database query based on the provided input criteria.
      *
-     * @param query        The query object to set parameters on.
      * @param titleValue   The string value for the title. It either uses fulltext or Wildcards (%)
-     * @param releasedYear The released year of the movie. Wildcards (%) are added for partial matching. Can be null.
-     * @param director     The director of the movie. Wildcards (%) are added for partial matching. Can be null.
-     * @param genre        The genre of the movie. Wildcards (%) are added for partial matching. Can be null.
+     * @param filters      The search's filters, with their parameters.
      * @param limit        The maximum number of results to return (for pagination).
      * @param page         The page number of results to return, used to calculate the offset.
-     *                     <p>
-     *                     Assumes that the query object is a valid and non-null instance of a query with named parameters.
+     * @return The named parameters of the query. More parameters can be put into it.
      */
-    private void setQueryParameters(Query query, String titleValue, String releasedYear, String director, String genre, int limit, int page) {
-        query.setParameter("title", titleValue);
-        query.setParameter("limit", limit);
-        query.setParameter("offset", page * limit);
+    private Map<String, Object> searchParameters(String titleValue, SearchFilters filters, int limit, int page) {
+        Map<String, Object> parameters = countParameters(titleValue, filters);
+        parameters.put("limit", limit);
+        parameters.put("offset", page * limit);
+        return parameters;
+    }
 
-        setQueryParameterIfNotEmpty(query, releasedYear, "releasedYear", releasedYear + "%");
-        setQueryParameterIfNotEmpty(query, director, "director", "%" + director + "%");
-        setQueryParameterIfNotEmpty(query, genre, "genre", "%" + genre + "%");
+    private Map<String, Object> countParameters(String titleValue, SearchFilters filters) {
+        Map<String, Object> parameters = new HashMap<>(filters.parameters());
+        parameters.put("title", titleValue);
+        return parameters;
     }
 
-    private void setQueryParametersForCount(Query countTotalRowsQuery, String titleValue, String releasedYear, String director, String genre) {
-        countTotalRowsQuery.setParameter("title", titleValue);
-        setQueryParameterIfNotEmpty(countTotalRowsQuery, releasedYear, "releasedYear", releasedYear + "%");
-        setQueryParameterIfNotEmpty(countTotalRowsQuery, director, "director", "%" + director + "%");
-        setQueryParameterIfNotEmpty(countTotalRowsQuery, genre, "genre", "%" + genre + "%");
+    /**
+     * The filters of a search
+     * @param key the bits of the filters that are set, and of the ones that are normalized
+     * @param parameters the named parameters of the filters' conditions
+     */
+    private record SearchFilters(int key, Map<String, Object> parameters) {
     }
 
-}
+    /*
+     * The statements are run by the methods below, which map their rows to the DTOs. They use native queries and the
+     * @SqlResultSetMappings of the MappingHolder, and JdbcMovieRepositoryImpl overrides them to run the same
+     * statements with plain JDBC.
+     */
+
+    /**
+     * Run a query that selects the SELECT_MOVIE_SEARCH_RESULT_FIELDS
+     * @param sql the query string
+     * @param parameters the named parameters
+     * @return the rows as MovieTitleSearchSQLQueryResultDTO
+     */
+    protected List<MovieTitleSearchSQLQueryResultDTO> findMovies(String sql, Map<String, Object> parameters) {
+        // Since the MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING's target class is MovieTitleSearchSQLQueryResultDTO,
+        // I am sure the results will be MovieTitleSearchSQLQueryResultDTO, so I use @SuppressWarnings("unchecked") here
+        @SuppressWarnings("unchecked")
+        List<MovieTitleSearchSQLQueryResultDTO> results =
+                createNativeQuery(sql, MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING, parameters).getResultList();
+        return results;
+    }
+
+    /**
+     * Run the query of buildQueryStringToSearchMoviesWithTotalItems
+     * @param sql the query string
+     * @param parameters the named parameters
+     * @return the rows as Object[] of the MovieTitleSearchSQLQueryResultDTO, the totalItems and the likeMatch Numbers
+     */
+    protected List<Object[]> findMoviesWithTotalItems(String sql, Map<String, Object> parameters) {
+        // The MOVIE_TITLE_SEARCH_QUERY_RESULT_WITH_TOTAL_MAPPING has a class and two columns, so each row is an Object[]
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows =
+                createNativeQuery(sql, MOVIE_TITLE_SEARCH_QUERY_RESULT_WITH_TOTAL_MAPPING, parameters).getResultList();
+        return rows;
+    }
+
+    /**
+     * Run a query that selects one count
+     * @param sql the query string
+     * @param parameters the named parameters
+     * @return the count
+     */
+    protected long count(String sql, Map<String, Object> parameters) {
+        Query query = entityManager.createNativeQuery(sql);
+        parameters.forEach(query::setParameter);
+        return ((Number) query.getSingleResult()).longValue();
+    }
 
+    protected List<MovieRelevanceCandidateDTO> findRelevanceCandidates(String sql, Map<String, Object> parameters) {
+        @SuppressWarnings("unchecked")
+        List<MovieRelevanceCandidateDTO> candidates =
+                createNativeQuery(sql, MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING, parameters).getResultList();
+        return candidates;
+    }
+
+    /**
+     * Run a query that selects one column of ids
+     * @param sql the query string
+     * @param parameters the named parameters
+     * @return the ids
+     */
+    protected List<Object> findIds(String sql, Map<String, Object> parameters) {
+        Query query = entityManager.createNativeQuery(sql);
+        parameters.forEach(query::setParameter);
+        @SuppressWarnings("unchecked")
+        List<Object> ids = query.getResultList();
+        return ids;
+    }
+
+    /**
+     * Run the basic details query of one movie
+     * @param sql the query string
+     * @param parameters the named parameters
+     * @return the OneMovieDetailsDTO, or null if the movie is not found
+     */
+    protected OneMovieDetailsDTO findOneMovieBasicDetails(String sql, Map<String, Object> parameters) {
+        try {
+            return (OneMovieDetailsDTO) createNativeQuery(sql, SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING, parameters)
+                    .getSingleResult();
+        } catch (NoResultException e) {
+            return null;
+        }
+    }
+
+    protected List<OneMovieDetailsDTO> findMovieBasicDetails(String sql, Map<String, Object> parameters) {
+        @SuppressWarnings("unchecked")
+        List<OneMovieDetailsDTO> results =
+                createNativeQuery(sql, SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING, parameters).getResultList();
+        return results;
+    }
+
+    protected List<CrewMember> findCrewMembers(String sql, Map<String, Object> parameters) {
+        @SuppressWarnings("unchecked")
+        List<CrewMember> results =
+                createNativeQuery(sql, SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING, parameters).getResultList();
+        return results;
+    }
+
+    /**
+     * Run the query of buildQueryStringToSearchMoviesCrewMembers
+     * @param sql the query string
+     * @param parameters the named parameters
+     * @return the rows as Object[] of the CrewMember and the movie id
+     */
+    protected List<Object[]> findCrewMembersWithMovieId(String sql, Map<String, Object> parameters) {
+        // The MOVIE_CREW_MEMBER_WITH_MOVIE_ID_MAPPING has a class and a column, so each row is an Object[]
+        @SuppressWarnings("unchecked")
+        List<Object[]> rows =
+                createNativeQuery(sql, MOVIE_CREW_MEMBER_WITH_MOVIE_ID_MAPPING, parameters).getResultList();
+        return rows;
+    }
+
+    private Query createNativeQuery(String sql, String resultSetMapping, Map<String, Object> parameters) {
+        Query query = entityManager.createNativeQuery(sql, resultSetMapping);
+        parameters.forEach(query::setParameter);
+        return query;
+    }
+
+    // A sub-query the detailsExecutor rejected, which join runs on the caller's thread
+    private static final class DeferredQuery<T> extends CompletableFuture<T> {
+
+        private final Supplier<T> query;
+
+        private DeferredQuery(Supplier<T> query) {
+            this.query = query;
+        }
+    }
+}
@@ -0,0 +1,149 @@
+package com.example.movie_service.repository;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.dto.MovieSearchCursor;
+import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
+import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
+import com.example.movie_service.dto.OneMovieDetailsDTO;
+import com.example.movie_service.index.MovieDocument;
+import com.example.movie_service.index.MovieSearchIndex;
+import com.example.movie_service.index.MovieSearchIndexHolder;
+import com.example.movie_service.index.ShardedMovieSearchIndex;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Primary;
+import org.springframework.stereotype.Repository;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RATING;
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RELEASE_TIME;
+import static com.example.movie_service.constant.MovieConstant.ORDER_BY_RELEVANCE;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_ENGINE_MEMORY;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_ENGINE_PROPERTY;
+
+/**
+ * Implementation of the Interface of custom movie repository layer that answers searchMovies from the in-memory
+ * MovieSearchIndex instead of MySQL database. Every step of a search runs on all the shards of the index at the same
+ * time, and the shards' results are merged. <br>
+ *
+ * It is only created when movie.search.engine=memory, and then it's @Primary so the MovieServiceImpl uses it instead
+ * of the MovieRepository. searchOneMovieDetails still goes to MySQL database through CustomMovieRepositoryImpl.
+ * @see CustomMovieRepositoryImpl
+ */
+@Repository
+@Primary
+@ConditionalOnProperty(name = SEARCH_ENGINE_PROPERTY, havingValue = SEARCH_ENGINE_MEMORY)
+public class InMemoryMovieRepositoryImpl implements CustomMovieRepository {
+
+    private final MovieSearchIndexHolder indexHolder;
+    private final CustomMovieRepositoryImpl sqlMovieRepository;
+
+    @Autowired
+    public InMemoryMovieRepositoryImpl(MovieSearchIndexHolder indexHolder, CustomMovieRepositoryImpl sqlMovieRepository) {
+        this.indexHolder = indexHolder;
+        this.sqlMovieRepository = sqlMovieRepository;
+    }
+
+    /**
+     * Search movies that meets the criteria of the parameters inside the movieSearchParam from the in-memory index.
+     * It returns the same movies and total items as CustomMovieRepositoryImpl#searchMovies: the title is searched as a
+     * phrase first, and if nothing is found, it's searched as a substring. If that still finds nothing, or if the
+     * fuzzy parameter is true, the title is searched with fuzzy matching, so misspelled titles still find movies.
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies
+     * @return MovieSearchWithTitleDTOFromRepoToService with the total items and the movies of the requested page
+     */
+    @Override
+    public MovieSearchWithTitleDTOFromRepoToService searchMovies(MovieSearchParam movieSearchParam) {
+        // Use the same index for the whole search, even if the index is refreshed in the middle of it
+        ShardedMovieSearchIndex index = indexHolder.getIndex();
+        String title = movieSearchParam.getTitle();
+
+        // The phrase, substring and fuzzy matches are tried on all the shards, until one of them finds movies in any
+        ShardedMovieSearchIndex.Matches matches;
+        if (Boolean.TRUE.equals(movieSearchParam.getFuzzy())) {
+            matches = index.match(shard -> filter(shard, shard.matchFuzzy(title), movieSearchParam));
+        } else {
+            matches = index.match(shard -> filter(shard, shard.matchPhrase(title), movieSearchParam));
+            if (matches.getCount() == 0) {
+                matches = index.match(shard -> filter(shard, shard.matchSubstring(title), movieSearchParam));
+            }
+            if (matches.getCount() == 0) {
+                matches = index.match(shard -> filter(shard, shard.matchFuzzy(title), movieSearchParam));
+            }
+        }
+
+        int limit = movieSearchParam.getLimit();
+        long offset = (long) movieSearchParam.getPage() * limit;
+        MovieSearchCursor after = movieSearchParam.getAfter();
+
+        // Only the movies up to the requested page are ordered
+        int k = (int) Math.min(offset + limit, matches.getCount());
+        List<MovieDocument> orderedMatches;
+        if (ORDER_BY_RELEVANCE.equals(movieSearchParam.getOrderBy())) {
+            orderedMatches = index.rankByRelevance(matches, title, k);
+        } else if (after != null) {
+            // Only the movies after the cursor are ordered, and the page is the first of them
+            offset = 0;
+            orderedMatches = index.sort(matches, movieSearchParam.getOrderBy(), movieSearchParam.getDirection(),
+                    lastDocumentOf(after, movieSearchParam.getOrderBy()), limit);
+        } else {
+            orderedMatches = index.sort(matches, movieSearchParam.getOrderBy(), movieSearchParam.getDirection(), k);
+        }
+
+        int from = (int) Math.min(offset, orderedMatches.size());
+        int to = Math.min(from + limit, orderedMatches.size());
+
+        List<MovieTitleSearchSQLQueryResultDTO> movies = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            movies.add(orderedMatches.get(i).toSearchResultDTO());
+        }
+
+        MovieSearchWithTitleDTOFromRepoToService returnDTO =
+                new MovieSearchWithTitleDTOFromRepoToService(matches.getCount(), movies);
+        boolean lastPage = (long) (movieSearchParam.getPage() + 1) * limit >= matches.getCount();
+        if (!movies.isEmpty() && !lastPage) {
+            returnDTO.setNextCursor(MovieSearchCursor.after(movieSearchParam, false, matches.getCount(), false,
+                    movies.get(movies.size() - 1)));
+        }
+        return returnDTO;
+    }
+
+    // A document with the cursor's id and orderBy value, to compare the matches with
+    private static MovieDocument lastDocumentOf(MovieSearchCursor after, String orderBy) {
+        String value = after.getLastSortValue();
+        MovieDocument.MovieDocumentBuilder last = MovieDocument.builder().id(after.getLastId());
+        return switch (orderBy) {
+            case ORDER_BY_RATING -> last.rating(value == null ? null : Double.valueOf(value)).build();
+            case ORDER_BY_RELEASE_TIME -> last.releaseTime(value).build();
+            default -> last.title(value).build();
+        };
+    }
+
+    private int[] filter(MovieSearchIndex index, int[] candidates, MovieSearchParam movieSearchParam) {
+        return index.filter(candidates, movieSearchParam.getReleasedYear(), movieSearchParam.getDirector(),
+                movieSearchParam.getGenre());
+    }
+
+    /**
+     * The movie details are not in the index, so get them from MySQL database.
+     * @param movieId the movie's id
+     * @return OneMovieDetailsDTO, or null if the movie is not found
+     */
+    @Override
+    public OneMovieDetailsDTO searchOneMovieDetails(String movieId) {
+        return sqlMovieRepository.searchOneMovieDetails(movieId);
+    }
+
+    /**
+     * The movie details are not in the index, so get them from MySQL database.
+     * @param movieIds the movies' ids
+     * @return the details of the movies found, keyed by movie id
+     */
+    @Override
+    public Map<String, OneMovieDetailsDTO> searchMovieDetails(List<String> movieIds) {
+        return sqlMovieRepository.searchMovieDetails(movieIds);
+    }
+}
@@ -0,0 +1,156 @@
+package com.example.movie_service.repository;
+
+import com.example.movie_service.dto.CrewMember;
+import com.example.movie_service.dto.MovieRelevanceCandidateDTO;
+import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
+import com.example.movie_service.dto.OneMovieDetailsDTO;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+
+import static com.example.movie_service.constant.MovieConstant.SQL_CLIENT_JDBC;
+import static com.example.movie_service.constant.MovieConstant.SQL_CLIENT_PROPERTY;
+import static com.example.movie_service.constant.MovieConstant.SQL_JDBC_FETCH_SIZE_PROPERTY;
+
+/**
+ * A CustomMovieRepository that runs the same SQL statements as the CustomMovieRepositoryImpl with plain JDBC. The
+ * statements are prepared by a NamedParameterJdbcTemplate, which also expands the IN (:movieIds) lists, and the rows
+ * are mapped by the row mappers below, which call the DTOs' constructors and setters directly. Hibernate doesn't
+ * build a native query, look up the @SqlResultSetMapping, or call the constructors by reflection for every row. <br>
+ *
+ * It's only created when movie.sql.client=jdbc, and then it's the CustomMovieRepositoryImpl of the application, so the
+ * InMemoryMovieRepositoryImpl uses it for the movie details too.
+ */
+@Repository
+@ConditionalOnProperty(name = SQL_CLIENT_PROPERTY, havingValue = SQL_CLIENT_JDBC)
+public class JdbcMovieRepositoryImpl extends CustomMovieRepositoryImpl {
+
+    private static final RowMapper<MovieTitleSearchSQLQueryResultDTO> MOVIE_ROW_MAPPER =
+            (resultSet, rowNumber) -> mapMovie(resultSet);
+
+    private static final RowMapper<Object[]> MOVIE_WITH_TOTAL_ITEMS_ROW_MAPPER = (resultSet, rowNumber) ->
+            new Object[]{mapMovie(resultSet), resultSet.getLong("totalItems"), resultSet.getInt("likeMatch")};
+
+    private static final RowMapper<MovieRelevanceCandidateDTO> RELEVANCE_CANDIDATE_ROW_MAPPER =
+            (resultSet, rowNumber) -> new MovieRelevanceCandidateDTO(
+                    resultSet.getString("id"),
+                    resultSet.getString("title"),
+                    resultSet.getObject("numOfVotes", Integer.class));
+
+    private static final RowMapper<OneMovieDetailsDTO> MOVIE_BASIC_DETAILS_ROW_MAPPER = (resultSet, rowNumber) -> {
+        OneMovieDetailsDTO details = new OneMovieDetailsDTO();
+        details.setId(resultSet.getString("id"));
+        details.setTitle(resultSet.getString("title"));
+        details.setReleaseTime(resultSet.getString("releaseTime"));
+        details.setBudget(resultSet.getObject("budget", Long.class));
+        details.setRevenue(resultSet.getObject("revenue", Long.class));
+        details.setOverview(resultSet.getString("overview"));
+        details.setTagline(resultSet.getString("tagline"));
+        details.setRuntimeMinutes(resultSet.getObject("runtimeMinutes", Integer.class));
+        details.setBackdropPath(resultSet.getString("backdropPath"));
+        details.setPosterPath(resultSet.getString("posterPath"));
+        details.setRating(resultSet.getObject("rating", Double.class));
+        details.setNumOfVotes(resultSet.getObject("numOfVotes", Integer.class));
+        details.setOtherNames(resultSet.getString("otherNames"));
+        details.setGenres(resultSet.getString("genres"));
+        return details;
+    };
+
+    private static final RowMapper<CrewMember> CREW_MEMBER_ROW_MAPPER = (resultSet, rowNumber) -> mapCrewMember(resultSet);
+
+    private static final RowMapper<Object[]> CREW_MEMBER_WITH_MOVIE_ID_ROW_MAPPER = (resultSet, rowNumber) ->
+            new Object[]{mapCrewMember(resultSet), resultSet.getString("movie_id")};
+
+    private final NamedParameterJdbcTemplate jdbcTemplate;
+
+    /**
+     * @param dataSource the datasource of the application, shared with JPA
+     * @param fetchSize the rows fetched per round trip. 0 leaves it to the driver.
+     */
+    @Autowired
+    public JdbcMovieRepositoryImpl(DataSource dataSource,
+                                   @Value("${" + SQL_JDBC_FETCH_SIZE_PROPERTY + ":500}") int fetchSize) {
+        JdbcTemplate template = new JdbcTemplate(dataSource);
+        template.setFetchSize(fetchSize);
+        this.jdbcTemplate = new NamedParameterJdbcTemplate(template);
+    }
+
+    @Override
+    protected List<MovieTitleSearchSQLQueryResultDTO> findMovies(String sql, Map<String, Object> parameters) {
+        return jdbcTemplate.query(sql, parameters, MOVIE_ROW_MAPPER);
+    }
+
+    @Override
+    protected List<Object[]> findMoviesWithTotalItems(String sql, Map<String, Object> parameters) {
+        return jdbcTemplate.query(sql, parameters, MOVIE_WITH_TOTAL_ITEMS_ROW_MAPPER);
+    }
+
+    @Override
+    protected long count(String sql, Map<String, Object> parameters) {
+        Long count = jdbcTemplate.queryForObject(sql, parameters, Long.class);
+        return count == null ? 0 : count;
+    }
+
+    @Override
+    protected List<MovieRelevanceCandidateDTO> findRelevanceCandidates(String sql, Map<String, Object> parameters) {
+        return jdbcTemplate.query(sql, parameters, RELEVANCE_CANDIDATE_ROW_MAPPER);
+    }
+
+    @Override
+    protected List<Object> findIds(String sql, Map<String, Object> parameters) {
+        return jdbcTemplate.queryForList(sql, parameters, Object.class);
+    }
+
+    @Override
+    protected OneMovieDetailsDTO findOneMovieBasicDetails(String sql, Map<String, Object> parameters) {
+        // The query groups by the movie_id it selects, so there is one row or none
+        List<OneMovieDetailsDTO> results = jdbcTemplate.query(sql, parameters, MOVIE_BASIC_DETAILS_ROW_MAPPER);
+        return results.isEmpty() ? null : results.get(0);
+    }
+
+    @Override
+    protected List<OneMovieDetailsDTO> findMovieBasicDetails(String sql, Map<String, Object> parameters) {
+        return jdbcTemplate.query(sql, parameters, MOVIE_BASIC_DETAILS_ROW_MAPPER);
+    }
+
+    @Override
+    protected List<CrewMember> findCrewMembers(String sql, Map<String, Object> parameters) {
+        return jdbcTemplate.query(sql, parameters, CREW_MEMBER_ROW_MAPPER);
+    }
+
+    @Override
+    protected List<Object[]> findCrewMembersWithMovieId(String sql, Map<String, Object> parameters) {
+        return jdbcTemplate.query(sql, parameters, CREW_MEMBER_WITH_MOVIE_ID_ROW_MAPPER);
+    }
+
+    // The columns of SELECT_MOVIE_SEARCH_RESULT_FIELDS. getObject keeps a NULL rating null instead of 0.
+    private static MovieTitleSearchSQLQueryResultDTO mapMovie(ResultSet resultSet) throws SQLException {
+        return new MovieTitleSearchSQLQueryResultDTO(
+                resultSet.getString("id"),
+                resultSet.getString("title"),
+                resultSet.getString("releaseTime"),
+                resultSet.getString("directors"),
+                resultSet.getString("backdropPath"),
+                resultSet.getString("posterPath"),
+                resultSet.getObject("rating", Double.class),
+                resultSet.getString("overview"));
+    }
+
+    private static CrewMember mapCrewMember(ResultSet resultSet) throws SQLException {
+        return new CrewMember(
+                resultSet.getString("person_id"),
+                resultSet.getString("person_name"),
+                resultSet.getString("profilePath"),
+                resultSet.getString("jobs"));
+    }
+}
@@ -2,10 +2,15 @@ package com.example.movie_service.service;
 
 import com.example.movie_service.builder.MovieSearchParam;
 import com.example.movie_service.dto.MovieSearchResultWithPaginationDTO;
+import com.example.movie_service.dto.MovieDetailsBatchItemDTO;
+import com.example.movie_service.dto.MovieSuggestionDTO;
 import com.example.movie_service.dto.OneMovieDetailsDTO;
 import com.example.movie_service.response.CustomResponse;
 import org.springframework.http.ResponseEntity;
 
+import java.util.List;
+import java.util.Map;
+
 
 /**
  * Service interface for managing movies.
@@ -21,4 +26,18 @@ public interface MovieService {
     ResponseEntity<CustomResponse<MovieSearchResultWithPaginationDTO>> searchMovies(MovieSearchParam movieSearchParam);
 
     ResponseEntity<CustomResponse<OneMovieDetailsDTO>> searchOneMovieDetails(String movieId);
+
+    /**
+     * Searches the details of several movies at once.
+     *
+     * @return the details of each movie, keyed by movie id
+     */
+    ResponseEntity<CustomResponse<Map<String, MovieDetailsBatchItemDTO>>> searchMovieDetailsBatch(List<String> movieIds);
+
+    /**
+     * Suggests the most voted movie titles that start with a prefix.
+     *
+     * @return a list of title suggestions
+     */
+    ResponseEntity<CustomResponse<List<MovieSuggestionDTO>>> suggestMovies(String prefix, Integer limit);
 }
@@ -1,13 +1,22 @@
 package com.example.movie_service.service;
 
 import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.cache.MovieDetailsCache;
+import com.example.movie_service.cache.MovieNegativeCache;
+import com.example.movie_service.cache.MovieReadCoalescer;
+import com.example.movie_service.cache.MovieSearchResultCache;
 import com.example.movie_service.converter.MovieSearchQueryToResponseConverter;
+import com.example.movie_service.datasource.ReadReplicaRouting;
+import com.example.movie_service.dto.MovieDetailsBatchItemDTO;
+import com.example.movie_service.dto.MovieSearchCursor;
 import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
 import com.example.movie_service.dto.MovieSearchResponseDTO;
 import com.example.movie_service.dto.MovieSearchResultWithPaginationDTO;
 import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
+import com.example.movie_service.dto.MovieSuggestionDTO;
 import com.example.movie_service.dto.OneMovieDetailsDTO;
 import com.example.movie_service.exception.ValidationException;
+import com.example.movie_service.index.MovieSuggestionIndexHolder;
 import com.example.movie_service.repository.CustomMovieRepository;
 import com.example.movie_service.response.CustomResponse;
 import jakarta.persistence.PersistenceException;
@@ -16,7 +25,9 @@ import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.stereotype.Service;
 
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
 
 import static com.example.movie_service.constant.MovieConstant.*;
@@ -30,19 +41,37 @@ public class MovieServiceImpl implements MovieService {
     private final CustomMovieRepository movieRepository;
     private final ValidationService validationService;
     private final MovieSearchQueryToResponseConverter converter;
+    private final MovieSuggestionIndexHolder suggestionIndexHolder;
+    private final MovieSearchResultCache searchResultCache;
+    private final MovieDetailsCache detailsCache;
+    private final MovieReadCoalescer readCoalescer;
+    private final MovieNegativeCache negativeCache;
 
 
     /**
      * Constructor with dependencies injection.
      *
      * @param movieRepository the repository for accessing movie data
+     * @param suggestionIndexHolder the holder of the in-memory title suggestion index
+     * @param searchResultCache the results of the recent searches
+     * @param detailsCache the details of the recently viewed movies
+     * @param readCoalescer coalesces the identical reads that run at the same time
+     * @param negativeCache the searches that found no movie and the movie ids that don't exist
      */
     @Autowired
     public MovieServiceImpl(CustomMovieRepository movieRepository, ValidationService validationService,
-                            MovieSearchQueryToResponseConverter converter) {
+                            MovieSearchQueryToResponseConverter converter,
+                            MovieSuggestionIndexHolder suggestionIndexHolder,
+                            MovieSearchResultCache searchResultCache, MovieDetailsCache detailsCache,
+                            MovieReadCoalescer readCoalescer, MovieNegativeCache negativeCache) {
         this.movieRepository = movieRepository;
         this.validationService = validationService;
         this.converter = converter;
+        this.suggestionIndexHolder = suggestionIndexHolder;
+        this.searchResultCache = searchResultCache;
+        this.detailsCache = detailsCache;
+        this.readCoalescer = readCoalescer;
+        this.negativeCache = negativeCache;
     }
 
     /**
@@ -54,6 +83,10 @@ public class MovieServiceImpl implements MovieService {
     public ResponseEntity<CustomResponse<MovieSearchResultWithPaginationDTO>> searchMovies(MovieSearchParam movieSearchParam)
             throws PersistenceException, ValidationException {
 
+        // The cached results are keyed by the trimmed title, so the search uses it too
+        if (movieSearchParam.getTitle() != null) {
+            movieSearchParam.setTitle(movieSearchParam.getTitle().trim());
+        }
         String title = movieSearchParam.getTitle();
         String releasedYear = movieSearchParam.getReleasedYear();
         Integer limit = movieSearchParam.getLimit();
@@ -67,13 +100,33 @@ public class MovieServiceImpl implements MovieService {
         String direction = movieSearchParam.getDirection();
 
         // Validate parameters:
-        validateSearchMoviesParameters(title, releasedYear, limit, zeroIndexPage, orderBy, direction);
+        validateSearchMoviesParameters(title, releasedYear, limit, zeroIndexPage, orderBy, direction,
+                movieSearchParam.getCount());
 
+        // A cursor replaces the page: the repository seeks to the movie after it instead of skipping the earlier pages
+        if (movieSearchParam.getCursor() != null) {
+            MovieSearchCursor cursor = decodeCursor(movieSearchParam);
+            movieSearchParam.setAfter(cursor);
+            movieSearchParam.setPage(cursor.getPage());
+            pageNumberFromFrontend = cursor.getPage() + 1;
+        }
 
 
         // Get search results from repository layer
         // If the query times out, it's possible there will be QueryTimeoutException or PersistenceException
-        MovieSearchWithTitleDTOFromRepoToService queryDTO = movieRepository.searchMovies(movieSearchParam);
+        // The search only reads, so a read replica can answer it
+        // The identical searches that arrive while it runs wait for its result
+        // A search that found no movie recently finds none on any page, so it's not run again
+        // A popular or stale cached result is searched again in the background, with a copy of the parameters
+        MovieSearchParam refreshParam = movieSearchParam.toBuilder().build();
+        MovieSearchWithTitleDTOFromRepoToService queryDTO =
+                searchResultCache.get(movieSearchParam, () -> loadSearch(refreshParam));
+        if (queryDTO == null && movieSearchParam.getCursor() == null && negativeCache.isKnownEmpty(movieSearchParam)) {
+            queryDTO = new MovieSearchWithTitleDTOFromRepoToService(0, List.of());
+        }
+        if (queryDTO == null) {
+            queryDTO = loadSearch(movieSearchParam);
+        }
 
         List<MovieTitleSearchSQLQueryResultDTO> queryResults = queryDTO.getMovies();
 
@@ -95,11 +148,16 @@ public class MovieServiceImpl implements MovieService {
         MovieSearchResultWithPaginationDTO resultWithPaginationDTO = new MovieSearchResultWithPaginationDTO();
         resultWithPaginationDTO.setMovies(responseList);
         resultWithPaginationDTO.setTotalItems(totalItems);
+        resultWithPaginationDTO.setTotalItemsEstimated(queryDTO.isTotalItemEstimated());
         resultWithPaginationDTO.setCurrentPage(currentPage);
         resultWithPaginationDTO.setItemsPerPage(itemsPerPage);
         resultWithPaginationDTO.setTotalPages(totalPages);
-        resultWithPaginationDTO.setHasNextPage(currentPage < totalPages); // e.g. totalPages = 10. if currentPage < 10, then it can go to next page. If it's >= 10, it can't go to next page
+        resultWithPaginationDTO.setHasNextPage(currentPage < totalPages // e.g. totalPages = 10. if currentPage < 10, then it can go to next page. If it's >= 10, it can't go to next page
+                || queryDTO.getNextCursor() != null); // An estimated total can be smaller than the real one, but then there's still a next cursor
         resultWithPaginationDTO.setHasPrevPage(currentPage > 1); // page starts from 1. If current page > 1, it has previous page to go, if it's <= 1, it's the first page and doesn't have previous page
+        if (queryDTO.getNextCursor() != null) {
+            resultWithPaginationDTO.setNextCursor(queryDTO.getNextCursor().encode());
+        }
 
         // If no movie is found, return a custom response with movie not found code and message inside, with the empty
         // movieList. Before I put null in the data. This is not good because it might cause NullPointerExceptions. It
@@ -120,8 +178,14 @@ public class MovieServiceImpl implements MovieService {
         // validate movieId
         validationService.validateMovieId(movieId);
 
-        // Get result from repository layer
-        OneMovieDetailsDTO oneMovieDetailsDTO = movieRepository.searchOneMovieDetails(movieId);
+        // Get result from the cache, or from repository layer. The version is read first, so details loaded while the
+        // movie changed are not cached. The reads of the same movie that arrive while it runs wait for its result.
+        // A movie id that wasn't found recently isn't searched again. Popular or stale cached details are loaded again
+        // in the background.
+        OneMovieDetailsDTO oneMovieDetailsDTO = detailsCache.get(movieId, () -> loadOneMovieDetails(movieId));
+        if (oneMovieDetailsDTO == null && !negativeCache.isKnownMissing(movieId)) {
+            oneMovieDetailsDTO = loadOneMovieDetails(movieId);
+        }
 
         // Generate custom response:
         CustomResponse<OneMovieDetailsDTO> customResponse;
@@ -135,23 +199,167 @@ public class MovieServiceImpl implements MovieService {
         return responseEntity;
     }
 
+    /**
+     * Searches the details of several movies with one repository call, instead of one request per movie.
+     *
+     * @param movieIds the movies' ids. The repeated ones are only searched once.
+     * @return the details of each movie, keyed by movie id in the requested order. A movie that isn't found has an item
+     * with found false, and the code is MOVIE_NOT_FOUND_CODE only if none of the movies is found.
+     */
+    @Override
+    public ResponseEntity<CustomResponse<Map<String, MovieDetailsBatchItemDTO>>> searchMovieDetailsBatch(
+            List<String> movieIds) {
+        validationService.validateMovieIds(movieIds);
+
+        List<String> distinctMovieIds = movieIds.stream().distinct().toList();
+
+        // Only the movies that aren't cached, and weren't missing recently, are searched
+        Map<String, OneMovieDetailsDTO> detailsById = new LinkedHashMap<>();
+        Map<String, Long> versions = new LinkedHashMap<>();
+        for (String movieId : distinctMovieIds) {
+            OneMovieDetailsDTO cached = detailsCache.get(movieId, () -> loadOneMovieDetails(movieId));
+            if (cached != null) {
+                detailsById.put(movieId, cached);
+            } else if (!negativeCache.isKnownMissing(movieId)) {
+                versions.put(movieId, detailsCache.version(movieId));
+            }
+        }
+        if (!versions.isEmpty()) {
+            List<String> uncachedMovieIds = List.copyOf(versions.keySet());
+            Map<String, OneMovieDetailsDTO> loaded =
+                    ReadReplicaRouting.readOnly(() -> movieRepository.searchMovieDetails(uncachedMovieIds));
+            for (String movieId : uncachedMovieIds) {
+                OneMovieDetailsDTO details = loaded.get(movieId);
+                if (details != null) {
+                    detailsCache.put(movieId, versions.get(movieId), details);
+                    detailsById.put(movieId, details);
+                } else {
+                    negativeCache.putMissing(movieId);
+                }
+            }
+        }
+
+        Map<String, MovieDetailsBatchItemDTO> items = new LinkedHashMap<>();
+        for (String movieId : distinctMovieIds) {
+            OneMovieDetailsDTO details = detailsById.get(movieId);
+            items.put(movieId, new MovieDetailsBatchItemDTO(details != null, details));
+        }
+
+        CustomResponse<Map<String, MovieDetailsBatchItemDTO>> customResponse;
+        if (detailsById.isEmpty()) {
+            customResponse = new CustomResponse<>(MOVIE_NOT_FOUND_CODE, MOVIE_NOT_FOUND_MESSAGE, items);
+        } else {
+            customResponse = new CustomResponse<>(MOVIE_FOUND_CODE, MOVIE_FOUND_MESSAGE, items);
+        }
+        return new ResponseEntity<>(customResponse, HttpStatus.OK);
+    }
+
+    /**
+     * Run a search on the repository, or wait for the identical one that is running, and cache its result
+     * @param movieSearchParam a class that encapsulates all necessary parameters to search movies, with the
+     *                         zero-indexed page
+     * @return the result the repository returned
+     */
+    private MovieSearchWithTitleDTOFromRepoToService loadSearch(MovieSearchParam movieSearchParam) {
+        return readCoalescer.searchMovies(movieSearchParam, () -> {
+            MovieSearchWithTitleDTOFromRepoToService result =
+                    ReadReplicaRouting.readOnly(() -> movieRepository.searchMovies(movieSearchParam));
+            searchResultCache.put(movieSearchParam, result);
+            if (movieSearchParam.getCursor() == null && result.getTotalItem() == 0
+                    && !result.isTotalItemEstimated() && result.getMovies().isEmpty()) {
+                negativeCache.putEmpty(movieSearchParam);
+            }
+            return result;
+        });
+    }
+
+    /**
+     * Load a movie's details from the repository, or wait for the identical load that is running, and cache them. The
+     * version is read first, so details loaded while the movie changed are not cached.
+     * @param movieId the movie's id
+     * @return the details, or null if the movie doesn't exist
+     */
+    private OneMovieDetailsDTO loadOneMovieDetails(String movieId) {
+        return readCoalescer.searchOneMovieDetails(movieId, () -> {
+            long version = detailsCache.version(movieId);
+            OneMovieDetailsDTO details =
+                    ReadReplicaRouting.readOnly(() -> movieRepository.searchOneMovieDetails(movieId));
+            if (details != null) {
+                detailsCache.put(movieId, version, details);
+            } else {
+                // A refresh of a movie that was removed drops its stale details
+                detailsCache.remove(movieId);
+                negativeCache.putMissing(movieId);
+            }
+            return details;
+        });
+    }
+
+    /**
+     * Suggests the most voted movie titles that start with the prefix. The suggestions come from the in-memory
+     * MovieSuggestionIndex, so this method never queries MySQL database.
+     *
+     * @param prefix the prefix typed by the user
+     * @param limit the maximum number of suggestions
+     * @return a list of title suggestions, ordered by the number of votes in descending order
+     */
+    @Override
+    public ResponseEntity<CustomResponse<List<MovieSuggestionDTO>>> suggestMovies(String prefix, Integer limit) {
+        validationService.validatePrefix(prefix);
+        validationService.validateSuggestionLimit(limit);
+
+        List<MovieSuggestionDTO> suggestions = suggestionIndexHolder.getIndex().suggest(prefix, limit);
+
+        CustomResponse<List<MovieSuggestionDTO>> customResponse;
+        if (suggestions.isEmpty()) {
+            customResponse = new CustomResponse<>(MOVIE_NOT_FOUND_CODE, MOVIE_NOT_FOUND_MESSAGE, null);
+        } else {
+            customResponse = new CustomResponse<>(MOVIE_FOUND_CODE, MOVIE_FOUND_MESSAGE, suggestions);
+        }
+        return new ResponseEntity<>(customResponse, HttpStatus.OK);
+    }
+
+    /**
+     * Decode the cursor parameter, and check that it was created by the same search
+     * @param movieSearchParam the search parameters with the cursor token
+     * @return the decoded cursor
+     * @throws ValidationException if the token is not a cursor, or it's the cursor of another search
+     */
+    private MovieSearchCursor decodeCursor(MovieSearchParam movieSearchParam) throws ValidationException {
+        MovieSearchCursor cursor;
+        try {
+            cursor = MovieSearchCursor.decode(movieSearchParam.getCursor());
+            if (cursor.getLastSortValue() != null && ORDER_BY_RATING.equals(movieSearchParam.getOrderBy())) {
+                Double.valueOf(cursor.getLastSortValue());
+            }
+        } catch (IllegalArgumentException e) {
+            throw new ValidationException(INVALID_CURSOR_CODE, INVALID_CURSOR_MESSAGE);
+        }
+        if (cursor.getSearchHash() != MovieSearchCursor.searchHashOf(movieSearchParam)) {
+            throw new ValidationException(INVALID_CURSOR_CODE, INVALID_CURSOR_MESSAGE);
+        }
+        return cursor;
+    }
+
     /**
      * Validate those parameters and make sure they are valid
      * @param title the searching movie's title
      * @param releasedYear the released year of the searching movie
      * @param limit the maximum number of the return results
      * @param page the page to do the pagination
-     * @param orderBy the field that orders the return results. It can be title/rating/releasedYear
+     * @param orderBy the field that orders the return results. It can be title/rating/releasedYear/relevance
      * @param direction the direction that orders the results.
+     * @param count how the total items are counted. It can be exact/estimate
      */
     private void validateSearchMoviesParameters(String title, String releasedYear, Integer limit, Integer page,
-                                                String orderBy, String direction) {
+                                                String orderBy, String direction, String count) {
         validationService.validateTitle(title);
         validationService.validateReleasedYear(releasedYear);
         validationService.validateLimit(limit);
         validationService.validatePage(page);
         validationService.validateOrderBy(orderBy);
         validationService.validateDirection(direction);
+        validationService.validateCount(count);
     }
 
 }
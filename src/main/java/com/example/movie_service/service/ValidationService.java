@@ -2,6 +2,8 @@ package com.example.movie_service.service;
 
 import com.example.movie_service.exception.ValidationException;
 
+import java.util.List;
+
 public interface ValidationService {
     void validateTitle(String title) throws ValidationException;
 
@@ -15,5 +17,13 @@ public interface ValidationService {
 
     void validateDirection(String direction) throws ValidationException;
 
+    void validateCount(String count) throws ValidationException;
+
     void validateMovieId(String movieId) throws ValidationException;
+
+    void validateMovieIds(List<String> movieIds) throws ValidationException;
+
+    void validatePrefix(String prefix) throws ValidationException;
+
+    void validateSuggestionLimit(Integer limit) throws ValidationException;
 }
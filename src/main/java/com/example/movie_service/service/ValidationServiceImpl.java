@@ -4,6 +4,7 @@ import com.example.movie_service.exception.ValidationException;
 import org.springframework.stereotype.Service;
 
 import java.time.Year;
+import java.util.List;
 
 import static com.example.movie_service.constant.MovieConstant.*;
 
@@ -62,13 +63,14 @@ public class ValidationServiceImpl implements ValidationService {
     }
 
     /**
-     * Validate the searching field orderBy and make sure it can either be rating or title or releaseTime
+     * Validate the searching field orderBy and make sure it can either be rating or title or releaseTime or relevance
      * @param orderBy the field that orders the searching results
      * @throws ValidationException ValidationException with code INVALID_ORDER_BY_CODE and message INVALID_ORDER_BY_MESSAGE
      */
     @Override
     public void validateOrderBy(String orderBy) throws ValidationException {
-        if (!orderBy.equals("rating") && !orderBy.equals("title") && !orderBy.equals("releaseTime")) {
+        if (!orderBy.equals("rating") && !orderBy.equals("title") && !orderBy.equals("releaseTime")
+                && !orderBy.equals("relevance")) {
             throw new ValidationException(INVALID_ORDER_BY_CODE, INVALID_ORDER_BY_MESSAGE);
         }
     }
@@ -85,10 +87,65 @@ public class ValidationServiceImpl implements ValidationService {
         }
     }
 
+    /**
+     * Validate the searching field count and make sure it can either be exact or estimate.
+     * @param count how the total items are counted
+     * @throws ValidationException ValidationException with code INVALID_COUNT_CODE and message INVALID_COUNT_MESSAGE
+     */
+    @Override
+    public void validateCount(String count) throws ValidationException {
+        if (!COUNT_EXACT.equals(count) && !COUNT_ESTIMATE.equals(count)) {
+            throw new ValidationException(INVALID_COUNT_CODE, INVALID_COUNT_MESSAGE);
+        }
+    }
+
     @Override
     public void validateMovieId(String movieId) throws ValidationException {
         if (movieId == null || movieId.isEmpty()){
             throw new ValidationException(INVALID_MOVIE_ID_CODE, INVALID_MOVIE_ID_MESSAGE);
         }
     }
+
+    /**
+     * Validate the movie ids of a batch details request: there must be 1 to MAX_BATCH_MOVIE_IDS of them, so one request
+     * can't make the IN (...) lists arbitrarily long, and none of them can be null or an empty String
+     * @param movieIds the movie ids
+     * @throws ValidationException ValidationException with code INVALID_MOVIE_IDS_CODE and message INVALID_MOVIE_IDS_MESSAGE
+     */
+    @Override
+    public void validateMovieIds(List<String> movieIds) throws ValidationException {
+        if (movieIds == null || movieIds.isEmpty() || movieIds.size() > MAX_BATCH_MOVIE_IDS) {
+            throw new ValidationException(INVALID_MOVIE_IDS_CODE, INVALID_MOVIE_IDS_MESSAGE);
+        }
+        for (String movieId : movieIds) {
+            if (movieId == null || movieId.isEmpty()) {
+                throw new ValidationException(INVALID_MOVIE_IDS_CODE, INVALID_MOVIE_IDS_MESSAGE);
+            }
+        }
+    }
+
+    /**
+     * Validate the prefix of the title suggestions to make sure it's not null or a blank String
+     * @param prefix the prefix typed by the user
+     * @throws ValidationException ValidationException with code INVALID_PREFIX_CODE and message INVALID_PREFIX_MESSAGE
+     */
+    @Override
+    public void validatePrefix(String prefix) throws ValidationException {
+        if (prefix == null || prefix.isBlank()) {
+            throw new ValidationException(INVALID_PREFIX_CODE, INVALID_PREFIX_MESSAGE);
+        }
+    }
+
+    /**
+     * Validate the maximum number of title suggestions to make sure it's between 1 and MAX_SUGGESTION_LIMIT
+     * @param limit the maximum number of suggestions
+     * @throws ValidationException ValidationException with code INVALID_SUGGESTION_LIMIT_CODE and message
+     * INVALID_SUGGESTION_LIMIT_MESSAGE
+     */
+    @Override
+    public void validateSuggestionLimit(Integer limit) throws ValidationException {
+        if (limit == null || limit < 1 || limit > MAX_SUGGESTION_LIMIT) {
+            throw new ValidationException(INVALID_SUGGESTION_LIMIT_CODE, INVALID_SUGGESTION_LIMIT_MESSAGE);
+        }
+    }
 }
@@ -15,6 +15,7 @@ public class TestConstant {
     public static final String RELEASE_TIME = "releaseTime";
     public static final String DIRECTION = "direction";
     public static final String RATING = "rating";
+    public static final String RELEVANCE = "relevance";
     public static final String DESC = "desc";
     public static final String ASC = "asc";
     public static final String PAGE = "page";
@@ -119,6 +120,7 @@ public class TestConstant {
             + "SELECT m.movie_id AS movie_id, "
             + "m.primaryTitle AS primaryTitle, "
             + "m.releaseTime AS releaseTime, "
+            + "CASE WHEN m.releaseTime REGEXP '^[0-9]{4}' THEN CAST(LEFT(m.releaseTime, 4) AS UNSIGNED) END AS releaseYear, "
             + "GROUP_CONCAT(DISTINCT p.name ORDER BY p.name SEPARATOR ', ') AS directors, "
             + "m.backdrop_path AS backdrop_path, "
             + "m.poster_path AS poster_path, "
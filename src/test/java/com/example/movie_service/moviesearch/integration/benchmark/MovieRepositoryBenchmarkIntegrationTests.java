@@ -0,0 +1,120 @@
+package com.example.movie_service.moviesearch.integration.benchmark;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
+import com.example.movie_service.moviesearch.integration.util.dataInitService.DataInitializerService;
+import com.example.movie_service.moviesearch.integration.util.junitExtension.MySQLTestContainerExtension;
+import com.example.movie_service.repository.CustomMovieRepositoryImpl;
+import com.example.movie_service.repository.JdbcMovieRepositoryImpl;
+import jakarta.transaction.Transactional;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.config.AutowireCapableBeanFactory;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.lang.management.ManagementFactory;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+import static com.example.movie_service.constants.TestConstant.ASC;
+import static com.example.movie_service.constants.TestConstant.EXISTED_MOVIE_TITLE_LOWER_CASE;
+import static com.example.movie_service.constants.TestConstant.ORDER_BY_TITLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the JdbcMovieRepositoryImpl with the JPA CustomMovieRepositoryImpl on the same database: both must return
+ * the same results, and the time and the bytes allocated by the request's thread per call are printed for each
+ * operation. <br>
+ *
+ * It's a measurement rather than a test, so it only runs with -Dmovie.benchmark=true, e.g.
+ * mvn test -Dtest=MovieRepositoryBenchmarkIntegrationTests -Dmovie.benchmark=true
+ * The crew members queries of the details run on the details executor, so their allocations are not in the numbers.
+ */
+@EnabledIfSystemProperty(named = "movie.benchmark", matches = "true")
+@ActiveProfiles("test")
+@ExtendWith(MySQLTestContainerExtension.class)
+@DirtiesContext
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class MovieRepositoryBenchmarkIntegrationTests {
+
+    private static final int WARM_UP_ITERATIONS = 500;
+    private static final int MEASURED_ITERATIONS = 2000;
+
+    // The default movie.sql.client is jpa
+    @Autowired
+    private CustomMovieRepositoryImpl jpaMovieRepository;
+
+    @Autowired
+    private AutowireCapableBeanFactory beanFactory;
+
+    @Autowired
+    private DataInitializerService dataInitializerService;
+
+    @BeforeEach
+    public void beforeEach() {
+        dataInitializerService.checkDatabaseEmpty();
+        dataInitializerService.insertMovieData();
+        dataInitializerService.createMovieMaterializedViewTable();
+    }
+
+    @AfterEach
+    @Transactional
+    public void cleanUp() {
+        dataInitializerService.clearDatabase();
+    }
+
+    @Test
+    void compareJdbcWithJpa() {
+        // Created outside the context's conditions, with the same datasource, count cache and details executor
+        JdbcMovieRepositoryImpl jdbcMovieRepository = beanFactory.createBean(JdbcMovieRepositoryImpl.class);
+
+        MovieSearchParam movieSearchParam = MovieSearchParam.builder().title(EXISTED_MOVIE_TITLE_LOWER_CASE).limit(10)
+                .page(0).orderBy(ORDER_BY_TITLE).direction(ASC).build();
+        List<String> movieIds = jpaMovieRepository.searchMovies(movieSearchParam).getMovies().stream()
+                .map(MovieTitleSearchSQLQueryResultDTO::getId)
+                .toList();
+
+        // The total items are cached after the first call, so searchMovies measures the page query
+        Map<String, Function<CustomMovieRepositoryImpl, Object>> operations = new LinkedHashMap<>();
+        operations.put("searchMovies", repository -> repository.searchMovies(movieSearchParam));
+        operations.put("searchOneMovieDetails", repository -> repository.searchOneMovieDetails(movieIds.get(0)));
+        operations.put("searchMovieDetails", repository -> repository.searchMovieDetails(movieIds));
+
+        System.out.printf("%-24s %8s %14s %14s %14s%n", "operation", "client", "us/op", "bytes/op", "jdbc/jpa time");
+        operations.forEach((name, operation) -> {
+            assertEquals(operation.apply(jpaMovieRepository), operation.apply(jdbcMovieRepository), name);
+
+            double[] jpa = measure(() -> operation.apply(jpaMovieRepository));
+            double[] jdbc = measure(() -> operation.apply(jdbcMovieRepository));
+            System.out.printf("%-24s %8s %14.1f %14.0f%n", name, "jpa", jpa[0] / 1000, jpa[1]);
+            System.out.printf("%-24s %8s %14.1f %14.0f %14.2f%n", name, "jdbc", jdbc[0] / 1000, jdbc[1],
+                    jdbc[0] / jpa[0]);
+        });
+    }
+
+    // Returns the nanoseconds and the bytes allocated by this thread per call
+    private static double[] measure(Runnable operation) {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        for (int i = 0; i < WARM_UP_ITERATIONS; i++) {
+            operation.run();
+        }
+        long bytes = threads.getCurrentThreadAllocatedBytes();
+        long start = System.nanoTime();
+        for (int i = 0; i < MEASURED_ITERATIONS; i++) {
+            operation.run();
+        }
+        long elapsed = System.nanoTime() - start;
+        bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+        return new double[]{(double) elapsed / MEASURED_ITERATIONS, (double) bytes / MEASURED_ITERATIONS};
+    }
+}
@@ -1,6 +1,7 @@
 package com.example.movie_service.moviesearch.integration.customRepositoryImpl;
 
 import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.cache.MovieSearchCountCache;
 import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
 import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
 import com.example.movie_service.moviesearch.integration.util.dataInitService.DataInitializerService;
@@ -17,9 +18,14 @@ import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabas
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.test.annotation.DirtiesContext;
 import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.util.AopTestUtils;
+import org.springframework.test.util.ReflectionTestUtils;
 
+import java.time.Duration;
 import java.util.List;
 
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SQL_FILTERS_LIKE;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SQL_FILTERS_NORMALIZED;
 import static com.example.movie_service.constants.TestConstant.*;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -216,4 +222,31 @@ class CustomRepositoryImplIntegrationTest {
         assertEquals(MOVIE_2_TITLE, movies.get(1).getTitle());
         assertEquals(MOVIE_3_TITLE, movies.get(2).getTitle());
     }
+
+    @Test
+    void searchMovies_ShouldFindTheSameMovies_WithTheNormalizedFilters() {
+        CustomMovieRepositoryImpl repository = AopTestUtils.getTargetObject(customMovieRepositoryImpl);
+        // Count every search again, so the normalized filters count too
+        ReflectionTestUtils.setField(repository, "countCache",
+                new MovieSearchCountCache(0, Duration.ofMinutes(5), System::nanoTime));
+        List<MovieSearchParam> searches = List.of(
+                movieSearchParam.toBuilder().director(DIRECTOR_1).build(),
+                movieSearchParam.toBuilder().director("director").build(),
+                movieSearchParam.toBuilder().genre(ACTION_GENRE).build(),
+                movieSearchParam.toBuilder().genre("i").orderBy(RATING).direction(DESC).build(),
+                movieSearchParam.toBuilder().releasedYear(YEAR_2012).build(),
+                movieSearchParam.toBuilder().releasedYear("202").orderBy(RELEASE_TIME).build(),
+                movieSearchParam.toBuilder().releasedYear("2023").director(DIRECTOR_2).genre(CRIME_GENRE).build(),
+                movieSearchParam.toBuilder().director(NON_EXISTED_MOVIE_TITLE).build());
+
+        for (MovieSearchParam search : searches) {
+            ReflectionTestUtils.setField(repository, "filterMode", SEARCH_SQL_FILTERS_LIKE);
+            MovieSearchWithTitleDTOFromRepoToService expected = repository.searchMovies(search);
+            ReflectionTestUtils.setField(repository, "filterMode", SEARCH_SQL_FILTERS_NORMALIZED);
+            MovieSearchWithTitleDTOFromRepoToService actual = repository.searchMovies(search);
+
+            assertEquals(expected.getTotalItem(), actual.getTotalItem(), search.toString());
+            assertEquals(expected.getMovies(), actual.getMovies(), search.toString());
+        }
+    }
 }
@@ -0,0 +1,52 @@
+package com.example.movie_service.moviesearch.integration.datasource;
+
+import com.example.movie_service.datasource.ReadReplicaRouting;
+import com.example.movie_service.datasource.ReplicaRoutingDataSource;
+import com.example.movie_service.moviesearch.integration.util.junitExtension.MySQLReplicaTestContainerExtension;
+import com.example.movie_service.moviesearch.integration.util.junitExtension.MySQLTestContainerExtension;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.jdbc.AutoConfigureTestDatabase;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.context.ActiveProfiles;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+@ActiveProfiles("test")
+@ExtendWith({MySQLTestContainerExtension.class, MySQLReplicaTestContainerExtension.class})
+@DirtiesContext
+@SpringBootTest
+@AutoConfigureTestDatabase(replace = AutoConfigureTestDatabase.Replace.NONE)
+class ReplicaRoutingDataSourceIntegrationTests {
+
+    @Autowired
+    private ReplicaRoutingDataSource dataSource;
+
+    @Test
+    void getConnection_ShouldUseTheReplicaForTheReads_AndThePrimaryAfterItStops() {
+        String replicaUrl = MySQLReplicaTestContainerExtension.getReplicaContainer().getJdbcUrl();
+        String primaryUrl = urlOfConnection();
+
+        assertEquals(replicaUrl, ReadReplicaRouting.readOnly(this::urlOfConnection));
+
+        MySQLReplicaTestContainerExtension.getReplicaContainer().stop();
+        dataSource.checkReplicas();
+
+        assertEquals(List.of(), dataSource.getHealthyReplicas());
+        assertEquals(primaryUrl, ReadReplicaRouting.readOnly(this::urlOfConnection));
+    }
+
+    private String urlOfConnection() {
+        try (Connection connection = dataSource.getConnection()) {
+            return connection.getMetaData().getURL();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
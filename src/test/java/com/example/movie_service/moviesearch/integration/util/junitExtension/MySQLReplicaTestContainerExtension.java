@@ -0,0 +1,44 @@
+package com.example.movie_service.moviesearch.integration.util.junitExtension;
+
+import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.ExtensionContext;
+import org.testcontainers.containers.MySQLContainer;
+
+import static com.example.movie_service.constant.MovieConstant.REPLICA_URLS_PROPERTY;
+import static com.example.movie_service.constants.TestConstant.SQL_VERSION;
+
+/**
+ * Starts a second MySQL container and sets it as the only read replica. It isn't replicating from the container of
+ * MySQLTestContainerExtension, so a test can tell which database answered. The replica uses the primary's user.
+ */
+public class MySQLReplicaTestContainerExtension implements BeforeAllCallback, AfterAllCallback {
+
+    private static MySQLContainer<?> replicaContainer;
+
+    @SuppressWarnings({"resource"})
+    @Override
+    public void beforeAll(ExtensionContext context) {
+        replicaContainer = new MySQLContainer<>(SQL_VERSION)
+                .withDatabaseName("testDB")
+                .withUsername("testUser")
+                .withPassword("testPassword");
+
+        replicaContainer.start();
+
+        System.setProperty(REPLICA_URLS_PROPERTY, replicaContainer.getJdbcUrl());
+    }
+
+    // The other test classes use the primary only
+    @Override
+    public void afterAll(ExtensionContext context) {
+        System.clearProperty(REPLICA_URLS_PROPERTY);
+        if (replicaContainer != null) {
+            replicaContainer.stop();
+        }
+    }
+
+    public static MySQLContainer<?> getReplicaContainer() {
+        return replicaContainer;
+    }
+}
@@ -0,0 +1,73 @@
+package com.example.movie_service.moviesearch.unit.cache;
+
+import com.example.movie_service.cache.ExpiringLruCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class ExpiringLruCacheUnitTests {
+
+    private static final Duration TTL = Duration.ofSeconds(60);
+
+    private final AtomicLong now = new AtomicLong();
+
+    private ExpiringLruCache<String, Integer> cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new ExpiringLruCache<>(2, TTL, now::get);
+    }
+
+    @Test
+    void put_ShouldEvictTheLeastRecentlyUsedEntry_WhenTheCacheIsFull() {
+        cache.put("batman", 1);
+        cache.put("joker", 2);
+        cache.get("batman");
+
+        cache.put("bane", 3);
+
+        assertEquals(1, cache.get("batman"));
+        assertNull(cache.get("joker"));
+        assertEquals(3, cache.get("bane"));
+        assertEquals(2, cache.size());
+    }
+
+    @Test
+    void get_ShouldReturnNull_AfterTheTimeToLive() {
+        cache.put("batman", 1);
+
+        now.addAndGet(TTL.toNanos() - 1);
+        assertEquals(1, cache.get("batman"));
+
+        now.addAndGet(1);
+        assertNull(cache.get("batman"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void put_ShouldKeepTheFreshValue_WhenTheValueMustNotReplaceIt() {
+        cache.put("batman", 1);
+
+        cache.put("batman", 2, existing -> false);
+        assertEquals(1, cache.get("batman"));
+
+        // An expired value is always replaced
+        now.addAndGet(TTL.toNanos());
+        cache.put("batman", 2, existing -> false);
+        assertEquals(2, cache.get("batman"));
+    }
+
+    @Test
+    void put_ShouldNotCache_WhenTheCacheIsDisabled() {
+        cache = new ExpiringLruCache<>(0, TTL, now::get);
+
+        cache.put("batman", 1);
+
+        assertNull(cache.get("batman"));
+    }
+}
@@ -0,0 +1,88 @@
+package com.example.movie_service.moviesearch.unit.cache;
+
+import com.example.movie_service.cache.MovieCatalogueChangedEvent;
+import com.example.movie_service.cache.MovieDetailsCache;
+import com.example.movie_service.cache.MovieDetailsCacheInvalidator;
+import com.example.movie_service.cache.MovieNegativeCache;
+import com.example.movie_service.index.MovieChangeLogRow;
+import com.example.movie_service.index.MovieSearchIndexLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MovieDetailsCacheInvalidatorUnitTests {
+
+    private static final String MOVIE_ID = "tt0468569";
+    private static final String OTHER_MOVIE_ID = "tt1375666";
+
+    @Mock
+    private MovieSearchIndexLoader loader;
+
+    private final MovieDetailsCache detailsCache = new MovieDetailsCache(100, Duration.ofSeconds(60), System::nanoTime);
+
+    private final MovieNegativeCache negativeCache =
+            new MovieNegativeCache(1000, 0.001, Duration.ofSeconds(60), System::nanoTime);
+
+    private final List<MovieCatalogueChangedEvent> events = new ArrayList<>();
+
+    private MovieDetailsCacheInvalidator invalidator;
+
+    @BeforeEach
+    public void setUp() {
+        invalidator = new MovieDetailsCacheInvalidator(loader, detailsCache, event -> {
+            events.add((MovieCatalogueChangedEvent) event);
+            negativeCache.onCatalogueChanged((MovieCatalogueChangedEvent) event);
+        });
+    }
+
+    @Test
+    void poll_ShouldApplyAChangeOnce_WhenTheOverlapReadsItAgain() {
+        MovieChangeLogRow change = new MovieChangeLogRow(MOVIE_ID, Instant.now());
+        when(loader.loadChangeLogRows(any(), any()))
+                .thenReturn(List.of(change))
+                .thenReturn(List.of(change));
+        long version = detailsCache.version(MOVIE_ID);
+        negativeCache.putMissing(OTHER_MOVIE_ID);
+
+        invalidator.poll();
+        invalidator.poll();
+
+        assertEquals(List.of(new MovieCatalogueChangedEvent(Set.of(MOVIE_ID), false)), events);
+        assertEquals(version + 1, detailsCache.version(MOVIE_ID));
+        assertEquals(1, negativeCache.getStats().invalidatedMovies());
+        assertTrue(negativeCache.isKnownMissing(OTHER_MOVIE_ID));
+    }
+
+    @Test
+    void poll_ShouldApplyANewChangeOfTheSameMovie() {
+        MovieChangeLogRow change = new MovieChangeLogRow(MOVIE_ID, Instant.now());
+        MovieChangeLogRow nextChange = new MovieChangeLogRow(MOVIE_ID, change.changedAt().plusSeconds(5));
+        when(loader.loadChangeLogRows(any(), any()))
+                .thenReturn(List.of(change))
+                .thenReturn(List.of(change, nextChange));
+        long version = detailsCache.version(MOVIE_ID);
+
+        invalidator.poll();
+        negativeCache.putMissing(MOVIE_ID);
+        invalidator.poll();
+
+        assertEquals(2, events.size());
+        assertEquals(version + 2, detailsCache.version(MOVIE_ID));
+        assertFalse(negativeCache.isKnownMissing(MOVIE_ID));
+    }
+}
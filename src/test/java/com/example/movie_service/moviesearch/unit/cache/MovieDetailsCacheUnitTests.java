@@ -0,0 +1,81 @@
+package com.example.movie_service.moviesearch.unit.cache;
+
+import com.example.movie_service.cache.MovieDetailsCache;
+import com.example.movie_service.dto.OneMovieDetailsDTO;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MovieDetailsCacheUnitTests {
+
+    private static final String MOVIE_ID = "tt0468569";
+    private static final String OTHER_MOVIE_ID = "tt1375666";
+
+    private final AtomicLong now = new AtomicLong();
+
+    private MovieDetailsCache cache;
+
+    private OneMovieDetailsDTO details;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new MovieDetailsCache(100, Duration.ofSeconds(60), now::get);
+        details = new OneMovieDetailsDTO();
+        details.setId(MOVIE_ID);
+    }
+
+    @Test
+    void get_ShouldReturnTheDetails_UntilTheyExpire() {
+        cache.put(MOVIE_ID, cache.version(MOVIE_ID), details);
+
+        assertSame(details, cache.get(MOVIE_ID));
+
+        now.addAndGet(Duration.ofSeconds(60).toNanos());
+
+        assertNull(cache.get(MOVIE_ID));
+    }
+
+    @Test
+    void get_ShouldReturnNull_AfterTheVersionIsBumped() {
+        cache.put(MOVIE_ID, cache.version(MOVIE_ID), details);
+        cache.put(OTHER_MOVIE_ID, cache.version(OTHER_MOVIE_ID), new OneMovieDetailsDTO());
+
+        cache.bumpVersion(MOVIE_ID);
+
+        assertNull(cache.get(MOVIE_ID));
+        // The two ids are in different version stripes
+        assertNotNull(cache.get(OTHER_MOVIE_ID));
+    }
+
+    @Test
+    void put_ShouldNotCacheTheDetails_LoadedWhileTheMovieChanged() {
+        long version = cache.version(MOVIE_ID);
+
+        // The data pipeline changes the movie while its details are loaded
+        cache.bumpVersion(MOVIE_ID);
+        cache.put(MOVIE_ID, version, details);
+
+        assertNull(cache.get(MOVIE_ID));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void evictAll_ShouldInvalidateEveryMovie_AndTheDetailsBeingLoaded() {
+        long version = cache.version(OTHER_MOVIE_ID);
+        cache.put(MOVIE_ID, cache.version(MOVIE_ID), details);
+
+        cache.evictAll();
+        cache.put(OTHER_MOVIE_ID, version, new OneMovieDetailsDTO());
+
+        assertNull(cache.get(MOVIE_ID));
+        assertNull(cache.get(OTHER_MOVIE_ID));
+        assertEquals(0, cache.size());
+    }
+}
@@ -0,0 +1,151 @@
+package com.example.movie_service.moviesearch.unit.cache;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.cache.MovieCatalogueChangedEvent;
+import com.example.movie_service.cache.MovieNegativeCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovieNegativeCacheUnitTests {
+
+    private static final String MOVIE_ID = "tt0000404";
+    private static final String OTHER_MOVIE_ID = "tt0000405";
+
+    private final AtomicLong now = new AtomicLong();
+
+    private MovieNegativeCache cache;
+
+    private MovieSearchParam movieSearchParam;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new MovieNegativeCache(1000, 0.001, Duration.ofSeconds(60), now::get);
+        movieSearchParam = MovieSearchParam.builder()
+                .title("No Such Movie").releasedYear("2020").director("director").page(0).limit(10).build();
+    }
+
+    @Test
+    void isKnownMissing_ShouldBeTrue_OnlyForTheMoviesPut() {
+        assertFalse(cache.isKnownMissing(MOVIE_ID));
+
+        cache.putMissing(MOVIE_ID);
+
+        assertTrue(cache.isKnownMissing(MOVIE_ID));
+        assertFalse(cache.isKnownMissing(OTHER_MOVIE_ID));
+    }
+
+    @Test
+    void isKnownEmpty_ShouldIgnoreTheCaseTheSpacesAroundTheTitleThePageAndTheOrder() {
+        cache.putEmpty(movieSearchParam);
+
+        MovieSearchParam other = MovieSearchParam.builder()
+                .title("  no such MOVIE ").releasedYear("2020").director("DIRECTOR").genre("").page(3).limit(25)
+                .orderBy("rating").direction("asc").build();
+        assertTrue(cache.isKnownEmpty(other));
+    }
+
+    @Test
+    void isKnownEmpty_ShouldBeFalse_ForAnotherFilter() {
+        cache.putEmpty(movieSearchParam);
+
+        movieSearchParam.setReleasedYear("2021");
+        assertFalse(cache.isKnownEmpty(movieSearchParam));
+    }
+
+    @Test
+    void isKnownMissing_ShouldBeFalse_AfterTheTimeToLive() {
+        cache.putMissing(MOVIE_ID);
+
+        // A key is used for at least half the time to live
+        now.addAndGet(Duration.ofSeconds(30).toNanos() - 1);
+        assertTrue(cache.isKnownMissing(MOVIE_ID));
+
+        // And at most the time to live
+        now.addAndGet(Duration.ofSeconds(30).toNanos() + 1);
+        assertFalse(cache.isKnownMissing(MOVIE_ID));
+    }
+
+    @Test
+    void onCatalogueChanged_ShouldForgetOnlyTheChangedMovies() {
+        cache.putMissing(MOVIE_ID);
+        cache.putMissing(OTHER_MOVIE_ID);
+        cache.putEmpty(movieSearchParam);
+
+        cache.onCatalogueChanged(new MovieCatalogueChangedEvent(Set.of(MOVIE_ID), false));
+
+        assertFalse(cache.isKnownMissing(MOVIE_ID));
+        assertTrue(cache.isKnownMissing(OTHER_MOVIE_ID));
+        assertTrue(cache.isKnownEmpty(movieSearchParam));
+        assertEquals(1, cache.getStats().invalidatedMovies());
+    }
+
+    @Test
+    void onCatalogueChanged_ShouldForgetTheSearches_WhenAMovieIsAdded() {
+        cache.putMissing(OTHER_MOVIE_ID);
+        cache.putEmpty(movieSearchParam);
+
+        cache.onCatalogueChanged(new MovieCatalogueChangedEvent(Set.of(MOVIE_ID), true));
+
+        assertFalse(cache.isKnownEmpty(movieSearchParam));
+        assertTrue(cache.isKnownMissing(OTHER_MOVIE_ID));
+        assertEquals(1, cache.getStats().searchResets());
+    }
+
+    @Test
+    void onCatalogueChanged_ShouldForgetEverything_WhenTheCatalogueIsLoadedAgain() {
+        cache.putMissing(MOVIE_ID);
+        cache.putEmpty(movieSearchParam);
+
+        cache.onCatalogueChanged(MovieCatalogueChangedEvent.reloaded());
+
+        assertFalse(cache.isKnownMissing(MOVIE_ID));
+        assertFalse(cache.isKnownEmpty(movieSearchParam));
+        assertEquals(1, cache.getStats().resets());
+    }
+
+    @Test
+    void isKnownMissing_ShouldStayFalseForAChangedMovie_UntilItsFoundMissingAgain() {
+        cache.putMissing(MOVIE_ID);
+        cache.onCatalogueChanged(new MovieCatalogueChangedEvent(Set.of(MOVIE_ID), false));
+
+        // The previous generation still has the key, and so does the invalidation
+        now.addAndGet(Duration.ofSeconds(30).toNanos());
+        assertFalse(cache.isKnownMissing(MOVIE_ID));
+
+        cache.putMissing(MOVIE_ID);
+        assertTrue(cache.isKnownMissing(MOVIE_ID));
+    }
+
+    @Test
+    void isKnownMissing_ShouldBeFalse_WhenTheCacheIsDisabled() {
+        cache = new MovieNegativeCache(0, 0.001, Duration.ofSeconds(60), now::get);
+
+        cache.putMissing(MOVIE_ID);
+
+        assertFalse(cache.isKnownMissing(MOVIE_ID));
+    }
+
+    @Test
+    void isKnownMissing_ShouldHaveAboutTheFalsePositiveRate_WhenFull() {
+        for (int i = 0; i < 1000; i++) {
+            cache.putMissing("tt" + i);
+        }
+        int falsePositives = 0;
+        for (int i = 1000; i < 101_000; i++) {
+            if (cache.isKnownMissing("tt" + i)) {
+                falsePositives++;
+            }
+        }
+
+        // 0.1% of 100000 is 100
+        assertTrue(falsePositives < 300, "false positives: " + falsePositives);
+    }
+}
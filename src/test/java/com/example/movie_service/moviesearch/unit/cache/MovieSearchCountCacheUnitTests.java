@@ -0,0 +1,86 @@
+package com.example.movie_service.moviesearch.unit.cache;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.cache.MovieSearchCountCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.movie_service.constants.TestConstant.ASC;
+import static com.example.movie_service.constants.TestConstant.DESC;
+import static com.example.movie_service.constants.TestConstant.ORDER_BY_TITLE;
+import static com.example.movie_service.constants.TestConstant.RATING;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class MovieSearchCountCacheUnitTests {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private MovieSearchCountCache cache;
+
+    private MovieSearchParam movieSearchParam;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new MovieSearchCountCache(2, Duration.ofSeconds(60), now::get);
+        movieSearchParam = MovieSearchParam.builder().title("Dark Knight").releasedYear("2008").limit(10).page(0)
+                .orderBy(ORDER_BY_TITLE).direction(ASC).build();
+    }
+
+    @Test
+    void get_ShouldReturnTheCount_ForEveryPageAndOrderOfTheSearch() {
+        MovieSearchCountCache.Count count = new MovieSearchCountCache.Count(42, false, false);
+        cache.put(movieSearchParam, count);
+
+        assertEquals(count, cache.get(movieSearchParam.toBuilder().page(3).limit(20).orderBy(RATING).direction(DESC)
+                .build(), false));
+        // The columns are compared case-insensitively, and an empty filter is no filter
+        assertEquals(count, cache.get(movieSearchParam.toBuilder().title("DARK KNIGHT").genre("").build(), false));
+        assertNull(cache.get(movieSearchParam.toBuilder().releasedYear("2012").build(), false));
+    }
+
+    @Test
+    void get_ShouldReturnNull_WhenTheCountExpired() {
+        cache.put(movieSearchParam, new MovieSearchCountCache.Count(42, false, false));
+
+        now.addAndGet(Duration.ofSeconds(60).toNanos());
+
+        assertNull(cache.get(movieSearchParam, false));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void get_ShouldOnlyReturnAnEstimate_WhenItIsAllowed() {
+        MovieSearchCountCache.Count estimate = new MovieSearchCountCache.Count(1000, true, true);
+        cache.put(movieSearchParam, estimate);
+
+        assertNull(cache.get(movieSearchParam, false));
+        assertEquals(estimate, cache.get(movieSearchParam, true));
+
+        // An exact count replaces the estimate, but an estimate doesn't replace an exact count
+        MovieSearchCountCache.Count exact = new MovieSearchCountCache.Count(5000, true, false);
+        cache.put(movieSearchParam, exact);
+        cache.put(movieSearchParam, estimate);
+        assertEquals(exact, cache.get(movieSearchParam, true));
+    }
+
+    @Test
+    void put_ShouldEvictTheLeastRecentlyUsedCount_WhenTheCacheIsFull() {
+        MovieSearchParam second = movieSearchParam.toBuilder().title("Batman").build();
+        MovieSearchParam third = movieSearchParam.toBuilder().title("Joker").build();
+        cache.put(movieSearchParam, new MovieSearchCountCache.Count(1, false, false));
+        cache.put(second, new MovieSearchCountCache.Count(2, false, false));
+
+        // Using the first count makes the second one the least recently used
+        cache.get(movieSearchParam, false);
+        cache.put(third, new MovieSearchCountCache.Count(3, false, false));
+
+        assertEquals(2, cache.size());
+        assertEquals(1, cache.get(movieSearchParam, false).totalItems());
+        assertNull(cache.get(second, false));
+        assertEquals(3, cache.get(third, false).totalItems());
+    }
+}
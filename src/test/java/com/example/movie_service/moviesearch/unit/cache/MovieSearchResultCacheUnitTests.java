@@ -0,0 +1,90 @@
+package com.example.movie_service.moviesearch.unit.cache;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.cache.MovieCatalogueChangedEvent;
+import com.example.movie_service.cache.MovieSearchResultCache;
+import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.example.movie_service.constants.TestConstant.ASC;
+import static com.example.movie_service.constants.TestConstant.DESC;
+import static com.example.movie_service.constants.TestConstant.ORDER_BY_TITLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MovieSearchResultCacheUnitTests {
+
+    private final AtomicLong now = new AtomicLong();
+
+    private MovieSearchResultCache cache;
+
+    private MovieSearchParam movieSearchParam;
+
+    private MovieSearchWithTitleDTOFromRepoToService result;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new MovieSearchResultCache(100, Duration.ofSeconds(60), now::get);
+        movieSearchParam = MovieSearchParam.builder().title("Dark Knight").releasedYear("2008").limit(10).page(0)
+                .orderBy(ORDER_BY_TITLE).direction(ASC).build();
+        result = new MovieSearchWithTitleDTOFromRepoToService(1, List.of());
+    }
+
+    @Test
+    void get_ShouldReturnTheResult_ForTheSameSearchWithAnotherCaseOrSpaces() {
+        cache.put(movieSearchParam, result);
+
+        assertSame(result, cache.get(movieSearchParam.toBuilder().title("  DARK knight ").director("").build()));
+        assertEquals(1, cache.getStats().hits());
+    }
+
+    @Test
+    void get_ShouldReturnNull_ForAnotherPageLimitOrOrder() {
+        cache.put(movieSearchParam, result);
+
+        assertNull(cache.get(movieSearchParam.toBuilder().page(1).build()));
+        assertNull(cache.get(movieSearchParam.toBuilder().limit(20).build()));
+        assertNull(cache.get(movieSearchParam.toBuilder().direction(DESC).build()));
+        assertNull(cache.get(movieSearchParam.toBuilder().genre("Action").build()));
+        assertNull(cache.get(movieSearchParam.toBuilder().cursor("next").build()));
+        assertEquals(5, cache.getStats().misses());
+    }
+
+    @Test
+    void get_ShouldReturnNull_WhenTheResultExpired() {
+        cache.put(movieSearchParam, result);
+
+        now.addAndGet(Duration.ofSeconds(60).toNanos());
+
+        assertNull(cache.get(movieSearchParam));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void onCatalogueChanged_ShouldForgetTheSearches_WhenAMovieIsAddedOrTheCatalogueIsLoadedAgain() {
+        cache.put(movieSearchParam, result);
+
+        cache.onCatalogueChanged(new MovieCatalogueChangedEvent(Set.of("tt0000404"), true));
+        assertNull(cache.get(movieSearchParam));
+
+        cache.put(movieSearchParam, result);
+        cache.onCatalogueChanged(MovieCatalogueChangedEvent.reloaded());
+        assertNull(cache.get(movieSearchParam));
+    }
+
+    @Test
+    void onCatalogueChanged_ShouldKeepTheSearches_WhenOnlyExistingMoviesChanged() {
+        cache.put(movieSearchParam, result);
+
+        cache.onCatalogueChanged(new MovieCatalogueChangedEvent(Set.of("tt0000404"), false));
+
+        assertSame(result, cache.get(movieSearchParam));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.movie_service.moviesearch.unit.cache;
+
+import com.example.movie_service.cache.RefreshAheadCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The refreshes are queued by the test executor, and run by the test when it wants
+ */
+class RefreshAheadCacheUnitTests {
+
+    private static final Duration TTL = Duration.ofSeconds(60);
+    private static final Duration REFRESH_AFTER = Duration.ofSeconds(45);
+    private static final Duration MAX_STALE = Duration.ofSeconds(30);
+
+    private final AtomicLong now = new AtomicLong();
+    private final List<Runnable> queuedRefreshes = new ArrayList<>();
+    private final AtomicInteger loads = new AtomicInteger();
+
+    private RefreshAheadCache<String, String> cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new RefreshAheadCache<>(100, TTL, REFRESH_AFTER, MAX_STALE, queuedRefreshes::add, now::get);
+        cache.put("dark knight", "v0");
+    }
+
+    @Test
+    void get_ShouldNotRefresh_BeforeRefreshAfter() {
+        advance(REFRESH_AFTER.minusSeconds(1));
+
+        assertEquals("v0", cache.get("dark knight", this::load));
+        assertEquals("v0", cache.get("dark knight", this::load));
+        assertTrue(queuedRefreshes.isEmpty());
+    }
+
+    @Test
+    void get_ShouldRefreshAPopularEntry_BeforeItExpires() {
+        advance(REFRESH_AFTER);
+
+        // The first read doesn't make it popular
+        assertEquals("v0", cache.get("dark knight", this::load));
+        assertTrue(queuedRefreshes.isEmpty());
+        assertEquals("v0", cache.get("dark knight", this::load));
+        assertEquals(1, queuedRefreshes.size());
+
+        runRefreshes();
+        advance(TTL.minus(REFRESH_AFTER));
+
+        assertEquals("v1", cache.get("dark knight", this::load));
+        assertEquals(1, cache.getRefreshStats().refreshes());
+        assertEquals(0, cache.getRefreshStats().staleHits());
+    }
+
+    @Test
+    void get_ShouldReturnTheStaleValue_WhileItsRefreshed() {
+        advance(TTL);
+
+        assertEquals("v0", cache.get("dark knight", this::load));
+        assertEquals(1, queuedRefreshes.size());
+        assertEquals(1, cache.getRefreshStats().staleHits());
+
+        runRefreshes();
+
+        assertEquals("v1", cache.get("dark knight", this::load));
+    }
+
+    @Test
+    void get_ShouldNotReturnTheStaleValue_WithoutARefresh() {
+        advance(TTL);
+
+        assertNull(cache.get("dark knight"));
+        assertEquals("v0", cache.get("dark knight", this::load));
+    }
+
+    @Test
+    void get_ShouldReturnNull_WhenTheValueIsTooStale() {
+        advance(TTL.plus(MAX_STALE));
+
+        assertNull(cache.get("dark knight", this::load));
+        assertTrue(queuedRefreshes.isEmpty());
+    }
+
+    @Test
+    void get_ShouldRunOneRefreshOfAKeyAtATime() {
+        advance(TTL);
+
+        cache.get("dark knight", this::load);
+        cache.get("dark knight", this::load);
+        cache.get("dark knight", this::load);
+        assertEquals(1, queuedRefreshes.size());
+
+        runRefreshes();
+        advance(TTL);
+        cache.get("dark knight", this::load);
+
+        assertEquals(1, queuedRefreshes.size());
+    }
+
+    @Test
+    void get_ShouldKeepTheStaleValueAndTryAgain_WhenTheRefreshFails() {
+        advance(TTL);
+
+        cache.get("dark knight", () -> {
+            throw new IllegalStateException("The database is down");
+        });
+        runRefreshes();
+
+        assertEquals("v0", cache.get("dark knight", this::load));
+        assertEquals(1, queuedRefreshes.size());
+        assertEquals(1, cache.getRefreshStats().refreshFailures());
+    }
+
+    @Test
+    void get_ShouldDropTheRefresh_WhenTheExecutorIsBusy() {
+        cache = new RefreshAheadCache<>(100, TTL, REFRESH_AFTER, MAX_STALE, command -> {
+            throw new RejectedExecutionException();
+        }, now::get);
+        cache.put("dark knight", "v0");
+        advance(TTL);
+
+        assertEquals("v0", cache.get("dark knight", this::load));
+        assertEquals("v0", cache.get("dark knight", this::load));
+        assertEquals(2, cache.getRefreshStats().droppedRefreshes());
+        assertEquals(0, loads.get());
+    }
+
+    private void load() {
+        cache.put("dark knight", "v" + loads.incrementAndGet());
+    }
+
+    private void runRefreshes() {
+        List<Runnable> refreshes = new ArrayList<>(queuedRefreshes);
+        queuedRefreshes.clear();
+        refreshes.forEach(Runnable::run);
+    }
+
+    private void advance(Duration duration) {
+        now.addAndGet(duration.toNanos());
+    }
+}
@@ -0,0 +1,186 @@
+package com.example.movie_service.moviesearch.unit.cache;
+
+import com.example.movie_service.cache.SingleFlight;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.BooleanSupplier;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The leader's load is held by a latch until the other callers are waiting for it
+ */
+class SingleFlightUnitTests {
+
+    private static final int FOLLOWERS = 7;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(FOLLOWERS + 1);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_ShouldRunTheLoadOnce_ForTheConcurrentCallersOfAKey() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("dark knight", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "result";
+        }));
+        waitUntil(() -> loads.get() == 1);
+        List<Future<String>> followers = submitFollowers(singleFlight, () -> {
+            loads.incrementAndGet();
+            return "duplicate";
+        });
+        waitUntil(() -> singleFlight.getStats().coalesced() == FOLLOWERS);
+        release.countDown();
+
+        assertEquals("result", leader.get(5, TimeUnit.SECONDS));
+        for (Future<String> follower : followers) {
+            assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+        }
+        assertEquals(1, loads.get());
+        SingleFlight.Stats stats = singleFlight.getStats();
+        assertEquals(FOLLOWERS + 1, stats.calls());
+        assertEquals(1, stats.loads());
+        assertEquals((double) FOLLOWERS / (FOLLOWERS + 1), stats.coalescingRatio());
+    }
+
+    @Test
+    void execute_ShouldLoadAgain_AfterTheLeaderFinished() {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+
+        singleFlight.execute("dark knight", () -> "first");
+
+        assertEquals("second", singleFlight.execute("dark knight", () -> "second"));
+        assertEquals(2, singleFlight.getStats().loads());
+    }
+
+    @Test
+    void execute_ShouldLoadAgainOnce_WhenTheLeaderFails() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("dark knight", () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new IllegalStateException("The leader's query was cancelled");
+        }));
+        waitUntil(() -> loads.get() == 1);
+        List<Future<String>> followers = submitFollowers(singleFlight, () -> {
+            loads.incrementAndGet();
+            return "result";
+        });
+        waitUntil(() -> singleFlight.getStats().coalesced() == FOLLOWERS);
+        release.countDown();
+
+        ExecutionException exception = assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        assertEquals(IllegalStateException.class, exception.getCause().getClass());
+        for (Future<String> follower : followers) {
+            assertEquals("result", follower.get(5, TimeUnit.SECONDS));
+        }
+        // The followers coalesce on a new leader, unless one of them finished before another one got there
+        assertTrue(loads.get() >= 2 && loads.get() <= FOLLOWERS + 1, loads.get() + " loads");
+        assertEquals(FOLLOWERS, singleFlight.getStats().leaderFailures());
+    }
+
+    @Test
+    void execute_ShouldThrowTheFailure_WhenTheLoadFailsAgain() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofSeconds(5));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("dark knight", () -> {
+            loads.incrementAndGet();
+            await(release);
+            throw new IllegalStateException("The database is down");
+        }));
+        waitUntil(() -> loads.get() == 1);
+        Future<String> follower = executor.submit(() -> singleFlight.execute("dark knight", () -> {
+            throw new IllegalArgumentException("The database is still down");
+        }));
+        waitUntil(() -> singleFlight.getStats().coalesced() == 1);
+        release.countDown();
+
+        assertThrows(ExecutionException.class, () -> leader.get(5, TimeUnit.SECONDS));
+        ExecutionException exception = assertThrows(ExecutionException.class,
+                () -> follower.get(5, TimeUnit.SECONDS));
+        assertEquals(IllegalArgumentException.class, exception.getCause().getClass());
+    }
+
+    @Test
+    void execute_ShouldStopWaiting_WhenTheLeaderIsStuck() throws Exception {
+        SingleFlight<String, String> singleFlight = new SingleFlight<>(Duration.ofMillis(50));
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("dark knight", () -> {
+            loads.incrementAndGet();
+            await(release);
+            return "late";
+        }));
+        waitUntil(() -> loads.get() == 1);
+
+        String result = singleFlight.execute("dark knight", () -> {
+            loads.incrementAndGet();
+            return "result";
+        });
+
+        assertEquals("result", result);
+        assertEquals(1, singleFlight.getStats().waitTimeouts());
+        release.countDown();
+        assertEquals("late", leader.get(5, TimeUnit.SECONDS));
+    }
+
+    private List<Future<String>> submitFollowers(SingleFlight<String, String> singleFlight,
+                                                 Supplier<String> loader) {
+        List<Future<String>> followers = new ArrayList<>();
+        for (int i = 0; i < FOLLOWERS; i++) {
+            followers.add(executor.submit(() -> singleFlight.execute("dark knight", loader)));
+        }
+        return followers;
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            assertTrue(latch.await(5, TimeUnit.SECONDS));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void waitUntil(BooleanSupplier condition) throws InterruptedException {
+        long end = System.currentTimeMillis() + TimeUnit.SECONDS.toMillis(5);
+        while (!condition.getAsBoolean() && System.currentTimeMillis() < end) {
+            Thread.sleep(1);
+        }
+        assertTrue(condition.getAsBoolean());
+    }
+}
@@ -0,0 +1,143 @@
+package com.example.movie_service.moviesearch.unit.cache;
+
+import com.example.movie_service.cache.TinyLfuCache;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class TinyLfuCacheUnitTests {
+
+    private static final int MAX_SIZE = 100;
+
+    private final AtomicLong now = new AtomicLong();
+
+    private TinyLfuCache<String, String> cache;
+
+    @BeforeEach
+    public void setUp() {
+        cache = new TinyLfuCache<>(MAX_SIZE, Duration.ofSeconds(60), now::get);
+    }
+
+    @Test
+    void get_ShouldReturnTheValue_UntilItExpires() {
+        cache.put("dark knight", "result");
+
+        assertEquals("result", cache.get("dark knight"));
+
+        now.addAndGet(Duration.ofSeconds(60).toNanos());
+
+        assertNull(cache.get("dark knight"));
+        assertEquals(0, cache.size());
+        TinyLfuCache.Stats stats = cache.getStats();
+        assertEquals(1, stats.hits());
+        assertEquals(1, stats.misses());
+        assertEquals(0.5, stats.hitRate());
+    }
+
+    @Test
+    void put_ShouldKeepTheCacheBounded() {
+        for (int i = 0; i < MAX_SIZE * 10; i++) {
+            cache.put("once " + i, "result");
+        }
+
+        assertEquals(MAX_SIZE, cache.size());
+        assertEquals(MAX_SIZE * 9, cache.getStats().evictions());
+    }
+
+    @Test
+    void put_ShouldNotLetTheKeysSeenOnceEvictThePopularOnes() {
+        for (int i = 0; i < MAX_SIZE; i++) {
+            cache.put("popular " + i, "result");
+        }
+        for (int round = 0; round < 3; round++) {
+            for (int i = 0; i < MAX_SIZE; i++) {
+                cache.get("popular " + i);
+            }
+        }
+
+        // A scraper searching for titles it never searches again, while the users keep searching the popular ones
+        for (int i = 0; i < MAX_SIZE * 10; i++) {
+            cache.get("once " + i);
+            cache.put("once " + i, "result");
+            cache.get("popular " + (2 * i % MAX_SIZE));
+            cache.get("popular " + ((2 * i + 1) % MAX_SIZE));
+        }
+
+        int popularLeft = 0;
+        for (int i = 0; i < MAX_SIZE; i++) {
+            if (cache.get("popular " + i) != null) {
+                popularLeft++;
+            }
+        }
+        // An LRU cache would keep none of them. The sketch is approximate, so a few may lose to a colliding key.
+        assertTrue(popularLeft >= MAX_SIZE * 9 / 10, popularLeft + " popular entries left");
+        assertTrue(cache.getStats().rejections() > 0);
+    }
+
+    @Test
+    void put_ShouldAdmitAKey_ThatBecamePopular() {
+        for (int i = 0; i < MAX_SIZE; i++) {
+            cache.put("old " + i, "result");
+        }
+        for (int round = 0; round < 5; round++) {
+            cache.get("new");
+        }
+
+        cache.put("new", "result");
+        // Push it out of the window
+        cache.put("once", "result");
+
+        assertEquals("result", cache.get("new"));
+    }
+
+    @Test
+    void remove_ShouldRemoveTheEntry() {
+        cache.put("dark knight", "result");
+
+        cache.remove("dark knight");
+
+        assertNull(cache.get("dark knight"));
+        assertEquals(0, cache.size());
+    }
+
+    @Test
+    void getAndPut_ShouldStayBounded_WhenTheyRunConcurrently() throws InterruptedException {
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        for (int thread = 0; thread < 8; thread++) {
+            int seed = thread;
+            executor.execute(() -> {
+                for (int i = 0; i < 10_000; i++) {
+                    String key = "key " + ((i * 31 + seed) % (MAX_SIZE * 3));
+                    if (cache.get(key) == null) {
+                        cache.put(key, key);
+                    }
+                }
+            });
+        }
+        executor.shutdown();
+        assertTrue(executor.awaitTermination(30, TimeUnit.SECONDS));
+
+        assertTrue(cache.size() <= MAX_SIZE);
+        TinyLfuCache.Stats stats = cache.getStats();
+        assertEquals(80_000, stats.hits() + stats.misses());
+    }
+
+    @Test
+    void get_ShouldReturnNull_WhenTheCacheIsDisabled() {
+        TinyLfuCache<String, String> disabled = new TinyLfuCache<>(0, Duration.ofSeconds(60), now::get);
+
+        disabled.put("dark knight", "result");
+
+        assertNull(disabled.get("dark knight"));
+        assertEquals(0, disabled.size());
+    }
+}
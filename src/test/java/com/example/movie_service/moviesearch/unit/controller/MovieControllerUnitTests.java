@@ -4,6 +4,7 @@ import com.example.movie_service.builder.MovieSearchParam;
 import com.example.movie_service.controller.MovieController;
 import com.example.movie_service.dto.MovieSearchResponseDTO;
 import com.example.movie_service.dto.MovieSearchResultWithPaginationDTO;
+import com.example.movie_service.dto.MovieSuggestionDTO;
 import com.example.movie_service.dto.OneMovieDetailsDTO;
 import com.example.movie_service.response.CustomResponse;
 import com.example.movie_service.service.MovieService;
@@ -85,7 +86,7 @@ class MovieControllerUnitTests {
 
         // Test my actual function
         ResponseEntity<CustomResponse<MovieSearchResultWithPaginationDTO>> actual = movieController.searchMovies(title, releasedYear, director,
-                genre, limit, page, orderBy, direction);
+                genre, limit, page, orderBy, direction, false, null, "exact");
 
         assertEquals(responseEntity, actual);
     }
@@ -108,4 +109,17 @@ class MovieControllerUnitTests {
         assertEquals(expectedResponseEntity, actualResponseEntity);
     }
 
+    @Test
+    void suggestMoviesReturnOkTest() {
+        List<MovieSuggestionDTO> suggestions = List.of(new MovieSuggestionDTO());
+        CustomResponse<List<MovieSuggestionDTO>> customResponse = new CustomResponse<>(MOVIE_FOUND_CODE, MOVIE_FOUND_MESSAGE, suggestions);
+        ResponseEntity<CustomResponse<List<MovieSuggestionDTO>>> expectedResponseEntity = new ResponseEntity<>(customResponse, HttpStatus.OK);
+
+        when(mockMovieService.suggestMovies("th", limit)).thenReturn(expectedResponseEntity);
+
+        ResponseEntity<CustomResponse<List<MovieSuggestionDTO>>> actualResponseEntity = movieController.suggestMovies("th", limit);
+
+        assertEquals(expectedResponseEntity, actualResponseEntity);
+    }
+
 }
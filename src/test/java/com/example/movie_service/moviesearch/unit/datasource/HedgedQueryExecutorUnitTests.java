@@ -0,0 +1,212 @@
+package com.example.movie_service.moviesearch.unit.datasource;
+
+import com.example.movie_service.datasource.HedgedQueryExecutor;
+import com.example.movie_service.datasource.QueryAttempt;
+import com.example.movie_service.datasource.ReadReplicaRouting;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * The reads are stand-ins with injected delays. Each attempt of a read takes the next delay of the queue.
+ */
+class HedgedQueryExecutorUnitTests {
+
+    private static final Duration MIN_DELAY = Duration.ofMillis(20);
+    // Enough fast reads for the percentile to be used
+    private static final int WARM_UP_READS = 20;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void setUp() {
+        executor = Executors.newFixedThreadPool(4);
+    }
+
+    @AfterEach
+    public void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void execute_ShouldRunTheReadOnTheCallersThread_WhenHedgingIsDisabled() {
+        HedgedQueryExecutor hedgedQueryExecutor = new HedgedQueryExecutor(false, 95, MIN_DELAY, 100, executor);
+
+        assertSame(Thread.currentThread(), hedgedQueryExecutor.execute(Thread::currentThread));
+        assertEquals(0, hedgedQueryExecutor.getStats().reads());
+    }
+
+    @Test
+    void execute_ShouldNotHedge_BeforeThereAreEnoughLatencies() {
+        HedgedQueryExecutor hedgedQueryExecutor = new HedgedQueryExecutor(true, 95, MIN_DELAY, 100, executor);
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedgedQueryExecutor.execute(() -> {
+            attempts.incrementAndGet();
+            sleep(MIN_DELAY.toMillis() * 3);
+            return "first";
+        });
+
+        assertEquals("first", result);
+        assertEquals(1, attempts.get());
+        assertEquals(0, hedgedQueryExecutor.getStats().hedges());
+    }
+
+    @Test
+    void execute_ShouldUseTheHedgeAndCancelTheFirstAttempt_WhenTheFirstAttemptIsSlow() throws InterruptedException {
+        HedgedQueryExecutor hedgedQueryExecutor = warmedUp();
+        CountDownLatch firstCancelled = new CountDownLatch(1);
+        Queue<Long> delays = new ConcurrentLinkedQueue<>();
+        delays.add(TimeUnit.SECONDS.toMillis(10));
+        delays.add(0L);
+
+        long start = System.nanoTime();
+        String result = hedgedQueryExecutor.execute(() -> {
+            long delay = delays.remove();
+            QueryAttempt attempt = ReadReplicaRouting.currentAttempt();
+            long end = System.currentTimeMillis() + delay;
+            while (System.currentTimeMillis() < end) {
+                if (attempt.isCancelled()) {
+                    firstCancelled.countDown();
+                    throw new IllegalStateException("cancelled");
+                }
+                sleep(1);
+            }
+            return delay == 0 ? "hedge" : "first";
+        });
+
+        assertEquals("hedge", result);
+        assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(5));
+        assertTrue(firstCancelled.await(5, TimeUnit.SECONDS));
+        HedgedQueryExecutor.Stats stats = hedgedQueryExecutor.getStats();
+        assertEquals(1, stats.hedges());
+        assertEquals(1, stats.hedgeWins());
+        assertEquals(1.0 / (WARM_UP_READS + 1), stats.hedgeRate());
+    }
+
+    @Test
+    void execute_ShouldUseTheFirstAttempt_WhenTheHedgeFails() {
+        HedgedQueryExecutor hedgedQueryExecutor = warmedUp();
+        AtomicInteger attempts = new AtomicInteger();
+
+        String result = hedgedQueryExecutor.execute(() -> {
+            if (attempts.incrementAndGet() == 2) {
+                throw new IllegalStateException("The second DataSource is down");
+            }
+            sleep(MIN_DELAY.toMillis() * 5);
+            return "first";
+        });
+
+        assertEquals("first", result);
+        assertEquals(1, hedgedQueryExecutor.getStats().hedges());
+        assertEquals(0, hedgedQueryExecutor.getStats().hedgeWins());
+    }
+
+    @Test
+    void execute_ShouldThrowTheReadsException_WhenEveryAttemptFails() {
+        HedgedQueryExecutor hedgedQueryExecutor = warmedUp();
+
+        IllegalStateException exception = assertThrows(IllegalStateException.class,
+                () -> hedgedQueryExecutor.execute(() -> {
+                    sleep(MIN_DELAY.toMillis() * 2);
+                    throw new IllegalStateException("The query timed out");
+                }));
+
+        assertEquals("The query timed out", exception.getMessage());
+    }
+
+    @Test
+    void execute_ShouldThrowTheReadsException_WhenTheFirstAttemptFailsBeforeTheHedge() {
+        HedgedQueryExecutor hedgedQueryExecutor = warmedUp();
+
+        assertThrows(IllegalArgumentException.class, () -> hedgedQueryExecutor.execute(() -> {
+            throw new IllegalArgumentException("Bad SQL");
+        }));
+        assertEquals(0, hedgedQueryExecutor.getStats().hedges());
+    }
+
+    @Test
+    void execute_ShouldRunTheReadOnTheCallersThreadWithoutAHedge_WhenEveryThreadIsBusy() {
+        HedgedQueryExecutor hedgedQueryExecutor = new HedgedQueryExecutor(true, 95, MIN_DELAY, 100, command -> {
+            throw new RejectedExecutionException();
+        });
+
+        assertSame(Thread.currentThread(), hedgedQueryExecutor.execute(Thread::currentThread));
+        assertEquals(1, hedgedQueryExecutor.getStats().unhedgedReads());
+    }
+
+    @Test
+    void execute_ShouldSkipTheHedge_WhenEveryThreadIsBusy() {
+        AtomicInteger submitted = new AtomicInteger();
+        HedgedQueryExecutor hedgedQueryExecutor = new HedgedQueryExecutor(true, 95, MIN_DELAY, 100, command -> {
+            // Every first attempt gets a thread, and the first hedge doesn't
+            if (submitted.incrementAndGet() == WARM_UP_READS + 2) {
+                throw new RejectedExecutionException();
+            }
+            executor.execute(command);
+        });
+        warmUp(hedgedQueryExecutor);
+
+        String result = hedgedQueryExecutor.execute(() -> {
+            sleep(MIN_DELAY.toMillis() * 3);
+            return "first";
+        });
+
+        assertEquals("first", result);
+        assertEquals(0, hedgedQueryExecutor.getStats().hedges());
+        assertEquals(1, hedgedQueryExecutor.getStats().skippedHedges());
+    }
+
+    @Test
+    void execute_ShouldNotCountTheTimeBeforeTheAttemptRuns() {
+        HedgedQueryExecutor hedgedQueryExecutor = new HedgedQueryExecutor(true, 95, MIN_DELAY, 100, command -> {
+            // The attempt waits for a thread longer than the minimum delay
+            executor.execute(() -> {
+                sleep(MIN_DELAY.toMillis() * 3);
+                command.run();
+            });
+        });
+
+        warmUp(hedgedQueryExecutor);
+
+        assertEquals(MIN_DELAY.toNanos(), hedgedQueryExecutor.getStats().hedgeDelayNanos());
+    }
+
+    // The fast reads make the hedge delay the minimum delay
+    private HedgedQueryExecutor warmedUp() {
+        HedgedQueryExecutor hedgedQueryExecutor = new HedgedQueryExecutor(true, 95, MIN_DELAY, 100, executor);
+        warmUp(hedgedQueryExecutor);
+        assertEquals(MIN_DELAY.toNanos(), hedgedQueryExecutor.getStats().hedgeDelayNanos());
+        return hedgedQueryExecutor;
+    }
+
+    private static void warmUp(HedgedQueryExecutor hedgedQueryExecutor) {
+        for (int i = 0; i < WARM_UP_READS; i++) {
+            hedgedQueryExecutor.execute(() -> "warm-up");
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+}
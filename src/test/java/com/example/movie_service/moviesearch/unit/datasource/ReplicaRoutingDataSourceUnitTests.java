@@ -0,0 +1,207 @@
+package com.example.movie_service.moviesearch.unit.datasource;
+
+import com.example.movie_service.datasource.QueryAttempt;
+import com.example.movie_service.datasource.ReadReplicaRouting;
+import com.example.movie_service.datasource.ReplicaRoutingDataSource;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doReturn;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class ReplicaRoutingDataSourceUnitTests {
+
+    private static final long MAX_LAG_SECONDS = 5;
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica1;
+
+    @Mock
+    private DataSource replica2;
+
+    private ReplicaRoutingDataSource dataSource;
+
+    @BeforeEach
+    public void setUp() {
+        Map<String, DataSource> replicas = new LinkedHashMap<>();
+        replicas.put("replica-1", replica1);
+        replicas.put("replica-2", replica2);
+        dataSource = new ReplicaRoutingDataSource(primary, replicas, MAX_LAG_SECONDS);
+    }
+
+    @Test
+    void getConnection_ShouldUseThePrimary_WhenTheReadIsNotMarked() throws SQLException {
+        Connection connection = mock(Connection.class);
+        when(primary.getConnection()).thenReturn(connection);
+
+        assertSame(connection, dataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ShouldUseTheReplicasInTurn_WhenTheReadIsMarked() throws SQLException {
+        Connection connection1 = mock(Connection.class);
+        Connection connection2 = mock(Connection.class);
+        when(replica1.getConnection()).thenReturn(connection1);
+        when(replica2.getConnection()).thenReturn(connection2);
+
+        List<Connection> connections = ReadReplicaRouting.readOnly(() -> List.of(
+                getConnection(), getConnection(), getConnection()));
+
+        assertEquals(List.of(connection1, connection2, connection1), connections);
+        assertFalse(ReadReplicaRouting.isReadOnly());
+    }
+
+    @Test
+    void getConnection_ShouldFallBackToThePrimary_WhenAReplicaFails() throws SQLException {
+        Connection connection2 = mock(Connection.class);
+        Connection primaryConnection = mock(Connection.class);
+        when(replica1.getConnection()).thenThrow(new SQLException("Connection refused"));
+        when(replica2.getConnection()).thenReturn(connection2);
+        when(primary.getConnection()).thenReturn(primaryConnection);
+
+        List<Connection> connections = ReadReplicaRouting.readOnly(() -> List.of(getConnection(), getConnection()));
+
+        // The failed replica is skipped afterwards
+        assertEquals(List.of(primaryConnection, connection2), connections);
+        assertEquals(List.of("replica-2"), dataSource.getHealthyReplicas());
+    }
+
+    @Test
+    void getConnection_ShouldSendTheHedgeToAnotherReplica_AndCancelTheStatementsOfACancelledAttempt()
+            throws SQLException {
+        Connection connection1 = mock(Connection.class);
+        Connection connection2 = mock(Connection.class);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(replica1.getConnection()).thenReturn(connection1);
+        when(replica2.getConnection()).thenReturn(connection2);
+        when(connection1.prepareStatement("SELECT 1")).thenReturn(statement);
+        QueryAttempt first = new QueryAttempt(null);
+        QueryAttempt hedge = new QueryAttempt(first);
+
+        ReadReplicaRouting.readOnly(() -> ReadReplicaRouting.attempt(first, () -> prepareStatement("SELECT 1")));
+        // Another read takes replica-2, so replica-1 is the next one in turn when the hedge starts
+        ReadReplicaRouting.readOnly(this::getConnection);
+        ReadReplicaRouting.readOnly(() -> ReadReplicaRouting.attempt(hedge, this::getConnection));
+        first.cancel();
+
+        assertEquals("replica-1", first.getDataSourceName());
+        assertEquals("replica-2", hedge.getDataSourceName());
+        verify(statement).cancel();
+    }
+
+    @Test
+    void getConnection_ShouldSendTheHedgeToThePrimary_WhenThereIsNoOtherHealthyReplica() throws SQLException {
+        ReplicaRoutingDataSource oneReplicaDataSource =
+                new ReplicaRoutingDataSource(primary, Map.of("replica-1", replica1), MAX_LAG_SECONDS);
+        when(replica1.getConnection()).thenReturn(mock(Connection.class));
+        when(primary.getConnection()).thenReturn(mock(Connection.class));
+        QueryAttempt first = new QueryAttempt(null);
+        QueryAttempt hedge = new QueryAttempt(first);
+
+        ReadReplicaRouting.readOnly(() -> ReadReplicaRouting.attempt(first, () -> getConnection(oneReplicaDataSource)));
+        ReadReplicaRouting.readOnly(() -> ReadReplicaRouting.attempt(hedge, () -> getConnection(oneReplicaDataSource)));
+
+        assertEquals("replica-1", first.getDataSourceName());
+        assertEquals("primary", hedge.getDataSourceName());
+    }
+
+    @Test
+    void checkReplicas_ShouldOnlyKeepTheReplicasWithinTheMaxLag() throws SQLException {
+        ResultSet laggingStatus = replicaStatus(replica1);
+        when(laggingStatus.next()).thenReturn(true);
+        when(laggingStatus.getLong("Seconds_Behind_Source")).thenReturn(MAX_LAG_SECONDS + 1);
+        ResultSet upToDateStatus = replicaStatus(replica2);
+        when(upToDateStatus.next()).thenReturn(true);
+        when(upToDateStatus.getLong("Seconds_Behind_Source")).thenReturn(MAX_LAG_SECONDS);
+
+        dataSource.checkReplicas();
+
+        assertEquals(List.of("replica-2"), dataSource.getHealthyReplicas());
+    }
+
+    @Test
+    void checkReplicas_ShouldNotUseAReplica_WhenItsReplicationIsStopped() throws SQLException {
+        ResultSet stoppedStatus = replicaStatus(replica1);
+        when(stoppedStatus.next()).thenReturn(true);
+        when(stoppedStatus.wasNull()).thenReturn(true);
+        // A database that isn't replicating from anything has no status row
+        ResultSet noStatus = replicaStatus(replica2);
+        when(noStatus.next()).thenReturn(false);
+
+        dataSource.checkReplicas();
+
+        assertEquals(List.of("replica-2"), dataSource.getHealthyReplicas());
+    }
+
+    @Test
+    void checkReplicas_ShouldUseAReplicaAgain_WhenItRecovers() throws SQLException {
+        when(replica1.getConnection()).thenThrow(new SQLException("Connection refused"));
+        ResultSet noStatus = replicaStatus(replica2);
+        when(noStatus.next()).thenReturn(false);
+        dataSource.checkReplicas();
+        assertEquals(List.of("replica-2"), dataSource.getHealthyReplicas());
+
+        doReturn(replicaStatusConnection(noStatus)).when(replica1).getConnection();
+        dataSource.checkReplicas();
+
+        assertTrue(dataSource.getHealthyReplicas().contains("replica-1"));
+    }
+
+    private Connection getConnection() {
+        return getConnection(dataSource);
+    }
+
+    private static Connection getConnection(DataSource dataSource) {
+        try {
+            return dataSource.getConnection();
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private PreparedStatement prepareStatement(String sql) {
+        try {
+            return getConnection().prepareStatement(sql);
+        } catch (SQLException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static ResultSet replicaStatus(DataSource replica) throws SQLException {
+        ResultSet status = mock(ResultSet.class);
+        Connection connection = replicaStatusConnection(status);
+        when(replica.getConnection()).thenReturn(connection);
+        return status;
+    }
+
+    private static Connection replicaStatusConnection(ResultSet status) throws SQLException {
+        Connection connection = mock(Connection.class);
+        Statement statement = mock(Statement.class);
+        when(connection.createStatement()).thenReturn(statement);
+        when(statement.executeQuery("SHOW REPLICA STATUS")).thenReturn(status);
+        return connection;
+    }
+}
@@ -0,0 +1,128 @@
+package com.example.movie_service.moviesearch.unit.index;
+
+import com.example.movie_service.cache.MovieCatalogueChangedEvent;
+import com.example.movie_service.index.MovieChangeBatch;
+import com.example.movie_service.index.MovieDocument;
+import com.example.movie_service.index.MovieSearchIndex;
+import com.example.movie_service.index.MovieSearchIndexHolder;
+import com.example.movie_service.index.MovieSearchIndexLoader;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MovieSearchIndexHolderUnitTests {
+
+    @Mock
+    private MovieSearchIndexLoader loader;
+
+    private final List<Object> events = new ArrayList<>();
+
+    private MovieSearchIndexHolder indexHolder;
+
+    @BeforeEach
+    public void setUp() {
+        indexHolder = new MovieSearchIndexHolder(loader, events::add, "", 1);
+    }
+
+    @Test
+    void applyChanges_ShouldDoNothing_BeforeTheIndexIsLoaded() {
+        indexHolder.applyChanges();
+
+        verifyNoInteractions(loader);
+    }
+
+    @Test
+    void applyChanges_ShouldSwapInAnIndexWithTheWholeBatch() {
+        loadIndex(document("tt1", "The Dark Knight"), document("tt2", "Dark Waters"));
+        MovieSearchIndex loadedIndex = indexHolder.getIndex().getShards().get(0);
+        when(loader.loadChanges(any(), any())).thenReturn(new MovieChangeBatch(Set.of("tt2", "tt3"),
+                List.of(document("tt3", "Dark City")), List.of(), List.of()));
+
+        indexHolder.applyChanges();
+
+        MovieSearchIndex changedIndex = indexHolder.getIndex().getShards().get(0);
+        assertArrayEquals(new int[]{0, 2}, changedIndex.matchPhrase("dark"));
+        assertEquals("Dark City", changedIndex.getDocument(2).getTitle());
+        assertArrayEquals(new int[]{0, 1}, loadedIndex.matchPhrase("dark"));
+    }
+
+    @Test
+    void applyChanges_ShouldOnlyPublishAnAddedMovie_TheFirstTimeTheBatchIsApplied() {
+        loadIndex(document("tt1", "The Dark Knight"), document("tt2", "Dark Waters"));
+        when(loader.loadChanges(any(), any())).thenReturn(new MovieChangeBatch(Set.of("tt2", "tt3"),
+                List.of(document("tt3", "Dark City")), List.of(), List.of()));
+
+        // The overlap of the next poll reads the same changes again
+        indexHolder.applyChanges();
+        indexHolder.applyChanges();
+
+        assertEquals(List.of(MovieCatalogueChangedEvent.reloaded(),
+                new MovieCatalogueChangedEvent(Set.of("tt2", "tt3"), true),
+                new MovieCatalogueChangedEvent(Set.of("tt2", "tt3"), false)), events);
+    }
+
+    @Test
+    void applyChanges_ShouldLoadFromTheLastPoll_WithAnOverlap() {
+        Instant beforeLoad = Instant.now();
+        loadIndex(document("tt1", "The Dark Knight"));
+        when(loader.loadChanges(any(), any()))
+                .thenReturn(new MovieChangeBatch(Set.of(), List.of(), List.of(), List.of()));
+
+        indexHolder.applyChanges();
+        indexHolder.applyChanges();
+
+        ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+        ArgumentCaptor<Instant> until = ArgumentCaptor.forClass(Instant.class);
+        verify(loader, times(2)).loadChanges(since.capture(), until.capture());
+        assertFalse(since.getAllValues().get(0).isBefore(beforeLoad.minus(Duration.ofMinutes(1))));
+        assertEquals(until.getAllValues().get(0).minus(Duration.ofMinutes(1)), since.getAllValues().get(1));
+    }
+
+    @Test
+    void applyChanges_ShouldKeepTheIndexAndTheStartOfTheChanges_WhenLoadingFails() {
+        loadIndex(document("tt1", "The Dark Knight"));
+        MovieSearchIndex loadedIndex = indexHolder.getIndex().getShards().get(0);
+        when(loader.loadChanges(any(), any())).thenThrow(new IllegalStateException("database unavailable"));
+
+        assertThrows(IllegalStateException.class, () -> indexHolder.applyChanges());
+        assertThrows(IllegalStateException.class, () -> indexHolder.applyChanges());
+
+        ArgumentCaptor<Instant> since = ArgumentCaptor.forClass(Instant.class);
+        verify(loader, times(2)).loadChanges(since.capture(), any());
+        assertEquals(since.getAllValues().get(0), since.getAllValues().get(1));
+        assertSame(loadedIndex, indexHolder.getIndex().getShards().get(0));
+    }
+
+    private void loadIndex(MovieDocument... documents) {
+        when(loader.loadDocuments()).thenReturn(List.of(documents));
+        when(loader.loadGenres()).thenReturn(List.of());
+        when(loader.loadDirectors()).thenReturn(List.of());
+        indexHolder.refresh();
+    }
+
+    private static MovieDocument document(String id, String title) {
+        return new MovieDocument(id, title, "2008", "Christopher Nolan", "backdropPath", "posterPath", 9.0,
+                "overview", "Action", 100);
+    }
+}
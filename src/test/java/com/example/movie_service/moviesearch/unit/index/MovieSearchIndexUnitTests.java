@@ -0,0 +1,249 @@
+package com.example.movie_service.moviesearch.unit.index;
+
+import com.example.movie_service.dto.MovieFilterAttributeDTO;
+import com.example.movie_service.index.MovieChangeBatch;
+import com.example.movie_service.index.MovieDocument;
+import com.example.movie_service.index.MovieSearchIndex;
+import com.example.movie_service.index.TitleAnalyzer;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Set;
+
+import static com.example.movie_service.constants.TestConstant.ASC;
+import static com.example.movie_service.constants.TestConstant.DESC;
+import static com.example.movie_service.constants.TestConstant.ORDER_BY_TITLE;
+import static com.example.movie_service.constants.TestConstant.RATING;
+import static com.example.movie_service.constants.TestConstant.RELEASE_TIME;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+class MovieSearchIndexUnitTests {
+
+    private MovieSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = MovieSearchIndex.build(List.of(
+                document("tt1", "The Dark Knight", "2008-07-18", "Christopher Nolan", 9.0, "Action, Crime"),
+                document("tt2", "The Dark Knight Rises", "2012-07-20", "Christopher Nolan", 8.4, "Action, Drama"),
+                document("tt3", "Knight and Day", "2010", "James Mangold", null, "Action, Comedy"),
+                document("tt4", "Dark Waters", null, "Todd Haynes", 7.6, "Docudrama"),
+                // Documents without poster_path are never searched
+                MovieDocument.builder().id("tt5").title("The Dark Knight Returns").build()));
+    }
+
+    @Test
+    void matchPhrase_ShouldMatchTermsInOrder() {
+        assertArrayEquals(new int[]{0, 1}, index.matchPhrase("dark knight"));
+        assertArrayEquals(new int[]{}, index.matchPhrase("knight dark"));
+    }
+
+    @Test
+    void matchPhrase_ShouldBeCaseInsensitive() {
+        assertArrayEquals(new int[]{0, 1, 2}, index.matchPhrase("KNIGHT"));
+    }
+
+    @Test
+    void matchPhrase_ShouldMatchNothing_WhenOnlyStopwordsOrShortTerms() {
+        assertArrayEquals(new int[]{}, index.matchPhrase("the"));
+        assertArrayEquals(new int[]{}, index.matchPhrase("kn"));
+    }
+
+    @Test
+    void matchPhrase_ShouldMatchNothing_WhenTermIsUnknown() {
+        assertArrayEquals(new int[]{}, index.matchPhrase("batman"));
+    }
+
+    @Test
+    void matchSubstring_ShouldMatchPartOfTerms() {
+        assertArrayEquals(new int[]{0, 1, 2}, index.matchSubstring("nig"));
+        assertArrayEquals(new int[]{0, 1}, index.matchSubstring("k kn"));
+    }
+
+    @Test
+    void matchSubstring_ShouldMatchNothing_WhenTrigramIsUnknown() {
+        assertArrayEquals(new int[]{}, index.matchSubstring("knightz"));
+    }
+
+    @Test
+    void matchSubstring_ShouldMatchShortTitles_WithoutTrigrams() {
+        assertArrayEquals(new int[]{0, 1, 3}, index.matchSubstring("ar"));
+    }
+
+    @Test
+    void matchSubstring_ShouldKeepLikeWildcards() {
+        assertArrayEquals(new int[]{0, 1}, index.matchSubstring("dark%night"));
+        assertArrayEquals(new int[]{1}, index.matchSubstring("dark%rises"));
+        assertArrayEquals(new int[]{0, 1, 3}, index.matchSubstring("d_rk"));
+        assertArrayEquals(new int[]{}, index.matchSubstring("d\\_rk"));
+    }
+
+    @Test
+    void matchSubstring_ShouldIgnoreAccents() {
+        MovieSearchIndex accentIndex = MovieSearchIndex.build(List.of(
+                document("tt1", "Amélie", "2001", "Jean-Pierre Jeunet", 8.3, "Comedy")));
+
+        assertArrayEquals(new int[]{0}, accentIndex.matchSubstring("AMELIE"));
+        assertArrayEquals(new int[]{0}, accentIndex.matchPhrase("amélie"));
+    }
+
+    @Test
+    void matchFuzzy_ShouldMatchMisspelledTerms_InAnyOrder() {
+        assertArrayEquals(new int[]{0, 1}, index.matchFuzzy("drak knihgt"));
+        assertArrayEquals(new int[]{0, 1}, index.matchFuzzy("knigt dark"));
+        assertArrayEquals(new int[]{1}, index.matchFuzzy("rizes"));
+    }
+
+    @Test
+    void matchFuzzy_ShouldMatchNothing_WhenTooManyEdits() {
+        assertArrayEquals(new int[]{}, index.matchFuzzy("dxxk"));
+        assertArrayEquals(new int[]{}, index.matchFuzzy("the"));
+    }
+
+    @Test
+    void filter_ShouldApplyAllFilters() {
+        int[] all = {0, 1, 2, 3};
+        assertArrayEquals(new int[]{1}, index.filter(all, "2012", null, null));
+        assertArrayEquals(new int[]{0, 1}, index.filter(all, "", "nolan", null));
+        assertArrayEquals(new int[]{1}, index.filter(all, null, null, "drama"));
+        assertArrayEquals(new int[]{0}, index.filter(all, "2008", "Nolan", "crime"));
+    }
+
+    @Test
+    void filter_ShouldResolveReleasedYearPrefixes() {
+        int[] all = {0, 1, 2, 3};
+        assertArrayEquals(new int[]{0, 1, 2}, index.filter(all, "20", null, null));
+        assertArrayEquals(new int[]{0}, index.filter(all, "2008-07", null, null));
+        assertArrayEquals(new int[]{}, index.filter(all, "2010-01", null, null));
+        assertArrayEquals(new int[]{}, index.filter(all, "1999", null, null));
+    }
+
+    @Test
+    void filter_ShouldOnlyKeepCandidates() {
+        assertArrayEquals(new int[]{1}, index.filter(new int[]{1, 3}, null, null, "action"));
+        assertArrayEquals(new int[]{}, index.filter(new int[]{2, 3}, null, "nolan", null));
+    }
+
+    @Test
+    void filter_ShouldUseGenreAndDirectorIds_WhenBuiltWithAttributes() {
+        List<MovieDocument> documents = List.of(
+                document("tt1", "The Dark Knight", "2008", "Christopher Nolan", 9.0, "Action, Crime"),
+                document("tt4", "Dark Waters", null, "Todd Haynes", 7.6, "Docudrama"));
+        MovieSearchIndex attributeIndex = MovieSearchIndex.build(documents,
+                List.of(new MovieFilterAttributeDTO("tt1", "1", "Action"),
+                        new MovieFilterAttributeDTO("tt1", "2", "Crime"),
+                        new MovieFilterAttributeDTO("tt4", "3", "Docudrama"),
+                        // Attributes of movies that are not in the index are ignored
+                        new MovieFilterAttributeDTO("tt9", "4", "Drama")),
+                List.of(new MovieFilterAttributeDTO("tt1", "nm1", "Christopher Nolan"),
+                        new MovieFilterAttributeDTO("tt4", "nm2", "Todd Haynes")));
+
+        int[] all = {0, 1};
+        assertArrayEquals(new int[]{1}, attributeIndex.filter(all, null, null, "DOCUDRAMA"));
+        assertArrayEquals(new int[]{}, attributeIndex.filter(all, null, null, "Drama"));
+        assertArrayEquals(new int[]{0}, attributeIndex.filter(all, null, "nolan", "crime"));
+        assertArrayEquals(new int[]{}, attributeIndex.filter(all, null, "haynes", "crime"));
+    }
+
+    @Test
+    void sort_ShouldPutNullsLast_InBothDirections() {
+        int[] all = {0, 1, 2, 3};
+        assertArrayEquals(new int[]{3, 1, 0, 2}, index.sort(all, RATING, ASC));
+        assertArrayEquals(new int[]{0, 1, 3, 2}, index.sort(all, RATING, DESC));
+        assertArrayEquals(new int[]{0, 2, 1, 3}, index.sort(all, RELEASE_TIME, ASC));
+        assertArrayEquals(new int[]{3, 2, 0, 1}, index.sort(all, ORDER_BY_TITLE, ASC));
+    }
+
+    @Test
+    void tokenize_ShouldSplitOnNonLetterOrDigit() {
+        assertEquals(List.of("spider", "man", "2"), TitleAnalyzer.tokenize("Spider-Man: 2"));
+    }
+
+    @Test
+    void rankByRelevance_ShouldReturnTheMostRelevantFirst() {
+        MovieSearchIndex rankedIndex = MovieSearchIndex.build(List.of(
+                document("tt1", "The Dark Knight", "2008", "Christopher Nolan", 9.0, "Action").toBuilder()
+                        .numOfVotes(2900000).build(),
+                document("tt2", "The Dark Knight Rises", "2012", "Christopher Nolan", 8.4, "Action").toBuilder()
+                        .numOfVotes(1800000).build(),
+                document("tt4", "Dark Waters", null, "Todd Haynes", 7.6, "Drama").toBuilder()
+                        .numOfVotes(100000).build()));
+
+        int[] all = {0, 1, 2};
+        assertArrayEquals(new int[]{0, 1, 2}, rankedIndex.rankByRelevance(all, "dark", 3));
+        assertArrayEquals(new int[]{0}, rankedIndex.rankByRelevance(all, "dark", 1));
+        // "Dark Waters" is the only title with both terms
+        assertArrayEquals(new int[]{2, 0}, rankedIndex.rankByRelevance(new int[]{0, 2}, "dark waters", 2));
+    }
+
+    @Test
+    void apply_ShouldReplaceAddAndDeleteDocuments_WithoutChangingTheOriginalIndex() {
+        MovieSearchIndex changedIndex = index.apply(firstBatch());
+
+        // tt2 and tt4 are deleted from the original documents, and the delta has tt2 and tt6 as ordinals 4 and 5
+        assertEquals(4, changedIndex.size());
+        assertEquals(2, changedIndex.deltaSize());
+        assertArrayEquals(new int[]{0}, changedIndex.matchPhrase("dark knight"));
+        assertArrayEquals(new int[]{0, 5}, changedIndex.matchPhrase("dark"));
+        assertArrayEquals(new int[]{4}, changedIndex.matchPhrase("batman"));
+        assertArrayEquals(new int[]{4}, changedIndex.matchSubstring("atma"));
+        assertArrayEquals(new int[]{0, 5}, changedIndex.matchFuzzy("drak"));
+        assertEquals("Batman Begins", changedIndex.getDocument(4).getTitle());
+
+        assertEquals(4, index.size());
+        assertArrayEquals(new int[]{0, 1}, index.matchPhrase("dark knight"));
+    }
+
+    @Test
+    void apply_ShouldFilterAndSortAcrossTheDelta() {
+        MovieSearchIndex changedIndex = index.apply(firstBatch());
+
+        int[] all = {0, 2, 4, 5};
+        assertArrayEquals(new int[]{0, 4}, changedIndex.filter(all, null, "nolan", null));
+        assertArrayEquals(new int[]{4}, changedIndex.filter(all, null, null, "drama"));
+        assertArrayEquals(new int[]{5}, changedIndex.filter(all, "199", null, null));
+
+        assertArrayEquals(new int[]{0, 4, 5, 2}, changedIndex.sort(all, RATING, DESC));
+        assertArrayEquals(new int[]{5, 4, 0, 2}, changedIndex.sort(all, RELEASE_TIME, ASC));
+        assertArrayEquals(new int[]{5, 4}, changedIndex.sort(all, RELEASE_TIME, ASC, 2));
+        assertArrayEquals(new int[]{4, 5, 2, 0}, changedIndex.sort(all, ORDER_BY_TITLE, ASC));
+    }
+
+    @Test
+    void apply_ShouldKeepTheDocumentsOfPreviousBatches() {
+        MovieSearchIndex changedIndex = index.apply(firstBatch())
+                .apply(new MovieChangeBatch(Set.of("tt6"), List.of(), List.of(), List.of()));
+
+        // The delta is rebuilt with tt2 only, so tt2 is now ordinal 4
+        assertEquals(3, changedIndex.size());
+        assertArrayEquals(new int[]{0}, changedIndex.matchPhrase("dark"));
+        assertArrayEquals(new int[]{4}, changedIndex.matchPhrase("batman"));
+        assertArrayEquals(new int[]{4}, changedIndex.filter(new int[]{0, 2, 4}, "2005", null, null));
+    }
+
+    @Test
+    void apply_ShouldReturnTheSameIndex_WhenBatchIsEmpty() {
+        assertSame(index, index.apply(new MovieChangeBatch(Set.of(), List.of(), List.of(), List.of())));
+    }
+
+    // tt2 is updated, tt4 is deleted and tt6 is inserted
+    private static MovieChangeBatch firstBatch() {
+        return new MovieChangeBatch(Set.of("tt2", "tt4", "tt6"),
+                List.of(document("tt2", "Batman Begins", "2005", "Christopher Nolan", 8.2, "Action, Drama"),
+                        document("tt6", "Dark City", "1998", "Alex Proyas", 7.6, "Sci-Fi")),
+                List.of(new MovieFilterAttributeDTO("tt2", "action", "Action"),
+                        new MovieFilterAttributeDTO("tt2", "drama", "Drama"),
+                        new MovieFilterAttributeDTO("tt6", "sci-fi", "Sci-Fi")),
+                List.of(new MovieFilterAttributeDTO("tt2", "nm1", "Christopher Nolan"),
+                        new MovieFilterAttributeDTO("tt6", "nm3", "Alex Proyas")));
+    }
+
+    private static MovieDocument document(String id, String title, String releaseTime, String directors, Double rating,
+                                          String genres) {
+        return new MovieDocument(id, title, releaseTime, directors, "backdropPath", "posterPath", rating, "overview",
+                genres, null);
+    }
+}
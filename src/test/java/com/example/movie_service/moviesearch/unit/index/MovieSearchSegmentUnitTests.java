@@ -0,0 +1,184 @@
+package com.example.movie_service.moviesearch.unit.index;
+
+import com.example.movie_service.dto.MovieFilterAttributeDTO;
+import com.example.movie_service.index.MovieChangeBatch;
+import com.example.movie_service.index.MovieDocument;
+import com.example.movie_service.index.MovieSearchIndex;
+import com.example.movie_service.index.MovieSearchSegment;
+import com.example.movie_service.index.ShardedMovieSearchIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+import static com.example.movie_service.constants.TestConstant.ASC;
+import static com.example.movie_service.constants.TestConstant.DESC;
+import static com.example.movie_service.constants.TestConstant.ORDER_BY_TITLE;
+import static com.example.movie_service.constants.TestConstant.RATING;
+import static com.example.movie_service.constants.TestConstant.RELEASE_TIME;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class MovieSearchSegmentUnitTests {
+
+    private static final Instant BUILT_AT = Instant.parse("2024-05-01T10:15:30Z");
+
+    @TempDir
+    Path directory;
+
+    private MovieSearchIndex built;
+
+    @BeforeEach
+    public void setUp() {
+        built = MovieSearchIndex.build(List.of(
+                        document("tt1", "The Dark Knight", "2008-07-18", "Christopher Nolan", 9.0, "Action, Crime", 2900000),
+                        document("tt2", "The Dark Knight Rises", "2012-07-20", "Christopher Nolan", 8.4, "Action, Drama", 1800000),
+                        document("tt3", "Knight and Day", "2010", "James Mangold", null, "Action, Comedy", null),
+                        document("tt4", "Amélie", null, "Jean-Pierre Jeunet", 8.3, "Comedy", 800000)),
+                List.of(new MovieFilterAttributeDTO("tt1", "1", "Action"),
+                        new MovieFilterAttributeDTO("tt2", "1", "Action"),
+                        new MovieFilterAttributeDTO("tt3", "1", "Action"),
+                        new MovieFilterAttributeDTO("tt2", "2", "Drama"),
+                        new MovieFilterAttributeDTO("tt4", "3", "Comedy")),
+                List.of(new MovieFilterAttributeDTO("tt1", "nm1", "Christopher Nolan"),
+                        new MovieFilterAttributeDTO("tt2", "nm1", "Christopher Nolan"),
+                        new MovieFilterAttributeDTO("tt3", "nm2", "James Mangold"),
+                        new MovieFilterAttributeDTO("tt4", "nm3", "Jean-Pierre Jeunet")));
+    }
+
+    @Test
+    void open_ShouldReturnAnIndexThatSearchesLikeTheBuiltOne() throws IOException {
+        Path path = directory.resolve("movies.segment");
+        MovieSearchSegment.write(List.of(built), BUILT_AT, path);
+
+        MovieSearchSegment segment = MovieSearchSegment.open(path);
+        MovieSearchIndex mapped = segment.getShards().get(0);
+
+        assertEquals(BUILT_AT, segment.getBuiltAt());
+        assertEquals(built.size(), mapped.size());
+        assertEquals(built.termCount(), mapped.termCount());
+        assertEquals(built.trigramCount(), mapped.trigramCount());
+        for (int ordinal = 0; ordinal < built.size(); ordinal++) {
+            assertEquals(built.getDocument(ordinal), mapped.getDocument(ordinal));
+        }
+
+        for (String title : new String[]{"dark knight", "knight", "amelie", "ark kn", "k", "nite", "missing"}) {
+            assertArrayEquals(built.matchPhrase(title), mapped.matchPhrase(title));
+            assertArrayEquals(built.matchSubstring(title), mapped.matchSubstring(title));
+            assertArrayEquals(built.matchFuzzy(title), mapped.matchFuzzy(title));
+            int[] all = IntStream.range(0, built.size()).toArray();
+            assertArrayEquals(built.rankByRelevance(all, title, 3), mapped.rankByRelevance(all, title, 3));
+        }
+
+        int[] all = IntStream.range(0, built.size()).toArray();
+        assertArrayEquals(built.filter(all, "20", "nolan", "action"), mapped.filter(all, "20", "nolan", "action"));
+        assertArrayEquals(built.filter(all, "2008-07", null, null), mapped.filter(all, "2008-07", null, null));
+        assertArrayEquals(built.filter(all, null, "jeunet", "comedy"), mapped.filter(all, null, "jeunet", "comedy"));
+        for (String orderBy : new String[]{ORDER_BY_TITLE, RATING, RELEASE_TIME}) {
+            assertArrayEquals(built.sort(all, orderBy, ASC), mapped.sort(all, orderBy, ASC));
+            assertArrayEquals(built.sort(all, orderBy, DESC, 2), mapped.sort(all, orderBy, DESC, 2));
+        }
+    }
+
+    @Test
+    void apply_ShouldChangeAMappedIndexLikeABuiltOne() throws IOException {
+        Path path = directory.resolve("movies.segment");
+        MovieSearchSegment.write(List.of(built), BUILT_AT, path);
+        MovieChangeBatch batch = new MovieChangeBatch(Set.of("tt3", "tt4"),
+                List.of(document("tt3", "Knight and Day", "2010-06-23", "James Mangold", 6.3, "Action, Comedy", 200000)),
+                List.of(new MovieFilterAttributeDTO("tt3", "1", "Action")),
+                List.of(new MovieFilterAttributeDTO("tt3", "nm2", "James Mangold")));
+
+        MovieSearchIndex changed = built.apply(batch);
+        MovieSearchIndex mappedChanged = MovieSearchSegment.open(path).getShards().get(0).apply(batch);
+
+        assertEquals(3, mappedChanged.size());
+        assertArrayEquals(new int[]{0, 1, 4}, mappedChanged.matchPhrase("knight"));
+        assertArrayEquals(new int[]{}, mappedChanged.matchPhrase("amelie"));
+        int[] all = {0, 1, 4};
+        assertArrayEquals(changed.filter(all, "2010", "mangold", "action"),
+                mappedChanged.filter(all, "2010", "mangold", "action"));
+        assertArrayEquals(changed.sort(all, RATING, DESC), mappedChanged.sort(all, RATING, DESC));
+    }
+
+    @Test
+    void write_ShouldThrowIllegalArgumentException_WhenChangesWereApplied() {
+        MovieSearchIndex changed = built.apply(new MovieChangeBatch(Set.of("tt1"), List.of(), List.of(), List.of()));
+
+        assertThrows(IllegalArgumentException.class,
+                () -> MovieSearchSegment.write(List.of(changed), BUILT_AT, directory.resolve("movies.segment")));
+    }
+
+    @Test
+    void write_ShouldReplaceTheExistingSegment() throws IOException {
+        Path path = directory.resolve("movies.segment");
+        MovieSearchSegment.write(List.of(MovieSearchIndex.empty()), BUILT_AT, path);
+        MovieSearchSegment.write(List.of(built), BUILT_AT.plusSeconds(60), path);
+
+        MovieSearchSegment segment = MovieSearchSegment.open(path);
+
+        assertEquals(built.size(), segment.getShards().get(0).size());
+        assertEquals(BUILT_AT.plusSeconds(60), segment.getBuiltAt());
+        assertEquals(List.of(path), Files.list(directory).toList());
+    }
+
+    @Test
+    void open_ShouldReturnTheShardsOfTheSegment() throws IOException {
+        Path path = directory.resolve("movies.segment");
+        ShardedMovieSearchIndex sharded = ShardedMovieSearchIndex.build(List.of(
+                        document("tt1", "The Dark Knight", "2008", "Christopher Nolan", 9.0, "Action", 2900000),
+                        document("tt2", "The Dark Knight Rises", "2012", "Christopher Nolan", 8.4, "Action", 1800000),
+                        document("tt3", "Knight and Day", "2010", "James Mangold", null, "Action", null),
+                        document("tt4", "Dark Waters", "2019", "Todd Haynes", 7.6, "Drama", 100000)),
+                3, ForkJoinPool.commonPool());
+        MovieSearchSegment.write(sharded.getShards(), BUILT_AT, path);
+
+        List<MovieSearchIndex> shards = MovieSearchSegment.open(path).getShards();
+
+        assertEquals(3, shards.size());
+        for (int shard = 0; shard < shards.size(); shard++) {
+            MovieSearchIndex built = sharded.getShards().get(shard);
+            assertEquals(built.size(), shards.get(shard).size());
+            assertArrayEquals(built.matchPhrase("dark"), shards.get(shard).matchPhrase("dark"));
+        }
+        ShardedMovieSearchIndex mapped = new ShardedMovieSearchIndex(shards, ForkJoinPool.commonPool());
+        assertEquals(sharded.sort(sharded.match(shard -> shard.matchPhrase("knight")), RATING, DESC, 3),
+                mapped.sort(mapped.match(shard -> shard.matchPhrase("knight")), RATING, DESC, 3));
+    }
+
+    @Test
+    void open_ShouldThrowIOException_WhenTheVersionIsDifferent() throws IOException {
+        Path path = directory.resolve("movies.segment");
+        MovieSearchSegment.write(List.of(built), BUILT_AT, path);
+        byte[] bytes = Files.readAllBytes(path);
+        ByteBuffer.wrap(bytes).order(ByteOrder.LITTLE_ENDIAN).putInt(Integer.BYTES, MovieSearchSegment.VERSION + 1);
+        Files.write(path, bytes);
+
+        assertThrows(IOException.class, () -> MovieSearchSegment.open(path));
+    }
+
+    @Test
+    void open_ShouldThrowIOException_WhenTheFileIsNotASegment() throws IOException {
+        Path path = directory.resolve("movies.segment");
+        Files.writeString(path, "not a segment, but long enough to have a header, and even a bit longer than that");
+
+        assertThrows(IOException.class, () -> MovieSearchSegment.open(path));
+    }
+
+    private static MovieDocument document(String id, String title, String releaseTime, String directors, Double rating,
+                                          String genres, Integer numOfVotes) {
+        return new MovieDocument(id, title, releaseTime, directors, "backdropPath", "posterPath", rating, "overview",
+                genres, numOfVotes);
+    }
+}
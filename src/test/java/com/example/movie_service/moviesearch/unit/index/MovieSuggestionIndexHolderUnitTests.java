@@ -0,0 +1,71 @@
+package com.example.movie_service.moviesearch.unit.index;
+
+import com.example.movie_service.dto.MovieSuggestionDTO;
+import com.example.movie_service.index.MovieSearchIndexLoader;
+import com.example.movie_service.index.MovieSuggestionIndexHolder;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class MovieSuggestionIndexHolderUnitTests {
+
+    private static final MovieSuggestionDTO DARK_KNIGHT =
+            new MovieSuggestionDTO("tt1", "The Dark Knight", "2008", "posterPath", 2900000);
+    private static final MovieSuggestionDTO DARK_WATERS =
+            new MovieSuggestionDTO("tt2", "Dark Waters", "2019", "posterPath", 90000);
+
+    @Mock
+    private MovieSearchIndexLoader loader;
+
+    private MovieSuggestionIndexHolder indexHolder;
+
+    @BeforeEach
+    public void setUp() {
+        indexHolder = new MovieSuggestionIndexHolder(loader);
+    }
+
+    @Test
+    void tryRefresh_ShouldBuildTheIndex_WhenTheBuildAtStartupFailed() {
+        when(loader.loadSuggestions())
+                .thenThrow(new IllegalStateException("movie_materialized_view doesn't exist"))
+                .thenReturn(List.of(DARK_KNIGHT));
+
+        indexHolder.onApplicationReady();
+        assertEquals(0, indexHolder.getIndex().size());
+
+        indexHolder.tryRefresh();
+        assertEquals(List.of(DARK_KNIGHT), indexHolder.getIndex().suggest("the dark", 10));
+    }
+
+    @Test
+    void tryRefresh_ShouldSuggestTheNewTitles() {
+        when(loader.loadSuggestions())
+                .thenReturn(List.of(DARK_KNIGHT))
+                .thenReturn(List.of(DARK_KNIGHT, DARK_WATERS));
+        indexHolder.onApplicationReady();
+
+        indexHolder.tryRefresh();
+
+        assertEquals(List.of(DARK_WATERS), indexHolder.getIndex().suggest("dark w", 10));
+    }
+
+    @Test
+    void tryRefresh_ShouldKeepTheCurrentIndex_WhenTheBuildFails() {
+        when(loader.loadSuggestions())
+                .thenReturn(List.of(DARK_KNIGHT))
+                .thenThrow(new IllegalStateException("The database is down"));
+        indexHolder.onApplicationReady();
+
+        indexHolder.tryRefresh();
+
+        assertEquals(1, indexHolder.getIndex().size());
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.movie_service.moviesearch.unit.index;
+
+import com.example.movie_service.dto.MovieSuggestionDTO;
+import com.example.movie_service.index.MovieSuggestionIndex;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class MovieSuggestionIndexUnitTests {
+
+    private MovieSuggestionIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        index = MovieSuggestionIndex.build(List.of(
+                suggestion("tt1", "The Dark Knight", 2900000),
+                suggestion("tt2", "The Dark Knight Rises", 1800000),
+                suggestion("tt3", "The Godfather", 2000000),
+                suggestion("tt4", "Thelma & Louise", 170000),
+                suggestion("tt5", "Dark Waters", null),
+                suggestion("tt6", "Amélie", 800000),
+                suggestion("tt7", "The Dark Knight", 1000)));
+    }
+
+    @Test
+    void suggest_ShouldReturnMostVotedTitlesFirst() {
+        List<MovieSuggestionDTO> suggestions = index.suggest("th", 10);
+
+        assertEquals(List.of("tt1", "tt3", "tt2", "tt4", "tt7"), ids(suggestions));
+    }
+
+    @Test
+    void suggest_ShouldRespectLimit() {
+        assertEquals(List.of("tt1", "tt3"), ids(index.suggest("The", 2)));
+    }
+
+    @Test
+    void suggest_ShouldMatchCaseAndAccentInsensitively() {
+        assertEquals(List.of("tt1", "tt2", "tt7"), ids(index.suggest("THE DARK", 10)));
+        assertEquals(List.of("tt6"), ids(index.suggest("ame", 10)));
+    }
+
+    @Test
+    void suggest_ShouldReturnEmptyList_WhenNoTitleStartsWithPrefix() {
+        assertTrue(index.suggest("batman", 10).isEmpty());
+        assertTrue(index.suggest("zzz", 10).isEmpty());
+    }
+
+    @Test
+    void suggest_ShouldReturnTopTitles_FromLargeRange() {
+        List<MovieSuggestionDTO> movieSuggestions = new ArrayList<>();
+        for (int i = 0; i < 10000; i++) {
+            movieSuggestions.add(suggestion("tt" + i, "Movie " + i, (i * 7919) % 10007));
+        }
+        MovieSuggestionIndex largeIndex = MovieSuggestionIndex.build(movieSuggestions);
+
+        List<MovieSuggestionDTO> suggestions = largeIndex.suggest("movie", 5);
+
+        List<Integer> expected = movieSuggestions.stream().map(MovieSuggestionDTO::getNumOfVotes)
+                .sorted((first, second) -> second - first).limit(5).toList();
+        assertEquals(expected, suggestions.stream().map(MovieSuggestionDTO::getNumOfVotes).toList());
+    }
+
+    private static List<String> ids(List<MovieSuggestionDTO> suggestions) {
+        return suggestions.stream().map(MovieSuggestionDTO::getId).toList();
+    }
+
+    private static MovieSuggestionDTO suggestion(String id, String title, Integer numOfVotes) {
+        return new MovieSuggestionDTO(id, title, "2000", "posterPath", numOfVotes);
+    }
+}
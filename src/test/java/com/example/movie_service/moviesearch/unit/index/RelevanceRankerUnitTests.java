@@ -0,0 +1,70 @@
+package com.example.movie_service.moviesearch.unit.index;
+
+import com.example.movie_service.dto.MovieRelevanceCandidateDTO;
+import com.example.movie_service.index.RelevanceRanker;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class RelevanceRankerUnitTests {
+
+    @Test
+    void topK_ShouldPreferShorterTitles_WhenVotesAreEqual() {
+        List<MovieRelevanceCandidateDTO> candidates = List.of(
+                new MovieRelevanceCandidateDTO("tt1", "Love Actually Is All Around", 1000),
+                new MovieRelevanceCandidateDTO("tt2", "Love Actually", 1000));
+
+        assertEquals(List.of("tt2", "tt1"), rankedIds(candidates, "love actually", 2));
+    }
+
+    @Test
+    void topK_ShouldPreferPopularMovies_WhenTitlesAreAlike() {
+        List<MovieRelevanceCandidateDTO> candidates = List.of(
+                new MovieRelevanceCandidateDTO("tt1", "Alien", 10),
+                new MovieRelevanceCandidateDTO("tt2", "Alien", 900000),
+                new MovieRelevanceCandidateDTO("tt3", "Alien", null));
+
+        assertEquals(List.of("tt2", "tt1", "tt3"), rankedIds(candidates, "alien", 3));
+    }
+
+    @Test
+    void topK_ShouldMatchTitleTermsByPrefix() {
+        List<MovieRelevanceCandidateDTO> candidates = List.of(
+                new MovieRelevanceCandidateDTO("tt1", "Dark Waters", 100),
+                new MovieRelevanceCandidateDTO("tt2", "The Dark Knight", 100));
+
+        assertEquals(List.of("tt2", "tt1"), rankedIds(candidates, "dark kni", 2));
+    }
+
+    @Test
+    void topK_ShouldReturnThePrefixOfTheFullRanking() {
+        List<MovieRelevanceCandidateDTO> candidates = List.of(
+                new MovieRelevanceCandidateDTO("tt1", "Star Wars", 1300000),
+                new MovieRelevanceCandidateDTO("tt2", "Star Trek", 600000),
+                new MovieRelevanceCandidateDTO("tt3", "A Star Is Born", 400000),
+                new MovieRelevanceCandidateDTO("tt4", "Star Wars: The Last Jedi", 600000),
+                new MovieRelevanceCandidateDTO("tt5", "Stardust", 280000));
+        List<String> fullRanking = rankedIds(candidates, "star", 5);
+
+        for (int k = 1; k <= 5; k++) {
+            assertEquals(fullRanking.subList(0, k), rankedIds(candidates, "star", k));
+        }
+        assertEquals(5, rankedIds(candidates, "star", 10).size());
+    }
+
+    @Test
+    void topK_ShouldReturnNothing_WhenKIsZeroOrThereAreNoCandidates() {
+        assertTrue(rankedIds(List.of(new MovieRelevanceCandidateDTO("tt1", "Alien", 10)), "alien", 0).isEmpty());
+        assertTrue(rankedIds(List.of(), "alien", 10).isEmpty());
+    }
+
+    private static List<String> rankedIds(List<MovieRelevanceCandidateDTO> candidates, String title, int k) {
+        return RelevanceRanker.topK(candidates, title, MovieRelevanceCandidateDTO::getTitle,
+                        MovieRelevanceCandidateDTO::getNumOfVotes, MovieRelevanceCandidateDTO::getId, k).stream()
+                .map(MovieRelevanceCandidateDTO::getId)
+                .toList();
+    }
+}
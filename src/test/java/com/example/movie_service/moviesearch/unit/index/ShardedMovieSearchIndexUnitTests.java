@@ -0,0 +1,108 @@
+package com.example.movie_service.moviesearch.unit.index;
+
+import com.example.movie_service.index.MovieChangeBatch;
+import com.example.movie_service.index.MovieDocument;
+import com.example.movie_service.index.MovieSearchIndex;
+import com.example.movie_service.index.ShardedMovieSearchIndex;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.example.movie_service.constants.TestConstant.ASC;
+import static com.example.movie_service.constants.TestConstant.DESC;
+import static com.example.movie_service.constants.TestConstant.ORDER_BY_TITLE;
+import static com.example.movie_service.constants.TestConstant.RATING;
+import static com.example.movie_service.constants.TestConstant.RELEASE_TIME;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class ShardedMovieSearchIndexUnitTests {
+
+    private static final String[] WORDS = {"dark", "knight", "love", "city", "night", "day", "star", "war"};
+
+    private static ForkJoinPool pool;
+
+    private static List<MovieDocument> documents;
+
+    @BeforeAll
+    public static void setUp() {
+        pool = new ForkJoinPool(4);
+        Random random = new Random(42);
+        documents = new ArrayList<>();
+        for (int i = 0; i < 300; i++) {
+            String title = WORDS[random.nextInt(WORDS.length)] + " " + WORDS[random.nextInt(WORDS.length)];
+            // Few distinct ratings and years, so there are many ties to break by id
+            documents.add(new MovieDocument("tt" + i, title, random.nextInt(4) == 0 ? null : "20" + (10 + i % 5),
+                    "Director" + (i % 7), "backdropPath", "posterPath",
+                    random.nextInt(5) == 0 ? null : (double) random.nextInt(5), "overview",
+                    i % 3 == 0 ? "Action" : "Drama", random.nextInt(3) == 0 ? null : random.nextInt(1000)));
+        }
+    }
+
+    @AfterAll
+    public static void tearDown() {
+        pool.shutdown();
+    }
+
+    @Test
+    void search_ShouldReturnTheSameMovies_WithAnyNumberOfShards() {
+        ShardedMovieSearchIndex single = ShardedMovieSearchIndex.build(documents, 1, pool);
+        for (int shardCount = 2; shardCount <= 5; shardCount++) {
+            assertSameResults(single, ShardedMovieSearchIndex.build(documents, shardCount, pool));
+        }
+    }
+
+    @Test
+    void apply_ShouldChangeTheShardsOfTheChangedMovies() {
+        MovieChangeBatch batch = new MovieChangeBatch(Set.of("tt1", "tt2", "tt500"),
+                List.of(new MovieDocument("tt1", "Dark Star", "2011", "Director1", "backdropPath", "posterPath",
+                                4.0, "overview", "Action", 10),
+                        new MovieDocument("tt500", "Star City", "2013", "Director2", "backdropPath", "posterPath",
+                                null, "overview", "Drama", null)),
+                List.of(), List.of());
+
+        ShardedMovieSearchIndex single = ShardedMovieSearchIndex.build(documents, 1, pool).apply(batch);
+        ShardedMovieSearchIndex sharded = ShardedMovieSearchIndex.build(documents, 4, pool).apply(batch);
+
+        assertEquals(documents.size(), sharded.size());
+        assertEquals(2, sharded.deltaSize());
+        assertSameResults(single, sharded);
+    }
+
+    @Test
+    void constructor_ShouldThrowIllegalArgumentException_WhenThereIsNoShard() {
+        assertThrows(IllegalArgumentException.class, () -> new ShardedMovieSearchIndex(List.of(), pool));
+    }
+
+    private static void assertSameResults(ShardedMovieSearchIndex expected, ShardedMovieSearchIndex actual) {
+        List<Function<MovieSearchIndex, int[]>> matchers = List.of(
+                shard -> shard.matchPhrase("dark"),
+                shard -> shard.matchSubstring("ar"),
+                shard -> shard.matchFuzzy("nite"),
+                shard -> shard.filter(shard.matchPhrase("knight"), "2012", null, "action"));
+        for (Function<MovieSearchIndex, int[]> matcher : matchers) {
+            ShardedMovieSearchIndex.Matches expectedMatches = expected.match(matcher);
+            ShardedMovieSearchIndex.Matches actualMatches = actual.match(matcher);
+            assertEquals(expectedMatches.getCount(), actualMatches.getCount());
+
+            for (int k : IntStream.of(0, 1, 10, 1000).toArray()) {
+                for (String orderBy : new String[]{ORDER_BY_TITLE, RATING, RELEASE_TIME}) {
+                    assertEquals(expected.sort(expectedMatches, orderBy, ASC, k),
+                            actual.sort(actualMatches, orderBy, ASC, k));
+                    assertEquals(expected.sort(expectedMatches, orderBy, DESC, k),
+                            actual.sort(actualMatches, orderBy, DESC, k));
+                }
+                assertEquals(expected.rankByRelevance(expectedMatches, "dark star", k),
+                        actual.rankByRelevance(actualMatches, "dark star", k));
+            }
+        }
+    }
+}
@@ -0,0 +1,84 @@
+package com.example.movie_service.moviesearch.unit.index;
+
+import com.example.movie_service.index.MovieDocument;
+import com.example.movie_service.index.SortRankIndex;
+import org.junit.jupiter.api.Test;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Random;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+
+import static com.example.movie_service.constants.TestConstant.ASC;
+import static com.example.movie_service.constants.TestConstant.DESC;
+import static com.example.movie_service.constants.TestConstant.ORDER_BY_TITLE;
+import static com.example.movie_service.constants.TestConstant.RATING;
+import static com.example.movie_service.constants.TestConstant.RELEASE_TIME;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+
+class SortRankIndexUnitTests {
+
+    private static final String[] TITLES = {"Alien", "alien", "Heat", "Up", "Zodiac", null};
+    private static final String[] RELEASE_TIMES = {"2008", "2008-07-18", "1979", "2010", null};
+
+    @Test
+    void topK_ShouldPutNullsLastAndBreakTiesById() {
+        MovieDocument[] documents = {
+                MovieDocument.builder().id("tt3").title("Heat").rating(8.3).build(),
+                MovieDocument.builder().id("tt1").title("heat").rating(null).build(),
+                MovieDocument.builder().id("tt2").title("Alien").rating(8.3).build(),
+                MovieDocument.builder().id("tt4").title(null).rating(7.0).build()};
+        SortRankIndex ranks = SortRankIndex.build(documents);
+        int[] all = {0, 1, 2, 3};
+
+        assertArrayEquals(new int[]{2, 1, 0, 3}, ranks.topK(all, ORDER_BY_TITLE, ASC, 4));
+        assertArrayEquals(new int[]{1, 0, 2, 3}, ranks.topK(all, ORDER_BY_TITLE, DESC, 4));
+        assertArrayEquals(new int[]{3, 2, 0, 1}, ranks.topK(all, RATING, ASC, 4));
+        assertArrayEquals(new int[]{2, 0, 3, 1}, ranks.topK(all, RATING, DESC, 4));
+        assertArrayEquals(new int[]{2, 0}, ranks.topK(all, RATING, DESC, 2));
+        assertArrayEquals(new int[]{}, ranks.topK(all, RATING, DESC, 0));
+    }
+
+    @Test
+    void topK_ShouldMatchAFullSort() {
+        Random random = new Random(7);
+        MovieDocument[] documents = new MovieDocument[300];
+        for (int i = 0; i < documents.length; i++) {
+            documents[i] = MovieDocument.builder()
+                    .id("tt" + random.nextInt(1_000_000) + "_" + i)
+                    .title(TITLES[random.nextInt(TITLES.length)])
+                    .rating(random.nextInt(5) == 0 ? null : random.nextInt(20) / 2.0)
+                    .releaseTime(RELEASE_TIMES[random.nextInt(RELEASE_TIMES.length)])
+                    .build();
+        }
+        SortRankIndex ranks = SortRankIndex.build(documents);
+        int[] candidates = IntStream.range(0, documents.length).filter(ordinal -> random.nextBoolean()).toArray();
+
+        for (String direction : new String[]{ASC, DESC}) {
+            assertMatchesFullSort(ranks, documents, candidates, ORDER_BY_TITLE, direction,
+                    order(MovieDocument::getTitle, String.CASE_INSENSITIVE_ORDER, direction));
+            assertMatchesFullSort(ranks, documents, candidates, RATING, direction,
+                    order(MovieDocument::getRating, Comparator.naturalOrder(), direction));
+            assertMatchesFullSort(ranks, documents, candidates, RELEASE_TIME, direction,
+                    order(MovieDocument::getReleaseTime, Comparator.naturalOrder(), direction));
+        }
+    }
+
+    private static void assertMatchesFullSort(SortRankIndex ranks, MovieDocument[] documents, int[] candidates,
+                                              String orderBy, String direction, Comparator<MovieDocument> order) {
+        int[] expected = IntStream.of(candidates).boxed()
+                .sorted((first, second) -> order.compare(documents[first], documents[second]))
+                .mapToInt(Integer::intValue)
+                .toArray();
+        for (int k : new int[]{1, 10, 50, candidates.length}) {
+            assertArrayEquals(Arrays.copyOf(expected, k), ranks.topK(candidates, orderBy, direction, k));
+        }
+    }
+
+    private static <T> Comparator<MovieDocument> order(Function<MovieDocument, T> field, Comparator<T> order,
+                                                       String direction) {
+        Comparator<T> directed = DESC.equals(direction) ? order.reversed() : order;
+        return Comparator.comparing(field, Comparator.nullsLast(directed)).thenComparing(MovieDocument::getId);
+    }
+}
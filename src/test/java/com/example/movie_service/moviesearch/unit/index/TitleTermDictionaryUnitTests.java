@@ -0,0 +1,69 @@
+package com.example.movie_service.moviesearch.unit.index;
+
+import com.example.movie_service.index.TitleTermDictionary;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class TitleTermDictionaryUnitTests {
+
+    @Test
+    void expand_ShouldFindTermsWithinMaxEdits() {
+        TitleTermDictionary dictionary = new TitleTermDictionary(
+                List.of("knight", "night", "knights", "kingdom", "knife", "dark", "park", "dart", "bark"));
+
+        assertEquals(List.of("knight", "knights", "night"), dictionary.expand("knihgt", 2));
+        assertEquals(List.of("bark", "dark", "dart", "park"), dictionary.expand("dark", 1));
+        assertEquals(List.of(), dictionary.expand("zzzz", 2));
+    }
+
+    @Test
+    void expand_ShouldFindSameTermsAsComparingEveryTerm() {
+        Random random = new Random(42);
+        List<String> terms = new ArrayList<>();
+        for (int i = 0; i < 3000; i++) {
+            terms.add(randomTerm(random));
+        }
+        TitleTermDictionary dictionary = new TitleTermDictionary(terms);
+
+        for (int i = 0; i < 50; i++) {
+            String query = randomTerm(random);
+            List<String> expected = terms.stream().distinct().sorted()
+                    .filter(term -> editDistance(term, query) <= 2).toList();
+            assertEquals(expected, dictionary.expand(query, 2));
+        }
+    }
+
+    private static String randomTerm(Random random) {
+        StringBuilder term = new StringBuilder();
+        int length = 3 + random.nextInt(5);
+        for (int i = 0; i < length; i++) {
+            term.append((char) ('a' + random.nextInt(5)));
+        }
+        return term.toString();
+    }
+
+    // Optimal string alignment distance: Levenshtein distance where swapping two adjacent characters is one edit
+    private static int editDistance(String first, String second) {
+        int[][] distances = new int[first.length() + 1][second.length() + 1];
+        for (int i = 0; i <= first.length(); i++) {
+            for (int j = 0; j <= second.length(); j++) {
+                if (i == 0 || j == 0) {
+                    distances[i][j] = i + j;
+                } else {
+                    int substitution = distances[i - 1][j - 1] + (first.charAt(i - 1) == second.charAt(j - 1) ? 0 : 1);
+                    distances[i][j] = Math.min(substitution, Math.min(distances[i - 1][j], distances[i][j - 1]) + 1);
+                    if (i > 1 && j > 1 && first.charAt(i - 1) == second.charAt(j - 2)
+                            && first.charAt(i - 2) == second.charAt(j - 1)) {
+                        distances[i][j] = Math.min(distances[i][j], distances[i - 2][j - 2] + 1);
+                    }
+                }
+            }
+        }
+        return distances[first.length()][second.length()];
+    }
+}
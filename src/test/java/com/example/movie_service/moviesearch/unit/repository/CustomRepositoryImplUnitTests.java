@@ -2,7 +2,12 @@ package com.example.movie_service.moviesearch.unit.repository;
 
 
 import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.cache.MovieFilterIdCache;
+import com.example.movie_service.cache.MovieSearchCountCache;
+import com.example.movie_service.datasource.HedgedQueryExecutor;
 import com.example.movie_service.dto.CrewMember;
+import com.example.movie_service.dto.MovieRelevanceCandidateDTO;
+import com.example.movie_service.dto.MovieSearchCursor;
 import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
 import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
 import com.example.movie_service.dto.OneMovieDetailsDTO;
@@ -10,25 +15,49 @@ import com.example.movie_service.repository.CustomMovieRepositoryImpl;
 import jakarta.persistence.EntityManager;
 import jakarta.persistence.NoResultException;
 import jakarta.persistence.Query;
+import jakarta.persistence.QueryTimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
-
+import org.mockito.Spy;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import static com.example.movie_service.constant.MovieConstant.COUNT_ESTIMATE;
+import static com.example.movie_service.constants.TestConstant.DESC;
+import static com.example.movie_service.constants.TestConstant.RATING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_CREW_MEMBER_WITH_MOVIE_ID_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.MOVIE_TITLE_SEARCH_QUERY_RESULT_WITH_TOTAL_MAPPING;
 import static com.example.movie_service.constant.MovieConstant.SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING;
+import static com.example.movie_service.constant.MovieConstant.SEARCH_SQL_FILTERS_NORMALIZED;
 import static com.example.movie_service.constant.MovieConstant.SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import java.time.Duration;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 
 import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.*;
 import static org.mockito.Mockito.*;
 
@@ -41,6 +70,9 @@ class CustomRepositoryImplUnitTests {
     @Mock
     Query query;
 
+    @Spy
+    private MovieSearchCountCache countCache = new MovieSearchCountCache(100, Duration.ofMinutes(5), System::nanoTime);
+
     @InjectMocks
     private CustomMovieRepositoryImpl customMovieRepositoryImpl;
 
@@ -77,6 +109,13 @@ class CustomRepositoryImplUnitTests {
 
         movieSearchParam = MovieSearchParam.builder().title(title).releasedYear(releasedYear).director(director)
                 .genre(genre).limit(limit).page(page).orderBy(orderBy).direction(direction).build();
+
+        // Run the crew members query on the calling thread, unless a test needs another thread
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "detailsExecutor", (Executor) Runnable::run);
+        // Hedging is disabled by default, so the page query runs once on the calling thread
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "hedgedQueryExecutor",
+                new HedgedQueryExecutor(false, 95, Duration.ZERO, 1000, Runnable::run));
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "relevanceMaxCandidates", 1000);
     }
 
     @Test
@@ -117,6 +156,228 @@ class CustomRepositoryImplUnitTests {
         verify(query).setParameter("offset", page * limit);
     }
 
+    @Test
+    void repositoryImplSearchMoviesOrderedByRelevance() {
+        movieSearchParam = movieSearchParam.toBuilder().orderBy("relevance").limit(1).build();
+
+        // Mock the behavior for the query that selects the candidates
+        Query candidatesQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING)))
+                .thenReturn(candidatesQuery);
+        when(candidatesQuery.getResultList()).thenReturn(List.of(
+                new MovieRelevanceCandidateDTO("tt1", title, 10),
+                new MovieRelevanceCandidateDTO("tt2", title, 1000)));
+
+        // Mock the behavior for the query that loads the requested page
+        MovieTitleSearchSQLQueryResultDTO resultDTO = new MovieTitleSearchSQLQueryResultDTO("tt2", title, releasedYear, director,
+                BACKDROP_PATH, POSTER_PATH, rating, OVERVIEW);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING)))
+                .thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(resultDTO));
+
+        // Execute the method:
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = customMovieRepositoryImpl.searchMovies(movieSearchParam);
+
+        // Both candidates are counted, but only the more popular one is loaded
+        assertEquals(2, returnDTO.getTotalItem());
+        assertFalse(returnDTO.isTotalItemEstimated());
+        assertEquals(List.of(resultDTO), returnDTO.getMovies());
+        verify(candidatesQuery).setParameter("title", "\"" + title + "\"");
+        // The phrase match ranks all its candidates
+        verify(entityManager, never()).createNativeQuery(contains("LIMIT :maxCandidates"),
+                eq(MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING));
+        verify(candidatesQuery, never()).setParameter(eq("maxCandidates"), any());
+        verify(query).setParameter("movieIds", List.of("tt2"));
+        verify(entityManager, never()).createNativeQuery(anyString());
+    }
+
+    @Test
+    void repositoryImplSearchMoviesOrderedByRelevance_ShouldEstimateTheTotal_WhenTheLikeCandidatesAreCapped() {
+        movieSearchParam = movieSearchParam.toBuilder().orderBy("relevance").limit(1).build();
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "relevanceMaxCandidates", 2);
+
+        // The phrase match finds nothing, and the LIKE match returns as many candidates as the cap
+        Query phraseCandidatesQuery = mock(Query.class);
+        Query likeCandidatesQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING)))
+                .thenReturn(phraseCandidatesQuery)
+                .thenReturn(likeCandidatesQuery);
+        when(phraseCandidatesQuery.getResultList()).thenReturn(List.of());
+        when(likeCandidatesQuery.getResultList()).thenReturn(List.of(
+                new MovieRelevanceCandidateDTO("tt2", title, 1000),
+                new MovieRelevanceCandidateDTO("tt1", title, 10)));
+
+        // Mock the behavior for the query that loads the requested page
+        MovieTitleSearchSQLQueryResultDTO resultDTO = new MovieTitleSearchSQLQueryResultDTO("tt2", title,
+                releasedYear, director, BACKDROP_PATH, POSTER_PATH, rating, OVERVIEW);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING)))
+                .thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(resultDTO));
+
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = customMovieRepositoryImpl.searchMovies(movieSearchParam);
+
+        assertEquals(2, returnDTO.getTotalItem());
+        assertTrue(returnDTO.isTotalItemEstimated());
+        verify(entityManager).createNativeQuery(contains("ORDER BY numOfVotes DESC, id LIMIT :maxCandidates"),
+                eq(MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING));
+        verify(likeCandidatesQuery).setParameter("title", "%" + title + "%");
+        verify(likeCandidatesQuery).setParameter("maxCandidates", 2);
+    }
+
+    @Test
+    void repositoryImplSearchMoviesOrderedByRelevance_ShouldRankAllThePhraseMatches() {
+        movieSearchParam = movieSearchParam.toBuilder().orderBy("relevance").limit(1).build();
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "relevanceMaxCandidates", 2);
+
+        // More phrase matches than the cap, and the most relevant one has the fewest votes
+        Query candidatesQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_RELEVANCE_CANDIDATE_DTO_MAPPING)))
+                .thenReturn(candidatesQuery);
+        when(candidatesQuery.getResultList()).thenReturn(List.of(
+                new MovieRelevanceCandidateDTO("tt1", title + " and the Return of the Other One", 12),
+                new MovieRelevanceCandidateDTO("tt2", title + " and the Revenge of the Other One", 11),
+                new MovieRelevanceCandidateDTO("tt3", title, 10)));
+
+        MovieTitleSearchSQLQueryResultDTO resultDTO = new MovieTitleSearchSQLQueryResultDTO("tt3", title,
+                releasedYear, director, BACKDROP_PATH, POSTER_PATH, rating, OVERVIEW);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING)))
+                .thenReturn(query);
+        when(query.getResultList()).thenReturn(List.of(resultDTO));
+
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = customMovieRepositoryImpl.searchMovies(movieSearchParam);
+
+        assertEquals(3, returnDTO.getTotalItem());
+        assertFalse(returnDTO.isTotalItemEstimated());
+        verify(query).setParameter("movieIds", List.of("tt3"));
+    }
+
+    @Test
+    void repositoryImplSearchMoviesWithOneQuery() {
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "singleQuery", true);
+
+        MovieTitleSearchSQLQueryResultDTO resultDTO = new MovieTitleSearchSQLQueryResultDTO(MOVIE_ID, title, releasedYear, director,
+                BACKDROP_PATH, POSTER_PATH, rating, OVERVIEW);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_WITH_TOTAL_MAPPING)))
+                .thenReturn(query);
+        List<Object[]> rows = new ArrayList<>();
+        rows.add(new Object[]{resultDTO, totalItemsLong, 0});
+        when(query.getResultList()).thenReturn(rows);
+
+        // Execute the method:
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = customMovieRepositoryImpl.searchMovies(movieSearchParam);
+
+        // The page and the total items come from the same statement, without any count query
+        assertEquals(totalItems, returnDTO.getTotalItem());
+        assertEquals(List.of(resultDTO), returnDTO.getMovies());
+        verify(entityManager, never()).createNativeQuery(anyString());
+        verify(query).setParameter("title", "\"" + title + "\"");
+        verify(query).setParameter("likeTitle", "%" + title + "%");
+        verify(query).setParameter("releasedYear", releasedYear + "%");
+        verify(query).setParameter("limit", limit);
+        verify(query).setParameter("offset", page * limit);
+    }
+
+    @Test
+    void repositoryImplSearchMoviesWithOneQuery_ShouldCountTotalItems_WhenPageIsAfterTheLastOne() {
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "singleQuery", true);
+        movieSearchParam = movieSearchParam.toBuilder().page(5).build();
+
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_WITH_TOTAL_MAPPING)))
+                .thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.emptyList());
+        // The phrase match finds nothing, so the LIKE match is counted
+        Query countTotalRowsQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(countTotalRowsQuery);
+        when(countTotalRowsQuery.getSingleResult()).thenReturn(0L, totalItemsLong);
+
+        // Execute the method:
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = customMovieRepositoryImpl.searchMovies(movieSearchParam);
+
+        assertEquals(totalItems, returnDTO.getTotalItem());
+        assertEquals(Collections.emptyList(), returnDTO.getMovies());
+        verify(countTotalRowsQuery).setParameter("title", "%" + title + "%");
+    }
+
+    @Test
+    void repositoryImplSearchMoviesAfterCursor() {
+        // The first page found the movies with LIKE, and there are 25 of them
+        MovieSearchCursor cursor = new MovieSearchCursor(MovieSearchCursor.searchHashOf(movieSearchParam), true,
+                25, false, 1, MOVIE_ID, title);
+        movieSearchParam = movieSearchParam.toBuilder().page(1).after(cursor).build();
+
+        MovieTitleSearchSQLQueryResultDTO resultDTO = new MovieTitleSearchSQLQueryResultDTO("tt2", "title2", releasedYear,
+                director, BACKDROP_PATH, POSTER_PATH, rating, OVERVIEW);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING)))
+                .thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.nCopies(limit, resultDTO));
+
+        // Execute the method:
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = customMovieRepositoryImpl.searchMovies(movieSearchParam);
+
+        // The total items come from the cursor, and the page starts after the cursor instead of at an offset
+        assertEquals(25, returnDTO.getTotalItem());
+        verify(entityManager, never()).createNativeQuery(anyString());
+        verify(query).setParameter("title", "%" + title + "%");
+        verify(query).setParameter("offset", 0);
+        verify(query).setParameter("lastId", MOVIE_ID);
+        verify(query).setParameter("lastSortValue", title);
+
+        // 20 of the 25 movies are on the first two pages
+        MovieSearchCursor nextCursor = returnDTO.getNextCursor();
+        assertEquals(2, nextCursor.getPage());
+        assertEquals("tt2", nextCursor.getLastId());
+        assertEquals("title2", nextCursor.getLastSortValue());
+        assertTrue(nextCursor.isLikeMatch());
+        assertEquals(nextCursor, MovieSearchCursor.decode(nextCursor.encode()));
+    }
+
+    @Test
+    void repositoryImplSearchMovies_ShouldCountOnce_ForAllPagesAndOrders() {
+        Query countTotalRowsQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(countTotalRowsQuery);
+        when(countTotalRowsQuery.getSingleResult()).thenReturn(totalItemsLong);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING)))
+                .thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.emptyList());
+
+        customMovieRepositoryImpl.searchMovies(movieSearchParam);
+        // Another page and order, and the filters in another case
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = customMovieRepositoryImpl.searchMovies(
+                movieSearchParam.toBuilder().page(1).direction("desc").director(director.toUpperCase()).build());
+
+        assertEquals(totalItems, returnDTO.getTotalItem());
+        verify(entityManager, times(1)).createNativeQuery(anyString());
+        // The FULLTEXT phrase match found the movies, so it's also used for the second page
+        verify(query, times(2)).setParameter("title", "\"" + title + "\"");
+    }
+
+    @Test
+    void repositoryImplSearchMovies_ShouldStopCountingAtTheCap_WhenCountIsEstimate() {
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "estimateCap", totalItems);
+        movieSearchParam = movieSearchParam.toBuilder().count(COUNT_ESTIMATE).build();
+
+        Query countTotalRowsQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString())).thenReturn(countTotalRowsQuery);
+        when(countTotalRowsQuery.getSingleResult()).thenReturn(totalItemsLong);
+        MovieTitleSearchSQLQueryResultDTO resultDTO = new MovieTitleSearchSQLQueryResultDTO(MOVIE_ID, title, releasedYear,
+                director, BACKDROP_PATH, POSTER_PATH, rating, OVERVIEW);
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING)))
+                .thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.nCopies(limit, resultDTO));
+
+        MovieSearchWithTitleDTOFromRepoToService returnDTO = customMovieRepositoryImpl.searchMovies(movieSearchParam);
+
+        // The counting reached the cap, so there can be more movies than that, and the full page has a next page
+        assertEquals(totalItems, returnDTO.getTotalItem());
+        assertTrue(returnDTO.isTotalItemEstimated());
+        assertTrue(returnDTO.getNextCursor().isTotalItemsEstimated());
+        verify(entityManager).createNativeQuery(contains("LIMIT :estimateCap"));
+        verify(countTotalRowsQuery).setParameter("estimateCap", totalItems);
+
+        // An estimate isn't used for an exact count
+        assertNull(countCache.get(movieSearchParam, false));
+    }
+
     @Test
     void repositoryImplSearchMoviesWithoutReleasedYear() {
 
@@ -325,6 +586,87 @@ class CustomRepositoryImplUnitTests {
         verify(query).setParameter("offset", page * limit);
     }
 
+    @Test
+    void searchMovies_ShouldReuseTheStatementOfTheShape_ForOtherValues() {
+        // The counts are cached, so each search only runs its page query
+        MovieSearchParam first = movieSearchParam.toBuilder().orderBy(RATING).direction(DESC).build();
+        MovieSearchParam second = first.toBuilder().title("another title").releasedYear("1999").director("another")
+                .genre("another").page(3).build();
+        MovieSearchParam withoutFilters = first.toBuilder().releasedYear(null).director("").genre(null).build();
+        for (MovieSearchParam param : List.of(first, second, withoutFilters)) {
+            countCache.put(param, new MovieSearchCountCache.Count(100, false, false));
+        }
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING))).thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.emptyList());
+
+        customMovieRepositoryImpl.searchMovies(first);
+        customMovieRepositoryImpl.searchMovies(second);
+        customMovieRepositoryImpl.searchMovies(withoutFilters);
+
+        ArgumentCaptor<String> sqlQueries = ArgumentCaptor.forClass(String.class);
+        verify(entityManager, times(3)).createNativeQuery(sqlQueries.capture(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING));
+        List<String> statements = sqlQueries.getAllValues();
+        assertSame(statements.get(0), statements.get(1));
+        assertTrue(statements.get(0).contains("ORDER BY rating IS NULL, rating desc, id"));
+        assertTrue(statements.get(0).contains("AND m.genres LIKE :genre"));
+        assertFalse(statements.get(2).contains("LIKE :"));
+    }
+
+    @Test
+    void searchMovies_ShouldFilterByIdsAndYearRange_WhenTheFiltersAreNormalized() {
+        normalizeFilters(1000);
+        MovieSearchParam nineties = movieSearchParam.toBuilder().releasedYear("199").build();
+        countCache.put(nineties, new MovieSearchCountCache.Count(100, false, false));
+        Query directorIdsQuery = mock(Query.class);
+        Query genreIdsQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(contains("INNER JOIN person p"))).thenReturn(directorIdsQuery);
+        when(directorIdsQuery.getResultList()).thenReturn(List.of("nm1", "nm2"));
+        when(entityManager.createNativeQuery(contains("FROM genre g"))).thenReturn(genreIdsQuery);
+        when(genreIdsQuery.getResultList()).thenReturn(Collections.emptyList());
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING))).thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.emptyList());
+
+        customMovieRepositoryImpl.searchMovies(nineties);
+        customMovieRepositoryImpl.searchMovies(nineties);
+
+        ArgumentCaptor<String> sqlQueries = ArgumentCaptor.forClass(String.class);
+        verify(entityManager, times(2)).createNativeQuery(sqlQueries.capture(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING));
+        String statement = sqlQueries.getValue();
+        assertTrue(statement.contains("m.releaseYear BETWEEN :releaseYearFrom AND :releaseYearTo"));
+        assertTrue(statement.contains("mc.person_id IN (:directorIds)"));
+        assertTrue(statement.contains("mg.genre_id IN (:genreIds)"));
+        assertFalse(statement.contains("LIKE :"));
+        verify(query, times(2)).setParameter("releaseYearFrom", 1990);
+        verify(query, times(2)).setParameter("releaseYearTo", 1999);
+        verify(query, times(2)).setParameter("directorIds", List.of("nm1", "nm2"));
+        // No genre matches, so no movie does
+        verify(query, times(2)).setParameter("genreIds", List.of(-1));
+        // The ids are resolved once, then taken from the cache
+        verify(directorIdsQuery).setParameter("name", "%" + director + "%");
+        verify(directorIdsQuery, times(1)).getResultList();
+    }
+
+    @Test
+    void searchMovies_ShouldKeepTheLikeCondition_WhenAFilterMatchesTooManyIds() {
+        normalizeFilters(1);
+        MovieSearchParam byDirector = movieSearchParam.toBuilder().releasedYear("02020").genre(null).build();
+        countCache.put(byDirector, new MovieSearchCountCache.Count(100, false, false));
+        Query directorIdsQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(contains("INNER JOIN person p"))).thenReturn(directorIdsQuery);
+        when(directorIdsQuery.getResultList()).thenReturn(List.of("nm1", "nm2"));
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING))).thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.emptyList());
+
+        customMovieRepositoryImpl.searchMovies(byDirector);
+
+        ArgumentCaptor<String> sqlQueries = ArgumentCaptor.forClass(String.class);
+        verify(entityManager).createNativeQuery(sqlQueries.capture(), eq(MOVIE_TITLE_SEARCH_QUERY_RESULT_DTO_MAPPING));
+        assertTrue(sqlQueries.getValue().contains("AND m.directors LIKE :director"));
+        // A year that isn't one to four digits isn't a range of years
+        assertTrue(sqlQueries.getValue().contains("AND m.releaseTime LIKE :releasedYear"));
+        verify(directorIdsQuery).setParameter("maxIds", 2);
+    }
+
     @Test
     void searchOneMovieDetails_movieFound() {
         // Set up data
@@ -386,6 +728,89 @@ class CustomRepositoryImplUnitTests {
 
     }
 
+    @Test
+    void searchOneMovieDetails_ShouldSkipTheRejectedCrewMembersQuery_WhenTheMovieIsNotFound() {
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "detailsExecutor", (Executor) command -> {
+            throw new RejectedExecutionException();
+        });
+        when(entityManager.createNativeQuery(anyString(), eq(SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING)))
+                .thenReturn(query);
+        doThrow(NoResultException.class).when(query).getSingleResult();
+
+        assertNull(customMovieRepositoryImpl.searchOneMovieDetails(movieId));
+        verify(entityManager, never()).createNativeQuery(anyString(), eq(SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING));
+    }
+
+    @Test
+    void searchOneMovieDetails_ShouldRunTheRejectedCrewMembersQueryAfterTheBasicDetails() {
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "detailsExecutor", (Executor) command -> {
+            throw new RejectedExecutionException();
+        });
+        OneMovieDetailsDTO oneMovieDetailsDTO = new OneMovieDetailsDTO();
+        oneMovieDetailsDTO.setId(movieId);
+        List<CrewMember> crewMemberList = List.of(new CrewMember("nm1", "personName", "profilePath", "job"));
+        Query basicDetailsQuery = mock(Query.class);
+        Query crewMembersQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString(), eq(SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING)))
+                .thenReturn(basicDetailsQuery);
+        when(basicDetailsQuery.getSingleResult()).thenReturn(oneMovieDetailsDTO);
+        when(entityManager.createNativeQuery(anyString(), eq(SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING)))
+                .thenReturn(crewMembersQuery);
+        when(crewMembersQuery.getResultList()).thenReturn(crewMemberList);
+
+        OneMovieDetailsDTO actual = customMovieRepositoryImpl.searchOneMovieDetails(movieId);
+
+        assertEquals(crewMemberList, actual.getCrewMemberList());
+        InOrder inOrder = inOrder(basicDetailsQuery, crewMembersQuery);
+        inOrder.verify(basicDetailsQuery).getSingleResult();
+        inOrder.verify(crewMembersQuery).getResultList();
+    }
+
+    @Test
+    void searchOneMovieDetails_ShouldQueryTheCrewMembers_AtTheSameTimeAsTheBasicDetails() throws Exception {
+        ExecutorService detailsExecutor = Executors.newSingleThreadExecutor();
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "detailsExecutor", detailsExecutor);
+        OneMovieDetailsDTO oneMovieDetailsDTO = new OneMovieDetailsDTO();
+        oneMovieDetailsDTO.setId(movieId);
+        List<CrewMember> crewMemberList = List.of(new CrewMember("nm1", "personName", "profilePath", "job"));
+
+        // The basic details query only returns once the crew members query has started, so it would never return if
+        // the queries ran one after the other
+        CountDownLatch crewQueryStarted = new CountDownLatch(1);
+        Query basicDetailsQuery = mock(Query.class);
+        Query crewMembersQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString(), eq(SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING))).thenReturn(basicDetailsQuery);
+        when(basicDetailsQuery.getSingleResult()).thenAnswer(invocation ->
+                crewQueryStarted.await(5, TimeUnit.SECONDS) ? oneMovieDetailsDTO : null);
+        when(entityManager.createNativeQuery(anyString(), eq(SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING))).thenReturn(crewMembersQuery);
+        when(crewMembersQuery.getResultList()).thenAnswer(invocation -> {
+            crewQueryStarted.countDown();
+            return crewMemberList;
+        });
+
+        try {
+            OneMovieDetailsDTO actual = customMovieRepositoryImpl.searchOneMovieDetails(movieId);
+
+            assertNotNull(actual);
+            assertEquals(crewMemberList, actual.getCrewMemberList());
+        } finally {
+            detailsExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    void searchOneMovieDetails_ShouldThrowTheCrewMembersQueryException() {
+        OneMovieDetailsDTO oneMovieDetailsDTO = new OneMovieDetailsDTO();
+        Query crewMembersQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString(), eq(SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING))).thenReturn(query);
+        when(query.getSingleResult()).thenReturn(oneMovieDetailsDTO);
+        when(entityManager.createNativeQuery(anyString(), eq(SINGLE_MOVIE_CREW_MEMBER_DTO_MAPPING))).thenReturn(crewMembersQuery);
+        when(crewMembersQuery.getResultList()).thenThrow(QueryTimeoutException.class);
+
+        // Not the CompletionException of the crew members query's thread
+        assertThrows(QueryTimeoutException.class, () -> customMovieRepositoryImpl.searchOneMovieDetails(movieId));
+    }
+
     @Test
     void searchOneMovieDetails_movieFound_crewMemberNotFound() {
         // Set up data
@@ -412,4 +837,50 @@ class CustomRepositoryImplUnitTests {
         // Assert the List<CrewMember> is an empty list.
         assertEquals(Collections.emptyList(), actual.getCrewMemberList());
     }
+
+    @Test
+    void searchMovieDetails_ShouldSearchAllTheMoviesWithTwoStatements() {
+        OneMovieDetailsDTO first = new OneMovieDetailsDTO();
+        first.setId("tt1");
+        OneMovieDetailsDTO second = new OneMovieDetailsDTO();
+        second.setId("tt2");
+        CrewMember director = new CrewMember("nm1", "director", "profilePath", "Director");
+        CrewMember actor = new CrewMember("nm2", "actor", "profilePath", "Actor");
+        List<String> movieIds = List.of("tt2", "tt1", "tt404");
+
+        Query basicDetailsQuery = mock(Query.class);
+        Query crewMembersQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString(), eq(SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING))).thenReturn(basicDetailsQuery);
+        when(basicDetailsQuery.getResultList()).thenReturn(List.of(first, second));
+        when(entityManager.createNativeQuery(anyString(), eq(MOVIE_CREW_MEMBER_WITH_MOVIE_ID_MAPPING))).thenReturn(crewMembersQuery);
+        when(crewMembersQuery.getResultList()).thenReturn(List.of(
+                new Object[]{director, "tt1"}, new Object[]{actor, "tt1"}));
+
+        Map<String, OneMovieDetailsDTO> actual = customMovieRepositoryImpl.searchMovieDetails(movieIds);
+
+        // In the requested order, without the movie that isn't found
+        assertEquals(List.of("tt2", "tt1"), new ArrayList<>(actual.keySet()));
+        assertEquals(List.of(director, actor), actual.get("tt1").getCrewMemberList());
+        assertEquals(Collections.emptyList(), actual.get("tt2").getCrewMemberList());
+        verify(entityManager, times(2)).createNativeQuery(anyString(), anyString());
+        verify(basicDetailsQuery).setParameter("movieIds", movieIds);
+        verify(crewMembersQuery).setParameter("movieIds", movieIds);
+    }
+
+    @Test
+    void searchMovieDetails_ShouldReturnAnEmptyMap_WhenNoMovieIsFound() {
+        Query crewMembersQuery = mock(Query.class);
+        when(entityManager.createNativeQuery(anyString(), eq(SINGLE_MOVIE_BASIC_DETAILS_DTO_MAPPING))).thenReturn(query);
+        when(query.getResultList()).thenReturn(Collections.emptyList());
+        lenient().when(entityManager.createNativeQuery(anyString(), eq(MOVIE_CREW_MEMBER_WITH_MOVIE_ID_MAPPING))).thenReturn(crewMembersQuery);
+
+        assertTrue(customMovieRepositoryImpl.searchMovieDetails(List.of("tt404")).isEmpty());
+    }
+
+    private void normalizeFilters(int filterMaxIds) {
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "filterMode", SEARCH_SQL_FILTERS_NORMALIZED);
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "filterMaxIds", filterMaxIds);
+        ReflectionTestUtils.setField(customMovieRepositoryImpl, "filterIdCache",
+                new MovieFilterIdCache(100, Duration.ofMinutes(5), System::nanoTime));
+    }
 }
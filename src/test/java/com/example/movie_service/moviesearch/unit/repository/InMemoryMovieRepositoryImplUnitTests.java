@@ -0,0 +1,193 @@
+package com.example.movie_service.moviesearch.unit.repository;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
+import com.example.movie_service.dto.OneMovieDetailsDTO;
+import com.example.movie_service.index.MovieDocument;
+import com.example.movie_service.index.MovieSearchIndexHolder;
+import com.example.movie_service.index.ShardedMovieSearchIndex;
+import com.example.movie_service.repository.CustomMovieRepositoryImpl;
+import com.example.movie_service.repository.InMemoryMovieRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static com.example.movie_service.constants.TestConstant.ASC;
+import static com.example.movie_service.constants.TestConstant.DESC;
+import static com.example.movie_service.constants.TestConstant.ORDER_BY_TITLE;
+import static com.example.movie_service.constants.TestConstant.RATING;
+import static com.example.movie_service.constants.TestConstant.RELEVANCE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryMovieRepositoryImplUnitTests {
+
+    @Mock
+    private MovieSearchIndexHolder indexHolder;
+
+    @Mock
+    private CustomMovieRepositoryImpl sqlMovieRepository;
+
+    @InjectMocks
+    private InMemoryMovieRepositoryImpl inMemoryMovieRepository;
+
+    private MovieSearchParam movieSearchParam;
+
+    private ShardedMovieSearchIndex index;
+
+    @BeforeEach
+    public void setUp() {
+        List<MovieDocument> documents = new ArrayList<>();
+        for (int i = 1; i <= 13; i++) {
+            documents.add(new MovieDocument("tt" + i, "Movie" + i, "20" + (10 + i), "Director" + (i % 3),
+                    "backdropPath", "posterPath", (double) i, "overview", "Action", i * 100));
+        }
+        documents.add(new MovieDocument("tt20", "Love Movie", "2020", "Director1", "backdropPath", "posterPath",
+                1.0, "overview", "Love", 5));
+
+        movieSearchParam = MovieSearchParam.builder().title("movie").limit(10).page(0)
+                .orderBy(ORDER_BY_TITLE).direction(ASC).build();
+
+        // Several shards, so the results of the shards are merged
+        index = ShardedMovieSearchIndex.build(documents, 3, ForkJoinPool.commonPool());
+    }
+
+    @Test
+    void searchMovies_ShouldUsePhraseMatch_WhenItFindsMovies() {
+        when(indexHolder.getIndex()).thenReturn(index);
+
+        MovieSearchWithTitleDTOFromRepoToService result = inMemoryMovieRepository.searchMovies(movieSearchParam);
+
+        // Only "Love Movie" has the term "movie". "Movie1" has the term "movie1".
+        assertEquals(1, result.getTotalItem());
+        assertEquals("tt20", result.getMovies().get(0).getId());
+    }
+
+    @Test
+    void searchMovies_ShouldFallBackToSubstringMatch_WhenPhraseFindsNothing() {
+        movieSearchParam = movieSearchParam.toBuilder().title("movie1").build();
+
+        when(indexHolder.getIndex()).thenReturn(index);
+
+        MovieSearchWithTitleDTOFromRepoToService result = inMemoryMovieRepository.searchMovies(movieSearchParam);
+
+        assertEquals(1, result.getTotalItem());
+
+        movieSearchParam = movieSearchParam.toBuilder().title("ovie1").build();
+
+        result = inMemoryMovieRepository.searchMovies(movieSearchParam);
+
+        // Movie1, Movie10, Movie11, Movie12, Movie13
+        assertEquals(5, result.getTotalItem());
+        assertEquals("Movie1", result.getMovies().get(0).getTitle());
+        assertEquals("Movie10", result.getMovies().get(1).getTitle());
+    }
+
+    @Test
+    void searchMovies_ShouldUseFuzzyMatch_WhenNothingElseMatches() {
+        movieSearchParam = movieSearchParam.toBuilder().title("lvoe").build();
+        when(indexHolder.getIndex()).thenReturn(index);
+
+        MovieSearchWithTitleDTOFromRepoToService result = inMemoryMovieRepository.searchMovies(movieSearchParam);
+
+        assertEquals(1, result.getTotalItem());
+        assertEquals("tt20", result.getMovies().get(0).getId());
+    }
+
+    @Test
+    void searchMovies_ShouldUseFuzzyMatch_WhenFuzzyIsTrue() {
+        // "movie2" is one edit away from "movie1", "movie3" and so on
+        movieSearchParam = movieSearchParam.toBuilder().title("movie2").fuzzy(true).build();
+        when(indexHolder.getIndex()).thenReturn(index);
+
+        MovieSearchWithTitleDTOFromRepoToService result = inMemoryMovieRepository.searchMovies(movieSearchParam);
+
+        // movie1 to movie9 and movie (one deletion), plus movie10 to movie13 (two edits from "movie2")
+        assertEquals(14, result.getTotalItem());
+    }
+
+    @Test
+    void searchMovies_ShouldReturnTheRequestedPage() {
+        movieSearchParam = movieSearchParam.toBuilder().title("ovie").page(1).build();
+
+        when(indexHolder.getIndex()).thenReturn(index);
+
+        MovieSearchWithTitleDTOFromRepoToService result = inMemoryMovieRepository.searchMovies(movieSearchParam);
+
+        assertEquals(14, result.getTotalItem());
+        assertEquals(4, result.getMovies().size());
+        assertEquals("Movie6", result.getMovies().get(0).getTitle());
+    }
+
+    @Test
+    void searchMovies_ShouldRankByRelevance_WhenOrderByIsRelevance() {
+        movieSearchParam = movieSearchParam.toBuilder().title("ovie").orderBy(RELEVANCE).page(1).build();
+
+        when(indexHolder.getIndex()).thenReturn(index);
+
+        MovieSearchWithTitleDTOFromRepoToService result = inMemoryMovieRepository.searchMovies(movieSearchParam);
+
+        // No title term starts with "ovie", so the movies are ranked by their numbers of votes
+        assertEquals(14, result.getTotalItem());
+        assertEquals(4, result.getMovies().size());
+        assertEquals("Movie3", result.getMovies().get(0).getTitle());
+        assertEquals("Love Movie", result.getMovies().get(3).getTitle());
+    }
+
+    @Test
+    void searchMovies_ShouldReturnEmptyPage_WhenPageIsOutOfRange() {
+        movieSearchParam = movieSearchParam.toBuilder().title("ovie").page(5).build();
+
+        when(indexHolder.getIndex()).thenReturn(index);
+
+        MovieSearchWithTitleDTOFromRepoToService result = inMemoryMovieRepository.searchMovies(movieSearchParam);
+
+        assertEquals(14, result.getTotalItem());
+        assertEquals(0, result.getMovies().size());
+    }
+
+    @Test
+    void searchMovies_ShouldReturnTheSamePages_WithCursorsAndPageNumbers() {
+        when(indexHolder.getIndex()).thenReturn(index);
+
+        // Love Movie and Movie1 have the same rating, so their ids decide
+        for (String direction : List.of(ASC, DESC)) {
+            MovieSearchParam byPage = movieSearchParam.toBuilder().title("ovie").limit(4).orderBy(RATING)
+                    .direction(direction).build();
+            MovieSearchParam byCursor = byPage.toBuilder().build();
+            for (int page = 0; page < 4; page++) {
+                byPage.setPage(page);
+                MovieSearchWithTitleDTOFromRepoToService expected = inMemoryMovieRepository.searchMovies(byPage);
+                MovieSearchWithTitleDTOFromRepoToService actual = inMemoryMovieRepository.searchMovies(byCursor);
+
+                assertEquals(expected.getMovies(), actual.getMovies());
+                assertEquals(14, actual.getTotalItem());
+                if (page < 3) {
+                    assertEquals(page + 1, actual.getNextCursor().getPage());
+                    byCursor = byCursor.toBuilder().page(page + 1).after(actual.getNextCursor()).build();
+                } else {
+                    // 14 movies fit in 4 pages
+                    assertNull(actual.getNextCursor());
+                }
+            }
+        }
+    }
+
+    @Test
+    void searchOneMovieDetails_ShouldUseSqlRepository() {
+        OneMovieDetailsDTO details = new OneMovieDetailsDTO();
+        when(sqlMovieRepository.searchOneMovieDetails("tt1")).thenReturn(details);
+
+        assertSame(details, inMemoryMovieRepository.searchOneMovieDetails("tt1"));
+    }
+}
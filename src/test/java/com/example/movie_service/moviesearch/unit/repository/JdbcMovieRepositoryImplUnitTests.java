@@ -0,0 +1,143 @@
+package com.example.movie_service.moviesearch.unit.repository;
+
+import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.datasource.HedgedQueryExecutor;
+import com.example.movie_service.dto.CrewMember;
+import com.example.movie_service.dto.MovieSearchCursor;
+import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
+import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
+import com.example.movie_service.dto.OneMovieDetailsDTO;
+import com.example.movie_service.repository.JdbcMovieRepositoryImpl;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.quality.Strictness;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static com.example.movie_service.constants.TestConstant.ASC;
+import static com.example.movie_service.constants.TestConstant.ORDER_BY_TITLE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.contains;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+@ExtendWith(MockitoExtension.class)
+class JdbcMovieRepositoryImplUnitTests {
+
+    private static final int FETCH_SIZE = 500;
+
+    @Mock
+    private DataSource dataSource;
+
+    @Mock
+    private Connection connection;
+
+    private JdbcMovieRepositoryImpl jdbcMovieRepository;
+
+    @BeforeEach
+    public void setUp() throws SQLException {
+        when(dataSource.getConnection()).thenReturn(connection);
+        jdbcMovieRepository = new JdbcMovieRepositoryImpl(dataSource, FETCH_SIZE);
+        // Run the crew members query on the calling thread
+        ReflectionTestUtils.setField(jdbcMovieRepository, "detailsExecutor", (Executor) Runnable::run);
+        // Hedging is disabled by default, so the page query runs once on the calling thread
+        ReflectionTestUtils.setField(jdbcMovieRepository, "hedgedQueryExecutor",
+                new HedgedQueryExecutor(false, 95, Duration.ZERO, 1000, Runnable::run));
+    }
+
+    @Test
+    void searchMovies_ShouldMapTheRowsOfThePageAfterACursor() throws SQLException {
+        MovieSearchParam movieSearchParam = MovieSearchParam.builder().title("title").limit(10).page(1)
+                .orderBy(ORDER_BY_TITLE).direction(ASC).build();
+        movieSearchParam.setAfter(new MovieSearchCursor(MovieSearchCursor.searchHashOf(movieSearchParam), false, 11,
+                false, 1, "tt1", "A title"));
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = resultSet();
+        when(connection.prepareStatement(contains("FROM movie_materialized_view"))).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(true, false);
+        when(resultSet.getString("id")).thenReturn("tt2");
+        when(resultSet.getString("title")).thenReturn("The title");
+        // A NULL rating is read with getObject, so it stays null instead of 0.0
+        when(resultSet.getObject("rating", Double.class)).thenReturn(null);
+
+        MovieSearchWithTitleDTOFromRepoToService result = jdbcMovieRepository.searchMovies(movieSearchParam);
+
+        MovieTitleSearchSQLQueryResultDTO movie = result.getMovies().get(0);
+        assertEquals("tt2", movie.getId());
+        assertEquals("The title", movie.getTitle());
+        assertNull(movie.getRating());
+        // The cursor has the total items, so there's no count statement
+        assertEquals(11, result.getTotalItem());
+        verify(connection).prepareStatement(anyString());
+        verify(statement).setFetchSize(FETCH_SIZE);
+        verify(statement).setString(anyInt(), eq("\"title\""));
+        verify(statement).setString(anyInt(), eq("tt1"));
+    }
+
+    @Test
+    void searchOneMovieDetails_ShouldMapTheBasicDetailsAndTheCrewMembers() throws SQLException {
+        PreparedStatement basicDetailsStatement = mock(PreparedStatement.class);
+        ResultSet basicDetailsResultSet = resultSet();
+        when(connection.prepareStatement(contains("FROM movie m"))).thenReturn(basicDetailsStatement);
+        when(basicDetailsStatement.executeQuery()).thenReturn(basicDetailsResultSet);
+        when(basicDetailsResultSet.next()).thenReturn(true, false);
+        when(basicDetailsResultSet.getString("id")).thenReturn("tt1");
+        when(basicDetailsResultSet.getObject("budget", Long.class)).thenReturn(1000L);
+        when(basicDetailsResultSet.getObject("numOfVotes", Integer.class)).thenReturn(42);
+
+        PreparedStatement crewMembersStatement = mock(PreparedStatement.class);
+        ResultSet crewMembersResultSet = resultSet();
+        when(connection.prepareStatement(contains("FROM movie_crew mc"))).thenReturn(crewMembersStatement);
+        when(crewMembersStatement.executeQuery()).thenReturn(crewMembersResultSet);
+        when(crewMembersResultSet.next()).thenReturn(true, false);
+        when(crewMembersResultSet.getString("person_id")).thenReturn("nm1");
+        when(crewMembersResultSet.getString("person_name")).thenReturn("personName");
+        when(crewMembersResultSet.getString("profilePath")).thenReturn("profilePath");
+        when(crewMembersResultSet.getString("jobs")).thenReturn("Director");
+
+        OneMovieDetailsDTO actual = jdbcMovieRepository.searchOneMovieDetails("tt1");
+
+        assertEquals("tt1", actual.getId());
+        assertEquals(1000L, actual.getBudget());
+        assertEquals(42, actual.getNumOfVotes());
+        assertNull(actual.getRevenue());
+        assertEquals(List.of(new CrewMember("nm1", "personName", "profilePath", "Director")),
+                actual.getCrewMemberList());
+        verify(basicDetailsStatement).setString(1, "tt1");
+        verify(crewMembersStatement).setString(1, "tt1");
+    }
+
+    @Test
+    void searchOneMovieDetails_ShouldReturnNull_WhenTheMovieIsNotFound() throws SQLException {
+        PreparedStatement statement = mock(PreparedStatement.class);
+        ResultSet resultSet = resultSet();
+        when(connection.prepareStatement(anyString())).thenReturn(statement);
+        when(statement.executeQuery()).thenReturn(resultSet);
+        when(resultSet.next()).thenReturn(false);
+
+        assertNull(jdbcMovieRepository.searchOneMovieDetails("tt404"));
+    }
+
+    // The row mappers read every column of a row, so only the columns a test cares about are stubbed
+    private static ResultSet resultSet() {
+        return mock(ResultSet.class, withSettings().strictness(Strictness.LENIENT));
+    }
+}
@@ -2,13 +2,22 @@ package com.example.movie_service.moviesearch.unit.service;
 
 
 import com.example.movie_service.builder.MovieSearchParam;
+import com.example.movie_service.cache.MovieDetailsCache;
+import com.example.movie_service.cache.MovieNegativeCache;
+import com.example.movie_service.cache.MovieReadCoalescer;
+import com.example.movie_service.cache.MovieSearchResultCache;
 import com.example.movie_service.converter.MovieSearchQueryToResponseConverter;
+import com.example.movie_service.dto.MovieDetailsBatchItemDTO;
+import com.example.movie_service.dto.MovieSearchCursor;
 import com.example.movie_service.dto.MovieSearchResultWithPaginationDTO;
 import com.example.movie_service.dto.MovieSearchWithTitleDTOFromRepoToService;
 import com.example.movie_service.dto.MovieTitleSearchSQLQueryResultDTO;
 import com.example.movie_service.dto.MovieSearchResponseDTO;
+import com.example.movie_service.dto.MovieSuggestionDTO;
 import com.example.movie_service.dto.OneMovieDetailsDTO;
 import com.example.movie_service.exception.ValidationException;
+import com.example.movie_service.index.MovieSuggestionIndex;
+import com.example.movie_service.index.MovieSuggestionIndexHolder;
 import com.example.movie_service.repository.CustomMovieRepository;
 import com.example.movie_service.response.CustomResponse;
 import com.example.movie_service.service.MovieServiceImpl;
@@ -18,13 +27,18 @@ import jakarta.persistence.QueryTimeoutException;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.InOrder;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 
+import java.time.Duration;
 import java.util.List;
+import java.util.Map;
 
 import static com.example.movie_service.constant.MovieConstant.*;
 import static org.junit.jupiter.api.Assertions.*;
@@ -49,6 +63,21 @@ class MovieServiceUnitTests {
     @Mock
     private MovieSearchQueryToResponseConverter converter;
 
+    @Mock
+    private MovieSuggestionIndexHolder suggestionIndexHolder;
+
+    @Mock
+    private MovieSearchResultCache searchResultCache;
+
+    @Mock
+    private MovieDetailsCache detailsCache;
+
+    @Mock
+    private MovieNegativeCache negativeCache;
+
+    @Spy
+    private MovieReadCoalescer readCoalescer = new MovieReadCoalescer(true, Duration.ofSeconds(5));
+
     @InjectMocks
     private MovieServiceImpl movieServiceImpl; // Should this be MovieService or MovieServiceImpl?
 
@@ -229,6 +258,125 @@ class MovieServiceUnitTests {
         assertEquals("Inception", dto.getMovies().get(0).getTitle());
     }
 
+    @Test
+    void searchMovieReturnsTheCachedResultWithoutQueryingTheRepository() {
+        List<MovieTitleSearchSQLQueryResultDTO> mockMovies = List.of(
+                new MovieTitleSearchSQLQueryResultDTO("1", "Inception", "2010", "Christopher Nolan", "path/to/backdrop", "path/to/poster", 9.0, "overview")
+        );
+        when(searchResultCache.get(eq(movieSearchParam), any()))
+                .thenReturn(new MovieSearchWithTitleDTOFromRepoToService(1, mockMovies));
+        when(converter.convert(any(MovieTitleSearchSQLQueryResultDTO.class)))
+                .thenReturn(new MovieSearchResponseDTO("1", "Inception", "2010", "path/to/poster", 9.0, "overview"));
+
+        MovieSearchResultWithPaginationDTO dto = movieServiceImpl.searchMovies(movieSearchParam).getBody().getData();
+
+        assertEquals(1, dto.getTotalItems());
+        assertEquals("Inception", dto.getMovies().get(0).getTitle());
+        verify(movieRepository, never()).searchMovies(any());
+        verify(searchResultCache, never()).put(any(), any());
+    }
+
+    @Test
+    void searchMovieCachesTheRepositoryResult() {
+        MovieSearchWithTitleDTOFromRepoToService dtoFromRepoToService =
+                new MovieSearchWithTitleDTOFromRepoToService(0, List.of());
+        when(movieRepository.searchMovies(movieSearchParam)).thenReturn(dtoFromRepoToService);
+
+        movieServiceImpl.searchMovies(movieSearchParam);
+
+        verify(searchResultCache).put(movieSearchParam, dtoFromRepoToService);
+    }
+
+    @Test
+    void searchMovieRefreshOfTheCachedResultSearchesAgainAndCachesTheNewResult() {
+        List<MovieTitleSearchSQLQueryResultDTO> mockMovies = List.of(
+                new MovieTitleSearchSQLQueryResultDTO("1", "Inception", "2010", "Christopher Nolan", "path/to/backdrop", "path/to/poster", 9.0, "overview")
+        );
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        when(searchResultCache.get(eq(movieSearchParam), refresh.capture()))
+                .thenReturn(new MovieSearchWithTitleDTOFromRepoToService(1, mockMovies));
+        MovieSearchWithTitleDTOFromRepoToService newResult =
+                new MovieSearchWithTitleDTOFromRepoToService(1, mockMovies);
+        when(movieRepository.searchMovies(any())).thenReturn(newResult);
+
+        movieServiceImpl.searchMovies(movieSearchParam);
+        verify(movieRepository, never()).searchMovies(any());
+
+        refresh.getValue().run();
+
+        ArgumentCaptor<MovieSearchParam> refreshedParam = ArgumentCaptor.forClass(MovieSearchParam.class);
+        verify(movieRepository).searchMovies(refreshedParam.capture());
+        assertEquals("title", refreshedParam.getValue().getTitle());
+        assertEquals(0, refreshedParam.getValue().getPage());
+        verify(searchResultCache).put(any(), eq(newResult));
+    }
+
+    @Test
+    void searchMovieKnownEmptyIsNotSearchedAgain() {
+        when(negativeCache.isKnownEmpty(movieSearchParam)).thenReturn(true);
+
+        ResponseEntity<CustomResponse<MovieSearchResultWithPaginationDTO>> actualResponseEntity =
+                movieServiceImpl.searchMovies(movieSearchParam);
+
+        assertEquals(MOVIE_NOT_FOUND_CODE, actualResponseEntity.getBody().getCode());
+        verify(movieRepository, never()).searchMovies(any());
+    }
+
+    @Test
+    void searchMovieRecordsTheSearchThatFoundNoMovie() {
+        when(movieRepository.searchMovies(movieSearchParam))
+                .thenReturn(new MovieSearchWithTitleDTOFromRepoToService(0, List.of()));
+
+        movieServiceImpl.searchMovies(movieSearchParam);
+
+        verify(negativeCache).putEmpty(movieSearchParam);
+    }
+
+
+    @Test
+    void searchMovieWithCursor() {
+        MovieSearchCursor cursor = new MovieSearchCursor(MovieSearchCursor.searchHashOf(movieSearchParam), false,
+                25, false, 2, "1", "Inception");
+        movieSearchParam.setCursor(cursor.encode());
+
+        List<MovieTitleSearchSQLQueryResultDTO> mockMovies = List.of(
+                new MovieTitleSearchSQLQueryResultDTO("2", "Interstellar", "2014", "Christopher Nolan", "path/to/backdrop", "path/to/poster", 9.0, "overview")
+        );
+        MovieSearchWithTitleDTOFromRepoToService dtoFromRepoToService = new MovieSearchWithTitleDTOFromRepoToService(25, mockMovies);
+        when(movieRepository.searchMovies(movieSearchParam)).thenReturn(dtoFromRepoToService);
+        when(converter.convert(any(MovieTitleSearchSQLQueryResultDTO.class)))
+                .thenReturn(new MovieSearchResponseDTO("2", "Interstellar", "2014", "path/to/poster", 9.0, "overview"));
+
+        MovieSearchResultWithPaginationDTO dto = movieServiceImpl.searchMovies(movieSearchParam).getBody().getData();
+
+        // The page comes from the cursor, and the repository seeks to the movie after it
+        assertEquals(cursor, movieSearchParam.getAfter());
+        assertEquals(2, movieSearchParam.getPage());
+        assertEquals(3, dto.getCurrentPage());
+        assertTrue(dto.isHasPrevPage());
+        assertNull(dto.getNextCursor());
+    }
+
+    @Test
+    void searchMovieWithCursorOfAnotherSearch() {
+        MovieSearchCursor cursor = new MovieSearchCursor(MovieSearchCursor.searchHashOf(movieSearchParam), false,
+                25, false, 2, "1", "Inception");
+        movieSearchParam = movieSearchParam.toBuilder().title("anotherTitle").cursor(cursor.encode()).build();
+
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> movieServiceImpl.searchMovies(movieSearchParam));
+        assertEquals(INVALID_CURSOR_CODE, exception.getErrorCode());
+        verify(movieRepository, never()).searchMovies(any());
+    }
+
+    @Test
+    void searchMovieWithInvalidCursor() {
+        movieSearchParam = movieSearchParam.toBuilder().cursor("not-a-cursor").build();
+
+        ValidationException exception = assertThrows(ValidationException.class,
+                () -> movieServiceImpl.searchMovies(movieSearchParam));
+        assertEquals(INVALID_CURSOR_CODE, exception.getErrorCode());
+    }
 
     @Test
     void searchMovieWithNoResult() {
@@ -289,6 +437,35 @@ class MovieServiceUnitTests {
         assertEquals(movieTitle, actualDTO.getTitle());
     }
 
+    @Test
+    void searchOneMovieDetailsReturnsTheCachedDetailsWithoutQueryingTheRepository() {
+        oneMovieDetailsDTO = new OneMovieDetailsDTO();
+        oneMovieDetailsDTO.setId(movieId);
+        when(detailsCache.get(eq(movieId), any())).thenReturn(oneMovieDetailsDTO);
+
+        ResponseEntity<CustomResponse<OneMovieDetailsDTO>> actualResponseEntity =
+                movieServiceImpl.searchOneMovieDetails(movieId);
+
+        assertEquals(MOVIE_FOUND_CODE, actualResponseEntity.getBody().getCode());
+        assertEquals(oneMovieDetailsDTO, actualResponseEntity.getBody().getData());
+        verify(movieRepository, never()).searchOneMovieDetails(any());
+    }
+
+    @Test
+    void searchOneMovieDetailsCachesTheDetailsWithTheVersionReadBeforeLoadingThem() {
+        oneMovieDetailsDTO = new OneMovieDetailsDTO();
+        oneMovieDetailsDTO.setId(movieId);
+        when(detailsCache.version(movieId)).thenReturn(7L);
+        when(movieRepository.searchOneMovieDetails(movieId)).thenReturn(oneMovieDetailsDTO);
+
+        movieServiceImpl.searchOneMovieDetails(movieId);
+
+        InOrder inOrder = inOrder(detailsCache, movieRepository);
+        inOrder.verify(detailsCache).version(movieId);
+        inOrder.verify(movieRepository).searchOneMovieDetails(movieId);
+        inOrder.verify(detailsCache).put(movieId, 7L, oneMovieDetailsDTO);
+    }
+
     @Test
     void searchOneMovieDetailsDoesNotFoundMovie(){
         // Set up
@@ -312,6 +489,41 @@ class MovieServiceUnitTests {
         assertNull(actualCustomResponse.getData());
     }
 
+    @Test
+    void searchOneMovieDetailsRecordsTheMissingMovie() {
+        when(movieRepository.searchOneMovieDetails(movieId)).thenReturn(null);
+
+        movieServiceImpl.searchOneMovieDetails(movieId);
+
+        verify(negativeCache).putMissing(movieId);
+    }
+
+    @Test
+    void searchOneMovieDetailsRefreshOfARemovedMovieDropsItsCachedDetails() {
+        oneMovieDetailsDTO = new OneMovieDetailsDTO();
+        oneMovieDetailsDTO.setId(movieId);
+        ArgumentCaptor<Runnable> refresh = ArgumentCaptor.forClass(Runnable.class);
+        when(detailsCache.get(eq(movieId), refresh.capture())).thenReturn(oneMovieDetailsDTO);
+        when(movieRepository.searchOneMovieDetails(movieId)).thenReturn(null);
+
+        movieServiceImpl.searchOneMovieDetails(movieId);
+        refresh.getValue().run();
+
+        verify(detailsCache).remove(movieId);
+        verify(negativeCache).putMissing(movieId);
+    }
+
+    @Test
+    void searchOneMovieDetailsKnownMissingIsNotSearchedAgain() {
+        when(negativeCache.isKnownMissing(movieId)).thenReturn(true);
+
+        ResponseEntity<CustomResponse<OneMovieDetailsDTO>> actualResponseEntity =
+                movieServiceImpl.searchOneMovieDetails(movieId);
+
+        assertEquals(MOVIE_NOT_FOUND_CODE, actualResponseEntity.getBody().getCode());
+        verify(movieRepository, never()).searchOneMovieDetails(any());
+    }
+
     @Test
     void searchOneMovieDetailsInvalidMovieId_MovieIdBeingNull(){
         // Mock the validationService.validateMovieId(movieId) line throws an Exception.
@@ -330,4 +542,89 @@ class MovieServiceUnitTests {
 
     }
 
+    @Test
+    void searchMovieDetailsBatch_ShouldMarkTheMoviesThatAreNotFound() {
+        OneMovieDetailsDTO oneMovieDetailsDTO = new OneMovieDetailsDTO();
+        oneMovieDetailsDTO.setId(movieId);
+        // The repeated id is only searched once
+        when(movieRepository.searchMovieDetails(List.of(movieId, "tt404"))).thenReturn(Map.of(movieId, oneMovieDetailsDTO));
+
+        ResponseEntity<CustomResponse<Map<String, MovieDetailsBatchItemDTO>>> actualResponseEntity =
+                movieServiceImpl.searchMovieDetailsBatch(List.of(movieId, "tt404", movieId));
+
+        assertEquals(HttpStatus.OK, actualResponseEntity.getStatusCode());
+        assertEquals(MOVIE_FOUND_CODE, actualResponseEntity.getBody().getCode());
+        Map<String, MovieDetailsBatchItemDTO> items = actualResponseEntity.getBody().getData();
+        assertEquals(List.of(movieId, "tt404"), List.copyOf(items.keySet()));
+        assertEquals(new MovieDetailsBatchItemDTO(true, oneMovieDetailsDTO), items.get(movieId));
+        assertEquals(new MovieDetailsBatchItemDTO(false, null), items.get("tt404"));
+    }
+
+    @Test
+    void searchMovieDetailsBatch_ShouldOnlySearchTheMoviesThatAreNotCached() {
+        OneMovieDetailsDTO cached = new OneMovieDetailsDTO();
+        cached.setId(movieId);
+        OneMovieDetailsDTO loaded = new OneMovieDetailsDTO();
+        loaded.setId("tt2");
+        when(detailsCache.get(eq(movieId), any())).thenReturn(cached);
+        when(movieRepository.searchMovieDetails(List.of("tt2"))).thenReturn(Map.of("tt2", loaded));
+
+        Map<String, MovieDetailsBatchItemDTO> items =
+                movieServiceImpl.searchMovieDetailsBatch(List.of(movieId, "tt2")).getBody().getData();
+
+        assertEquals(new MovieDetailsBatchItemDTO(true, cached), items.get(movieId));
+        assertEquals(new MovieDetailsBatchItemDTO(true, loaded), items.get("tt2"));
+        verify(detailsCache).put("tt2", 0L, loaded);
+    }
+
+    @Test
+    void searchMovieDetailsBatch_ShouldReturnMovieNotFound_WhenNoMovieIsFound() {
+        when(movieRepository.searchMovieDetails(List.of("tt404"))).thenReturn(Map.of());
+
+        ResponseEntity<CustomResponse<Map<String, MovieDetailsBatchItemDTO>>> actualResponseEntity =
+                movieServiceImpl.searchMovieDetailsBatch(List.of("tt404"));
+
+        assertEquals(MOVIE_NOT_FOUND_CODE, actualResponseEntity.getBody().getCode());
+        assertFalse(actualResponseEntity.getBody().getData().get("tt404").isFound());
+    }
+
+    @Test
+    void searchMovieDetailsBatchWithInvalidMovieIds() {
+        doThrow(ValidationException.class).when(validationService).validateMovieIds(List.of());
+
+        assertThrows(ValidationException.class, () -> movieServiceImpl.searchMovieDetailsBatch(List.of()));
+        verifyNoInteractions(movieRepository);
+    }
+
+    @Test
+    void suggestMoviesFoundMovies() {
+        MovieSuggestionDTO suggestion = new MovieSuggestionDTO(movieId, movieTitle, "2020", "posterPath", 10);
+        when(suggestionIndexHolder.getIndex()).thenReturn(MovieSuggestionIndex.build(List.of(suggestion)));
+
+        ResponseEntity<CustomResponse<List<MovieSuggestionDTO>>> actualResponseEntity =
+                movieServiceImpl.suggestMovies("movie", 10);
+
+        assertNotNull(actualResponseEntity.getBody());
+        assertEquals(MOVIE_FOUND_CODE, actualResponseEntity.getBody().getCode());
+        assertEquals(List.of(suggestion), actualResponseEntity.getBody().getData());
+    }
+
+    @Test
+    void suggestMoviesDoesNotFoundMovies() {
+        when(suggestionIndexHolder.getIndex()).thenReturn(MovieSuggestionIndex.empty());
+
+        ResponseEntity<CustomResponse<List<MovieSuggestionDTO>>> actualResponseEntity =
+                movieServiceImpl.suggestMovies("movie", 10);
+
+        assertNotNull(actualResponseEntity.getBody());
+        assertEquals(MOVIE_NOT_FOUND_CODE, actualResponseEntity.getBody().getCode());
+        assertNull(actualResponseEntity.getBody().getData());
+    }
+
+    @Test
+    void suggestMoviesWithInvalidPrefix() {
+        doThrow(ValidationException.class).when(validationService).validatePrefix("");
+
+        assertThrows(ValidationException.class, () -> movieServiceImpl.suggestMovies("", 10));
+    }
 }
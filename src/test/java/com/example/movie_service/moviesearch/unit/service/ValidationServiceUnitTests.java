@@ -5,17 +5,30 @@ import com.example.movie_service.service.ValidationServiceImpl;
 import org.junit.jupiter.api.Test;
 
 import java.time.Year;
+import java.util.Collections;
+import java.util.List;
 
+import static com.example.movie_service.constant.MovieConstant.COUNT_ESTIMATE;
+import static com.example.movie_service.constant.MovieConstant.COUNT_EXACT;
+import static com.example.movie_service.constant.MovieConstant.INVALID_COUNT_CODE;
+import static com.example.movie_service.constant.MovieConstant.INVALID_COUNT_MESSAGE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_DIRECTION_CODE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_DIRECTION_MESSAGE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_LIMIT_CODE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_LIMIT_MESSAGE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_MOVIE_ID_CODE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_MOVIE_ID_MESSAGE;
+import static com.example.movie_service.constant.MovieConstant.INVALID_MOVIE_IDS_CODE;
+import static com.example.movie_service.constant.MovieConstant.INVALID_MOVIE_IDS_MESSAGE;
+import static com.example.movie_service.constant.MovieConstant.MAX_BATCH_MOVIE_IDS;
 import static com.example.movie_service.constant.MovieConstant.INVALID_ORDER_BY_CODE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_ORDER_BY_MESSAGE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_PAGE_CODE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_PAGE_MESSAGE;
+import static com.example.movie_service.constant.MovieConstant.INVALID_PREFIX_CODE;
+import static com.example.movie_service.constant.MovieConstant.INVALID_PREFIX_MESSAGE;
+import static com.example.movie_service.constant.MovieConstant.INVALID_SUGGESTION_LIMIT_CODE;
+import static com.example.movie_service.constant.MovieConstant.INVALID_SUGGESTION_LIMIT_MESSAGE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_YEAR_CODE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_YEAR_MESSAGE;
 import static com.example.movie_service.constant.MovieConstant.INVALID_TITLE_CODE;
@@ -108,6 +121,7 @@ class ValidationServiceUnitTests {
         assertDoesNotThrow(() -> validationService.validateOrderBy("rating"));
         assertDoesNotThrow(() -> validationService.validateOrderBy("title"));
         assertDoesNotThrow(() -> validationService.validateOrderBy("releaseTime"));
+        assertDoesNotThrow(() -> validationService.validateOrderBy("relevance"));
     }
 
     @Test
@@ -123,6 +137,19 @@ class ValidationServiceUnitTests {
         assertDoesNotThrow(() -> validationService.validateDirection(DESC));
     }
 
+    @Test
+    void validateCount_ShouldThrowException_WhenCountIsInvalid() {
+        ValidationException exception = assertThrows(ValidationException.class, () -> validationService.validateCount("about"));
+        assertEquals(INVALID_COUNT_CODE, exception.getErrorCode());
+        assertEquals(INVALID_COUNT_MESSAGE, exception.getErrorMessage());
+    }
+
+    @Test
+    void validateCount_ShouldNotThrowException_WhenCountIsValid() {
+        assertDoesNotThrow(() -> validationService.validateCount(COUNT_EXACT));
+        assertDoesNotThrow(() -> validationService.validateCount(COUNT_ESTIMATE));
+    }
+
     @Test
     void validateMovieId_ShouldNotThrowException_WhenMovieIdIsValid() {
         assertDoesNotThrow(() -> validationService.validateMovieId("tt001"));
@@ -141,4 +168,56 @@ class ValidationServiceUnitTests {
         assertEquals(INVALID_MOVIE_ID_CODE, exception.getErrorCode());
         assertEquals(INVALID_MOVIE_ID_MESSAGE, exception.getErrorMessage());
     }
+
+    @Test
+    void validateMovieIds_ShouldNotThrowException_WhenMovieIdsAreValid() {
+        assertDoesNotThrow(() -> validationService.validateMovieIds(List.of("tt001", "tt002")));
+        assertDoesNotThrow(() -> validationService.validateMovieIds(Collections.nCopies(MAX_BATCH_MOVIE_IDS, "tt001")));
+    }
+
+    @Test
+    void validateMovieIds_ShouldThrowException_WhenThereAreNoMovieIds() {
+        ValidationException exception = assertThrows(ValidationException.class, () -> validationService.validateMovieIds(List.of()));
+        assertEquals(INVALID_MOVIE_IDS_CODE, exception.getErrorCode());
+        assertEquals(INVALID_MOVIE_IDS_MESSAGE, exception.getErrorMessage());
+    }
+
+    @Test
+    void validateMovieIds_ShouldThrowException_WhenThereAreTooManyMovieIds() {
+        List<String> movieIds = Collections.nCopies(MAX_BATCH_MOVIE_IDS + 1, "tt001");
+        ValidationException exception = assertThrows(ValidationException.class, () -> validationService.validateMovieIds(movieIds));
+        assertEquals(INVALID_MOVIE_IDS_CODE, exception.getErrorCode());
+    }
+
+    @Test
+    void validateMovieIds_ShouldThrowException_WhenAMovieIdIsAnEmptyString() {
+        ValidationException exception = assertThrows(ValidationException.class, () -> validationService.validateMovieIds(List.of("tt001", "")));
+        assertEquals(INVALID_MOVIE_IDS_CODE, exception.getErrorCode());
+    }
+
+    @Test
+    void validatePrefix_ShouldThrowException_WhenPrefixIsBlank() {
+        ValidationException exception = assertThrows(ValidationException.class, () -> validationService.validatePrefix(" "));
+        assertEquals(INVALID_PREFIX_CODE, exception.getErrorCode());
+        assertEquals(INVALID_PREFIX_MESSAGE, exception.getErrorMessage());
+    }
+
+    @Test
+    void validatePrefix_ShouldNotThrowException_WhenPrefixIsValid() {
+        assertDoesNotThrow(() -> validationService.validatePrefix("th"));
+    }
+
+    @Test
+    void validateSuggestionLimit_ShouldThrowException_WhenLimitIsOutOfRange() {
+        ValidationException exception = assertThrows(ValidationException.class, () -> validationService.validateSuggestionLimit(0));
+        assertEquals(INVALID_SUGGESTION_LIMIT_CODE, exception.getErrorCode());
+        assertEquals(INVALID_SUGGESTION_LIMIT_MESSAGE, exception.getErrorMessage());
+        assertThrows(ValidationException.class, () -> validationService.validateSuggestionLimit(21));
+    }
+
+    @Test
+    void validateSuggestionLimit_ShouldNotThrowException_WhenLimitIsValid() {
+        assertDoesNotThrow(() -> validationService.validateSuggestionLimit(1));
+        assertDoesNotThrow(() -> validationService.validateSuggestionLimit(20));
+    }
 }